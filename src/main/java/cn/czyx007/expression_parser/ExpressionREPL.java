@@ -194,27 +194,63 @@ public class ExpressionREPL {
         System.out.println();
 
         System.out.println("  percentile(p, X), pctl(p, X)                Percentile (p ∈ [0,100])");
+        System.out.println("  percentiles(X, [p1, p2, ...])               Several percentiles at once");
+        System.out.println("  sort(X[, \"desc\"]), argsort(X[, \"desc\"])     Sorted values / sorting indices");
+        System.out.println("  topk(X, k), unique(X)                       k largest values / distinct values");
+        System.out.println("  qsketch(X[, k]), qpercentile(S, p)          Approximate quantiles (KLL sketch)");
+        System.out.println("  hll(X[, p]), hllcount(H)                    Approximate distinct count (HyperLogLog)");
+        System.out.println("  qmerge(S, ...), hllmerge(H, ...)            Merge sketches");
+        System.out.println("  sketchdata(S), sketchload(v)                Sketch to numeric vector and back");
+        System.out.println("  movsum, movavg, movstd, movmin, movmax (x, w)  Moving-window statistics");
+        System.out.println("  cumsum(x), cumprod(x), ema(x, alpha)        Cumulative sum / product, exponential moving average");
         System.out.println("  cov(X, Y), covariance(X, Y)                 Sample covariance");
         System.out.println("  covp(X, Y), covariancep(X, Y)               Population covariance");
         System.out.println("  corr(X, Y), correlation(X, Y)               Correlation coefficient");
+        System.out.println("  covmatrix(X), covmatrixp(X), corrmatrix(X)  Covariance / correlation matrix of the columns");
+        System.out.println("  linreg(X, y), linregstats(X, y)             Least-squares coefficients / [R², adj. R², σ, RSS, n]");
+        System.out.println("  lsq(X, y), lsqmerge(S, ...)                 Batch regression accumulator (use S in place of X, y)");
+        System.out.println("  fft(x), ifft(X)                             Fourier transform (complex as n×2 [re, im])");
+        System.out.println("  conv(x, h), xcorr(x[, y]), psd(x)           Convolution, cross-correlation, periodogram");
         System.out.println("  dot(X, Y), dotprod(X, Y)                    Vector dot product");
         System.out.println("  dist(X, Y), distance(X, Y), euclidean(X, Y) Euclidean distance");
         System.out.println("  manhattan(X, Y), taxicab(X, Y)              Manhattan distance");
         System.out.println();
 
         System.out.println("  transpose(matrix), t(matrix)     Matrix transpose");
+        System.out.println("  row(matrix, i), col(matrix, j)   Row / column (0-based)");
         System.out.println("  det(matrix), determinant(matrix) Determinant");
         System.out.println("  matmul(matrix_A, matrix_B)       Matrix multiplication");
+        System.out.println("  matpow(matrix, n), matrix^n      Integer matrix power (by squaring)");
         System.out.println("  trace(matrix)                    Matrix trace (sum of diagonal)");
         System.out.println("  rank(matrix)                     Matrix rank");
         System.out.println("  mean(matrix, axis)               Matrix mean (axis=0 cols, axis=1 rows)");
+        System.out.println("  sumaxis, minaxis, maxaxis, prodaxis (matrix, axis)");
+        System.out.println("  varaxis, stdaxis, varpaxis, stdpaxis, medianaxis (matrix, axis)");
+        System.out.println("                                   Per-column / per-row statistics");
         System.out.println("  inv(matrix)                      Matrix inverse");
-        System.out.println("  solve(A, b)                      Solve linear system Ax=b");
+        System.out.println("  solve(A, B)                      Solve linear system AX=B (multi-column B)");
+        System.out.println("  lu(matrix)                       LU factorization (reusable by solve/det/inv)");
+        System.out.println("  chol(matrix), cholesky(matrix)   Cholesky factorization (reusable by solve/det/inv)");
+        System.out.println("  cg(A, b, tol, maxIter, jacobi)   Conjugate gradient (SPD, dense or sparse)");
+        System.out.println("  gmres(A, b, tol, maxIter, jacobi, restart)  Restarted GMRES");
+        System.out.println("  solverinfo(x)                    [iterations, residual] of cg/gmres result");
+        System.out.println("  sparse(rows, cols, values, n, m) CSR sparse matrix from 0-based triplets");
+        System.out.println("  sparse(matrix), full(S)          Convert between dense and sparse");
+        System.out.println("  nnz(matrix)                      Number of non-zero elements");
+        System.out.println("  diag(v), diag(matrix)            Diagonal matrix / main diagonal");
+        System.out.println("  tril(matrix), triu(matrix)       Lower / upper triangular part");
+        System.out.println("  tridiag(sub, main, super)        Tridiagonal matrix (O(n) solve)");
+        System.out.println("  bdet(S), binv(S)                 Batched det / inverse of a k x n x n array");
+        System.out.println("  bmatmul(A, B), bsolve(A, B)      Batched matmul / solve over k matrices");
+        System.out.println("  einsum(\"ij,jk->ik\", A, B, ...)   Einstein summation (tensor contraction)");
+        System.out.println("  cdist(X, Y[, metric])            Pairwise row distances (euclidean, cityblock, cosine, ...)");
+        System.out.println("  pdist(X[, metric])               Condensed distances between rows of X");
         System.out.println();
 
         System.out.println("【Combinatorics】");
         System.out.println("  C(n,k), comb(n,k)    Combinations");
         System.out.println("  P(n,k), perm(n,k)    Permutations");
+        System.out.println("  lnfact(n), lncomb(n,k), lnperm(n,k)  Logarithms of n!, C(n,k), P(n,k)");
         System.out.println();
 
         System.out.println("【Variables】");
@@ -282,27 +318,63 @@ public class ExpressionREPL {
         System.out.println();
 
         System.out.println("  percentile(p, X), pctl(p, X)                百分位数(p ∈ [0,100])");
+        System.out.println("  percentiles(X, [p1, p2, ...])               一次求多个百分位数");
+        System.out.println("  sort(X[, \"desc\"]), argsort(X[, \"desc\"])     排序 / 排序下标");
+        System.out.println("  topk(X, k), unique(X)                       最大的 k 个值 / 不同值");
+        System.out.println("  qsketch(X[, k]), qpercentile(S, p)          近似分位数 (KLL 草图)");
+        System.out.println("  hll(X[, p]), hllcount(H)                    近似不同值计数 (HyperLogLog)");
+        System.out.println("  qmerge(S, ...), hllmerge(H, ...)            合并草图");
+        System.out.println("  sketchdata(S), sketchload(v)                草图与数值向量互相转换");
+        System.out.println("  movsum, movavg, movstd, movmin, movmax (x, w)  滑动窗口统计");
+        System.out.println("  cumsum(x), cumprod(x), ema(x, alpha)        前缀和 / 前缀积、指数移动平均");
         System.out.println("  cov(X, Y), covariance(X, Y)                 样本协方差");
         System.out.println("  covp(X, Y), covariancep(X, Y)               总体协方差");
         System.out.println("  corr(X, Y), correlation(X, Y)               相关系数");
+        System.out.println("  covmatrix(X), covmatrixp(X), corrmatrix(X)  各列的协方差 / 相关系数矩阵");
+        System.out.println("  linreg(X, y), linregstats(X, y)             最小二乘回归系数 / [R², 调整 R², σ, RSS, n]");
+        System.out.println("  lsq(X, y), lsqmerge(S, ...)                 分批回归累加器（可用 S 代替 X, y）");
+        System.out.println("  fft(x), ifft(X)                             傅里叶变换（复数为 n×2 矩阵 [实部, 虚部]）");
+        System.out.println("  conv(x, h), xcorr(x[, y]), psd(x)           卷积、互相关、周期图");
         System.out.println("  dot(X, Y), dotprod(X, Y)                    向量点积");
         System.out.println("  dist(X, Y), distance(X, Y), euclidean(X, Y) 欧几里得距离");
         System.out.println("  manhattan(X, Y), taxicab(X, Y)              曼哈顿距离");
         System.out.println();
 
         System.out.println("  transpose(matrix), t(matrix)     矩阵转置");
+        System.out.println("  row(matrix, i), col(matrix, j)   取行 / 列 (下标从 0 开始)");
         System.out.println("  det(matrix), determinant(matrix) 行列式");
         System.out.println("  matmul(matrix_A, matrix_B)       矩阵乘法");
+        System.out.println("  matpow(matrix, n), matrix^n      方阵的整数次幂 (平方求幂)");
         System.out.println("  trace(matrix)                    矩阵的迹(主对角线之和)");
         System.out.println("  rank(matrix)                     矩阵的秩");
         System.out.println("  mean(matrix, axis)               矩阵均值 (axis=0 列, axis=1 行)");
+        System.out.println("  sumaxis, minaxis, maxaxis, prodaxis (matrix, axis)");
+        System.out.println("  varaxis, stdaxis, varpaxis, stdpaxis, medianaxis (matrix, axis)");
+        System.out.println("                                   按列 / 按行统计");
         System.out.println("  inv(matrix)                      矩阵求逆");
-        System.out.println("  solve(A, b)                      解线性方程组 Ax=b");
+        System.out.println("  solve(A, B)                      解线性方程组 AX=B (B 可以有多列)");
+        System.out.println("  lu(matrix)                       LU 分解 (可传给 solve/det/inv 复用)");
+        System.out.println("  chol(matrix), cholesky(matrix)   Cholesky 分解 (可传给 solve/det/inv 复用)");
+        System.out.println("  cg(A, b, tol, maxIter, jacobi)   共轭梯度法 (对称正定, 稠密或稀疏)");
+        System.out.println("  gmres(A, b, tol, maxIter, jacobi, restart)  重启 GMRES");
+        System.out.println("  solverinfo(x)                    cg/gmres 结果的 [迭代次数, 残差]");
+        System.out.println("  sparse(rows, cols, values, n, m) 由三元组构造 CSR 稀疏矩阵 (下标从 0 开始)");
+        System.out.println("  sparse(matrix), full(S)          稠密矩阵与稀疏矩阵互相转换");
+        System.out.println("  nnz(matrix)                      非零元素个数");
+        System.out.println("  diag(v), diag(matrix)            对角矩阵 / 取主对角线");
+        System.out.println("  tril(matrix), triu(matrix)       下三角 / 上三角部分");
+        System.out.println("  tridiag(sub, main, super)        三对角矩阵 (O(n) 求解)");
+        System.out.println("  bdet(S), binv(S)                 k×n×n 数组的批量行列式 / 逆矩阵");
+        System.out.println("  bmatmul(A, B), bsolve(A, B)      k 个矩阵的批量乘法 / 解方程组");
+        System.out.println("  einsum(\"ij,jk->ik\", A, B, ...)   爱因斯坦求和 (张量收缩)");
+        System.out.println("  cdist(X, Y[, metric])            两组点（行）的距离矩阵 (euclidean, cityblock, cosine 等)");
+        System.out.println("  pdist(X[, metric])               X 各行两两距离 (压缩向量)");
         System.out.println();
 
         System.out.println("【组合数学】");
         System.out.println("  C(n,k), comb(n,k)    组合数");
         System.out.println("  P(n,k), perm(n,k)    排列数");
+        System.out.println("  lnfact(n), lncomb(n,k), lnperm(n,k)  n!、C(n,k)、P(n,k) 的自然对数");
         System.out.println();
 
         System.out.println("【变量】");
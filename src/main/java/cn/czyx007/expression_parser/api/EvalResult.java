@@ -0,0 +1,106 @@
+package cn.czyx007.expression_parser.api;
+
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+/**
+ * 求值结果 <br/>
+ * 以返回值而非异常的形式表示求值成功或失败；失败时的错误消息在调用 {@link #getMessage()} 时才格式化
+ */
+public final class EvalResult {
+    private final Value value;
+    private final ErrorCode errorCode;
+    private final Object[] params;
+
+    private EvalResult(Value value, ErrorCode errorCode, Object[] params) {
+        this.value = value;
+        this.errorCode = errorCode;
+        this.params = params;
+    }
+
+    /**
+     * 构造成功结果
+     * @param value 计算结果
+     * @return 求值结果
+     */
+    public static EvalResult success(Value value) {
+        return new EvalResult(value, null, null);
+    }
+
+    /**
+     * 构造失败结果
+     * @param errorCode 错误代码
+     * @param params 用于消息格式化的参数
+     * @return 求值结果
+     */
+    public static EvalResult failure(ErrorCode errorCode, Object... params) {
+        return new EvalResult(null, errorCode, params);
+    }
+
+    /**
+     * 判断求值是否成功
+     * @return 成功返回 true
+     */
+    public boolean isSuccess() {
+        return errorCode == null;
+    }
+
+    /**
+     * 获取计算结果
+     * @return 计算结果
+     * @throws ExpressionException 如果求值失败
+     */
+    public Value getValue() {
+        if (errorCode != null) {
+            throw toException();
+        }
+        return value;
+    }
+
+    /**
+     * 获取计算结果，失败时返回默认值
+     * @param defaultValue 默认值
+     * @return 计算结果或默认值
+     */
+    public Value getValueOrDefault(Value defaultValue) {
+        return errorCode == null ? value : defaultValue;
+    }
+
+    /**
+     * 获取错误代码
+     * @return 错误代码，成功时返回 null
+     */
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * 获取用于消息格式化的参数
+     * @return 参数数组，成功时返回 null
+     */
+    public Object[] getParams() {
+        return params;
+    }
+
+    /**
+     * 获取格式化的错误消息（仅在调用时格式化）
+     * @return 与 ExpressionException 相同的错误消息，成功时返回 null
+     */
+    public String getMessage() {
+        return errorCode == null ? null : errorCode.format(params);
+    }
+
+    /**
+     * 将失败结果转换为异常
+     * @return 对应的异常
+     */
+    public ExpressionException toException() {
+        return new ExpressionException(errorCode, params);
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? String.valueOf(value) : getMessage();
+    }
+}
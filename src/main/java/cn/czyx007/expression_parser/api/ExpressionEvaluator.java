@@ -2,8 +2,11 @@ package cn.czyx007.expression_parser.api;
 
 import cn.czyx007.expression_parser.ast.ExprNode;
 import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ExpressionException;
 import cn.czyx007.expression_parser.lexer.Lexer;
 import cn.czyx007.expression_parser.parser.Parser;
+import cn.czyx007.expression_parser.parser.SyntaxValidator;
+import cn.czyx007.expression_parser.parser.ValidationResult;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -35,4 +38,41 @@ public class ExpressionEvaluator {
         ExprNode ast = parser.parse();
         return ast.evalValue(context);
     }
+
+    /**
+     * 计算表达式（全新上下文），以返回值形式报告错误
+     * @param expression 表达式字符串
+     * @return 求值结果
+     */
+    public static EvalResult tryEval(String expression) {
+        return tryEval(expression, new HashMap<>());
+    }
+
+    /**
+     * 计算表达式（使用指定上下文），以返回值形式报告错误 <br/>
+     * 适用于大量探测输入、错误占比较高的场景：求值期间产生的异常不采集堆栈信息，
+     * 错误消息也只在调用 {@link EvalResult#getMessage()} 时才格式化
+     * @param expression 表达式字符串
+     * @param context    变量上下文
+     * @return 求值结果
+     */
+    public static EvalResult tryEval(String expression, Map<String, Object> context) {
+        Boolean previous = ExpressionException.setThreadStackTraceEnabled(false);
+        try {
+            return EvalResult.success(eval(expression, context));
+        } catch (ExpressionException e) {
+            return EvalResult.failure(e.getErrorCode(), e.getParams());
+        } finally {
+            ExpressionException.setThreadStackTraceEnabled(previous);
+        }
+    }
+
+    /**
+     * 仅校验表达式语法（不构建 AST、不求值）
+     * @param expression 表达式字符串
+     * @return 校验结果，包含错误代码、位置及引用的变量和函数名
+     */
+    public static ValidationResult validate(String expression) {
+        return SyntaxValidator.validate(expression);
+    }
 }
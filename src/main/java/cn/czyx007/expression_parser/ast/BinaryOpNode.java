@@ -3,13 +3,15 @@ package cn.czyx007.expression_parser.ast;
 import cn.czyx007.expression_parser.exception.ErrorCode;
 import cn.czyx007.expression_parser.exception.ExpressionException;
 import cn.czyx007.expression_parser.lexer.Token;
+import cn.czyx007.expression_parser.lexer.TokenType;
+import cn.czyx007.expression_parser.utils.MatrixOperators;
 
 import java.util.Map;
 
 /**
  * 二元运算节点<br/>
  * 表示二元运算表达式，如加减乘除、幂运算、取模等<br/>
- * 仅支持标量运算
+ * 方阵可以求整数次幂；其余运算默认只支持标量，{@link OperatorMode#MATRIX} 模式下 + - * / 支持数组操作数
  */
 public class BinaryOpNode extends ExprNode {
     private final ExprNode left;
@@ -41,7 +43,14 @@ public class BinaryOpNode extends ExprNode {
         Value leftVal = left.evalValue(context);
         Value rightVal = right.evalValue(context);
 
-        // 二元运算只支持标量
+        if (!leftVal.isScalar() || !rightVal.isScalar()) {
+            Value result = evalArray(leftVal, rightVal);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        // 其余二元运算只支持标量
         if (!leftVal.isScalar()) {
             throw new ExpressionException(ErrorCode.ARRAY_NOT_SUPPORTED_LEFT, op.value());
         }
@@ -54,6 +63,28 @@ public class BinaryOpNode extends ExprNode {
         return new Value(eval(leftScalar, rightScalar));
     }
 
+    /**
+     * 含数组操作数的运算：方阵的整数次幂，以及矩阵模式下的 + - * /
+     * @param leftVal 左操作数
+     * @param rightVal 右操作数
+     * @return 运算结果，不支持时返回 null
+     */
+    private Value evalArray(Value leftVal, Value rightVal) {
+        if (op.type() == TokenType.POWER && !leftVal.isScalar()) {
+            return MatrixOperators.power(leftVal, rightVal);
+        }
+        if (OperatorMode.current() != OperatorMode.MATRIX) {
+            return null;
+        }
+        switch (op.type()) {
+            case PLUS: return MatrixOperators.add(leftVal, rightVal);
+            case MINUS: return MatrixOperators.subtract(leftVal, rightVal);
+            case MULTIPLY: return MatrixOperators.multiply(leftVal, rightVal);
+            case DIVIDE: return MatrixOperators.divide(leftVal, rightVal);
+            default: return null;
+        }
+    }
+
     /**
      * 核心计算逻辑（复用于 eval 和 evalValue）
      * @param leftVal 左操作数
@@ -0,0 +1,225 @@
+package cn.czyx007.expression_parser.ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 稠密数组存储<br/>
+ * 以行主序的一维 double 数组保存向量、矩阵及更高维数组，运算结果无需逐元素创建 Value<br/>
+ * 也可以是共享同一存储的跨步视图（转置、行、列），创建视图不复制数据；数据数组直接共享，调用方不得修改
+ */
+public final class DenseArray {
+    private final double[] data;
+    private final int offset;
+    private final int[] shape;
+    private final int[] strides;
+    private final boolean rowMajor;
+    // 视图首次需要连续数据时复制得到的行主序数据
+    private volatile double[] contiguous;
+
+    /**
+     * 构造稠密数组
+     * @param data 行主序数据
+     * @param shape 各维长度，如矩阵为 {行数, 列数}
+     * @throws IllegalArgumentException 如果数据长度与形状不符
+     */
+    public DenseArray(double[] data, int... shape) {
+        long size = 1;
+        for (int dim : shape) {
+            size *= dim;
+        }
+        if (shape.length == 0 || size != data.length) {
+            throw new IllegalArgumentException("Data length " + data.length
+                + " does not match shape " + Arrays.toString(shape));
+        }
+        this.data = data;
+        this.offset = 0;
+        this.shape = shape.clone();
+        this.strides = rowMajorStrides(this.shape);
+        this.rowMajor = true;
+    }
+
+    private DenseArray(double[] data, int offset, int[] shape, int[] strides) {
+        this.data = data;
+        this.offset = offset;
+        this.shape = shape;
+        this.strides = strides;
+        this.rowMajor = offset == 0 && data.length == size() && Arrays.equals(strides, rowMajorStrides(shape));
+    }
+
+    private static int[] rowMajorStrides(int[] shape) {
+        int[] strides = new int[shape.length];
+        int stride = 1;
+        for (int a = shape.length - 1; a >= 0; a--) {
+            strides[a] = stride;
+            stride *= shape[a];
+        }
+        return strides;
+    }
+
+    /**
+     * 获取行主序数据（共享，不得修改）<br/>
+     * 视图在首次调用时复制为连续数据并缓存
+     * @return 数据数组
+     */
+    public double[] getData() {
+        if (isContiguous()) {
+            return data;
+        }
+        double[] c = contiguous;
+        if (c == null) {
+            c = new double[size()];
+            copyTo(c, 0, 0, offset);
+            contiguous = c;
+        }
+        return c;
+    }
+
+    private int copyTo(double[] dest, int pos, int axis, int base) {
+        int len = shape[axis], stride = strides[axis];
+        if (axis == shape.length - 1) {
+            for (int i = 0; i < len; i++) {
+                dest[pos++] = data[base + i * stride];
+            }
+            return pos;
+        }
+        for (int i = 0; i < len; i++) {
+            pos = copyTo(dest, pos, axis + 1, base + i * stride);
+        }
+        return pos;
+    }
+
+    /**
+     * 判断是否为连续的行主序存储（而非跨步视图）
+     * @return 连续存储返回 true
+     */
+    public boolean isContiguous() {
+        return rowMajor;
+    }
+
+    /**
+     * 获取底层存储（视图与被查看的数组共享同一存储）
+     * @return 底层数组
+     */
+    public double[] getStorage() {
+        return data;
+    }
+
+    /**
+     * 获取首元素在底层存储中的位置
+     * @return 偏移量
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * 获取指定维的步长（相邻元素在底层存储中的距离）
+     * @param axis 维下标
+     * @return 步长
+     */
+    public int getStride(int axis) {
+        return strides[axis];
+    }
+
+    /**
+     * 获取矩阵元素
+     * @param i 行号
+     * @param j 列号
+     * @return 元素值
+     */
+    public double get(int i, int j) {
+        return data[offset + i * strides[0] + j * strides[1]];
+    }
+
+    /**
+     * 矩阵转置视图（不复制数据）
+     * @return 行列互换的视图
+     */
+    public DenseArray transpose() {
+        return new DenseArray(data, offset, new int[]{shape[1], shape[0]}, new int[]{strides[1], strides[0]});
+    }
+
+    /**
+     * 沿指定维取一个切片（不复制数据），如矩阵的第 i 行为 select(0, i)，第 j 列为 select(1, j)
+     * @param axis 维下标
+     * @param index 该维上的位置
+     * @return 少一维的视图
+     */
+    public DenseArray select(int axis, int index) {
+        int[] newShape = new int[shape.length - 1];
+        int[] newStrides = new int[shape.length - 1];
+        for (int a = 0, b = 0; a < shape.length; a++) {
+            if (a != axis) {
+                newShape[b] = shape[a];
+                newStrides[b++] = strides[a];
+            }
+        }
+        return new DenseArray(data, offset + index * strides[axis], newShape, newStrides);
+    }
+
+    /**
+     * 获取维数（向量为 1，矩阵为 2）
+     * @return 维数
+     */
+    public int getRank() {
+        return shape.length;
+    }
+
+    /**
+     * 获取指定维的长度
+     * @param axis 维下标
+     * @return 该维长度
+     */
+    public int getDim(int axis) {
+        return shape[axis];
+    }
+
+    /**
+     * 获取形状
+     * @return 各维长度的副本
+     */
+    public int[] getShape() {
+        return shape.clone();
+    }
+
+    /**
+     * 获取元素总数
+     * @return 元素总数
+     */
+    public int size() {
+        int size = 1;
+        for (int dim : shape) {
+            size *= dim;
+        }
+        return size;
+    }
+
+    /**
+     * 转换为嵌套的 List&lt;Value&gt; 表示
+     * @return 最外层元素列表
+     */
+    List<Value> toList() {
+        return toList(getData(), 0, 0);
+    }
+
+    private List<Value> toList(double[] data, int axis, int offset) {
+        int len = shape[axis];
+        List<Value> result = new ArrayList<>(len);
+        if (axis == shape.length - 1) {
+            for (int i = 0; i < len; i++) {
+                result.add(new Value(data[offset + i]));
+            }
+            return result;
+        }
+        int stride = 1;
+        for (int a = axis + 1; a < shape.length; a++) {
+            stride *= shape[a];
+        }
+        for (int i = 0; i < len; i++) {
+            result.add(new Value(toList(data, axis + 1, offset + i * stride)));
+        }
+        return result;
+    }
+}
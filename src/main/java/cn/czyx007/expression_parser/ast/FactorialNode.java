@@ -2,12 +2,13 @@ package cn.czyx007.expression_parser.ast;
 
 import cn.czyx007.expression_parser.exception.ErrorCode;
 import cn.czyx007.expression_parser.exception.ExpressionException;
+import cn.czyx007.expression_parser.utils.Combinatorics;
 
 import java.util.Map;
 
 /**
  * 阶乘节点<br/>
- * 计算非负整数的阶乘（n!）
+ * 计算非负整数的阶乘（n!），0! 到 170! 查表得到
  */
 public class FactorialNode extends ExprNode {
     private final ExprNode expr;
@@ -49,21 +50,6 @@ public class FactorialNode extends ExprNode {
         if (n > 170) {
             throw new ExpressionException(ErrorCode.FACTORIAL_TOO_LARGE);
         }
-        return factorial(n);
-    }
-
-    /**
-     * 计算阶乘
-     * @param n 非负整数
-     * @return n! 的值
-     */
-    private double factorial(int n) {
-        if (n <= 1) return 1.0;
-        double result = 1.0;
-        for (int i = 2; i <= n; i++) {
-            result *= i;
-        }
-        return result;
+        return Combinatorics.factorial(n);
     }
 }
-
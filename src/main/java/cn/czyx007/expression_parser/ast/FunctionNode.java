@@ -71,17 +71,22 @@ public class FunctionNode extends ExprNode {
             throw new ExpressionException(ErrorCode.UNKNOWN_FUNCTION, funcName);
         }
 
-        // 收集所有参数值（展开数组）
-        List<Double> allValues = new ArrayList<>();
-        for (ExprNode arg : args) {
-            Value v = arg.evalValue(context);
-            v.collectScalars(allValues);
-        }
-
-        // 转换为 double 数组
-        double[] argValues = new double[allValues.size()];
-        for (int i = 0; i < allValues.size(); i++) {
-            argValues[i] = allValues.get(i);
+        // 展开所有参数值：先统计总数再一次性写入 double 数组，不经过装箱的中间列表
+        // 单个稠密数组参数直接使用其存储（标量函数不修改参数数组）
+        double[] argValues;
+        if (args.size() == 1) {
+            argValues = args.get(0).evalValue(context).scalarData();
+        } else {
+            Value[] values = new Value[args.size()];
+            int total = 0;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = args.get(i).evalValue(context);
+                total += values[i].scalarCount();
+            }
+            argValues = new double[total];
+            for (int i = 0, pos = 0; i < values.length; i++) {
+                pos = values[i].copyScalars(argValues, pos);
+            }
         }
 
         // 调用函数并返回结果
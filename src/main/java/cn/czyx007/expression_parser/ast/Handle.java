@@ -0,0 +1,13 @@
+package cn.czyx007.expression_parser.ast;
+
+/**
+ * 不透明句柄<br/>
+ * 由函数返回、只能传给特定函数使用的值（如矩阵分解结果），不能作为标量或数组参与运算
+ */
+public interface Handle {
+    /**
+     * 获取句柄类型名（用于显示和错误信息），如 "lu"
+     * @return 类型名
+     */
+    String getTypeName();
+}
@@ -0,0 +1,50 @@
+package cn.czyx007.expression_parser.ast;
+
+/**
+ * 运算符模式<br/>
+ * 决定 + - * / 及一元负号遇到数组操作数时的行为；可以全局或按线程设置<br/>
+ * 方阵的整数次幂 A^n 在两种模式下均可用
+ */
+public enum OperatorMode {
+    /** 标量模式（默认）：+ - * / 只接受标量，数组操作数报错 */
+    SCALAR,
+    /** 矩阵模式：矩阵 * 矩阵为矩阵乘法，+ - 为逐元素运算，数组与标量之间逐元素运算 */
+    MATRIX;
+
+    // 全局模式
+    private static volatile OperatorMode globalMode = SCALAR;
+    // 线程级模式：为 null 时使用全局模式
+    private static final ThreadLocal<OperatorMode> THREAD_MODE = new ThreadLocal<>();
+
+    /**
+     * 获取当前线程生效的运算符模式
+     * @return 运算符模式
+     */
+    public static OperatorMode current() {
+        OperatorMode threadMode = THREAD_MODE.get();
+        return threadMode != null ? threadMode : globalMode;
+    }
+
+    /**
+     * 设置全局运算符模式（默认为 {@link #SCALAR}）
+     * @param mode 运算符模式
+     */
+    public static void setGlobal(OperatorMode mode) {
+        globalMode = mode == null ? SCALAR : mode;
+    }
+
+    /**
+     * 设置当前线程的运算符模式，覆盖全局模式
+     * @param mode 运算符模式；为 null 时恢复使用全局模式
+     * @return 之前的线程级设置，便于在 finally 中恢复
+     */
+    public static OperatorMode setThreadMode(OperatorMode mode) {
+        OperatorMode previous = THREAD_MODE.get();
+        if (mode == null) {
+            THREAD_MODE.remove();
+        } else {
+            THREAD_MODE.set(mode);
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,236 @@
+package cn.czyx007.expression_parser.ast;
+
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+/**
+ * 压缩稀疏行（CSR）矩阵<br/>
+ * 第 i 行的非零元素为 values[rowPtr[i] .. rowPtr[i+1])，其列号为 colIdx 中对应位置，每行内列号严格递增<br/>
+ * 内存占用与非零元素个数成正比；数组直接共享，构造后不得修改
+ */
+public final class SparseMatrix {
+    /** 稠密数组最多能容纳的元素个数 */
+    private static final int MAX_DENSE_SIZE = Integer.MAX_VALUE - 8;
+
+    private final int rows;
+    private final int cols;
+    private final int[] rowPtr;
+    private final int[] colIdx;
+    private final double[] values;
+
+    /**
+     * 由 CSR 数组直接构造（调用方保证每行列号严格递增且在范围内）
+     * @param rows 行数
+     * @param cols 列数
+     * @param rowPtr 行指针，长度为 rows + 1
+     * @param colIdx 非零元素的列号
+     * @param values 非零元素的值
+     * @throws IllegalArgumentException 如果数组长度不一致
+     */
+    public SparseMatrix(int rows, int cols, int[] rowPtr, int[] colIdx, double[] values) {
+        if (rowPtr.length != rows + 1 || colIdx.length != values.length || rowPtr[rows] != values.length) {
+            throw new IllegalArgumentException("Inconsistent CSR arrays for a " + rows + "x" + cols + " matrix");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.values = values;
+    }
+
+    /**
+     * 由三元组 (行, 列, 值) 构造，重复位置的值相加，结果为 0 的位置不存储<br/>
+     * 先按列、再按行做两趟计数排序，复杂度 O(nnz + rows + cols)
+     * @param rows 行数
+     * @param cols 列数
+     * @param r 行号（从 0 开始，调用方保证在范围内）
+     * @param c 列号（从 0 开始，调用方保证在范围内）
+     * @param v 值
+     * @return 稀疏矩阵
+     */
+    public static SparseMatrix fromTriplets(int rows, int cols, int[] r, int[] c, double[] v) {
+        int len = v.length;
+        // 第一趟：按列号计数排序
+        int[] byCol = new int[len];
+        int[] start = new int[cols + 1];
+        for (int t = 0; t < len; t++) start[c[t] + 1]++;
+        for (int j = 0; j < cols; j++) start[j + 1] += start[j];
+        for (int t = 0; t < len; t++) byCol[start[c[t]]++] = t;
+        // 第二趟：按行号稳定计数排序，得到 (行, 列) 有序的三元组
+        int[] order = new int[len];
+        int[] rowStart = new int[rows + 1];
+        for (int t = 0; t < len; t++) rowStart[r[t] + 1]++;
+        for (int i = 0; i < rows; i++) rowStart[i + 1] += rowStart[i];
+        int[] next = rowStart.clone();
+        for (int t : byCol) order[next[r[t]]++] = t;
+
+        // 合并重复位置并去掉零值
+        int[] rowPtr = new int[rows + 1];
+        int[] colIdx = new int[len];
+        double[] values = new double[len];
+        int nnz = 0;
+        for (int i = 0; i < rows; i++) {
+            int p = rowStart[i];
+            while (p < rowStart[i + 1]) {
+                int col = c[order[p]];
+                double sum = 0;
+                while (p < rowStart[i + 1] && c[order[p]] == col) {
+                    sum += v[order[p++]];
+                }
+                if (sum != 0) {
+                    colIdx[nnz] = col;
+                    values[nnz++] = sum;
+                }
+            }
+            rowPtr[i + 1] = nnz;
+        }
+        return new SparseMatrix(rows, cols, rowPtr, trim(colIdx, nnz), trim(values, nnz));
+    }
+
+    /**
+     * 由行主序稠密数据构造，只保存非零元素
+     * @param data 行主序数据
+     * @param rows 行数
+     * @param cols 列数
+     * @return 稀疏矩阵
+     */
+    public static SparseMatrix fromDense(double[] data, int rows, int cols) {
+        int nnz = 0;
+        for (double d : data) {
+            if (d != 0) nnz++;
+        }
+        int[] rowPtr = new int[rows + 1];
+        int[] colIdx = new int[nnz];
+        double[] values = new double[nnz];
+        int p = 0;
+        for (int i = 0; i < rows; i++) {
+            int off = i * cols;
+            for (int j = 0; j < cols; j++) {
+                double d = data[off + j];
+                if (d != 0) {
+                    colIdx[p] = j;
+                    values[p++] = d;
+                }
+            }
+            rowPtr[i + 1] = p;
+        }
+        return new SparseMatrix(rows, cols, rowPtr, colIdx, values);
+    }
+
+    private static int[] trim(int[] a, int len) {
+        if (a.length == len) return a;
+        int[] r = new int[len];
+        System.arraycopy(a, 0, r, 0, len);
+        return r;
+    }
+
+    private static double[] trim(double[] a, int len) {
+        if (a.length == len) return a;
+        double[] r = new double[len];
+        System.arraycopy(a, 0, r, 0, len);
+        return r;
+    }
+
+    /**
+     * 获取行数
+     * @return 行数
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * 获取列数
+     * @return 列数
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * 获取非零元素个数
+     * @return 非零元素个数
+     */
+    public int nnz() {
+        return values.length;
+    }
+
+    /**
+     * 获取行指针（共享，不得修改）
+     * @return 行指针
+     */
+    public int[] getRowPtr() {
+        return rowPtr;
+    }
+
+    /**
+     * 获取列号（共享，不得修改）
+     * @return 列号
+     */
+    public int[] getColIdx() {
+        return colIdx;
+    }
+
+    /**
+     * 获取非零元素的值（共享，不得修改）
+     * @return 非零元素的值
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * 获取指定位置的元素（行内二分查找）
+     * @param i 行号
+     * @param j 列号
+     * @return 元素值，未存储的位置为 0
+     */
+    public double get(int i, int j) {
+        int lo = rowPtr[i], hi = rowPtr[i + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (colIdx[mid] < j) {
+                lo = mid + 1;
+            } else if (colIdx[mid] > j) {
+                hi = mid - 1;
+            } else {
+                return values[mid];
+            }
+        }
+        return 0.0;
+    }
+
+    /**
+     * 转换为稠密存储时的元素个数 rows × cols
+     * @return 元素个数
+     * @throws ExpressionException 如果元素个数超过 Java 数组的上限
+     */
+    public int denseSize() {
+        long size = (long) rows * cols;
+        if (size > MAX_DENSE_SIZE) {
+            throw new ExpressionException(ErrorCode.SPARSE_TOO_LARGE_TO_DENSIFY, rows, cols);
+        }
+        return (int) size;
+    }
+
+    /**
+     * 转换为稠密矩阵
+     * @return 二维稠密数组
+     * @throws ExpressionException 如果元素个数超过 Java 数组的上限
+     */
+    public DenseArray toDense() {
+        double[] data = new double[denseSize()];
+        for (int i = 0; i < rows; i++) {
+            int off = i * cols;
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                data[off + colIdx[p]] = values[p];
+            }
+        }
+        return new DenseArray(data, rows, cols);
+    }
+
+    @Override
+    public String toString() {
+        return "<sparse " + rows + "x" + cols + ", nnz=" + values.length + ">";
+    }
+}
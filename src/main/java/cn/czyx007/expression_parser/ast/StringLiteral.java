@@ -0,0 +1,35 @@
+package cn.czyx007.expression_parser.ast;
+
+/**
+ * 字符串值<br/>
+ * 由字符串字面量 "..." 产生，只能作为函数参数（如 einsum 的下标表达式），不能参与运算
+ */
+public final class StringLiteral implements Handle {
+    private final String text;
+
+    /**
+     * 构造字符串值
+     * @param text 字符串内容（不含引号）
+     */
+    public StringLiteral(String text) {
+        this.text = text;
+    }
+
+    /**
+     * 获取字符串内容
+     * @return 字符串内容
+     */
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String getTypeName() {
+        return "string";
+    }
+
+    @Override
+    public String toString() {
+        return "\"" + text + "\"";
+    }
+}
@@ -0,0 +1,32 @@
+package cn.czyx007.expression_parser.ast;
+
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.Map;
+
+/**
+ * 字符串节点<br/>
+ * 表示字符串字面量，如 einsum("ij,jk->ik", A, B) 中的下标表达式
+ */
+public class StringNode extends ExprNode {
+    private final String text;
+
+    /**
+     * 构造字符串节点
+     * @param text 字符串内容（不含引号）
+     */
+    public StringNode(String text) {
+        this.text = text;
+    }
+
+    @Override
+    public double eval(Map<String, Double> context) {
+        throw new ExpressionException(ErrorCode.HANDLE_NOT_SUPPORTED, "string");
+    }
+
+    @Override
+    public Value evalValue(Map<String, Object> context) {
+        return new Value(new StringLiteral(text));
+    }
+}
@@ -0,0 +1,187 @@
+package cn.czyx007.expression_parser.ast;
+
+/**
+ * 结构化方阵（对角、下三角、上三角、三对角）的紧凑存储<br/>
+ * 只保存结构内可能非零的元素：对角 n 个，三角 n(n+1)/2 个（按行打包），三对角 3n-2 个<br/>
+ * 数组直接共享，构造后不得修改
+ */
+public final class StructuredMatrix {
+
+    /**
+     * 矩阵结构
+     */
+    public enum Kind {
+        /** 对角矩阵：data[i] = a(i,i) */
+        DIAGONAL,
+        /** 下三角矩阵：第 i 行的 a(i,0..i) 依次存放，起始位置为 i(i+1)/2 */
+        LOWER,
+        /** 上三角矩阵：第 i 行的 a(i,i..n-1) 依次存放 */
+        UPPER,
+        /** 三对角矩阵：依次存放下次对角线 a(i+1,i)、主对角线 a(i,i)、上次对角线 a(i,i+1) */
+        TRIDIAGONAL
+    }
+
+    private final Kind kind;
+    private final int n;
+    private final double[] data;
+
+    /**
+     * 由紧凑数据构造
+     * @param kind 结构
+     * @param n 阶数
+     * @param data 紧凑数据，布局见 {@link Kind}
+     * @throws IllegalArgumentException 如果数据长度与结构不符
+     */
+    public StructuredMatrix(Kind kind, int n, double[] data) {
+        if (n < 1 || data.length != storageSize(kind, n)) {
+            throw new IllegalArgumentException("Data length " + data.length + " does not match a "
+                + n + "x" + n + " " + kind + " matrix");
+        }
+        this.kind = kind;
+        this.n = n;
+        this.data = data;
+    }
+
+    /**
+     * 紧凑存储所需的元素个数
+     * @param kind 结构
+     * @param n 阶数
+     * @return 元素个数
+     */
+    public static int storageSize(Kind kind, int n) {
+        switch (kind) {
+            case DIAGONAL: return n;
+            case TRIDIAGONAL: return 3 * n - 2;
+            default: return n * (n + 1) / 2;
+        }
+    }
+
+    /**
+     * 由行主序稠密数据提取指定结构内的元素（结构外的元素被忽略）
+     * @param kind 结构
+     * @param a 行主序 n×n 数据
+     * @param n 阶数
+     * @return 结构化矩阵
+     */
+    public static StructuredMatrix fromDense(Kind kind, double[] a, int n) {
+        double[] data = new double[storageSize(kind, n)];
+        switch (kind) {
+            case DIAGONAL:
+                for (int i = 0; i < n; i++) data[i] = a[i * n + i];
+                break;
+            case LOWER:
+                for (int i = 0, p = 0; i < n; i++) {
+                    System.arraycopy(a, i * n, data, p, i + 1);
+                    p += i + 1;
+                }
+                break;
+            case UPPER:
+                for (int i = 0, p = 0; i < n; i++) {
+                    System.arraycopy(a, i * n + i, data, p, n - i);
+                    p += n - i;
+                }
+                break;
+            default:
+                for (int i = 0; i < n - 1; i++) {
+                    data[i] = a[(i + 1) * n + i];
+                    data[2 * n - 1 + i] = a[i * n + i + 1];
+                }
+                for (int i = 0; i < n; i++) data[n - 1 + i] = a[i * n + i];
+        }
+        return new StructuredMatrix(kind, n, data);
+    }
+
+    /**
+     * 获取结构
+     * @return 结构
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * 获取阶数
+     * @return 阶数
+     */
+    public int getOrder() {
+        return n;
+    }
+
+    /**
+     * 获取紧凑数据（共享，不得修改）
+     * @return 紧凑数据
+     */
+    public double[] getData() {
+        return data;
+    }
+
+    /**
+     * 获取指定位置的元素
+     * @param i 行号
+     * @param j 列号
+     * @return 元素值，结构外的位置为 0
+     */
+    public double get(int i, int j) {
+        switch (kind) {
+            case DIAGONAL:
+                return i == j ? data[i] : 0.0;
+            case LOWER:
+                return j <= i ? data[i * (i + 1) / 2 + j] : 0.0;
+            case UPPER:
+                return j >= i ? data[upperRowStart(i) + j - i] : 0.0;
+            default:
+                if (j == i) return data[n - 1 + i];
+                if (j == i - 1) return data[j];
+                if (j == i + 1) return data[2 * n - 1 + i];
+                return 0.0;
+        }
+    }
+
+    /**
+     * 上三角打包存储中第 i 行的起始位置
+     * @param i 行号
+     * @return 起始位置
+     */
+    public int upperRowStart(int i) {
+        return i * n - i * (i - 1) / 2;
+    }
+
+    /**
+     * 转换为稠密矩阵
+     * @return 二维稠密数组
+     */
+    public DenseArray toDense() {
+        double[] a = new double[n * n];
+        switch (kind) {
+            case DIAGONAL:
+                for (int i = 0; i < n; i++) a[i * n + i] = data[i];
+                break;
+            case LOWER:
+                for (int i = 0, p = 0; i < n; i++) {
+                    System.arraycopy(data, p, a, i * n, i + 1);
+                    p += i + 1;
+                }
+                break;
+            case UPPER:
+                for (int i = 0, p = 0; i < n; i++) {
+                    System.arraycopy(data, p, a, i * n + i, n - i);
+                    p += n - i;
+                }
+                break;
+            default:
+                for (int i = 0; i < n; i++) {
+                    a[i * n + i] = data[n - 1 + i];
+                    if (i < n - 1) {
+                        a[(i + 1) * n + i] = data[i];
+                        a[i * n + i + 1] = data[2 * n - 1 + i];
+                    }
+                }
+        }
+        return new DenseArray(a, n, n);
+    }
+
+    @Override
+    public String toString() {
+        return "<" + kind.name().toLowerCase() + " " + n + "x" + n + ">";
+    }
+}
@@ -4,12 +4,13 @@ import cn.czyx007.expression_parser.exception.ErrorCode;
 import cn.czyx007.expression_parser.exception.ExpressionException;
 import cn.czyx007.expression_parser.lexer.Token;
 import cn.czyx007.expression_parser.lexer.TokenType;
+import cn.czyx007.expression_parser.utils.MatrixOperators;
 
 import java.util.Map;
 
 /**
  * 一元运算节点<br/>
- * 用于处理正负号（+x, -x）
+ * 用于处理正负号（+x, -x）；{@link OperatorMode#MATRIX} 模式下支持数组操作数
  */
 public class UnaryOpNode extends ExprNode {
     private final ExprNode expr;
@@ -34,6 +35,9 @@ public class UnaryOpNode extends ExprNode {
     @Override
     public Value evalValue(Map<String, Object> context) {
         Value val = expr.evalValue(context);
+        if (!val.isScalar() && OperatorMode.current() == OperatorMode.MATRIX && val.isArray()) {
+            return op.type() == TokenType.MINUS ? MatrixOperators.negate(val) : val;
+        }
         if (!val.isScalar()) {
             throw new ExpressionException(ErrorCode.ARRAY_NOT_SUPPORTED_UNARY, op.value());
         }
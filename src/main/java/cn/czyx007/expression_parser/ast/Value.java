@@ -5,16 +5,27 @@ import cn.czyx007.expression_parser.exception.ExpressionException;
 
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 值类型 - 支持标量（double）或数组（List&lt;Value&gt;）<br/>
- * 用于支持多数值变量和矩阵运算
+ * 用于支持多数值变量和矩阵运算；数组也可由 {@link DenseArray} 以原始 double 存储，仅在需要时才展开为 List<br/>
+ * 大型稀疏矩阵以 {@link SparseMatrix}（CSR）存储，对角、三角、三对角矩阵以 {@link StructuredMatrix} 紧凑存储；
+ * 此外还可以持有不透明句柄（{@link Handle}），如矩阵分解结果
  */
 public class Value {
     private final Double scalar;
-    private final List<Value> array;
+    private List<Value> array;
+    private final DenseArray dense;
+    private final SparseMatrix sparse;
+    private final StructuredMatrix structured;
+    private final Handle handle;
+    // 派生数据缓存（如稠密转换、矩阵分解）；值本身不可变，同一个 Value 重复使用时可直接复用
+    private volatile Map<String, Object> cache;
 
     private static final double EPS = 1e-12;
 
@@ -25,13 +36,22 @@ public class Value {
         DF.setRoundingMode(RoundingMode.HALF_UP);
     }
 
+    private Value(Double scalar, List<Value> array, DenseArray dense, SparseMatrix sparse,
+                  StructuredMatrix structured, Handle handle) {
+        this.scalar = scalar;
+        this.array = array;
+        this.dense = dense;
+        this.sparse = sparse;
+        this.structured = structured;
+        this.handle = handle;
+    }
+
     /**
      * 构造标量值
      * @param scalar 标量值
      */
     public Value(double scalar) {
-        this.scalar = scalar;
-        this.array = null;
+        this(scalar, null, null, null, null, null);
     }
 
     /**
@@ -39,8 +59,39 @@ public class Value {
      * @param array 数组值
      */
     public Value(List<Value> array) {
-        this.scalar = null;
-        this.array = array;
+        this(null, array, null, null, null, null);
+    }
+
+    /**
+     * 构造以原始 double 存储的数组值
+     * @param dense 稠密数组
+     */
+    public Value(DenseArray dense) {
+        this(null, null, dense, null, null, null);
+    }
+
+    /**
+     * 构造稀疏矩阵值
+     * @param sparse CSR 稀疏矩阵
+     */
+    public Value(SparseMatrix sparse) {
+        this(null, null, null, sparse, null, null);
+    }
+
+    /**
+     * 构造结构化矩阵值
+     * @param structured 对角、三角或三对角矩阵
+     */
+    public Value(StructuredMatrix structured) {
+        this(null, null, null, null, structured, null);
+    }
+
+    /**
+     * 构造句柄值
+     * @param handle 句柄
+     */
+    public Value(Handle handle) {
+        this(null, null, null, null, null, handle);
     }
 
     /**
@@ -56,7 +107,92 @@ public class Value {
      * @return 如果是数组返回 true，否则返回 false
      */
     public boolean isArray() {
-        return array != null;
+        return array != null || dense != null || sparse != null || structured != null;
+    }
+
+    /**
+     * 判断当前值是否为稀疏矩阵
+     * @return 如果是稀疏矩阵返回 true，否则返回 false
+     */
+    public boolean isSparse() {
+        return sparse != null;
+    }
+
+    /**
+     * 获取稀疏存储
+     * @return CSR 稀疏矩阵，若当前值不是稀疏矩阵则返回 null
+     */
+    public SparseMatrix getSparse() {
+        return sparse;
+    }
+
+    /**
+     * 判断当前值是否为结构化矩阵
+     * @return 如果是结构化矩阵返回 true，否则返回 false
+     */
+    public boolean isStructured() {
+        return structured != null;
+    }
+
+    /**
+     * 获取结构化存储
+     * @return 结构化矩阵，若当前值不是结构化矩阵则返回 null
+     */
+    public StructuredMatrix getStructured() {
+        return structured;
+    }
+
+    /**
+     * 判断当前值是否为句柄
+     * @return 如果是句柄返回 true，否则返回 false
+     */
+    public boolean isHandle() {
+        return handle != null;
+    }
+
+    /**
+     * 获取句柄
+     * @return 句柄，若当前值不是句柄则返回 null
+     */
+    public Handle getHandle() {
+        return handle;
+    }
+
+    /**
+     * 获取缓存的派生数据
+     * @param key 缓存键
+     * @return 缓存的数据，不存在时返回 null
+     */
+    public Object getCached(String key) {
+        Map<String, Object> c = cache;
+        return c == null ? null : c.get(key);
+    }
+
+    /**
+     * 缓存由当前值派生的数据（派生数据必须只依赖当前值且不可变）
+     * @param key 缓存键
+     * @param derived 派生数据
+     */
+    public void putCached(String key, Object derived) {
+        Map<String, Object> c = cache;
+        if (c == null) {
+            synchronized (this) {
+                c = cache;
+                if (c == null) {
+                    c = new ConcurrentHashMap<>();
+                    cache = c;
+                }
+            }
+        }
+        c.put(key, derived);
+    }
+
+    /**
+     * 获取原始 double 存储
+     * @return 稠密数组，若当前值不是以稠密形式存储则返回 null
+     */
+    public DenseArray getDense() {
+        return dense;
     }
 
     /**
@@ -65,6 +201,7 @@ public class Value {
      * @throws ExpressionException 如果当前值不是标量
      */
     public double asScalar() {
+        checkNotHandle();
         if (!isScalar()) {
             throw new ExpressionException(ErrorCode.ARRAY_TO_SCALAR_ERROR);
         }
@@ -72,14 +209,22 @@ public class Value {
     }
 
     /**
-     * 将当前值转换为数组
+     * 将当前值转换为数组（稠密、稀疏、结构化存储在首次调用时展开并缓存）
      * @return 数组值
      * @throws ExpressionException 如果当前值不是数组
      */
     public List<Value> asArray() {
+        checkNotHandle();
         if (!isArray()) {
             throw new ExpressionException(ErrorCode.SCALAR_TO_ARRAY_ERROR);
         }
+        if (array == null) {
+            if (dense != null) {
+                array = dense.toList();
+            } else {
+                array = (sparse != null ? sparse.toDense() : structured.toDense()).toList();
+            }
+        }
         return array;
     }
 
@@ -92,6 +237,16 @@ public class Value {
         if (isScalar()) {
             return new double[]{scalar};
         }
+        checkNotHandle();
+        if (sparse != null || structured != null) {
+            throw new ExpressionException(ErrorCode.MULTI_DIM_FLATTEN_NOT_SUPPORTED);
+        }
+        if (dense != null) {
+            if (dense.getRank() == 1) {
+                return dense.getData().clone();
+            }
+            throw new ExpressionException(ErrorCode.MULTI_DIM_FLATTEN_NOT_SUPPORTED);
+        }
         // 检查是否为一维数组（所有元素都是标量）
         if (array.stream().allMatch(Value::isScalar)) {
             double[] result = new double[array.size()];
@@ -110,6 +265,27 @@ public class Value {
     public void collectScalars(Collection<Double> result) {
         if (isScalar()) {
             result.add(scalar);
+        } else if (handle != null) {
+            checkNotHandle();
+        } else if (dense != null || structured != null) {
+            for (double v : (dense != null ? dense : structured.toDense()).getData()) {
+                result.add(v);
+            }
+        } else if (sparse != null) {
+            // 按行主序输出，未存储的位置为 0
+            sparse.denseSize();
+            int[] rowPtr = sparse.getRowPtr();
+            int[] colIdx = sparse.getColIdx();
+            double[] values = sparse.getValues();
+            for (int i = 0; i < sparse.getRows(); i++) {
+                int j = 0;
+                for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                    for (; j < colIdx[p]; j++) result.add(0.0);
+                    result.add(values[p]);
+                    j++;
+                }
+                for (; j < sparse.getCols(); j++) result.add(0.0);
+            }
         } else {
             for (Value v : array) {
                 v.collectScalars(result);
@@ -117,6 +293,86 @@ public class Value {
         }
     }
 
+    /**
+     * 标量值的总个数（即 collectScalars 收集的元素个数）
+     * @return 标量个数
+     */
+    public int scalarCount() {
+        if (isScalar()) {
+            return 1;
+        }
+        if (handle != null) {
+            checkNotHandle();
+        }
+        if (dense != null) {
+            return dense.size();
+        }
+        if (structured != null) {
+            return structured.getOrder() * structured.getOrder();
+        }
+        if (sparse != null) {
+            return sparse.denseSize();
+        }
+        int count = 0;
+        for (Value v : array) {
+            count += v.scalarCount();
+        }
+        return count;
+    }
+
+    /**
+     * 将所有标量值按 collectScalars 的顺序写入 dest，不产生装箱对象
+     * @param dest 目标数组
+     * @param pos 写入的起始位置
+     * @return 写入结束后的位置
+     */
+    public int copyScalars(double[] dest, int pos) {
+        if (isScalar()) {
+            dest[pos] = scalar;
+            return pos + 1;
+        }
+        if (handle != null) {
+            checkNotHandle();
+        }
+        if (dense != null || structured != null) {
+            double[] data = (dense != null ? dense : structured.toDense()).getData();
+            System.arraycopy(data, 0, dest, pos, data.length);
+            return pos + data.length;
+        }
+        if (sparse != null) {
+            int[] rowPtr = sparse.getRowPtr();
+            int[] colIdx = sparse.getColIdx();
+            double[] values = sparse.getValues();
+            int cols = sparse.getCols();
+            int size = sparse.denseSize();
+            Arrays.fill(dest, pos, pos + size, 0.0);
+            for (int i = 0; i < sparse.getRows(); i++) {
+                for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                    dest[pos + i * cols + colIdx[p]] = values[p];
+                }
+            }
+            return pos + size;
+        }
+        for (Value v : array) {
+            pos = v.copyScalars(dest, pos);
+        }
+        return pos;
+    }
+
+    /**
+     * 所有标量值组成的数组（用于统计函数）<br/>
+     * 稠密数组直接返回其行主序存储而不复制，调用方不得修改返回的数组
+     * @return 标量值数组
+     */
+    public double[] scalarData() {
+        if (dense != null) {
+            return dense.getData();
+        }
+        double[] result = new double[scalarCount()];
+        copyScalars(result, 0);
+        return result;
+    }
+
     /**
      * 将值转换为字符串表示
      * @return 字符串表示
@@ -126,6 +382,17 @@ public class Value {
         if (isScalar()) {
             return formatScalar(scalar);
         }
+        if (handle != null) {
+            return handle.toString();
+        }
+        if (sparse != null) {
+            return sparse.toString();
+        }
+        if (dense != null || structured != null) {
+            StringBuilder sb = new StringBuilder();
+            appendDense(sb, dense != null ? dense : structured.toDense(), 0, 0);
+            return sb.toString();
+        }
         StringBuilder sb = new StringBuilder("[");
         for (int i = 0; i < array.size(); i++) {
             if (i > 0) sb.append(", ");
@@ -135,6 +402,42 @@ public class Value {
         return sb.toString();
     }
 
+    /**
+     * 句柄不能作为标量或数组使用
+     * @throws ExpressionException 如果当前值是句柄
+     */
+    private void checkNotHandle() {
+        if (handle != null) {
+            throw new ExpressionException(ErrorCode.HANDLE_NOT_SUPPORTED, handle.getTypeName());
+        }
+    }
+
+    /**
+     * 输出稠密数组第 axis 维从 offset 开始的部分，格式与 List 形式一致
+     * @param sb 输出缓冲
+     * @param dense 稠密数组
+     * @param axis 当前维
+     * @param offset 当前维起始位置
+     */
+    private static void appendDense(StringBuilder sb, DenseArray dense, int axis, int offset) {
+        double[] data = dense.getData();
+        int len = dense.getDim(axis);
+        int stride = 1;
+        for (int a = axis + 1; a < dense.getRank(); a++) {
+            stride *= dense.getDim(a);
+        }
+        sb.append('[');
+        for (int i = 0; i < len; i++) {
+            if (i > 0) sb.append(", ");
+            if (axis == dense.getRank() - 1) {
+                sb.append(formatScalar(data[offset + i]));
+            } else {
+                appendDense(sb, dense, axis + 1, offset + i * stride);
+            }
+        }
+        sb.append(']');
+    }
+
     /**
      * 将接近零或整数的值标准化
      * @param v 待标准化的值
@@ -24,6 +24,7 @@ public enum ErrorCode {
     ILLEGAL_CHARACTER("S005", "Illegal character '%s' at position %d"),
     INVALID_SCIENTIFIC_NOTATION("S006", "Invalid scientific notation format at position %d: expected digit"),
     UNKNOWN_CONSTANT("S007", "Unknown constant: %s"),
+    UNTERMINATED_STRING("S008", "Unterminated string literal starting at position %d"),
 
     // 类型错误 (T-series)
     ARRAY_NOT_SUPPORTED_LEFT("T001", "Operator '%s' does not support array as left operand"),
@@ -37,6 +38,10 @@ public enum ErrorCode {
     ARRAY_TO_SCALAR_ERROR("T009", "Cannot convert array to scalar"),
     SCALAR_TO_ARRAY_ERROR("T010", "Cannot convert scalar to array"),
     MULTI_DIM_FLATTEN_NOT_SUPPORTED("T011", "Flattening multi-dimensional arrays is not yet supported"),
+    HANDLE_NOT_SUPPORTED("T012", "A %s value cannot be used as a scalar or array"),
+    OPERAND_SHAPE_MISMATCH("T013", "Operator '%s' requires operands of the same shape, but got %s and %s"),
+    OPERAND_NOT_NUMERIC_ARRAY("T014", "'%s' requires a rectangular numeric array"),
+    STRING_REQUIRED("T015", "%s: argument %d must be a string literal"),
 
     // 函数错误 (F-series)
     UNKNOWN_FUNCTION("F001", "Unknown function: %s"),
@@ -60,6 +65,7 @@ public enum ErrorCode {
     LOG_BASE_INVALID("F019", "log base must be greater than 0 and not equal to 1"),
     LOG_PARAM_INVALID("F020", "log parameter must be greater than 0"),
     GEOMEAN_POSITIVE("F021", "geomean parameters must be greater than 0"),
+    SPARSE_INVALID_ARGS("F022", "Function sparse requires 1, 3 or 5 arguments, but got %d"),
     VALIDATION_ERROR("F099", "%s"),  // 通用验证错误
 
     // 矩阵错误 (M-series)
@@ -72,12 +78,44 @@ public enum ErrorCode {
     MATRIX_ELEMENT_NOT_SCALAR("M007", "%s: matrix elements must be scalars"),
     MATRIX_DIMENSION_MISMATCH("M008", "matmul: matrix dimension mismatch, left matrix column count (%d) must equal right matrix row count (%d)"),
     MATRIX_SINGULAR("M009", "Matrix is not invertible (singular matrix)"),
-    MATRIX_INVALID_AXIS("M010", "mean axis can only be 0 or 1"),
+    MATRIX_INVALID_AXIS("M010", "%s axis can only be 0 or 1"),
     SOLVE_VECTOR_FORMAT("M011", "solve: right-hand side vector b must be a column vector (e.g., [[1],[2]]), not a row vector (e.g., [1,2])"),
     SOLVE_DIMENSION_MISMATCH("M012", "solve: row count of right-hand side vector b (%d) must equal the order of coefficient matrix A (%d)"),
     MATRIX_ALIAS_NOT_FOUND("M013", "Cannot create alias '%s' for non-existent matrix function '%s'"),
     COMB_NON_NEGATIVE("M014", "C(n,k) parameters must be non-negative"),
     PERM_NON_NEGATIVE("M015", "P(n,k) parameters must be non-negative"),
+    MATRIX_NOT_SPD("M016", "%s requires a symmetric positive definite matrix"),
+    SPARSE_LENGTH_MISMATCH("M017", "sparse: rows, cols and values must have the same length"),
+    SPARSE_INDEX_OUT_OF_RANGE("M018", "sparse: index (%d, %d) is out of range for a %dx%d matrix"),
+    ITERATIVE_RHS_FORMAT("M019", "%s: right-hand side b must be a vector with %d elements"),
+    JACOBI_ZERO_DIAGONAL("M020", "%s: Jacobi preconditioning requires a non-zero diagonal"),
+    SOLVER_INFO_REQUIRED("M021", "solverinfo requires the result of cg or gmres"),
+    INDEX_OUT_OF_RANGE("M022", "%s: index %d is out of range [0, %d)"),
+    TRIDIAG_LENGTH_MISMATCH("M023", "tridiag: sub- and super-diagonals must have %d elements when the main diagonal has %d"),
+    BATCH_SHAPE_INVALID("M024", "%s requires a stack of matrices (a k x n x m array), but got shape %s"),
+    BATCH_SHAPE_MISMATCH("M025", "%s: incompatible batch shapes %s and %s"),
+    BATCH_SINGULAR("M026", "%s: matrix %d of the batch is not invertible (singular matrix)"),
+    EINSUM_INVALID_SUBSCRIPTS("M027", "einsum: invalid subscripts '%s': %s"),
+    EINSUM_DIMENSION_MISMATCH("M028", "einsum: index '%s' has inconsistent sizes %d and %d"),
+    DISTANCE_DIMENSION_MISMATCH("M029", "%s: points must have the same number of coordinates, but got %d and %d"),
+    DISTANCE_UNKNOWN_METRIC("M030", "%s: unknown metric '%s' (expected euclidean, sqeuclidean, cityblock, cosine or correlation)"),
+    DISTANCE_ZERO_NORM("M031", "%s: %s distance is undefined for row %d of argument %d (zero norm)"),
+    SKETCH_REQUIRED("M032", "%s: argument %d must be a %s sketch"),
+    SKETCH_PARAMETER_RANGE("M033", "%s: %s must be an integer between %d and %d"),
+    SKETCH_PRECISION_MISMATCH("M034", "%s: cannot merge sketches of precision %d and %d"),
+    SKETCH_DATA_INVALID("M035", "sketchload: the data is not a serialized sketch"),
+    WINDOW_SIZE_INVALID("M036", "%s: window size must be a positive integer no larger than the data length, but got %s"),
+    EMA_ALPHA_RANGE("M037", "ema: alpha must be in (0, 1], but got %s"),
+    TOPK_RANGE("M038", "topk: k must be an integer between 1 and %d (the number of non-NaN values), but got %s"),
+    SORT_ORDER_UNKNOWN("M039", "%s: unknown sort order '%s' (expected asc or desc)"),
+    REGRESSION_DIMENSION_MISMATCH("M040", "%s: X has %d rows but y has %d values"),
+    REGRESSION_RANK_DEFICIENT("M041", "%s: the %d observations do not determine %d coefficients (columns of X are linearly dependent)"),
+    REGRESSION_PREDICTOR_MISMATCH("M042", "lsqmerge: cannot merge fits with %d and %d predictors"),
+    SPARSE_TOO_LARGE_TO_DENSIFY("M043", "A %dx%d sparse matrix is too large to convert to a dense array"),
+    SOLVER_PARAMETER_INVALID("M044", "%s: %s must be a positive integer, but got %s"),
+    REGRESSION_ACCUMULATOR_REQUIRED("M045", "%s: argument %d must be a least-squares accumulator (the result of lsq or lsqmerge)"),
+    SKETCH_EMPTY("M046", "%s: the sketch has no data (all values are NaN or the input is empty)"),
+    SOLVER_TOLERANCE_INVALID("M047", "%s: tol must be a finite non-negative number, but got %s"),
 
     // 运算符错误 (O-series)
     UNKNOWN_OPERATOR("O001", "Unknown operator: %s"),
@@ -2,11 +2,18 @@ package cn.czyx007.expression_parser.exception;
 
 /**
  * 表达式解析器自定义异常 <br/>
- * 封装错误代码，提供格式化的错误消息
+ * 封装错误代码，提供格式化的错误消息 <br/>
+ * 错误消息在首次调用 {@link #getMessage()} 时才格式化；堆栈信息的采集可以全局或按线程关闭
  */
 public class ExpressionException extends RuntimeException {
+    // 全局开关：是否采集堆栈信息
+    private static volatile boolean stackTraceEnabled = true;
+    // 线程级开关：为 null 时使用全局开关
+    private static final ThreadLocal<Boolean> THREAD_STACK_TRACE_ENABLED = new ThreadLocal<>();
+
     private final ErrorCode errorCode;
     private final Object[] params;
+    private String message;
 
     /**
      * 使用错误代码和可选参数创建异常
@@ -14,11 +21,23 @@ public class ExpressionException extends RuntimeException {
      * @param params 用于消息格式化的可选参数
      */
     public ExpressionException(ErrorCode errorCode, Object... params) {
-        super(errorCode.format(params));
+        super(null, null, true, isStackTraceEnabled());
         this.errorCode = errorCode;
         this.params = params;
     }
 
+    /**
+     * 获取格式化的错误消息（首次调用时格式化并缓存）
+     * @return 带有错误代码的错误消息
+     */
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = errorCode.format(params);
+        }
+        return message;
+    }
+
     /**
      * 获取错误代码
      * @return 错误代码
@@ -34,4 +53,37 @@ public class ExpressionException extends RuntimeException {
     public Object[] getParams() {
         return params;
     }
+
+    /**
+     * 判断当前线程新建的异常是否采集堆栈信息
+     * @return 是否采集堆栈信息
+     */
+    public static boolean isStackTraceEnabled() {
+        Boolean threadSetting = THREAD_STACK_TRACE_ENABLED.get();
+        return threadSetting != null ? threadSetting : stackTraceEnabled;
+    }
+
+    /**
+     * 设置全局是否采集堆栈信息（默认采集） <br/>
+     * 大量探测错误输入的场景可关闭，异常的创建开销将降至普通对象分配
+     * @param enabled 是否采集堆栈信息
+     */
+    public static void setStackTraceEnabled(boolean enabled) {
+        stackTraceEnabled = enabled;
+    }
+
+    /**
+     * 设置当前线程是否采集堆栈信息，覆盖全局开关
+     * @param enabled 是否采集堆栈信息；为 null 时恢复使用全局开关
+     * @return 之前的线程级设置，便于在 finally 中恢复
+     */
+    public static Boolean setThreadStackTraceEnabled(Boolean enabled) {
+        Boolean previous = THREAD_STACK_TRACE_ENABLED.get();
+        if (enabled == null) {
+            THREAD_STACK_TRACE_ENABLED.remove();
+        } else {
+            THREAD_STACK_TRACE_ENABLED.set(enabled);
+        }
+        return previous;
+    }
 }
@@ -6,11 +6,13 @@ import cn.czyx007.expression_parser.exception.ExpressionException;
 /**
  * 词法分析器（Lexer） <br/>
  * 将输入的表达式字符串分解为 Token 序列 <br/>
- * 支持数字、标识符、运算符、括号、数组字面量等
+ * 支持数字、标识符、字符串、运算符、括号、数组字面量等
  */
 public class Lexer {
     private final String input;
-    private int pos = 0;
+    // 扫描区间的结束位置（不含）
+    private final int end;
+    private int pos;
     private char currentChar;
 
     // lookahead：缓存预读的 token
@@ -21,9 +23,22 @@ public class Lexer {
      * @param input 待解析的表达式字符串
      */
     public Lexer(String input) {
+        this(input, 0, input.length());
+    }
+
+    /**
+     * 构造只扫描输入子区间的词法分析器 <br/>
+     * token 位置仍以完整输入为基准，用于增量解析时只重新扫描受影响的区间
+     * @param input 完整的表达式字符串
+     * @param start 扫描起始位置（含）
+     * @param end   扫描结束位置（不含）
+     */
+    public Lexer(String input, int start, int end) {
         this.input = input;
-        if (input.length() > 0) {
-            this.currentChar = input.charAt(0);
+        this.end = end;
+        this.pos = start;
+        if (start < end) {
+            this.currentChar = input.charAt(start);
         } else {
             this.currentChar = '\0';
         }
@@ -53,12 +68,21 @@ public class Lexer {
         return scanNextToken();
     }
 
+    /**
+     * 获取当前扫描位置 <br/>
+     * 词法错误抛出时即为出错字符的位置
+     * @return 当前位置
+     */
+    public int getPosition() {
+        return pos;
+    }
+
     /**
      * 前进一个字符
      */
     private void advance() {
         pos++;
-        if (pos > input.length() - 1) {
+        if (pos > end - 1) {
             currentChar = '\0';
         } else {
             currentChar = input.charAt(pos);
@@ -80,38 +104,32 @@ public class Lexer {
      * @return 数字的字符串表示
      */
     private String number() {
-        StringBuilder result = new StringBuilder();
+        int start = pos;
         // 处理整数部分
         while (currentChar != '\0' && Character.isDigit(currentChar)) {
-            result.append(currentChar);
             advance();
         }
         // 处理小数部分
         if (currentChar == '.') {
-            result.append(currentChar);
             advance();
             while (currentChar != '\0' && Character.isDigit(currentChar)) {
-                result.append(currentChar);
                 advance();
             }
         }
         // 科学计数法支持: e/E 后可跟 +/- 和数字
         if (currentChar == 'e' || currentChar == 'E') {
-            result.append(currentChar);
             advance();
             if (currentChar == '+' || currentChar == '-') {
-                result.append(currentChar);
                 advance();
             }
             if (!Character.isDigit(currentChar)) {
                 throw new ExpressionException(ErrorCode.INVALID_SCIENTIFIC_NOTATION, pos);
             }
             while (currentChar != '\0' && Character.isDigit(currentChar)) {
-                result.append(currentChar);
                 advance();
             }
         }
-        return result.toString();
+        return input.substring(start, pos);
     }
 
     /**
@@ -120,12 +138,29 @@ public class Lexer {
      * @return 标识符字符串
      */
     private String identifier() {
-        StringBuilder result = new StringBuilder();
+        int start = pos;
         while (currentChar != '\0' && (Character.isLetterOrDigit(currentChar) || currentChar == '_')) {
-            result.append(currentChar);
             advance();
         }
-        return result.toString();
+        return input.substring(start, pos);
+    }
+
+    /**
+     * 解析字符串字面量（双引号括起，不支持转义） <br/>
+     * 字符串中不能包含分号，以便多语句文本可以直接按分号切分
+     * @return 引号之间的内容
+     */
+    private String string() {
+        int start = pos;
+        advance();
+        while (currentChar != '"') {
+            if (currentChar == '\0' || currentChar == ';') {
+                throw new ExpressionException(ErrorCode.UNTERMINATED_STRING, start);
+            }
+            advance();
+        }
+        advance();
+        return input.substring(start + 1, pos - 1);
     }
 
     /**
@@ -147,9 +182,12 @@ public class Lexer {
             }
 
             // 支持 .5 这种省略前导零的数字
-            if (Character.isDigit(currentChar) || (currentChar == '.' && pos + 1 < input.length() && Character.isDigit(input.charAt(pos + 1)))) {
+            if (Character.isDigit(currentChar) || (currentChar == '.' && pos + 1 < end && Character.isDigit(input.charAt(pos + 1)))) {
                 return new Token(TokenType.NUMBER, number(), tokenPos);
             }
+            if (currentChar == '"') {
+                return new Token(TokenType.STRING, string(), tokenPos);
+            }
             if (currentChar == '+') {
                 advance();
                 return new Token(TokenType.PLUS, "+", tokenPos);
@@ -9,6 +9,8 @@ public enum TokenType {
     NUMBER,
     /** 标识符（变量名、函数名、常量名） */
     IDENTIFIER,
+    /** 字符串字面量 "..."（用作 einsum 等函数的参数） */
+    STRING,
     /** 加号 + */
     PLUS,
     /** 减号 - */
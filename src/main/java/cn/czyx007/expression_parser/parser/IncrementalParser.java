@@ -0,0 +1,169 @@
+package cn.czyx007.expression_parser.parser;
+
+import cn.czyx007.expression_parser.ast.ExprNode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+import cn.czyx007.expression_parser.lexer.Lexer;
+import cn.czyx007.expression_parser.parser.ParseSnapshot.Segment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量解析器 <br/>
+ * 面向编辑器、REPL 等需要在每次编辑后重新校验的场景 <br/>
+ * 分号只能作为语句分隔符出现，因此文本按分号切分为语句段； <br/>
+ * 一次编辑只重新词法分析、语法分析被编辑区间触及的语句段，其余语句段的 AST 原样复用
+ */
+public final class IncrementalParser {
+
+    private IncrementalParser() {
+    }
+
+    /**
+     * 完整解析文本，生成初始快照
+     * @param text 表达式文本
+     * @return 解析快照
+     */
+    public static ParseSnapshot parse(String text) {
+        List<Integer> starts = new ArrayList<>();
+        List<Segment> segments = new ArrayList<>();
+        splitAndParse(text, 0, text.length(), true, starts, segments);
+        return build(text, starts, segments);
+    }
+
+    /**
+     * 在上一次解析快照的基础上应用一次编辑并增量解析
+     * @param previous      上一次的解析快照
+     * @param offset        编辑起始位置
+     * @param deletedLength 删除的字符数
+     * @param insertedText  插入的文本
+     * @return 编辑后的解析快照
+     * @throws IllegalArgumentException 如果编辑区间超出文本范围
+     */
+    public static ParseSnapshot reparse(ParseSnapshot previous, int offset, int deletedLength, String insertedText) {
+        String oldText = previous.getText();
+        if (offset < 0 || deletedLength < 0 || offset + deletedLength > oldText.length()) {
+            throw new IllegalArgumentException("Edit range [" + offset + ", " + (offset + deletedLength)
+                + ") is out of bounds for text of length " + oldText.length());
+        }
+        String newText = oldText.substring(0, offset) + insertedText + oldText.substring(offset + deletedLength);
+        int delta = insertedText.length() - deletedLength;
+
+        int[] oldStarts = previous.starts();
+        Segment[] oldSegments = previous.segments();
+        int n = oldSegments.length;
+
+        // 受影响的语句段：包含编辑起点和编辑终点的语句段之间的全部语句段
+        int first = segmentAt(oldStarts, offset);
+        int last = segmentAt(oldStarts, offset + deletedLength);
+        int damagedStart = oldStarts[first];
+        int damagedEnd = oldStarts[last] + oldSegments[last].length + delta;
+
+        List<Integer> newStarts = new ArrayList<>();
+        List<Segment> newSegments = new ArrayList<>();
+        splitAndParse(newText, damagedStart, damagedEnd, last == n - 1, newStarts, newSegments);
+
+        int replaced = newSegments.size();
+        int total = first + replaced + (n - 1 - last);
+        int[] starts = new int[total];
+        Segment[] segments = new Segment[total];
+
+        // 编辑之前的语句段：位置不变，直接复用
+        System.arraycopy(oldStarts, 0, starts, 0, first);
+        System.arraycopy(oldSegments, 0, segments, 0, first);
+        // 受影响区间：使用重新解析的结果
+        for (int i = 0; i < replaced; i++) {
+            starts[first + i] = newStarts.get(i);
+            segments[first + i] = newSegments.get(i);
+        }
+        // 编辑之后的语句段：复用 AST，仅平移起始位置
+        for (int i = last + 1, j = first + replaced; i < n; i++, j++) {
+            starts[j] = oldStarts[i] + delta;
+            segments[j] = oldSegments[i];
+        }
+        return new ParseSnapshot(newText, starts, segments);
+    }
+
+    /**
+     * 查找包含指定位置的语句段（语句末尾的分号归属于该语句）
+     * @param starts 各语句段的起始位置
+     * @param offset 文本位置
+     * @return 语句段下标
+     */
+    private static int segmentAt(int[] starts, int offset) {
+        int lo = 0, hi = starts.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (starts[mid] <= offset) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 将 [start, end) 区间按分号切分并逐段解析
+     * @param text          完整文本
+     * @param start         区间起始位置
+     * @param end           区间结束位置（不含）
+     * @param containsLast  区间是否包含文本的最后一个语句段
+     * @param starts        输出：各语句段起始位置
+     * @param segments      输出：各语句段解析结果
+     */
+    private static void splitAndParse(String text, int start, int end, boolean containsLast,
+                                      List<Integer> starts, List<Segment> segments) {
+        int segStart = start;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == ';') {
+                starts.add(segStart);
+                segments.add(parseSegment(text, segStart, i - segStart, false));
+                segStart = i + 1;
+            }
+        }
+        starts.add(segStart);
+        segments.add(parseSegment(text, segStart, end - segStart, containsLast));
+    }
+
+    /**
+     * 解析单个语句段
+     * @param text   完整文本
+     * @param start  语句段起始位置
+     * @param length 语句段长度（不含结尾分号）
+     * @param isLast 是否为文本的最后一个语句段（其后没有分号）
+     * @return 语句段解析结果
+     */
+    static Segment parseSegment(String text, int start, int length, boolean isLast) {
+        int end = start + length;
+        // 末尾分号之后允许为空
+        if (isLast && isBlank(text, start, end)) {
+            return new Segment(length, null, null, start);
+        }
+        try {
+            // 非最后一段时连同结尾分号一起扫描，使错误信息与整体解析一致
+            Lexer lexer = new Lexer(text, start, isLast ? end : end + 1);
+            ExprNode node = new Parser(lexer).parseStatement();
+            return new Segment(length, node, null, start);
+        } catch (ExpressionException e) {
+            return new Segment(length, null, e, start);
+        }
+    }
+
+    private static boolean isBlank(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ParseSnapshot build(String text, List<Integer> startList, List<Segment> segmentList) {
+        int[] starts = new int[startList.size()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = startList.get(i);
+        }
+        return new ParseSnapshot(text, starts, segmentList.toArray(new Segment[0]));
+    }
+}
@@ -0,0 +1,142 @@
+package cn.czyx007.expression_parser.parser;
+
+import cn.czyx007.expression_parser.ast.ExprNode;
+import cn.czyx007.expression_parser.ast.StatementListNode;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 解析快照（不可变） <br/>
+ * 记录一次（增量）解析后的文本及按分号切分的各条语句 <br/>
+ * 未受编辑影响的语句在新旧快照之间共享同一个 AST 子树
+ */
+public final class ParseSnapshot {
+
+    /**
+     * 单条语句的解析结果 <br/>
+     * 只记录长度而不记录绝对位置，以便在快照之间共享
+     */
+    static final class Segment {
+        final int length;
+        final ExprNode node;
+        final ExpressionException error;
+        // 解析时语句的起始位置，错误消息中的位置以此为基准
+        final int parsedAt;
+
+        Segment(int length, ExprNode node, ExpressionException error, int parsedAt) {
+            this.length = length;
+            this.node = node;
+            this.error = error;
+            this.parsedAt = parsedAt;
+        }
+    }
+
+    private final String text;
+    private final int[] starts;
+    private final Segment[] segments;
+
+    ParseSnapshot(String text, int[] starts, Segment[] segments) {
+        this.text = text;
+        this.starts = starts;
+        this.segments = segments;
+    }
+
+    /**
+     * 获取快照对应的完整文本
+     * @return 表达式文本
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * 获取按分号切分的语句段数量（含末尾分号后的空段）
+     * @return 语句段数量
+     */
+    public int getStatementCount() {
+        return segments.length;
+    }
+
+    /**
+     * 获取指定语句段的 AST
+     * @param index 语句段下标
+     * @return 语句 AST；空语句或存在语法错误时返回 null
+     */
+    public ExprNode getStatement(int index) {
+        return segments[index].node;
+    }
+
+    /**
+     * 获取指定语句段在文本中的起始位置
+     * @param index 语句段下标
+     * @return 起始位置
+     */
+    public int getStatementStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * 判断整个文本是否语法正确
+     * @return 无语法错误返回 true
+     */
+    public boolean isValid() {
+        return getError() == null;
+    }
+
+    /**
+     * 获取文本中第一个语法错误 <br/>
+     * 与一次性调用 {@link Parser#parse()} 抛出的异常一致
+     * @return 第一个语法错误，无错误时返回 null
+     */
+    public ExpressionException getError() {
+        int last = segments.length - 1;
+        for (int i = 0; i <= last; i++) {
+            Segment seg = segments[i];
+            if (seg.error != null) {
+                if (seg.parsedAt == starts[i]) {
+                    return seg.error;
+                }
+                // 语句被前方的编辑整体平移过，重新解析以得到正确的错误位置
+                return IncrementalParser.parseSegment(text, starts[i], seg.length, i == last).error;
+            }
+        }
+        if (last == 0 && segments[0].node == null) {
+            return new ExpressionException(ErrorCode.EMPTY_EXPRESSION);
+        }
+        return null;
+    }
+
+    /**
+     * 获取完整的抽象语法树 <br/>
+     * 单条语句时直接返回该语句，多条语句时返回 StatementListNode
+     * @return 抽象语法树根节点
+     * @throws ExpressionException 如果文本存在语法错误
+     */
+    public ExprNode getAst() {
+        ExpressionException error = getError();
+        if (error != null) {
+            throw error;
+        }
+        List<ExprNode> statements = new ArrayList<>(segments.length);
+        for (Segment seg : segments) {
+            if (seg.node != null) {
+                statements.add(seg.node);
+            }
+        }
+        if (statements.size() == 1) {
+            return statements.get(0);
+        }
+        return new StatementListNode(statements);
+    }
+
+    int[] starts() {
+        return starts;
+    }
+
+    Segment[] segments() {
+        return segments;
+    }
+}
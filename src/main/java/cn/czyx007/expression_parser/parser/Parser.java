@@ -22,7 +22,7 @@ public class Parser {
     private Token currentToken;
 
     // 预定义常量
-    private static final Set<String> CONSTANTS = new HashSet<>();
+    static final Set<String> CONSTANTS = new HashSet<>();
     static {
         CONSTANTS.add("PI");
         CONSTANTS.add("E");
@@ -56,10 +56,11 @@ public class Parser {
      * @param type token 类型
      * @return 可读的类型名称
      */
-    private String getTypeName(TokenType type) {
+    static String getTypeName(TokenType type) {
         switch (type) {
             case NUMBER: return "NUMBER";
             case IDENTIFIER: return "IDENTIFIER";
+            case STRING: return "STRING";
             case PLUS: return "'+'";
             case MINUS: return "'-'";
             case MULTIPLY: return "'*'";
@@ -81,8 +82,8 @@ public class Parser {
 
     /**
      * 解析基础表达式元素（factor）<br/>
-     * 文法：factor : NUMBER | IDENTIFIER | LPAREN expr RPAREN | LBRACKET (expr (COMMA expr)*)? RBRACKET<br/>
-     * 处理基础元素：数字、标识符（函数/常量/变量）、括号表达式、数组字面量
+     * 文法：factor : NUMBER | STRING | IDENTIFIER | LPAREN expr RPAREN | LBRACKET (expr (COMMA expr)*)? RBRACKET<br/>
+     * 处理基础元素：数字、字符串、标识符（函数/常量/变量）、括号表达式、数组字面量
      * @return 表达式节点
      */
     private ExprNode factor() {
@@ -92,6 +93,10 @@ public class Parser {
             eat(TokenType.NUMBER);
             return new NumberNode(Double.parseDouble(token.value()));
         }
+        else if (token.type() == TokenType.STRING) {
+            eat(TokenType.STRING);
+            return new StringNode(token.value());
+        }
         else if (token.type() == TokenType.IDENTIFIER) {
             String name = token.value();
             eat(TokenType.IDENTIFIER);
@@ -333,6 +338,21 @@ public class Parser {
     }
 
 
+    /**
+     * 解析单条语句<br/>
+     * 文法：statement : expr (SEMICOLON | EOF)<br/>
+     * 不消费结尾的分号，供增量解析逐条重新解析受影响的语句
+     * @return 语句的抽象语法树
+     */
+    public ExprNode parseStatement() {
+        ExprNode node = expr();
+        if (currentToken.type() != TokenType.SEMICOLON && currentToken.type() != TokenType.EOF) {
+            throw new ExpressionException(ErrorCode.EXTRA_CONTENT,
+                currentToken.position(), currentToken.value());
+        }
+        return node;
+    }
+
     /**
      * 解析完整程序（语句列表）<br/>
      * 文法：program : statementList<br/>
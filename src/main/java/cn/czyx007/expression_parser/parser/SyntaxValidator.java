@@ -0,0 +1,245 @@
+package cn.czyx007.expression_parser.parser;
+
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+import cn.czyx007.expression_parser.lexer.Lexer;
+import cn.czyx007.expression_parser.lexer.Token;
+import cn.czyx007.expression_parser.lexer.TokenType;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 语法校验器（仅识别，不构建 AST） <br/>
+ * 与 {@link Parser} 使用相同的文法，但不创建任何 AST 节点，语法错误也不通过异常传递 <br/>
+ * 遇到第一个错误后记录错误信息并停止，同时收集表达式引用的变量和函数名
+ */
+public final class SyntaxValidator {
+    private final Lexer lexer;
+    private Token currentToken;
+
+    // 第一个错误（未出错时 errorCode 为 null）
+    private ErrorCode errorCode;
+    private Object[] errorParams;
+    private int errorPosition = -1;
+
+    private final Set<String> variables = new LinkedHashSet<>();
+    private final Set<String> assignedVariables = new LinkedHashSet<>();
+    private final Set<String> functions = new LinkedHashSet<>();
+
+    private SyntaxValidator(Lexer lexer) {
+        this.lexer = lexer;
+    }
+
+    /**
+     * 校验表达式语法
+     * @param expression 表达式字符串
+     * @return 校验结果
+     */
+    public static ValidationResult validate(String expression) {
+        Lexer lexer = new Lexer(expression);
+        SyntaxValidator validator = new SyntaxValidator(lexer);
+        try {
+            validator.currentToken = lexer.getNextToken();
+            validator.program();
+        } catch (ExpressionException e) {
+            // 词法错误：出错位置即词法分析器的当前位置
+            validator.fail(e.getErrorCode(), lexer.getPosition(), e.getParams());
+        }
+        return new ValidationResult(validator.errorCode, validator.errorParams, validator.errorPosition,
+            validator.variables, validator.assignedVariables, validator.functions);
+    }
+
+    /**
+     * 记录错误（只保留第一个）
+     * @param code 错误代码
+     * @param position 错误位置
+     * @param params 消息格式化参数
+     */
+    private void fail(ErrorCode code, int position, Object... params) {
+        if (errorCode == null) {
+            errorCode = code;
+            errorPosition = position;
+            errorParams = params;
+        }
+    }
+
+    private boolean failed() {
+        return errorCode != null;
+    }
+
+    /**
+     * 消费指定类型的 token，不匹配则记录语法错误
+     * @param type 期望的 token 类型
+     * @return 是否匹配
+     */
+    private boolean eat(TokenType type) {
+        if (currentToken.type() == type) {
+            currentToken = lexer.getNextToken();
+            return true;
+        }
+        fail(ErrorCode.SYNTAX_ERROR, currentToken.position(), currentToken.position(),
+            Parser.getTypeName(type), Parser.getTypeName(currentToken.type()), currentToken.value());
+        return false;
+    }
+
+    /**
+     * 文法：program : expr (SEMICOLON expr)* SEMICOLON?
+     */
+    private void program() {
+        if (currentToken.type() == TokenType.EOF) {
+            fail(ErrorCode.EMPTY_EXPRESSION, 0);
+            return;
+        }
+        expr();
+        while (!failed() && currentToken.type() == TokenType.SEMICOLON) {
+            eat(TokenType.SEMICOLON);
+            if (currentToken.type() != TokenType.EOF) {
+                expr();
+            }
+        }
+        if (!failed() && currentToken.type() != TokenType.EOF) {
+            fail(ErrorCode.EXTRA_CONTENT, currentToken.position(), currentToken.position(), currentToken.value());
+        }
+    }
+
+    /**
+     * 文法：expr : IDENTIFIER ASSIGN expr | addExpr
+     */
+    private void expr() {
+        if (currentToken.type() == TokenType.IDENTIFIER && lexer.peek().type() == TokenType.ASSIGN) {
+            assignedVariables.add(currentToken.value());
+            eat(TokenType.IDENTIFIER);
+            eat(TokenType.ASSIGN);
+            expr();
+            return;
+        }
+        addExpr();
+    }
+
+    /**
+     * 文法：addExpr : term ((PLUS | MINUS) term)*
+     */
+    private void addExpr() {
+        term();
+        while (!failed() && (currentToken.type() == TokenType.PLUS || currentToken.type() == TokenType.MINUS)) {
+            eat(currentToken.type());
+            term();
+        }
+    }
+
+    /**
+     * 文法：term : unary ((MUL | DIV | MOD) unary)*
+     */
+    private void term() {
+        unary();
+        while (!failed() && (currentToken.type() == TokenType.MULTIPLY
+                || currentToken.type() == TokenType.DIVIDE
+                || currentToken.type() == TokenType.MODULO)) {
+            eat(currentToken.type());
+            unary();
+        }
+    }
+
+    /**
+     * 文法：unary : (+|-) unary | power
+     */
+    private void unary() {
+        while (currentToken.type() == TokenType.PLUS || currentToken.type() == TokenType.MINUS) {
+            eat(currentToken.type());
+        }
+        power();
+    }
+
+    /**
+     * 文法：power : implicitMul ( '^' power )?
+     */
+    private void power() {
+        implicitMul();
+        if (!failed() && currentToken.type() == TokenType.POWER) {
+            eat(TokenType.POWER);
+            // 递归调用 power() 实现右结合
+            power();
+        }
+    }
+
+    /**
+     * 文法：implicitMul : postfix (postfix)*
+     */
+    private void implicitMul() {
+        postfix();
+        while (!failed() && (currentToken.type() == TokenType.IDENTIFIER || currentToken.type() == TokenType.LPAREN)) {
+            postfix();
+        }
+    }
+
+    /**
+     * 文法：postfix : factor ('!')*
+     */
+    private void postfix() {
+        factor();
+        while (!failed() && currentToken.type() == TokenType.FACTORIAL) {
+            eat(TokenType.FACTORIAL);
+        }
+    }
+
+    /**
+     * 文法：factor : NUMBER | STRING | IDENTIFIER | LPAREN expr RPAREN | LBRACKET (expr (COMMA expr)*)? RBRACKET
+     */
+    private void factor() {
+        Token token = currentToken;
+        switch (token.type()) {
+            case NUMBER:
+                eat(TokenType.NUMBER);
+                return;
+            case STRING:
+                eat(TokenType.STRING);
+                return;
+            case IDENTIFIER:
+                String name = token.value();
+                eat(TokenType.IDENTIFIER);
+                if (Parser.CONSTANTS.contains(name.toUpperCase())) {
+                    return;
+                }
+                if (currentToken.type() == TokenType.LPAREN) {
+                    functions.add(name.toLowerCase());
+                    eat(TokenType.LPAREN);
+                    list(TokenType.RPAREN);
+                    return;
+                }
+                variables.add(name);
+                return;
+            case LPAREN:
+                eat(TokenType.LPAREN);
+                expr();
+                if (!failed()) {
+                    eat(TokenType.RPAREN);
+                }
+                return;
+            case LBRACKET:
+                eat(TokenType.LBRACKET);
+                list(TokenType.RBRACKET);
+                return;
+            default:
+                fail(ErrorCode.UNEXPECTED_TOKEN, token.position(), token.position(),
+                    Parser.getTypeName(token.type()), token.value());
+        }
+    }
+
+    /**
+     * 逗号分隔的表达式列表及其结束符（函数参数、数组元素）
+     * @param close 结束符类型
+     */
+    private void list(TokenType close) {
+        if (currentToken.type() != close) {
+            expr();
+            while (!failed() && currentToken.type() == TokenType.COMMA) {
+                eat(TokenType.COMMA);
+                expr();
+            }
+        }
+        if (!failed()) {
+            eat(close);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package cn.czyx007.expression_parser.parser;
+
+import cn.czyx007.expression_parser.exception.ErrorCode;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 语法校验结果 <br/>
+ * 包含是否通过、错误代码与位置，以及表达式引用的变量和函数名
+ */
+public final class ValidationResult {
+    private final ErrorCode errorCode;
+    private final Object[] params;
+    private final int position;
+    private final Set<String> variables;
+    private final Set<String> assignedVariables;
+    private final Set<String> functions;
+
+    ValidationResult(ErrorCode errorCode, Object[] params, int position,
+                     Set<String> variables, Set<String> assignedVariables, Set<String> functions) {
+        this.errorCode = errorCode;
+        this.params = params;
+        this.position = position;
+        this.variables = Collections.unmodifiableSet(variables);
+        this.assignedVariables = Collections.unmodifiableSet(assignedVariables);
+        this.functions = Collections.unmodifiableSet(functions);
+    }
+
+    /**
+     * 判断表达式是否语法正确
+     * @return 语法正确返回 true
+     */
+    public boolean isValid() {
+        return errorCode == null;
+    }
+
+    /**
+     * 获取错误代码
+     * @return 错误代码，语法正确时返回 null
+     */
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * 获取用于消息格式化的参数
+     * @return 参数数组，语法正确时返回 null
+     */
+    public Object[] getParams() {
+        return params;
+    }
+
+    /**
+     * 获取错误在表达式中的位置
+     * @return 位置索引，语法正确时返回 -1
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * 获取格式化的错误消息（仅在调用时格式化）
+     * @return 与 ExpressionException 相同的错误消息，语法正确时返回 null
+     */
+    public String getMessage() {
+        return errorCode == null ? null : errorCode.format(params);
+    }
+
+    /**
+     * 获取表达式中读取的变量名（按出现顺序）
+     * @return 变量名集合
+     */
+    public Set<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * 获取表达式中被赋值的变量名（按出现顺序）
+     * @return 变量名集合
+     */
+    public Set<String> getAssignedVariables() {
+        return assignedVariables;
+    }
+
+    /**
+     * 获取表达式中调用的函数名（小写，按出现顺序）
+     * @return 函数名集合
+     */
+    public Set<String> getFunctions() {
+        return functions;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "ValidationResult{valid}" : "ValidationResult{" + getMessage() + "}";
+    }
+}
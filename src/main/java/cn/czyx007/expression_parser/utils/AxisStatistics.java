@@ -0,0 +1,178 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 矩阵按轴统计：mean(A, axis)、sumaxis(A, axis) 等<br/>
+ * axis = 0 按列统计，返回 1×n 行向量；axis = 1 按行统计，返回 m×1 列向量<br/>
+ * 直接在矩阵的底层存储上按步长遍历（转置视图不复制），每个元素只读一次：
+ * 外层循环沿存储中步长较大的方向，内层沿步长较小的方向，各列（或行）的累加器保存在 double 数组中
+ */
+final class AxisStatistics {
+
+    /**
+     * 按轴统计的种类
+     */
+    enum Op {
+        MEAN("mean"), SUM("sumaxis"), PROD("prodaxis"), MIN("minaxis"), MAX("maxaxis"),
+        VAR("varaxis"), STD("stdaxis"), VARP("varpaxis"), STDP("stdpaxis"), MEDIAN("medianaxis");
+
+        private final String funcName;
+
+        Op(String funcName) {
+            this.funcName = funcName;
+        }
+
+        String funcName() {
+            return funcName;
+        }
+    }
+
+    private AxisStatistics() {
+    }
+
+    /**
+     * 按轴统计：f(A, axis)
+     * @param args 参数列表（矩阵、轴）
+     * @param op 统计种类
+     * @return axis = 0 时为 1×n 行向量，axis = 1 时为 m×1 列向量
+     * @throws ExpressionException 如果参数不是矩阵或轴不是 0、1
+     */
+    static Value reduce(List<Value> args, Op op) {
+        String funcName = op.funcName();
+        FunctionRegistry.validateArgCount(funcName, args.size(), 2);
+        Value axisVal = args.get(1);
+        if (!axisVal.isScalar()) {
+            throw new ExpressionException(ErrorCode.SCALAR_REQUIRED, funcName);
+        }
+        int axis = (int) axisVal.asScalar();
+        if (axis != 0 && axis != 1) {
+            throw new ExpressionException(ErrorCode.MATRIX_INVALID_AXIS, funcName);
+        }
+        DenseArray d = MatrixMathUtils.toDenseMatrix(args.get(0), funcName);
+        // lane：每个统计结果对应的一列（或一行）；step：沿被统计的方向前进一步
+        int lanes = d.getDim(1 - axis), len = d.getDim(axis);
+        if ((op == Op.VAR || op == Op.STD) && len < 2) {
+            throw new ExpressionException(ErrorCode.VARIANCE_MIN_ARGS);
+        }
+        double[] r = reduce(d.getStorage(), d.getOffset(), lanes, d.getStride(1 - axis), len, d.getStride(axis), op);
+        return new Value(axis == 0 ? new DenseArray(r, 1, lanes) : new DenseArray(r, lanes, 1));
+    }
+
+    /**
+     * 统计内核
+     * @param s 底层存储
+     * @param o 首元素位置
+     * @param lanes 结果个数
+     * @param laneStride 相邻 lane 在存储中的距离
+     * @param len 每个 lane 的元素个数
+     * @param stepStride lane 内相邻元素在存储中的距离
+     * @param op 统计种类
+     * @return 每个 lane 的统计结果
+     */
+    private static double[] reduce(double[] s, int o, int lanes, int laneStride, int len, int stepStride, Op op) {
+        // 外层沿步长较大的方向；laneInner 为 true 时内层遍历 lane（如行主序矩阵按列统计）
+        boolean laneInner = laneStride <= stepStride;
+        int outer = laneInner ? len : lanes, inner = laneInner ? lanes : len;
+        int outerStride = laneInner ? stepStride : laneStride, innerStride = laneInner ? laneStride : stepStride;
+        double[] acc = new double[lanes];
+        switch (op) {
+            case MEAN:
+            case SUM:
+                for (int a = 0; a < outer; a++) {
+                    for (int b = 0, p = o + a * outerStride; b < inner; b++, p += innerStride) {
+                        acc[laneInner ? b : a] += s[p];
+                    }
+                }
+                if (op == Op.MEAN) {
+                    for (int j = 0; j < lanes; j++) acc[j] /= len;
+                }
+                return acc;
+            case PROD:
+                Arrays.fill(acc, 1.0);
+                for (int a = 0; a < outer; a++) {
+                    for (int b = 0, p = o + a * outerStride; b < inner; b++, p += innerStride) {
+                        acc[laneInner ? b : a] *= s[p];
+                    }
+                }
+                return acc;
+            case MIN:
+                Arrays.fill(acc, Double.POSITIVE_INFINITY);
+                for (int a = 0; a < outer; a++) {
+                    for (int b = 0, p = o + a * outerStride; b < inner; b++, p += innerStride) {
+                        int j = laneInner ? b : a;
+                        acc[j] = Math.min(acc[j], s[p]);
+                    }
+                }
+                return acc;
+            case MAX:
+                Arrays.fill(acc, Double.NEGATIVE_INFINITY);
+                for (int a = 0; a < outer; a++) {
+                    for (int b = 0, p = o + a * outerStride; b < inner; b++, p += innerStride) {
+                        int j = laneInner ? b : a;
+                        acc[j] = Math.max(acc[j], s[p]);
+                    }
+                }
+                return acc;
+            case MEDIAN:
+                return median(s, o, lanes, laneStride, len, stepStride, laneInner);
+            default:
+                return variance(s, o, lanes, len, laneInner, outer, inner, outerStride, innerStride, op);
+        }
+    }
+
+    /**
+     * 方差、标准差：Welford 单遍算法，每个 lane 维护均值与离差平方和
+     */
+    private static double[] variance(double[] s, int o, int lanes, int len, boolean laneInner,
+                                     int outer, int inner, int outerStride, int innerStride, Op op) {
+        double[] mean = new double[lanes], m2 = new double[lanes];
+        for (int a = 0; a < outer; a++) {
+            for (int b = 0, p = o + a * outerStride; b < inner; b++, p += innerStride) {
+                int j = laneInner ? b : a;
+                double x = s[p];
+                double delta = x - mean[j];
+                mean[j] += delta / ((laneInner ? a : b) + 1);
+                m2[j] += delta * (x - mean[j]);
+            }
+        }
+        boolean sample = op == Op.VAR || op == Op.STD;
+        boolean sqrt = op == Op.STD || op == Op.STDP;
+        for (int j = 0; j < lanes; j++) {
+            double v = m2[j] / (sample ? len - 1 : len);
+            m2[j] = sqrt ? Math.sqrt(v) : v;
+        }
+        return m2;
+    }
+
+    /**
+     * 中位数：按存储顺序一次读出所有元素，按 lane 分段写入缓冲区后逐段选择
+     */
+    private static double[] median(double[] s, int o, int lanes, int laneStride, int len, int stepStride, boolean laneInner) {
+        double[] buf = new double[lanes * len];
+        if (laneInner) {
+            for (int t = 0; t < len; t++) {
+                for (int j = 0, p = o + t * stepStride; j < lanes; j++, p += laneStride) {
+                    buf[j * len + t] = s[p];
+                }
+            }
+        } else {
+            for (int j = 0; j < lanes; j++) {
+                for (int t = 0, p = o + j * laneStride; t < len; t++, p += stepStride) {
+                    buf[j * len + t] = s[p];
+                }
+            }
+        }
+        double[] r = new double[lanes];
+        for (int j = 0, from = 0; j < lanes; j++, from += len) {
+            r[j] = OrderStatistics.median(buf, from, from + len);
+        }
+        return r;
+    }
+}
@@ -0,0 +1,921 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.List;
+
+/**
+ * 批量小矩阵运算工具类<br/>
+ * 输入为 k×n×m 的三维数组（k 个同形矩阵按行主序连续存放），一次调用处理整批矩阵，
+ * 结果直接写入连续的输出数组，不逐个矩阵创建 Value<br/>
+ * 2、3、4 阶使用展开的定长内核（行列式、乘法、部分主元 LU），更高阶使用工作区上的循环内核；
+ * 求逆与解方程对每个矩阵只做一次不分配内存的 LU 分解，奇异判定与 inv、solve 相同（LU 主元阈值），结果与逐个调用一致
+ */
+final class BatchedMatrixUtils {
+
+    private BatchedMatrixUtils() {
+    }
+
+    /**
+     * 批量行列式：bdet(S)，S 为 k×n×n 数组
+     * @param args 参数列表
+     * @return 长度为 k 的一维数组
+     * @throws ExpressionException 如果参数不是方阵组成的批次
+     */
+    static Value bdet(List<Value> args) {
+        FunctionRegistry.validateArgCount("bdet", args.size(), 1);
+        DenseArray s = squareStack(args.get(0), "bdet");
+        int k = s.getDim(0), n = s.getDim(1), nn = n * n;
+        double[] a = s.getData();
+        double[] r = new double[k];
+        switch (n) {
+            case 1: System.arraycopy(a, 0, r, 0, k); break;
+            case 2: for (int b = 0, p = 0; b < k; b++, p += 4) r[b] = det2(a, p); break;
+            case 3: for (int b = 0, p = 0; b < k; b++, p += 9) r[b] = det3(a, p); break;
+            case 4: for (int b = 0, p = 0; b < k; b++, p += 16) r[b] = det4(a, p); break;
+            default:
+                double[] scratch = new double[nn];
+                for (int b = 0, p = 0; b < k; b++, p += nn) {
+                    System.arraycopy(a, p, scratch, 0, nn);
+                    // 与 det 一致：行列式只在主元严格为 0 时为 0
+                    r[b] = LUDecomposition.factor(scratch, n).determinant();
+                }
+        }
+        return new Value(new DenseArray(r, k));
+    }
+
+    /**
+     * 批量求逆：binv(S)，S 为 k×n×n 数组<br/>
+     * 每个矩阵只做一次部分主元 LU 分解（4 阶及以下为展开的定长内核，更高阶使用预先分配的工作区），由同一次分解得到奇异判定（阈值与 inv 相同）和逆矩阵
+     * @param args 参数列表
+     * @return k×n×n 数组
+     * @throws ExpressionException 如果参数不是方阵组成的批次或其中有奇异矩阵
+     */
+    static Value binv(List<Value> args) {
+        FunctionRegistry.validateArgCount("binv", args.size(), 1);
+        DenseArray s = squareStack(args.get(0), "binv");
+        int k = s.getDim(0), n = s.getDim(1), nn = n * n;
+        double[] a = s.getData();
+        double[] r = new double[k * nn];
+        double[] lu = new double[nn];
+        int[] perm = new int[n];
+        for (int b = 0, p = 0; b < k; b++, p += nn) {
+            if (!invert(a, p, r, n, lu, perm)) {
+                throw new ExpressionException(ErrorCode.BATCH_SINGULAR, "binv", b);
+            }
+        }
+        return new Value(new DenseArray(r, k, n, n));
+    }
+
+    /**
+     * 批量矩阵乘法：bmatmul(A, B)<br/>
+     * A 为 k×n×m、B 为 k×m×p 时逐对相乘；任一侧为单个二维矩阵时与另一侧的每个矩阵相乘
+     * @param args 参数列表
+     * @return k×n×p 数组
+     * @throws ExpressionException 如果形状不匹配
+     */
+    static Value bmatmul(List<Value> args) {
+        FunctionRegistry.validateArgCount("bmatmul", args.size(), 2);
+        DenseArray x = stack(args.get(0), "bmatmul", true);
+        DenseArray y = stack(args.get(1), "bmatmul", true);
+        boolean bx = x.getRank() == 3, by = y.getRank() == 3;
+        if (!bx && !by) {
+            throw new ExpressionException(ErrorCode.BATCH_SHAPE_INVALID, "bmatmul", MatrixMathUtils.shapeString(x.getShape()));
+        }
+        int k = bx ? x.getDim(0) : y.getDim(0);
+        int n = x.getDim(bx ? 1 : 0), m = x.getDim(bx ? 2 : 1);
+        int m2 = y.getDim(by ? 1 : 0), p = y.getDim(by ? 2 : 1);
+        if (m != m2 || (bx && by && x.getDim(0) != y.getDim(0))) {
+            throw new ExpressionException(ErrorCode.BATCH_SHAPE_MISMATCH, "bmatmul",
+                MatrixMathUtils.shapeString(x.getShape()), MatrixMathUtils.shapeString(y.getShape()));
+        }
+        double[] a = x.getData(), c = y.getData();
+        // 单个矩阵的步长为 0，即每个批次都读同一个矩阵
+        int sa = bx ? n * m : 0, sc = by ? m * p : 0, np = n * p;
+        double[] r = new double[k * np];
+        if (n == m && m == p && n <= 4 && n >= 2) {
+            for (int b = 0, pa = 0, pc = 0, pr = 0; b < k; b++, pa += sa, pc += sc, pr += np) {
+                switch (n) {
+                    case 2: mul2(a, pa, c, pc, r, pr); break;
+                    case 3: mul3(a, pa, c, pc, r, pr); break;
+                    default: mul4(a, pa, c, pc, r, pr);
+                }
+            }
+        } else {
+            for (int b = 0, pa = 0, pc = 0, pr = 0; b < k; b++, pa += sa, pc += sc, pr += np) {
+                for (int i = 0; i < n; i++) {
+                    int ri = pr + i * p;
+                    for (int t = 0; t < m; t++) {
+                        double v = a[pa + i * m + t];
+                        int ct = pc + t * p;
+                        for (int j = 0; j < p; j++) {
+                            r[ri + j] += v * c[ct + j];
+                        }
+                    }
+                }
+            }
+        }
+        return new Value(new DenseArray(r, k, n, p));
+    }
+
+    /**
+     * 批量解线性方程组：bsolve(A, B)，A 为 k×n×n<br/>
+     * B 为 k×n 时每个方程组一个右侧向量，结果为 k×n；B 为 k×n×r 时结果为 k×n×r<br/>
+     * 每个矩阵只做一次部分主元 LU 分解（4 阶及以下为展开的定长内核，更高阶使用预先分配的工作区），由同一次分解得到奇异判定（阈值与 solve 相同）和解
+     * @param args 参数列表
+     * @return 解数组
+     * @throws ExpressionException 如果形状不匹配或其中有奇异矩阵
+     */
+    static Value bsolve(List<Value> args) {
+        FunctionRegistry.validateArgCount("bsolve", args.size(), 2);
+        DenseArray x = squareStack(args.get(0), "bsolve");
+        DenseArray y = stack(args.get(1), "bsolve", true);
+        int k = x.getDim(0), n = x.getDim(1), nn = n * n;
+        int rc = y.getRank() == 3 ? y.getDim(2) : 1;
+        if (y.getDim(0) != k || y.getDim(1) != n) {
+            throw new ExpressionException(ErrorCode.BATCH_SHAPE_MISMATCH, "bsolve",
+                MatrixMathUtils.shapeString(x.getShape()), MatrixMathUtils.shapeString(y.getShape()));
+        }
+        double[] a = x.getData(), rhs = y.getData();
+        int nr = n * rc;
+        double[] r = new double[k * nr];
+        double[] lu = new double[nn];
+        int[] perm = new int[n];
+        for (int b = 0, pa = 0, pb = 0; b < k; b++, pa += nn, pb += nr) {
+            if (!solve(a, pa, rhs, pb, r, n, rc, lu, perm)) {
+                throw new ExpressionException(ErrorCode.BATCH_SINGULAR, "bsolve", b);
+            }
+        }
+        return new Value(new DenseArray(r, y.getShape()));
+    }
+
+    // ========== 参数校验 ==========
+
+    /**
+     * 将参数转换为连续存储的矩阵批次
+     * @param value 参数
+     * @param funcName 函数名称（用于错误信息）
+     * @param allowMatrix 是否也接受二维数组
+     * @return 三维（或二维）稠密数组
+     * @throws ExpressionException 如果维数不符
+     */
+    private static DenseArray stack(Value value, String funcName, boolean allowMatrix) {
+        if (!value.isArray()) {
+            throw new ExpressionException(ErrorCode.MATRIX_REQUIRED, funcName);
+        }
+        DenseArray d = MatrixMathUtils.toDenseArray(value, funcName);
+        if (d.getRank() != 3 && !(allowMatrix && d.getRank() == 2)) {
+            throw new ExpressionException(ErrorCode.BATCH_SHAPE_INVALID, funcName, MatrixMathUtils.shapeString(d.getShape()));
+        }
+        return d;
+    }
+
+    /**
+     * 将参数转换为 k×n×n 的方阵批次
+     * @param value 参数
+     * @param funcName 函数名称（用于错误信息）
+     * @return 三维稠密数组
+     * @throws ExpressionException 如果不是三维数组或矩阵不是方阵
+     */
+    private static DenseArray squareStack(Value value, String funcName) {
+        DenseArray d = stack(value, funcName, false);
+        if (d.getDim(1) != d.getDim(2)) {
+            throw new ExpressionException(ErrorCode.MATRIX_SQUARE_REQUIRED, funcName);
+        }
+        return d;
+    }
+
+    // ========== 定长内核（a 为行主序数据，p 为矩阵起始位置） ==========
+
+    private static double det2(double[] a, int p) {
+        return a[p] * a[p + 3] - a[p + 1] * a[p + 2];
+    }
+
+    private static double det3(double[] a, int p) {
+        return a[p] * (a[p + 4] * a[p + 8] - a[p + 5] * a[p + 7])
+             - a[p + 1] * (a[p + 3] * a[p + 8] - a[p + 5] * a[p + 6])
+             + a[p + 2] * (a[p + 3] * a[p + 7] - a[p + 4] * a[p + 6]);
+    }
+
+    private static double det4(double[] a, int p) {
+        // 按前两行做 Laplace 展开：6 个 2×2 子式与其余子式相乘
+        double s0 = a[p] * a[p + 5] - a[p + 4] * a[p + 1];
+        double s1 = a[p] * a[p + 6] - a[p + 4] * a[p + 2];
+        double s2 = a[p] * a[p + 7] - a[p + 4] * a[p + 3];
+        double s3 = a[p + 1] * a[p + 6] - a[p + 5] * a[p + 2];
+        double s4 = a[p + 1] * a[p + 7] - a[p + 5] * a[p + 3];
+        double s5 = a[p + 2] * a[p + 7] - a[p + 6] * a[p + 3];
+        double c5 = a[p + 10] * a[p + 15] - a[p + 14] * a[p + 11];
+        double c4 = a[p + 9] * a[p + 15] - a[p + 13] * a[p + 11];
+        double c3 = a[p + 9] * a[p + 14] - a[p + 13] * a[p + 10];
+        double c2 = a[p + 8] * a[p + 15] - a[p + 12] * a[p + 11];
+        double c1 = a[p + 8] * a[p + 14] - a[p + 12] * a[p + 10];
+        double c0 = a[p + 8] * a[p + 13] - a[p + 12] * a[p + 9];
+        return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+    }
+
+    /**
+     * 求第 p 个位置开始的 n 阶矩阵的逆，结果写入 r 的同一位置
+     * @param lu n &gt; 4 时使用的 n×n 工作区
+     * @param perm n &gt; 4 时使用的行置换工作区
+     * @return 矩阵奇异时返回 false
+     */
+    private static boolean invert(double[] a, int p, double[] r, int n, double[] lu, int[] perm) {
+        switch (n) {
+            case 1:
+                r[p] = 1.0 / a[p];
+                return Math.abs(a[p]) > LUDecomposition.SINGULAR_EPS;
+            case 2: return inv2(a, p, r);
+            case 3: return inv3(a, p, r);
+            case 4: return inv4(a, p, r);
+            default: break;
+        }
+        if (!factor(a, p, n, lu, perm)) {
+            return false;
+        }
+        // 右侧为 P·I：第 i 行只在第 perm[i] 列为 1
+        for (int i = 0; i < n; i++) {
+            int off = p + i * n;
+            for (int j = 0; j < n; j++) {
+                r[off + j] = 0.0;
+            }
+            r[off + perm[i]] = 1.0;
+        }
+        substitute(lu, n, r, p, n);
+        return true;
+    }
+
+    /**
+     * 解从 pa 开始的 n 阶方程组，右侧从 pb 开始共 rc 列，结果写入 r 的 pb 位置
+     * @param lu n &gt; 4 时使用的 n×n 工作区
+     * @param perm n &gt; 4 时使用的行置换工作区
+     * @return 矩阵奇异时返回 false
+     */
+    private static boolean solve(double[] a, int pa, double[] b, int pb, double[] r, int n, int rc,
+                                 double[] lu, int[] perm) {
+        switch (n) {
+            case 2: return solve2(a, pa, b, pb, r, rc);
+            case 3: return solve3(a, pa, b, pb, r, rc);
+            case 4: return solve4(a, pa, b, pb, r, rc);
+            default: break;
+        }
+        if (!factor(a, pa, n, lu, perm)) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(b, pb + perm[i] * rc, r, pb + i * rc, rc);
+        }
+        substitute(lu, n, r, pb, rc);
+        return true;
+    }
+
+    /**
+     * 2 阶求逆：展开的部分主元 LU 分解 PA = LU，A⁻¹ = U⁻¹·L⁻¹·P，结果写入 r 的 p 位置
+     * @return 矩阵奇异时返回 false
+     */
+    private static boolean inv2(double[] a, int pa, double[] r) {
+        double m00 = a[pa], m01 = a[pa + 1];
+        double m10 = a[pa + 2], m11 = a[pa + 3];
+        int p0 = 0, p1 = 1, piv, s;
+        double max, v, t;
+        // 第 0 列：选主元、换行、消元
+        piv = 0;
+        max = Math.abs(m00);
+        v = Math.abs(m10);
+        if (v > max) { max = v; piv = 1; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 1) {
+            t = m00; m00 = m10; m10 = t;
+            t = m01; m01 = m11; m11 = t;
+            s = p0; p0 = p1; p1 = s;
+        }
+        double d0 = 1.0 / m00;
+        m10 *= d0;
+        m11 -= m10 * m01;
+        if (!(Math.abs(m11) > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        double d1 = 1.0 / m11;
+        // L⁻¹（单位下三角）
+        double y10 = -m10;
+        // U⁻¹·L⁻¹ 的第 j 列写到 A⁻¹ 的第 p_j 列
+        double x10 = y10 * d1;
+        double x00 = (1 - m01 * x10) * d0;
+        double x11 = d1;
+        double x01 = -m01 * x11 * d0;
+        int c0 = pa + p0;
+        int c1 = pa + p1;
+        r[c0] = x00;
+        r[c1] = x01;
+        r[c0 + 2] = x10;
+        r[c1 + 2] = x11;
+        return true;
+    }
+
+    /**
+     * 3 阶求逆：展开的部分主元 LU 分解 PA = LU，A⁻¹ = U⁻¹·L⁻¹·P，结果写入 r 的 p 位置
+     * @return 矩阵奇异时返回 false
+     */
+    private static boolean inv3(double[] a, int pa, double[] r) {
+        double m00 = a[pa], m01 = a[pa + 1], m02 = a[pa + 2];
+        double m10 = a[pa + 3], m11 = a[pa + 4], m12 = a[pa + 5];
+        double m20 = a[pa + 6], m21 = a[pa + 7], m22 = a[pa + 8];
+        int p0 = 0, p1 = 1, p2 = 2, piv, s;
+        double max, v, t;
+        // 第 0 列：选主元、换行、消元
+        piv = 0;
+        max = Math.abs(m00);
+        v = Math.abs(m10);
+        if (v > max) { max = v; piv = 1; }
+        v = Math.abs(m20);
+        if (v > max) { max = v; piv = 2; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 1) {
+            t = m00; m00 = m10; m10 = t;
+            t = m01; m01 = m11; m11 = t;
+            t = m02; m02 = m12; m12 = t;
+            s = p0; p0 = p1; p1 = s;
+        } else if (piv == 2) {
+            t = m00; m00 = m20; m20 = t;
+            t = m01; m01 = m21; m21 = t;
+            t = m02; m02 = m22; m22 = t;
+            s = p0; p0 = p2; p2 = s;
+        }
+        double d0 = 1.0 / m00;
+        m10 *= d0;
+        m11 -= m10 * m01;
+        m12 -= m10 * m02;
+        m20 *= d0;
+        m21 -= m20 * m01;
+        m22 -= m20 * m02;
+        // 第 1 列：选主元、换行、消元
+        piv = 1;
+        max = Math.abs(m11);
+        v = Math.abs(m21);
+        if (v > max) { max = v; piv = 2; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 2) {
+            t = m10; m10 = m20; m20 = t;
+            t = m11; m11 = m21; m21 = t;
+            t = m12; m12 = m22; m22 = t;
+            s = p1; p1 = p2; p2 = s;
+        }
+        double d1 = 1.0 / m11;
+        m21 *= d1;
+        m22 -= m21 * m12;
+        if (!(Math.abs(m22) > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        double d2 = 1.0 / m22;
+        // L⁻¹（单位下三角）
+        double y10 = -m10;
+        double y20 = -(m20 + m21 * y10);
+        double y21 = -m21;
+        // U⁻¹·L⁻¹ 的第 j 列写到 A⁻¹ 的第 p_j 列
+        double x20 = y20 * d2;
+        double x10 = (y10 - m12 * x20) * d1;
+        double x00 = (1 - m01 * x10 - m02 * x20) * d0;
+        double x21 = y21 * d2;
+        double x11 = (1 - m12 * x21) * d1;
+        double x01 = -(m01 * x11 + m02 * x21) * d0;
+        double x22 = d2;
+        double x12 = -m12 * x22 * d1;
+        double x02 = -(m01 * x12 + m02 * x22) * d0;
+        int c0 = pa + p0;
+        int c1 = pa + p1;
+        int c2 = pa + p2;
+        r[c0] = x00;
+        r[c1] = x01;
+        r[c2] = x02;
+        r[c0 + 3] = x10;
+        r[c1 + 3] = x11;
+        r[c2 + 3] = x12;
+        r[c0 + 6] = x20;
+        r[c1 + 6] = x21;
+        r[c2 + 6] = x22;
+        return true;
+    }
+
+    /**
+     * 4 阶求逆：展开的部分主元 LU 分解 PA = LU，A⁻¹ = U⁻¹·L⁻¹·P，结果写入 r 的 p 位置
+     * @return 矩阵奇异时返回 false
+     */
+    private static boolean inv4(double[] a, int pa, double[] r) {
+        double m00 = a[pa], m01 = a[pa + 1], m02 = a[pa + 2], m03 = a[pa + 3];
+        double m10 = a[pa + 4], m11 = a[pa + 5], m12 = a[pa + 6], m13 = a[pa + 7];
+        double m20 = a[pa + 8], m21 = a[pa + 9], m22 = a[pa + 10], m23 = a[pa + 11];
+        double m30 = a[pa + 12], m31 = a[pa + 13], m32 = a[pa + 14], m33 = a[pa + 15];
+        int p0 = 0, p1 = 1, p2 = 2, p3 = 3, piv, s;
+        double max, v, t;
+        // 第 0 列：选主元、换行、消元
+        piv = 0;
+        max = Math.abs(m00);
+        v = Math.abs(m10);
+        if (v > max) { max = v; piv = 1; }
+        v = Math.abs(m20);
+        if (v > max) { max = v; piv = 2; }
+        v = Math.abs(m30);
+        if (v > max) { max = v; piv = 3; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 1) {
+            t = m00; m00 = m10; m10 = t;
+            t = m01; m01 = m11; m11 = t;
+            t = m02; m02 = m12; m12 = t;
+            t = m03; m03 = m13; m13 = t;
+            s = p0; p0 = p1; p1 = s;
+        } else if (piv == 2) {
+            t = m00; m00 = m20; m20 = t;
+            t = m01; m01 = m21; m21 = t;
+            t = m02; m02 = m22; m22 = t;
+            t = m03; m03 = m23; m23 = t;
+            s = p0; p0 = p2; p2 = s;
+        } else if (piv == 3) {
+            t = m00; m00 = m30; m30 = t;
+            t = m01; m01 = m31; m31 = t;
+            t = m02; m02 = m32; m32 = t;
+            t = m03; m03 = m33; m33 = t;
+            s = p0; p0 = p3; p3 = s;
+        }
+        double d0 = 1.0 / m00;
+        m10 *= d0;
+        m11 -= m10 * m01;
+        m12 -= m10 * m02;
+        m13 -= m10 * m03;
+        m20 *= d0;
+        m21 -= m20 * m01;
+        m22 -= m20 * m02;
+        m23 -= m20 * m03;
+        m30 *= d0;
+        m31 -= m30 * m01;
+        m32 -= m30 * m02;
+        m33 -= m30 * m03;
+        // 第 1 列：选主元、换行、消元
+        piv = 1;
+        max = Math.abs(m11);
+        v = Math.abs(m21);
+        if (v > max) { max = v; piv = 2; }
+        v = Math.abs(m31);
+        if (v > max) { max = v; piv = 3; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 2) {
+            t = m10; m10 = m20; m20 = t;
+            t = m11; m11 = m21; m21 = t;
+            t = m12; m12 = m22; m22 = t;
+            t = m13; m13 = m23; m23 = t;
+            s = p1; p1 = p2; p2 = s;
+        } else if (piv == 3) {
+            t = m10; m10 = m30; m30 = t;
+            t = m11; m11 = m31; m31 = t;
+            t = m12; m12 = m32; m32 = t;
+            t = m13; m13 = m33; m33 = t;
+            s = p1; p1 = p3; p3 = s;
+        }
+        double d1 = 1.0 / m11;
+        m21 *= d1;
+        m22 -= m21 * m12;
+        m23 -= m21 * m13;
+        m31 *= d1;
+        m32 -= m31 * m12;
+        m33 -= m31 * m13;
+        // 第 2 列：选主元、换行、消元
+        piv = 2;
+        max = Math.abs(m22);
+        v = Math.abs(m32);
+        if (v > max) { max = v; piv = 3; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 3) {
+            t = m20; m20 = m30; m30 = t;
+            t = m21; m21 = m31; m31 = t;
+            t = m22; m22 = m32; m32 = t;
+            t = m23; m23 = m33; m33 = t;
+            s = p2; p2 = p3; p3 = s;
+        }
+        double d2 = 1.0 / m22;
+        m32 *= d2;
+        m33 -= m32 * m23;
+        if (!(Math.abs(m33) > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        double d3 = 1.0 / m33;
+        // L⁻¹（单位下三角）
+        double y10 = -m10;
+        double y20 = -(m20 + m21 * y10);
+        double y30 = -(m30 + m31 * y10 + m32 * y20);
+        double y21 = -m21;
+        double y31 = -(m31 + m32 * y21);
+        double y32 = -m32;
+        // U⁻¹·L⁻¹ 的第 j 列写到 A⁻¹ 的第 p_j 列
+        double x30 = y30 * d3;
+        double x20 = (y20 - m23 * x30) * d2;
+        double x10 = (y10 - m12 * x20 - m13 * x30) * d1;
+        double x00 = (1 - m01 * x10 - m02 * x20 - m03 * x30) * d0;
+        double x31 = y31 * d3;
+        double x21 = (y21 - m23 * x31) * d2;
+        double x11 = (1 - m12 * x21 - m13 * x31) * d1;
+        double x01 = -(m01 * x11 + m02 * x21 + m03 * x31) * d0;
+        double x32 = y32 * d3;
+        double x22 = (1 - m23 * x32) * d2;
+        double x12 = -(m12 * x22 + m13 * x32) * d1;
+        double x02 = -(m01 * x12 + m02 * x22 + m03 * x32) * d0;
+        double x33 = d3;
+        double x23 = -m23 * x33 * d2;
+        double x13 = -(m12 * x23 + m13 * x33) * d1;
+        double x03 = -(m01 * x13 + m02 * x23 + m03 * x33) * d0;
+        int c0 = pa + p0;
+        int c1 = pa + p1;
+        int c2 = pa + p2;
+        int c3 = pa + p3;
+        r[c0] = x00;
+        r[c1] = x01;
+        r[c2] = x02;
+        r[c3] = x03;
+        r[c0 + 4] = x10;
+        r[c1 + 4] = x11;
+        r[c2 + 4] = x12;
+        r[c3 + 4] = x13;
+        r[c0 + 8] = x20;
+        r[c1 + 8] = x21;
+        r[c2 + 8] = x22;
+        r[c3 + 8] = x23;
+        r[c0 + 12] = x30;
+        r[c1 + 12] = x31;
+        r[c2 + 12] = x32;
+        r[c3 + 12] = x33;
+        return true;
+    }
+
+    /**
+     * 2 阶解方程组：展开的部分主元 LU 分解，再对右侧从 pb 开始的 rc 列做前向代入与回代，结果写入 r 的 pb 位置
+     * @return 矩阵奇异时返回 false
+     */
+    private static boolean solve2(double[] a, int pa, double[] b, int pb, double[] r, int rc) {
+        double m00 = a[pa], m01 = a[pa + 1];
+        double m10 = a[pa + 2], m11 = a[pa + 3];
+        int p0 = 0, p1 = 1, piv, s;
+        double max, v, t;
+        // 第 0 列：选主元、换行、消元
+        piv = 0;
+        max = Math.abs(m00);
+        v = Math.abs(m10);
+        if (v > max) { max = v; piv = 1; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 1) {
+            t = m00; m00 = m10; m10 = t;
+            t = m01; m01 = m11; m11 = t;
+            s = p0; p0 = p1; p1 = s;
+        }
+        double d0 = 1.0 / m00;
+        m10 *= d0;
+        m11 -= m10 * m01;
+        if (!(Math.abs(m11) > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        double d1 = 1.0 / m11;
+        for (int j = 0; j < rc; j++) {
+            double y0 = b[pb + p0 * rc + j];
+            double y1 = b[pb + p1 * rc + j];
+            y1 -= m10 * y0;
+            y1 *= d1;
+            y0 = (y0 - m01 * y1) * d0;
+            r[pb + j] = y0;
+            r[pb + rc + j] = y1;
+        }
+        return true;
+    }
+
+    /**
+     * 3 阶解方程组：展开的部分主元 LU 分解，再对右侧从 pb 开始的 rc 列做前向代入与回代，结果写入 r 的 pb 位置
+     * @return 矩阵奇异时返回 false
+     */
+    private static boolean solve3(double[] a, int pa, double[] b, int pb, double[] r, int rc) {
+        double m00 = a[pa], m01 = a[pa + 1], m02 = a[pa + 2];
+        double m10 = a[pa + 3], m11 = a[pa + 4], m12 = a[pa + 5];
+        double m20 = a[pa + 6], m21 = a[pa + 7], m22 = a[pa + 8];
+        int p0 = 0, p1 = 1, p2 = 2, piv, s;
+        double max, v, t;
+        // 第 0 列：选主元、换行、消元
+        piv = 0;
+        max = Math.abs(m00);
+        v = Math.abs(m10);
+        if (v > max) { max = v; piv = 1; }
+        v = Math.abs(m20);
+        if (v > max) { max = v; piv = 2; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 1) {
+            t = m00; m00 = m10; m10 = t;
+            t = m01; m01 = m11; m11 = t;
+            t = m02; m02 = m12; m12 = t;
+            s = p0; p0 = p1; p1 = s;
+        } else if (piv == 2) {
+            t = m00; m00 = m20; m20 = t;
+            t = m01; m01 = m21; m21 = t;
+            t = m02; m02 = m22; m22 = t;
+            s = p0; p0 = p2; p2 = s;
+        }
+        double d0 = 1.0 / m00;
+        m10 *= d0;
+        m11 -= m10 * m01;
+        m12 -= m10 * m02;
+        m20 *= d0;
+        m21 -= m20 * m01;
+        m22 -= m20 * m02;
+        // 第 1 列：选主元、换行、消元
+        piv = 1;
+        max = Math.abs(m11);
+        v = Math.abs(m21);
+        if (v > max) { max = v; piv = 2; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 2) {
+            t = m10; m10 = m20; m20 = t;
+            t = m11; m11 = m21; m21 = t;
+            t = m12; m12 = m22; m22 = t;
+            s = p1; p1 = p2; p2 = s;
+        }
+        double d1 = 1.0 / m11;
+        m21 *= d1;
+        m22 -= m21 * m12;
+        if (!(Math.abs(m22) > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        double d2 = 1.0 / m22;
+        for (int j = 0; j < rc; j++) {
+            double y0 = b[pb + p0 * rc + j];
+            double y1 = b[pb + p1 * rc + j];
+            double y2 = b[pb + p2 * rc + j];
+            y1 -= m10 * y0;
+            y2 -= m20 * y0 + m21 * y1;
+            y2 *= d2;
+            y1 = (y1 - m12 * y2) * d1;
+            y0 = (y0 - m01 * y1 - m02 * y2) * d0;
+            r[pb + j] = y0;
+            r[pb + rc + j] = y1;
+            r[pb + 2 * rc + j] = y2;
+        }
+        return true;
+    }
+
+    /**
+     * 4 阶解方程组：展开的部分主元 LU 分解，再对右侧从 pb 开始的 rc 列做前向代入与回代，结果写入 r 的 pb 位置
+     * @return 矩阵奇异时返回 false
+     */
+    private static boolean solve4(double[] a, int pa, double[] b, int pb, double[] r, int rc) {
+        double m00 = a[pa], m01 = a[pa + 1], m02 = a[pa + 2], m03 = a[pa + 3];
+        double m10 = a[pa + 4], m11 = a[pa + 5], m12 = a[pa + 6], m13 = a[pa + 7];
+        double m20 = a[pa + 8], m21 = a[pa + 9], m22 = a[pa + 10], m23 = a[pa + 11];
+        double m30 = a[pa + 12], m31 = a[pa + 13], m32 = a[pa + 14], m33 = a[pa + 15];
+        int p0 = 0, p1 = 1, p2 = 2, p3 = 3, piv, s;
+        double max, v, t;
+        // 第 0 列：选主元、换行、消元
+        piv = 0;
+        max = Math.abs(m00);
+        v = Math.abs(m10);
+        if (v > max) { max = v; piv = 1; }
+        v = Math.abs(m20);
+        if (v > max) { max = v; piv = 2; }
+        v = Math.abs(m30);
+        if (v > max) { max = v; piv = 3; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 1) {
+            t = m00; m00 = m10; m10 = t;
+            t = m01; m01 = m11; m11 = t;
+            t = m02; m02 = m12; m12 = t;
+            t = m03; m03 = m13; m13 = t;
+            s = p0; p0 = p1; p1 = s;
+        } else if (piv == 2) {
+            t = m00; m00 = m20; m20 = t;
+            t = m01; m01 = m21; m21 = t;
+            t = m02; m02 = m22; m22 = t;
+            t = m03; m03 = m23; m23 = t;
+            s = p0; p0 = p2; p2 = s;
+        } else if (piv == 3) {
+            t = m00; m00 = m30; m30 = t;
+            t = m01; m01 = m31; m31 = t;
+            t = m02; m02 = m32; m32 = t;
+            t = m03; m03 = m33; m33 = t;
+            s = p0; p0 = p3; p3 = s;
+        }
+        double d0 = 1.0 / m00;
+        m10 *= d0;
+        m11 -= m10 * m01;
+        m12 -= m10 * m02;
+        m13 -= m10 * m03;
+        m20 *= d0;
+        m21 -= m20 * m01;
+        m22 -= m20 * m02;
+        m23 -= m20 * m03;
+        m30 *= d0;
+        m31 -= m30 * m01;
+        m32 -= m30 * m02;
+        m33 -= m30 * m03;
+        // 第 1 列：选主元、换行、消元
+        piv = 1;
+        max = Math.abs(m11);
+        v = Math.abs(m21);
+        if (v > max) { max = v; piv = 2; }
+        v = Math.abs(m31);
+        if (v > max) { max = v; piv = 3; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 2) {
+            t = m10; m10 = m20; m20 = t;
+            t = m11; m11 = m21; m21 = t;
+            t = m12; m12 = m22; m22 = t;
+            t = m13; m13 = m23; m23 = t;
+            s = p1; p1 = p2; p2 = s;
+        } else if (piv == 3) {
+            t = m10; m10 = m30; m30 = t;
+            t = m11; m11 = m31; m31 = t;
+            t = m12; m12 = m32; m32 = t;
+            t = m13; m13 = m33; m33 = t;
+            s = p1; p1 = p3; p3 = s;
+        }
+        double d1 = 1.0 / m11;
+        m21 *= d1;
+        m22 -= m21 * m12;
+        m23 -= m21 * m13;
+        m31 *= d1;
+        m32 -= m31 * m12;
+        m33 -= m31 * m13;
+        // 第 2 列：选主元、换行、消元
+        piv = 2;
+        max = Math.abs(m22);
+        v = Math.abs(m32);
+        if (v > max) { max = v; piv = 3; }
+        if (!(max > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        if (piv == 3) {
+            t = m20; m20 = m30; m30 = t;
+            t = m21; m21 = m31; m31 = t;
+            t = m22; m22 = m32; m32 = t;
+            t = m23; m23 = m33; m33 = t;
+            s = p2; p2 = p3; p3 = s;
+        }
+        double d2 = 1.0 / m22;
+        m32 *= d2;
+        m33 -= m32 * m23;
+        if (!(Math.abs(m33) > LUDecomposition.SINGULAR_EPS)) {
+            return false;
+        }
+        double d3 = 1.0 / m33;
+        for (int j = 0; j < rc; j++) {
+            double y0 = b[pb + p0 * rc + j];
+            double y1 = b[pb + p1 * rc + j];
+            double y2 = b[pb + p2 * rc + j];
+            double y3 = b[pb + p3 * rc + j];
+            y1 -= m10 * y0;
+            y2 -= m20 * y0 + m21 * y1;
+            y3 -= m30 * y0 + m31 * y1 + m32 * y2;
+            y3 *= d3;
+            y2 = (y2 - m23 * y3) * d2;
+            y1 = (y1 - m12 * y2 - m13 * y3) * d1;
+            y0 = (y0 - m01 * y1 - m02 * y2 - m03 * y3) * d0;
+            r[pb + j] = y0;
+            r[pb + rc + j] = y1;
+            r[pb + 2 * rc + j] = y2;
+            r[pb + 3 * rc + j] = y3;
+        }
+        return true;
+    }
+
+    /**
+     * 对第 p 个位置开始的 n 阶矩阵做部分主元 LU 分解，结果写入工作区，不分配内存<br/>
+     * 运算顺序与 LUDecomposition 的消元内核相同，奇异判定（主元绝对值不大于 SINGULAR_EPS）与 inv、solve 一致，
+     * 遇到第一个过小的主元即返回
+     * @param lu 输出：L 的乘子（对角线下方）与 U
+     * @param perm 输出：perm[i] 为分解后第 i 行对应的原始行号
+     * @return 矩阵奇异时返回 false
+     */
+    private static boolean factor(double[] a, int p, int n, double[] lu, int[] perm) {
+        System.arraycopy(a, p, lu, 0, n * n);
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            double max = Math.abs(lu[col * n + col]);
+            for (int i = col + 1; i < n; i++) {
+                double v = Math.abs(lu[i * n + col]);
+                if (v > max) {
+                    max = v;
+                    pivot = i;
+                }
+            }
+            if (!(max > LUDecomposition.SINGULAR_EPS)) {
+                return false;
+            }
+            int rOff = col * n;
+            if (pivot != col) {
+                int pOff = pivot * n;
+                for (int j = 0; j < n; j++) {
+                    double tmp = lu[pOff + j];
+                    lu[pOff + j] = lu[rOff + j];
+                    lu[rOff + j] = tmp;
+                }
+                int tp = perm[pivot];
+                perm[pivot] = perm[col];
+                perm[col] = tp;
+            }
+            double d = lu[rOff + col];
+            for (int i = col + 1; i < n; i++) {
+                int iOff = i * n;
+                double f = lu[iOff + col] / d;
+                lu[iOff + col] = f;
+                if (f != 0) {
+                    for (int j = col + 1; j < n; j++) {
+                        lu[iOff + j] -= f * lu[rOff + j];
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 由 LU 因子原地求解：x 中从 q 开始的 n×k 块为已置换的右侧，求解后为结果
+     */
+    private static void substitute(double[] lu, int n, double[] x, int q, int k) {
+        // 前向代入：L·y = P·b（L 为单位下三角）
+        for (int i = 1; i < n; i++) {
+            int iOff = q + i * k;
+            for (int t = 0; t < i; t++) {
+                double l = lu[i * n + t];
+                if (l != 0) {
+                    int tOff = q + t * k;
+                    for (int j = 0; j < k; j++) {
+                        x[iOff + j] -= l * x[tOff + j];
+                    }
+                }
+            }
+        }
+        // 回代：U·x = y
+        for (int i = n - 1; i >= 0; i--) {
+            int iOff = q + i * k;
+            for (int t = i + 1; t < n; t++) {
+                double u = lu[i * n + t];
+                if (u != 0) {
+                    int tOff = q + t * k;
+                    for (int j = 0; j < k; j++) {
+                        x[iOff + j] -= u * x[tOff + j];
+                    }
+                }
+            }
+            double d = lu[i * n + i];
+            for (int j = 0; j < k; j++) {
+                x[iOff + j] /= d;
+            }
+        }
+    }
+
+    private static void mul2(double[] a, int p, double[] b, int q, double[] r, int o) {
+        double a0 = a[p], a1 = a[p + 1], a2 = a[p + 2], a3 = a[p + 3];
+        double b0 = b[q], b1 = b[q + 1], b2 = b[q + 2], b3 = b[q + 3];
+        r[o] = a0 * b0 + a1 * b2;
+        r[o + 1] = a0 * b1 + a1 * b3;
+        r[o + 2] = a2 * b0 + a3 * b2;
+        r[o + 3] = a2 * b1 + a3 * b3;
+    }
+
+    private static void mul3(double[] a, int p, double[] b, int q, double[] r, int o) {
+        for (int i = 0; i < 3; i++, p += 3, o += 3) {
+            double x0 = a[p], x1 = a[p + 1], x2 = a[p + 2];
+            r[o] = x0 * b[q] + x1 * b[q + 3] + x2 * b[q + 6];
+            r[o + 1] = x0 * b[q + 1] + x1 * b[q + 4] + x2 * b[q + 7];
+            r[o + 2] = x0 * b[q + 2] + x1 * b[q + 5] + x2 * b[q + 8];
+        }
+    }
+
+    private static void mul4(double[] a, int p, double[] b, int q, double[] r, int o) {
+        for (int i = 0; i < 4; i++, p += 4, o += 4) {
+            double x0 = a[p], x1 = a[p + 1], x2 = a[p + 2], x3 = a[p + 3];
+            r[o] = x0 * b[q] + x1 * b[q + 4] + x2 * b[q + 8] + x3 * b[q + 12];
+            r[o + 1] = x0 * b[q + 1] + x1 * b[q + 5] + x2 * b[q + 9] + x3 * b[q + 13];
+            r[o + 2] = x0 * b[q + 2] + x1 * b[q + 6] + x2 * b[q + 10] + x3 * b[q + 14];
+            r[o + 3] = x0 * b[q + 3] + x1 * b[q + 7] + x2 * b[q + 11] + x3 * b[q + 15];
+        }
+    }
+}
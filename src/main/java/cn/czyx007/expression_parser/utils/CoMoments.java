@@ -0,0 +1,103 @@
+package cn.czyx007.expression_parser.utils;
+
+/**
+ * 双变量矩累加器：个数、两组均值、各自的离差平方和与交叉离差积和 C = Σ(x − meanX)(y − meanY)<br/>
+ * 与 {@link Moments} 相同：按块两遍累加，块之间以合并公式组合；一遍扫描即可同时得到协方差与相关系数
+ */
+final class CoMoments {
+    private long n;
+    private double meanX, meanY;
+    private double m2x, m2y, cxy;
+
+    /**
+     * 累加成对数据 (x[xFrom + i], y[yFrom + i])，i ∈ [0, len)
+     * @param x X 数据
+     * @param xFrom X 的起始位置
+     * @param y Y 数据
+     * @param yFrom Y 的起始位置
+     * @param len 数据对个数
+     * @return this
+     */
+    CoMoments addAll(double[] x, int xFrom, double[] y, int yFrom, int len) {
+        for (int b = 0; b < len; b += Moments.BLOCK) {
+            int cnt = Math.min(len - b, Moments.BLOCK);
+            double sx = 0, sy = 0;
+            for (int i = 0; i < cnt; i++) {
+                sx += x[xFrom + b + i];
+                sy += y[yFrom + b + i];
+            }
+            double mx = sx / cnt, my = sy / cnt;
+            double bx = 0, by = 0, bxy = 0;
+            for (int i = 0; i < cnt; i++) {
+                double dx = x[xFrom + b + i] - mx;
+                double dy = y[yFrom + b + i] - my;
+                bx += dx * dx;
+                by += dy * dy;
+                bxy += dx * dy;
+            }
+            merge(cnt, mx, my, bx, by, bxy);
+        }
+        return this;
+    }
+
+    /**
+     * 合并另一个累加器
+     * @param other 另一个累加器
+     * @return this
+     */
+    CoMoments merge(CoMoments other) {
+        merge(other.n, other.meanX, other.meanY, other.m2x, other.m2y, other.cxy);
+        return this;
+    }
+
+    private void merge(long nb, double mxB, double myB, double m2xB, double m2yB, double cxyB) {
+        if (nb == 0) {
+            return;
+        }
+        if (n == 0) {
+            n = nb;
+            meanX = mxB;
+            meanY = myB;
+            m2x = m2xB;
+            m2y = m2yB;
+            cxy = cxyB;
+            return;
+        }
+        long total = n + nb;
+        double dx = mxB - meanX, dy = myB - meanY;
+        double w = (double) n * nb / total;
+        meanX += dx * nb / total;
+        meanY += dy * nb / total;
+        m2x += m2xB + dx * dx * w;
+        m2y += m2yB + dy * dy * w;
+        cxy += cxyB + dx * dy * w;
+        n = total;
+    }
+
+    long count() {
+        return n;
+    }
+
+    /**
+     * 协方差
+     * @param sample true 表示样本协方差（除以 n−1），false 表示总体协方差（除以 n）
+     * @return 协方差值
+     */
+    double covariance(boolean sample) {
+        return cxy / (sample ? n - 1 : n);
+    }
+
+    /**
+     * 任一变量的离差平方和是否为 0（此时相关系数无定义）
+     */
+    boolean hasZeroVariance() {
+        return m2x == 0 || m2y == 0;
+    }
+
+    /**
+     * Pearson 相关系数
+     */
+    double correlation() {
+        return cxy / (Math.sqrt(m2x) * Math.sqrt(m2y));
+    }
+}
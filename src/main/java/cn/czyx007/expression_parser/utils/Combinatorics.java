@@ -0,0 +1,200 @@
+package cn.czyx007.expression_parser.utils;
+
+/**
+ * 阶乘与排列组合<br/>
+ * 0! 到 170!（double 能表示的最大阶乘）在类加载时一次算出并查表；组合数、排列数先在 long 上精确计算，
+ * 溢出时改用阶乘表（n ≤ 170）或对数伽马函数：ln C(n,k) = ln n! − ln k! − ln (n−k)!，单次计算为 O(1)<br/>
+ * 对数伽马函数在自变量不小于 15 时使用 Stirling 级数，较小的自变量先用递推 Γ(x+1) = x·Γ(x) 上移
+ */
+public final class Combinatorics {
+    /** double 能表示的最大阶乘的参数 */
+    static final int MAX_FACTORIAL = 170;
+    /** ln(2π)/2 */
+    private static final double HALF_LN_TWO_PI = 0.9189385332046727;
+    /** Stirling 级数的适用下界 */
+    private static final double STIRLING_THRESHOLD = 15;
+    /** 对数组合数、排列数逐项累加的最大项数 */
+    private static final int SMALL_K = 64;
+
+    private static final double[] FACTORIAL = new double[MAX_FACTORIAL + 1];
+    private static final double[] LN_FACTORIAL = new double[MAX_FACTORIAL + 1];
+
+    static {
+        FACTORIAL[0] = 1.0;
+        for (int i = 1; i <= MAX_FACTORIAL; i++) {
+            FACTORIAL[i] = FACTORIAL[i - 1] * i;
+            LN_FACTORIAL[i] = Math.log(FACTORIAL[i]);
+        }
+    }
+
+    private Combinatorics() {
+    }
+
+    /**
+     * 阶乘（查表）
+     * @param n 0 到 170 的整数
+     * @return n!
+     */
+    public static double factorial(int n) {
+        return FACTORIAL[n];
+    }
+
+    /**
+     * ln n!
+     * @param n 非负整数
+     * @return ln n!
+     */
+    static double lnFactorial(long n) {
+        return n <= MAX_FACTORIAL ? LN_FACTORIAL[(int) n] : lnGamma(n + 1.0);
+    }
+
+    /**
+     * ln Γ(x)
+     * @param x 正数
+     * @return ln Γ(x)
+     */
+    static double lnGamma(double x) {
+        double shift = 0;
+        if (x < STIRLING_THRESHOLD) {
+            double product = 1;
+            while (x < STIRLING_THRESHOLD) {
+                product *= x;
+                x += 1;
+            }
+            shift = Math.log(product);
+        }
+        double inv = 1 / x, inv2 = inv * inv;
+        // 1/(12x) − 1/(360x³) + 1/(1260x⁵) − 1/(1680x⁷) + 1/(1188x⁹)
+        double series = inv * (1.0 / 12 - inv2 * (1.0 / 360 - inv2 * (1.0 / 1260 - inv2 * (1.0 / 1680 - inv2 / 1188))));
+        return (x - 0.5) * Math.log(x) - x + HALF_LN_TWO_PI + series - shift;
+    }
+
+    /**
+     * 组合数 C(n, k)
+     * @param n 非负整数
+     * @param k 非负整数
+     * @return C(n, k)，k > n 时为 0，超出 double 范围时为 Infinity
+     */
+    static double combination(long n, long k) {
+        if (k > n) {
+            return 0;
+        }
+        k = Math.min(k, n - k);
+        long exact = exactCombination(n, k);
+        if (exact >= 0) {
+            return exact;
+        }
+        if (n <= MAX_FACTORIAL) {
+            return FACTORIAL[(int) n] / FACTORIAL[(int) k] / FACTORIAL[(int) (n - k)];
+        }
+        return Math.exp(lnCombination(n, k));
+    }
+
+    /**
+     * 排列数 P(n, k)
+     * @param n 非负整数
+     * @param k 非负整数
+     * @return P(n, k)，k > n 时为 0，超出 double 范围时为 Infinity
+     */
+    static double permutation(long n, long k) {
+        if (k > n) {
+            return 0;
+        }
+        long exact = exactPermutation(n, k);
+        if (exact >= 0) {
+            return exact;
+        }
+        if (n <= MAX_FACTORIAL) {
+            return FACTORIAL[(int) n] / FACTORIAL[(int) (n - k)];
+        }
+        return Math.exp(lnPermutation(n, k));
+    }
+
+    /**
+     * ln C(n, k)：k 较小时逐项累加 ln((n−k+i)/i)，避免 ln n! 等大数相减的抵消误差
+     * @return k > n 时为 −Infinity
+     */
+    static double lnCombination(long n, long k) {
+        if (k > n) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        k = Math.min(k, n - k);
+        long exact = exactCombination(n, k);
+        if (exact >= 0) {
+            return Math.log(exact);
+        }
+        if (k <= SMALL_K) {
+            double sum = 0;
+            for (long i = 1; i <= k; i++) {
+                sum += Math.log((double) (n - k + i) / i);
+            }
+            return sum;
+        }
+        return lnFactorial(n) - lnFactorial(k) - lnFactorial(n - k);
+    }
+
+    /**
+     * ln P(n, k)
+     * @return k > n 时为 −Infinity
+     */
+    static double lnPermutation(long n, long k) {
+        if (k > n) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        long exact = exactPermutation(n, k);
+        if (exact >= 0) {
+            return Math.log(exact);
+        }
+        if (k <= SMALL_K) {
+            double sum = 0;
+            for (long i = 0; i < k; i++) {
+                sum += Math.log(n - i);
+            }
+            return sum;
+        }
+        return lnFactorial(n) - lnFactorial(n - k);
+    }
+
+    /**
+     * 在 long 上精确计算 C(n, k)（k ≤ n − k）<br/>
+     * 每步结果都是整数 C(n−k+i, i)，且至少按 2 的幂增长，溢出在 63 步以内被发现
+     * @return C(n, k)；溢出时返回 −1
+     */
+    private static long exactCombination(long n, long k) {
+        long result = 1;
+        for (long i = 1; i <= k; i++) {
+            long g = gcd(result, i);
+            long factor = (n - k + i) / (i / g);
+            result /= g;
+            if (result > Long.MAX_VALUE / factor) {
+                return -1;
+            }
+            result *= factor;
+        }
+        return result;
+    }
+
+    /**
+     * 在 long 上精确计算 P(n, k)（k ≤ n），除最后一个因子外每个因子至少为 2，溢出在 64 步以内被发现
+     * @return P(n, k)；溢出时返回 −1
+     */
+    private static long exactPermutation(long n, long k) {
+        long result = 1;
+        for (long i = 0; i < k; i++) {
+            if (result > Long.MAX_VALUE / (n - i)) {
+                return -1;
+            }
+            result *= n - i;
+        }
+        return result;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
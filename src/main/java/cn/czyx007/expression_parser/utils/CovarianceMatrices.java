@@ -0,0 +1,120 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.List;
+
+/**
+ * 协方差矩阵与相关系数矩阵：covmatrix(X)、covmatrixp(X)、corrmatrix(X)<br/>
+ * X 为 m×n 矩阵，每行一个观测、每列一个变量，结果为 n×n 对称矩阵<br/>
+ * 先求列均值，再一遍写出中心化副本 Xc 并累加其列和 s（舍入误差使 s 不严格为 0），
+ * 所有列对的离差积和由 SYRK 内核一次算出：M = XcᵀXc − s·sᵀ/m（修正的两遍算法），
+ * 避免逐对调用 cov 时对数据的 n(n−1)/2 次重复读取
+ */
+final class CovarianceMatrices {
+
+    private CovarianceMatrices() {
+    }
+
+    /**
+     * covmatrix(X)：样本协方差矩阵（除以 m − 1）
+     */
+    static Value covmatrix(List<Value> args) {
+        FunctionRegistry.validateArgCount("covmatrix", args.size(), 1);
+        return covariance(args.get(0), "covmatrix", true);
+    }
+
+    /**
+     * covmatrixp(X)：总体协方差矩阵（除以 m）
+     */
+    static Value covmatrixp(List<Value> args) {
+        FunctionRegistry.validateArgCount("covmatrixp", args.size(), 1);
+        return covariance(args.get(0), "covmatrixp", false);
+    }
+
+    /**
+     * corrmatrix(X)：Pearson 相关系数矩阵，对角线为 1
+     */
+    static Value corrmatrix(List<Value> args) {
+        FunctionRegistry.validateArgCount("corrmatrix", args.size(), 1);
+        DenseArray x = MatrixMathUtils.toDenseMatrix(args.get(0), "corrmatrix");
+        int m = x.getDim(0), n = x.getDim(1);
+        if (m < 2) {
+            throw new ExpressionException(ErrorCode.CORRELATION_MIN_ARGS);
+        }
+        double[] c = scatter(x.getData(), m, n);
+        double[] d = new double[n];
+        for (int i = 0; i < n; i++) {
+            d[i] = Math.sqrt(c[i * n + i]);
+            if (d[i] == 0) {
+                throw new ExpressionException(ErrorCode.STD_DEV_ZERO);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                // 舍入可能使 |r| 略大于 1
+                double r = i == j ? 1.0 : c[i * n + j] / (d[i] * d[j]);
+                c[i * n + j] = Math.max(-1.0, Math.min(1.0, r));
+            }
+        }
+        return new Value(new DenseArray(c, n, n));
+    }
+
+    private static Value covariance(Value value, String funcName, boolean sample) {
+        DenseArray x = MatrixMathUtils.toDenseMatrix(value, funcName);
+        int m = x.getDim(0), n = x.getDim(1);
+        if (sample && m < 2) {
+            throw new ExpressionException(ErrorCode.COVARIANCE_MIN_ARGS);
+        }
+        double[] c = scatter(x.getData(), m, n);
+        double denom = sample ? m - 1 : m;
+        for (int i = 0; i < c.length; i++) {
+            c[i] /= denom;
+        }
+        return new Value(new DenseArray(c, n, n));
+    }
+
+    /**
+     * 离差积和矩阵 M[i][j] = Σ (x_ti − x̄_i)(x_tj − x̄_j)
+     * @param x 行主序 m×n 数据（不修改）
+     * @param m 观测数
+     * @param n 变量数
+     * @return 行主序 n×n 对称矩阵
+     */
+    private static double[] scatter(double[] x, int m, int n) {
+        double[] mean = new double[n];
+        GemmKernel.forRows(n, (long) m * n, (j0, j1) -> {
+            for (int t = 0; t < m; t++) {
+                int off = t * n;
+                for (int j = j0; j < j1; j++) {
+                    mean[j] += x[off + j];
+                }
+            }
+            for (int j = j0; j < j1; j++) {
+                mean[j] /= m;
+            }
+        });
+        double[] xc = new double[m * n];
+        double[] s = new double[n];
+        GemmKernel.forRows(n, (long) m * n, (j0, j1) -> {
+            for (int t = 0; t < m; t++) {
+                int off = t * n;
+                for (int j = j0; j < j1; j++) {
+                    double v = x[off + j] - mean[j];
+                    xc[off + j] = v;
+                    s[j] += v;
+                }
+            }
+        });
+        double[] c = GemmKernel.syrkTransA(xc, m, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                c[i * n + j] -= s[i] * s[j] / m;
+            }
+        }
+        return c;
+    }
+}
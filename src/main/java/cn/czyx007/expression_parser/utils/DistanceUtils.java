@@ -0,0 +1,253 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 成对距离矩阵：cdist(X, Y[, metric])、pdist(X[, metric])<br/>
+ * 矩阵的每一行是一个点。欧氏距离使用 ||x||² + ||y||² − 2x·y 展开，余弦与相关距离先将各行归一化（相关距离先中心化），
+ * 三者都化为行与行的点积；曼哈顿距离直接累加坐标差的绝对值<br/>
+ * 按 Y 的行分块（每块约 128KB），同一块在缓存中依次与 X 的每一行计算；X 的行按行块拆分到 ForkJoin 公共池并行
+ */
+final class DistanceUtils {
+    /** Y 分块的目标大小（double 个数），约 128KB */
+    private static final int TILE_DOUBLES = 16384;
+
+    /**
+     * 距离度量
+     */
+    private enum Metric {
+        EUCLIDEAN("euclidean"), SQEUCLIDEAN("sqeuclidean"), CITYBLOCK("cityblock"),
+        COSINE("cosine"), CORRELATION("correlation");
+
+        private final String name;
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        static Metric of(String name, String funcName) {
+            String key = name.trim().toLowerCase(Locale.ROOT);
+            if ("manhattan".equals(key)) {
+                return CITYBLOCK;
+            }
+            for (Metric m : values()) {
+                if (m.name.equals(key)) {
+                    return m;
+                }
+            }
+            throw new ExpressionException(ErrorCode.DISTANCE_UNKNOWN_METRIC, funcName, name);
+        }
+    }
+
+    private DistanceUtils() {
+    }
+
+    /**
+     * cdist(X, Y[, metric])：X 的每一行与 Y 的每一行之间的距离
+     * @param args 参数列表（X、Y、可选的度量名称，默认 "euclidean"）
+     * @return m×n 距离矩阵，第 (i, j) 个元素为 X 第 i 行与 Y 第 j 行的距离
+     * @throws ExpressionException 如果参数不是矩阵、列数不同或度量名称未知
+     */
+    static Value cdist(List<Value> args) {
+        FunctionRegistry.validateMinArgs("cdist", args.size(), 2);
+        if (args.size() > 3) {
+            FunctionRegistry.validateArgCount("cdist", args.size(), 3);
+        }
+        Metric metric = args.size() > 2 ? Metric.of(FunctionRegistry.requireString(args.get(2), "cdist", 3), "cdist") : Metric.EUCLIDEAN;
+        DenseArray x = MatrixMathUtils.toDenseMatrix(args.get(0), "cdist");
+        DenseArray y = MatrixMathUtils.toDenseMatrix(args.get(1), "cdist");
+        int m = x.getDim(0), n = y.getDim(0), d = x.getDim(1);
+        if (y.getDim(1) != d) {
+            throw new ExpressionException(ErrorCode.DISTANCE_DIMENSION_MISMATCH, "cdist", d, y.getDim(1));
+        }
+        double[] xs = x.getData(), ys = y.getData();
+        double[] xn = null, yn = null;
+        if (metric == Metric.EUCLIDEAN || metric == Metric.SQEUCLIDEAN) {
+            // 两组点整体平移到公共质心附近，减小展开式中大数相减的抵消误差（距离不随平移改变）
+            double[] center = new double[d];
+            addColumns(xs, m, d, center);
+            addColumns(ys, n, d, center);
+            for (int t = 0; t < d; t++) {
+                center[t] /= m + n;
+            }
+            xs = shift(xs, m, d, center);
+            ys = shift(ys, n, d, center);
+            xn = squaredNorms(xs, m, d);
+            yn = squaredNorms(ys, n, d);
+        } else if (metric != Metric.CITYBLOCK) {
+            xs = normalize(xs, m, d, metric, "cdist", 1);
+            ys = normalize(ys, n, d, metric, "cdist", 2);
+        }
+        double[] r = new double[m * n];
+        double[] a = xs, b = ys, an = xn, bn = yn;
+        int tile = tileRows(d);
+        GemmKernel.forRows(m, (long) m * n * d, (i0, i1) -> {
+            for (int j0 = 0; j0 < n; j0 += tile) {
+                int j1 = Math.min(n, j0 + tile);
+                for (int i = i0; i < i1; i++) {
+                    block(a, an, i, b, bn, j0, j1, d, metric, r, i * n - j0);
+                }
+            }
+        });
+        return new Value(new DenseArray(r, m, n));
+    }
+
+    /**
+     * pdist(X[, metric])：X 各行两两之间的距离
+     * @param args 参数列表（X、可选的度量名称，默认 "euclidean"）
+     * @return 压缩形式的距离向量，长度 n(n−1)/2，依次为 (0,1), (0,2), …, (0,n−1), (1,2), …, (n−2,n−1)
+     * @throws ExpressionException 如果参数不是矩阵或度量名称未知
+     */
+    static Value pdist(List<Value> args) {
+        FunctionRegistry.validateMinArgs("pdist", args.size(), 1);
+        if (args.size() > 2) {
+            FunctionRegistry.validateArgCount("pdist", args.size(), 2);
+        }
+        Metric metric = args.size() > 1 ? Metric.of(FunctionRegistry.requireString(args.get(1), "pdist", 2), "pdist") : Metric.EUCLIDEAN;
+        DenseArray x = MatrixMathUtils.toDenseMatrix(args.get(0), "pdist");
+        int n = x.getDim(0), d = x.getDim(1);
+        double[] xs = x.getData();
+        double[] xn = null;
+        if (metric == Metric.EUCLIDEAN || metric == Metric.SQEUCLIDEAN) {
+            double[] center = new double[d];
+            addColumns(xs, n, d, center);
+            for (int t = 0; t < d; t++) {
+                center[t] /= n;
+            }
+            xs = shift(xs, n, d, center);
+            xn = squaredNorms(xs, n, d);
+        } else if (metric != Metric.CITYBLOCK) {
+            xs = normalize(xs, n, d, metric, "pdist", 1);
+        }
+        double[] r = new double[(int) ((long) n * (n - 1) / 2)];
+        double[] a = xs, an = xn;
+        int tile = tileRows(d);
+        // 只计算上三角 j > i；行越靠后工作量越小，由行块拆分后的工作窃取平衡负载
+        GemmKernel.forRows(n, (long) n * n * d / 2, (i0, i1) -> {
+            for (int j0 = i0 + 1; j0 < n; j0 += tile) {
+                int j1 = Math.min(n, j0 + tile);
+                for (int i = i0; i < i1 && i + 1 < j1; i++) {
+                    int from = Math.max(j0, i + 1);
+                    // 第 i 行在压缩向量中的起点对应 j = i + 1
+                    long rowStart = (long) n * i - (long) i * (i + 1) / 2;
+                    block(a, an, i, a, an, from, j1, d, metric, r, (int) (rowStart - i - 1));
+                }
+            }
+        });
+        return new Value(new DenseArray(r, r.length));
+    }
+
+    /**
+     * 计算 a 的第 i 行与 b 的第 [j0, j1) 行的距离，写入 r[base + j]
+     */
+    private static void block(double[] a, double[] an, int i, double[] b, double[] bn, int j0, int j1,
+                              int d, Metric metric, double[] r, int base) {
+        int aOff = i * d;
+        switch (metric) {
+            case EUCLIDEAN:
+            case SQEUCLIDEAN:
+                for (int j = j0; j < j1; j++) {
+                    double sq = Math.max(0.0, an[i] + bn[j] - 2 * GemmKernel.dot(a, aOff, b, j * d, d));
+                    r[base + j] = metric == Metric.EUCLIDEAN ? Math.sqrt(sq) : sq;
+                }
+                break;
+            case CITYBLOCK:
+                for (int j = j0; j < j1; j++) {
+                    double sum = 0;
+                    for (int t = 0, bOff = j * d; t < d; t++) {
+                        sum += Math.abs(a[aOff + t] - b[bOff + t]);
+                    }
+                    r[base + j] = sum;
+                }
+                break;
+            default:
+                // 行已归一化，点积即余弦相似度；截断到 [0, 2] 消除舍入误差
+                for (int j = j0; j < j1; j++) {
+                    double dist = 1.0 - GemmKernel.dot(a, aOff, b, j * d, d);
+                    r[base + j] = Math.min(2.0, Math.max(0.0, dist));
+                }
+        }
+    }
+
+    /**
+     * Y 分块的行数：使一块约占 TILE_DOUBLES 个 double，至少 16 行
+     */
+    private static int tileRows(int d) {
+        return Math.max(16, TILE_DOUBLES / Math.max(1, d));
+    }
+
+    /**
+     * 将 n×d 矩阵各列之和累加到 sum
+     */
+    private static void addColumns(double[] a, int n, int d, double[] sum) {
+        for (int i = 0, p = 0; i < n; i++) {
+            for (int t = 0; t < d; t++, p++) {
+                sum[t] += a[p];
+            }
+        }
+    }
+
+    /**
+     * 各行减去 center，返回新数组
+     */
+    private static double[] shift(double[] a, int n, int d, double[] center) {
+        double[] r = new double[n * d];
+        for (int i = 0, p = 0; i < n; i++) {
+            for (int t = 0; t < d; t++, p++) {
+                r[p] = a[p] - center[t];
+            }
+        }
+        return r;
+    }
+
+    /**
+     * 各行的平方范数
+     */
+    private static double[] squaredNorms(double[] a, int n, int d) {
+        double[] r = new double[n];
+        for (int i = 0; i < n; i++) {
+            r[i] = GemmKernel.dot(a, i * d, a, i * d, d);
+        }
+        return r;
+    }
+
+    /**
+     * 将各行缩放为单位向量（相关距离先减去该行的均值），返回新数组
+     * @param funcName 函数名
+     * @param position 该矩阵在参数中的位置，用于错误信息
+     * @throws ExpressionException 如果某行范数为零（相关距离下为常数行）
+     */
+    private static double[] normalize(double[] a, int n, int d, Metric metric, String funcName, int position) {
+        double[] r = new double[n * d];
+        for (int i = 0; i < n; i++) {
+            int off = i * d;
+            double mean = 0;
+            if (metric == Metric.CORRELATION) {
+                for (int t = 0; t < d; t++) {
+                    mean += a[off + t];
+                }
+                mean /= d;
+            }
+            double sq = 0;
+            for (int t = 0; t < d; t++) {
+                double v = a[off + t] - mean;
+                r[off + t] = v;
+                sq += v * v;
+            }
+            if (sq == 0) {
+                throw new ExpressionException(ErrorCode.DISTANCE_ZERO_NORM, funcName, metric.name, i, position);
+            }
+            double inv = 1.0 / Math.sqrt(sq);
+            for (int t = 0; t < d; t++) {
+                r[off + t] *= inv;
+            }
+        }
+        return r;
+    }
+}
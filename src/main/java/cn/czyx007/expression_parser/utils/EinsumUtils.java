@@ -0,0 +1,418 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 爱因斯坦求和约定：einsum("ij,jk->ik", A, B)<br/>
+ * 每个操作数的下标为一组字母，同一字母对应的维度长度必须相同；出现在输出中的字母保留，其余字母求和。
+ * 省略 "->" 时输出为只出现一次的字母按字母顺序排列<br/>
+ * 执行计划：<br/>
+ * 1. 两个操作数、恰好收缩一个下标的矩阵/向量模式（含转置、批量前缀）直接交给分块 GEMM 内核，转置通过视图完成，不复制数据<br/>
+ * 2. 其余情况在所有操作数的原始存储上按步长执行一个融合循环，不产生中间数组<br/>
+ * 3. 三个及以上操作数时比较融合循环与贪心两两收缩的运算量，选择较小者（如矩阵链乘积两两收缩为 O(n³)，融合为 O(n⁴)）
+ */
+final class EinsumUtils {
+
+    /**
+     * 操作数：稠密数组（可以是视图）及其下标
+     */
+    private static final class Operand {
+        final DenseArray array;
+        final char[] labels;
+
+        Operand(DenseArray array, char[] labels) {
+            this.array = array;
+            this.labels = labels;
+        }
+    }
+
+    private EinsumUtils() {
+    }
+
+    /**
+     * einsum(subscripts, A, B, ...)
+     * @param args 参数列表：下标字符串与各操作数
+     * @return 收缩结果，输出下标为空时为标量
+     * @throws ExpressionException 如果下标表达式无效或维度不一致
+     */
+    static Value einsum(List<Value> args) {
+        FunctionRegistry.validateMinArgs("einsum", args.size(), 2);
+        String spec = FunctionRegistry.requireString(args.get(0), "einsum", 1);
+        String compact = spec.replace(" ", "");
+        int arrow = compact.indexOf("->");
+        String[] inputs = (arrow < 0 ? compact : compact.substring(0, arrow)).split(",", -1);
+        if (inputs.length != args.size() - 1) {
+            throw invalid(spec, inputs.length + " operand(s) expected, but got " + (args.size() - 1));
+        }
+
+        // 各字母对应的维度长度与出现次数
+        int[] sizes = new int[128];
+        int[] counts = new int[128];
+        List<Operand> operands = new ArrayList<>();
+        for (int t = 0; t < inputs.length; t++) {
+            Value value = args.get(t + 1);
+            if (!value.isArray()) {
+                throw new ExpressionException(ErrorCode.MATRIX_REQUIRED, "einsum");
+            }
+            DenseArray d = MatrixMathUtils.toDenseArray(value, "einsum");
+            char[] labels = parseLabels(spec, inputs[t]);
+            if (labels.length != d.getRank()) {
+                throw invalid(spec, "operand " + (t + 1) + " has " + d.getRank() + " dimension(s), but '"
+                    + inputs[t] + "' names " + labels.length);
+            }
+            for (int a = 0; a < labels.length; a++) {
+                char c = labels[a];
+                if (counts[c] > 0 && sizes[c] != d.getDim(a)) {
+                    throw new ExpressionException(ErrorCode.EINSUM_DIMENSION_MISMATCH, c, sizes[c], d.getDim(a));
+                }
+                sizes[c] = d.getDim(a);
+                counts[c]++;
+            }
+            operands.add(new Operand(d, labels));
+        }
+
+        char[] out;
+        if (arrow >= 0) {
+            out = parseLabels(spec, compact.substring(arrow + 2));
+            boolean[] seen = new boolean[128];
+            for (char c : out) {
+                if (seen[c] || counts[c] == 0) {
+                    throw invalid(spec, "output index '" + c + "' is repeated or does not appear in any input");
+                }
+                seen[c] = true;
+            }
+        } else {
+            StringBuilder sb = new StringBuilder();
+            for (char c = 0; c < 128; c++) {
+                if (counts[c] == 1) sb.append(c);
+            }
+            out = sb.toString().toCharArray();
+        }
+
+        Operand result = contractAll(operands, out, sizes);
+        if (out.length == 0) {
+            return new Value(result.array.getData()[0]);
+        }
+        return new Value(result.array);
+    }
+
+    /**
+     * 解析一个操作数（或输出）的下标
+     * @param spec 完整下标表达式（用于错误信息）
+     * @param part 下标
+     * @return 下标字母
+     */
+    private static char[] parseLabels(String spec, String part) {
+        char[] labels = part.toCharArray();
+        for (char c : labels) {
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                throw invalid(spec, "unexpected character '" + c + "'");
+            }
+        }
+        return labels;
+    }
+
+    private static ExpressionException invalid(String spec, String reason) {
+        return new ExpressionException(ErrorCode.EINSUM_INVALID_SUBSCRIPTS, spec, reason);
+    }
+
+    // ========== 执行计划 ==========
+
+    /**
+     * 收缩所有操作数
+     * @param operands 操作数
+     * @param out 输出下标
+     * @param sizes 各字母的维度长度
+     * @return 下标为 out 的结果
+     */
+    private static Operand contractAll(List<Operand> operands, char[] out, int[] sizes) {
+        if (operands.size() == 1) {
+            Operand a = operands.get(0);
+            if (a.labels.length == 2 && out.length == 2 && a.labels[0] == out[1] && a.labels[1] == out[0]
+                    && out[0] != out[1]) {
+                // 纯转置：返回视图
+                return new Operand(a.array.transpose(), out);
+            }
+            return fused(operands, out, sizes);
+        }
+        if (operands.size() == 2) {
+            return contract(operands.get(0), operands.get(1), out, sizes);
+        }
+        if (product(union(operands), sizes) <= greedyCost(new ArrayList<>(operands), out, sizes)) {
+            return fused(operands, out, sizes);
+        }
+        List<Operand> remaining = new ArrayList<>(operands);
+        while (remaining.size() > 2) {
+            int[] pair = cheapestPair(remaining, sizes);
+            Operand a = remaining.get(pair[0]), b = remaining.get(pair[1]);
+            char[] keep = keptLabels(remaining, pair[0], pair[1], out);
+            remaining.remove(pair[1]);
+            remaining.set(pair[0], contract(a, b, keep, sizes));
+        }
+        return contract(remaining.get(0), remaining.get(1), out, sizes);
+    }
+
+    /**
+     * 贪心两两收缩的总运算量（每步为参与字母维度长度之积）
+     */
+    private static double greedyCost(List<Operand> remaining, char[] out, int[] sizes) {
+        double cost = 0;
+        while (remaining.size() > 1) {
+            int[] pair = cheapestPair(remaining, sizes);
+            Operand a = remaining.get(pair[0]), b = remaining.get(pair[1]);
+            List<Operand> two = Arrays.asList(a, b);
+            cost += product(union(two), sizes);
+            char[] keep = remaining.size() == 2 ? out : keptLabels(remaining, pair[0], pair[1], out);
+            remaining.remove(pair[1]);
+            remaining.set(pair[0], new Operand(null, keep));
+        }
+        return cost;
+    }
+
+    /**
+     * 选择运算量最小的一对操作数
+     * @return 两个操作数的位置（升序）
+     */
+    private static int[] cheapestPair(List<Operand> operands, int[] sizes) {
+        int[] best = {0, 1};
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < operands.size(); i++) {
+            for (int j = i + 1; j < operands.size(); j++) {
+                double cost = product(union(Arrays.asList(operands.get(i), operands.get(j))), sizes);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = new int[]{i, j};
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 两两收缩后需要保留的字母：出现在输出或其他操作数中的字母
+     */
+    private static char[] keptLabels(List<Operand> operands, int i, int j, char[] out) {
+        boolean[] needed = new boolean[128];
+        for (char c : out) needed[c] = true;
+        for (int t = 0; t < operands.size(); t++) {
+            if (t != i && t != j) {
+                for (char c : operands.get(t).labels) needed[c] = true;
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (char c : union(Arrays.asList(operands.get(i), operands.get(j)))) {
+            if (needed[c]) sb.append(c);
+        }
+        return sb.toString().toCharArray();
+    }
+
+    /**
+     * 操作数中出现的所有字母（按首次出现的顺序，不重复）
+     */
+    private static char[] union(List<Operand> operands) {
+        StringBuilder sb = new StringBuilder();
+        for (Operand op : operands) {
+            for (char c : op.labels) {
+                if (sb.indexOf(String.valueOf(c)) < 0) sb.append(c);
+            }
+        }
+        return sb.toString().toCharArray();
+    }
+
+    private static double product(char[] labels, int[] sizes) {
+        double p = 1;
+        for (char c : labels) p *= sizes[c];
+        return p;
+    }
+
+    // ========== 两个操作数 ==========
+
+    /**
+     * 收缩两个操作数：可映射为矩阵乘法时使用 GEMM 内核，否则使用融合循环
+     */
+    private static Operand contract(Operand a, Operand b, char[] out, int[] sizes) {
+        Operand r = gemm(a, b, out);
+        if (r != null) {
+            return r;
+        }
+        // 批量前缀：三者的第一个字母相同且只出现一次，其余部分为矩阵乘法，如 "bij,bjk->bik"
+        char c = out.length > 0 ? out[0] : 0;
+        if (out.length > 0 && a.labels.length > 1 && b.labels.length > 1 && a.labels[0] == c && b.labels[0] == c
+                && count(a.labels, c) == 1 && count(b.labels, c) == 1 && count(out, c) == 1) {
+            char[] ra = Arrays.copyOfRange(a.labels, 1, a.labels.length);
+            char[] rb = Arrays.copyOfRange(b.labels, 1, b.labels.length);
+            char[] ro = Arrays.copyOfRange(out, 1, out.length);
+            int k = sizes[c];
+            Operand first = gemm(new Operand(a.array.select(0, 0), ra), new Operand(b.array.select(0, 0), rb), ro);
+            if (first != null) {
+                int size = first.array.size();
+                double[] data = new double[k * size];
+                System.arraycopy(first.array.getData(), 0, data, 0, size);
+                for (int t = 1; t < k; t++) {
+                    Operand part = gemm(new Operand(a.array.select(0, t), ra), new Operand(b.array.select(0, t), rb), ro);
+                    System.arraycopy(part.array.getData(), 0, data, t * size, size);
+                }
+                return new Operand(new DenseArray(data, shapeOf(out, sizes)), out);
+            }
+        }
+        return fused(Arrays.asList(a, b), out, sizes);
+    }
+
+    /**
+     * 识别矩阵乘法模式：各操作数最多二维且无重复下标，恰好收缩一个字母，其余字母原样进入输出<br/>
+     * 覆盖 "ij,jk->ik"、"ji,jk->ik"（AᵀB）、"ij,kj->ik"（ABᵀ）、"ij,jk->ki"、"ij,j->i"、"i,ij->j"、"i,i->" 等
+     * @return 结果，不匹配时返回 null
+     */
+    private static Operand gemm(Operand a, Operand b, char[] out) {
+        if (a.labels.length > 2 || b.labels.length > 2 || out.length > 2) {
+            return null;
+        }
+        char contracted = 0;
+        for (char c : a.labels) {
+            if (count(b.labels, c) == 1 && count(out, c) == 0) {
+                if (contracted != 0) return null;
+                contracted = c;
+            }
+        }
+        if (contracted == 0 || count(a.labels, contracted) != 1) {
+            return null;
+        }
+        char fa = free(a.labels, contracted), fb = free(b.labels, contracted);
+        if (fa != 0 && (count(out, fa) != 1 || count(b.labels, fa) != 0)
+                || fb != 0 && (count(out, fb) != 1 || count(a.labels, fb) != 0)
+                || out.length != (fa != 0 ? 1 : 0) + (fb != 0 ? 1 : 0)) {
+            return null;
+        }
+        // A' 为 (fa)×(c)，B' 为 (c)×(fb)；缺少的自由下标视为长度 1
+        DenseArray x = a.labels.length == 1 ? new DenseArray(a.array.getData(), 1, a.array.size())
+            : a.labels[1] == contracted ? a.array : a.array.transpose();
+        DenseArray y = b.labels.length == 1 ? new DenseArray(b.array.getData(), b.array.size(), 1)
+            : b.labels[0] == contracted ? b.array : b.array.transpose();
+        double[] c = MatrixMathUtils.multiplyDense(x, y);
+        int m = x.getDim(0), k = y.getDim(1);
+        if (out.length == 2 && out[0] == fb) {
+            return new Operand(new DenseArray(c, m, k).transpose(), out);
+        }
+        int[] shape = new int[out.length];
+        for (int i = 0; i < out.length; i++) shape[i] = out[i] == fa ? m : k;
+        return new Operand(new DenseArray(c, out.length == 0 ? new int[]{1} : shape), out);
+    }
+
+    private static char free(char[] labels, char contracted) {
+        for (char c : labels) {
+            if (c != contracted) return c;
+        }
+        return 0;
+    }
+
+    private static int count(char[] labels, char c) {
+        int n = 0;
+        for (char l : labels) {
+            if (l == c) n++;
+        }
+        return n;
+    }
+
+    private static int[] shapeOf(char[] labels, int[] sizes) {
+        int[] shape = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) shape[i] = sizes[labels[i]];
+        return shape;
+    }
+
+    // ========== 融合循环 ==========
+
+    /**
+     * 在所有操作数的原始存储上执行一个循环嵌套：外层为输出字母，内层为求和字母<br/>
+     * 同一操作数中重复的字母（如 "ii" 的对角线）步长相加
+     * @param operands 操作数
+     * @param out 输出下标
+     * @param sizes 各字母的维度长度
+     * @return 结果
+     */
+    private static Operand fused(List<Operand> operands, char[] out, int[] sizes) {
+        StringBuilder order = new StringBuilder(new String(out));
+        for (char c : union(operands)) {
+            if (order.indexOf(String.valueOf(c)) < 0) order.append(c);
+        }
+        char[] letters = order.toString().toCharArray();
+        int L = letters.length, T = operands.size();
+        int[] dims = new int[L];
+        for (int l = 0; l < L; l++) dims[l] = sizes[letters[l]];
+
+        // 各操作数、输出在每个字母上的步长
+        double[][] storage = new double[T][];
+        int[][] strides = new int[T][L];
+        int[] off = new int[T];
+        for (int t = 0; t < T; t++) {
+            DenseArray d = operands.get(t).array;
+            storage[t] = d.getStorage();
+            off[t] = d.getOffset();
+            char[] labels = operands.get(t).labels;
+            for (int ax = 0; ax < labels.length; ax++) {
+                strides[t][order.indexOf(String.valueOf(labels[ax]))] += d.getStride(ax);
+            }
+        }
+        int[] outStrides = new int[L];
+        int outSize = 1;
+        for (int l = out.length - 1; l >= 0; l--) {
+            outStrides[l] = outSize;
+            outSize *= dims[l];
+        }
+        double[] result = new double[outSize];
+
+        int last = L - 1, n = dims[last], os = outStrides[last];
+        int[] inner = new int[T];
+        for (int t = 0; t < T; t++) inner[t] = strides[t][last];
+        int[] idx = new int[L];
+        int outOff = 0;
+        while (true) {
+            // 最内层循环
+            if (T == 1) {
+                double[] s0 = storage[0];
+                int p0 = off[0], s = inner[0];
+                if (os == 0) {
+                    double sum = 0;
+                    for (int x = 0; x < n; x++, p0 += s) sum += s0[p0];
+                    result[outOff] += sum;
+                } else {
+                    for (int x = 0, q = outOff; x < n; x++, p0 += s, q += os) result[q] += s0[p0];
+                }
+            } else if (T == 2) {
+                double[] s0 = storage[0], s1 = storage[1];
+                int p0 = off[0], p1 = off[1], i0 = inner[0], i1 = inner[1];
+                if (os == 0) {
+                    double sum = 0;
+                    for (int x = 0; x < n; x++, p0 += i0, p1 += i1) sum += s0[p0] * s1[p1];
+                    result[outOff] += sum;
+                } else {
+                    for (int x = 0, q = outOff; x < n; x++, p0 += i0, p1 += i1, q += os) result[q] += s0[p0] * s1[p1];
+                }
+            } else {
+                for (int x = 0, q = outOff; x < n; x++, q += os) {
+                    double p = 1;
+                    for (int t = 0; t < T; t++) p *= storage[t][off[t] + x * inner[t]];
+                    result[q] += p;
+                }
+            }
+            // 其余字母按里程表方式前进
+            int l = last - 1;
+            for (; l >= 0; l--) {
+                for (int t = 0; t < T; t++) off[t] += strides[t][l];
+                outOff += outStrides[l];
+                if (++idx[l] < dims[l]) break;
+                for (int t = 0; t < T; t++) off[t] -= strides[t][l] * dims[l];
+                outOff -= outStrides[l] * dims[l];
+                idx[l] = 0;
+            }
+            if (l < 0) break;
+        }
+        return new Operand(new DenseArray(result, out.length == 0 ? new int[]{1} : shapeOf(out, sizes)), out);
+    }
+}
@@ -0,0 +1,121 @@
+package cn.czyx007.expression_parser.utils;
+
+/**
+ * 快速傅里叶变换内核<br/>
+ * 在实部、虚部两个 double 数组上原地计算 X_k = Σ x_j·e^(∓2πijk/n)：长度为 2 的幂时使用迭代的基 2 算法
+ * （位反转置换后逐级蝶形运算），其他长度使用 Bluestein 算法将其化为 2 的幂长度的循环卷积，任意长度均为 O(n log n)<br/>
+ * 旋转因子直接由 Math.cos/Math.sin 逐个计算而不是递推，避免误差随长度累积
+ */
+final class FftKernel {
+
+    private FftKernel() {
+    }
+
+    /**
+     * 原地变换（逆变换不除以 n）
+     * @param re 实部
+     * @param im 虚部
+     * @param inverse true 表示逆变换（指数取正号）
+     */
+    static void transform(double[] re, double[] im, boolean inverse) {
+        int n = re.length;
+        if (n <= 1) {
+            return;
+        }
+        if ((n & (n - 1)) == 0) {
+            radix2(re, im, inverse);
+        } else {
+            bluestein(re, im, inverse);
+        }
+    }
+
+    /**
+     * 不小于 n 的最小的 2 的幂
+     */
+    static int nextPowerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private static void radix2(double[] re, double[] im, boolean inverse) {
+        int n = re.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        double[] cos = new double[n / 2], sin = new double[n / 2];
+        double sign = inverse ? 1 : -1;
+        for (int k = 0; k < n / 2; k++) {
+            double angle = 2 * Math.PI * k / n;
+            cos[k] = Math.cos(angle);
+            sin[k] = sign * Math.sin(angle);
+        }
+        for (int len = 2; len <= n; len <<= 1) {
+            int half = len >> 1, step = n / len;
+            for (int i = 0; i < n; i += len) {
+                for (int k = 0; k < half; k++) {
+                    double wr = cos[k * step], wi = sin[k * step];
+                    int a = i + k, b = a + half;
+                    double tr = re[b] * wr - im[b] * wi;
+                    double ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bluestein 算法：jk = (j² + k² − (k − j)²)/2，X_k = w_k·Σ (x_j·w_j)·conj(w_(k−j))，其中 w_k = e^(∓πik²/n)；
+     * 右侧的卷积用长度 M ≥ 2n − 1 的 2 的幂 FFT 计算
+     */
+    private static void bluestein(double[] re, double[] im, boolean inverse) {
+        int n = re.length;
+        int m = nextPowerOfTwo(2 * n - 1);
+        double[] wr = new double[n], wi = new double[n];
+        double sign = inverse ? 1 : -1;
+        for (int k = 0; k < n; k++) {
+            // k² 对 2n 取模后再乘 π/n，避免大角度的精度损失
+            double angle = Math.PI * ((long) k * k % (2L * n)) / n;
+            wr[k] = Math.cos(angle);
+            wi[k] = sign * Math.sin(angle);
+        }
+        double[] ar = new double[m], ai = new double[m];
+        for (int k = 0; k < n; k++) {
+            ar[k] = re[k] * wr[k] - im[k] * wi[k];
+            ai[k] = re[k] * wi[k] + im[k] * wr[k];
+        }
+        double[] br = new double[m], bi = new double[m];
+        br[0] = wr[0];
+        bi[0] = -wi[0];
+        for (int k = 1; k < n; k++) {
+            br[k] = br[m - k] = wr[k];
+            bi[k] = bi[m - k] = -wi[k];
+        }
+        radix2(ar, ai, false);
+        radix2(br, bi, false);
+        for (int k = 0; k < m; k++) {
+            double r = ar[k] * br[k] - ai[k] * bi[k];
+            ai[k] = ar[k] * bi[k] + ai[k] * br[k];
+            ar[k] = r;
+        }
+        radix2(ar, ai, true);
+        for (int k = 0; k < n; k++) {
+            double cr = ar[k] / m, ci = ai[k] / m;
+            re[k] = cr * wr[k] - ci * wi[k];
+            im[k] = cr * wi[k] + ci * wr[k];
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package cn.czyx007.expression_parser.utils;
 
+import cn.czyx007.expression_parser.ast.StringLiteral;
+import cn.czyx007.expression_parser.ast.StructuredMatrix;
 import cn.czyx007.expression_parser.ast.Value;
 import cn.czyx007.expression_parser.exception.ErrorCode;
 import cn.czyx007.expression_parser.exception.ExpressionException;
@@ -19,7 +21,7 @@ public final class FunctionRegistry {
 
     /**
      * 函数式接口：标量数学函数<br/>
-     * 参数为展开后的 double...，数组会被 flatten
+     * 参数为展开后的 double...，数组会被 flatten；参数数组可能是数组变量的底层存储，函数不得修改它
      */
     @FunctionalInterface
     public interface MathFunction {
@@ -56,11 +58,11 @@ public final class FunctionRegistry {
 
         // 单参数函数 - 指数和对数
         register1("exp", Math::exp);
-        register1("ln", x -> { validate(x > 0, ErrorCode.PARAM_MUST_BE_POSITIVE.formatMessage("ln")); return Math.log(x); });
-        register1("log10", x -> { validate(x > 0, ErrorCode.PARAM_MUST_BE_POSITIVE.formatMessage("log10")); return Math.log10(x); });
+        register1("ln", x -> { validate(x > 0, ErrorCode.PARAM_MUST_BE_POSITIVE, "ln"); return Math.log(x); });
+        register1("log10", x -> { validate(x > 0, ErrorCode.PARAM_MUST_BE_POSITIVE, "log10"); return Math.log10(x); });
 
         // 单参数函数 - 根号和立方根
-        register1("sqrt", x -> { validate(x >= 0, ErrorCode.SQRT_NEGATIVE.formatMessage()); return Math.sqrt(x); });
+        register1("sqrt", x -> { validate(x >= 0, ErrorCode.SQRT_NEGATIVE); return Math.sqrt(x); });
         register1("cbrt", Math::cbrt);
 
         // 单参数函数 - 取整
@@ -125,45 +127,33 @@ public final class FunctionRegistry {
 
 
         // 可变参数函数 - 统计函数
+        // sum、avg、prod、sumabs、norm2、rms 使用 Reductions：分块补偿求和，大数据量时并行，结果与线程数无关
         // 求和
         registerN("sum", args -> {
             validateMinArgs("sum", args.length, 1);
-            double sum = 0;
-            for (double arg : args) sum += arg;
-            return sum;
+            return Reductions.sum(args, Reductions.Term.VALUE);
         });
 
         // 平均值
         registerN("avg", args -> {
             validateMinArgs("avg", args.length, 1);
-            double sum = 0;
-            for (double arg : args) sum += arg;
-            return sum / args.length;
+            return Reductions.sum(args, Reductions.Term.VALUE) / args.length;
         });
 
         // 乘积
         registerN("prod", args -> {
             validateMinArgs("prod", args.length, 1);
-            double product = 1;
-            for (double arg : args) product *= arg;
-            return product;
+            return Reductions.product(args);
         });
         registerAlias("product", "prod");
 
         // 计数
         registerN("count", args -> args.length);
 
-        // 中位数
+        // 中位数：选择算法，期望 O(n)
         registerN("median", args -> {
             validateMinArgs("median", args.length, 1);
-            double[] sorted = args.clone();
-            java.util.Arrays.sort(sorted);
-            int n = sorted.length;
-            if (n % 2 == 0) {
-                return (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0;
-            } else {
-                return sorted[n / 2];
-            }
+            return OrderStatistics.median(args.clone());
         });
 
         // range极差: 支持 1+ 个参数，返回最大值与最小值之差
@@ -180,26 +170,20 @@ public final class FunctionRegistry {
         // sumabs: 支持 1+ 个参数，返回绝对值之和（L1）
         registerN("sumabs", args -> {
             validateMinArgs("sumabs", args.length, 1);
-            double s = 0;
-            for (double x : args) s += Math.abs(x);
-            return s;
+            return Reductions.sum(args, Reductions.Term.ABS);
         });
         registerAlias("norm1", "sumabs");
 
         // norm2: 支持 1+ 个参数，返回欧几里得范数（L2）
         registerN("norm2", args -> {
             validateMinArgs("norm2", args.length, 1);
-            double s = 0;
-            for (double x : args) s += x * x;
-            return Math.sqrt(s);
+            return Math.sqrt(Reductions.sum(args, Reductions.Term.SQUARE));
         });
 
         // rms: 支持 1+ 个参数，返回均方根
         registerN("rms", args -> {
             validateMinArgs("rms", args.length, 1);
-            double s = 0;
-            for (double x : args) s += x * x;
-            return Math.sqrt(s / args.length);
+            return Math.sqrt(Reductions.sum(args, Reductions.Term.SQUARE) / args.length);
         });
 
         // geomean: 支持 1+ 个参数，返回几何平均数
@@ -207,7 +191,7 @@ public final class FunctionRegistry {
             validateMinArgs("geomean", args.length, 1);
             double prod = 1;
             for (double x : args) {
-                validate(x > 0, ErrorCode.GEOMEAN_POSITIVE.formatMessage());
+                validate(x > 0, ErrorCode.GEOMEAN_POSITIVE);
                 prod *= x;
             }
             return Math.pow(prod, 1.0 / args.length);
@@ -230,29 +214,12 @@ public final class FunctionRegistry {
         registerAlias("stddevp", "stdp");
 
         // 百分位数：percentile(p, x1, x2, ...) 或 percentile(p, array)
-        // p 为百分位数（0-100），例如 50 表示中位数
+        // p 为百分位数（0-100），例如 50 表示中位数；相邻两个顺序统计量之间线性插值
         registerN("percentile", args -> {
             validateMinArgs("percentile", args.length, 2);
             double p = args[0];
-            validate(p >= 0 && p <= 100, ErrorCode.PERCENTILE_RANGE.formatMessage());
-
-            // 提取数据点（跳过第一个参数）
-            double[] data = new double[args.length - 1];
-            System.arraycopy(args, 1, data, 0, args.length - 1);
-            java.util.Arrays.sort(data);
-
-            int n = data.length;
-            if (n == 1) return data[0];
-
-            // 使用线性插值法计算百分位数
-            double index = (p / 100.0) * (n - 1);
-            int lower = (int) Math.floor(index);
-            int upper = (int) Math.ceil(index);
-
-            if (lower == upper) return data[lower];
-
-            double weight = index - lower;
-            return data[lower] * (1 - weight) + data[upper] * weight;
+            validate(p >= 0 && p <= 100, ErrorCode.PERCENTILE_RANGE);
+            return OrderStatistics.percentile(Arrays.copyOfRange(args, 1, args.length), p);
         });
         registerAlias("pctl", "percentile");
 
@@ -260,34 +227,24 @@ public final class FunctionRegistry {
         // 参数必须是偶数个，前半部分为 X，后半部分为 Y
         registerN("cov", args -> {
             validateMinArgs("cov", args.length, 2);
-            validate(args.length % 2 == 0, ErrorCode.COV_EVEN_ARGS.formatMessage());
+            validate(args.length % 2 == 0, ErrorCode.COV_EVEN_ARGS);
 
             int n = args.length / 2;
-            validate(n >= 2, ErrorCode.COV_MIN_PAIRS.formatMessage(2));
-
-            double[] x = new double[n];
-            double[] y = new double[n];
-            System.arraycopy(args, 0, x, 0, n);
-            System.arraycopy(args, n, y, 0, n);
+            validate(n >= 2, ErrorCode.COV_MIN_PAIRS, 2);
 
-            return covariance(x, y, true);
+            return covariance(args, true);
         });
         registerAlias("covariance", "cov");
 
         // 总体协方差
         registerN("covp", args -> {
             validateMinArgs("covp", args.length, 2);
-            validate(args.length % 2 == 0, ErrorCode.COV_EVEN_ARGS.formatMessage());
+            validate(args.length % 2 == 0, ErrorCode.COV_EVEN_ARGS);
 
             int n = args.length / 2;
-            validate(n >= 1, ErrorCode.COV_MIN_PAIRS.formatMessage(1));
-
-            double[] x = new double[n];
-            double[] y = new double[n];
-            System.arraycopy(args, 0, x, 0, n);
-            System.arraycopy(args, n, y, 0, n);
+            validate(n >= 1, ErrorCode.COV_MIN_PAIRS, 1);
 
-            return covariance(x, y, false);
+            return covariance(args, false);
         });
         registerAlias("covariancep", "covp");
 
@@ -295,17 +252,12 @@ public final class FunctionRegistry {
         // 参数必须是偶数个，前半部分为 X，后半部分为 Y
         registerN("corr", args -> {
             validateMinArgs("corr", args.length, 2);
-            validate(args.length % 2 == 0, ErrorCode.CORR_EVEN_ARGS.formatMessage());
+            validate(args.length % 2 == 0, ErrorCode.CORR_EVEN_ARGS);
 
             int n = args.length / 2;
-            validate(n >= 2, ErrorCode.CORR_MIN_PAIRS.formatMessage());
+            validate(n >= 2, ErrorCode.CORR_MIN_PAIRS);
 
-            double[] x = new double[n];
-            double[] y = new double[n];
-            System.arraycopy(args, 0, x, 0, n);
-            System.arraycopy(args, n, y, 0, n);
-
-            return correlation(x, y);
+            return correlation(args);
         });
         registerAlias("correlation", "corr");
 
@@ -313,7 +265,7 @@ public final class FunctionRegistry {
         // 参数必须是偶数个，前半部分为向量 X，后半部分为向量 Y
         registerN("dot", args -> {
             validateMinArgs("dot", args.length, 2);
-            validate(args.length % 2 == 0, ErrorCode.DOT_EVEN_ARGS.formatMessage());
+            validate(args.length % 2 == 0, ErrorCode.DOT_EVEN_ARGS);
 
             int n = args.length / 2;
             double result = 0;
@@ -328,7 +280,7 @@ public final class FunctionRegistry {
         // 参数必须是偶数个，前半部分为点 X，后半部分为点 Y
         registerN("dist", args -> {
             validateMinArgs("dist", args.length, 2);
-            validate(args.length % 2 == 0, ErrorCode.DIST_EVEN_ARGS.formatMessage());
+            validate(args.length % 2 == 0, ErrorCode.DIST_EVEN_ARGS);
 
             int n = args.length / 2;
             double sumSq = 0;
@@ -344,7 +296,7 @@ public final class FunctionRegistry {
         // 曼哈顿距离：manhattan(x1, x2, x3, ..., y1, y2, y3, ...)
         registerN("manhattan", args -> {
             validateMinArgs("manhattan", args.length, 2);
-            validate(args.length % 2 == 0, ErrorCode.MANHATTAN_EVEN_ARGS.formatMessage());
+            validate(args.length % 2 == 0, ErrorCode.MANHATTAN_EVEN_ARGS);
 
             int n = args.length / 2;
             double sum = 0;
@@ -359,11 +311,11 @@ public final class FunctionRegistry {
         // 特殊函数：log 支持 1 或 2 个参数
         FUNCTION_REGISTRY.put("log", args -> {
             if (args.length == 1) {
-                validate(args[0] > 0, ErrorCode.LOG_PARAM_INVALID.formatMessage());
+                validate(args[0] > 0, ErrorCode.LOG_PARAM_INVALID);
                 return Math.log10(args[0]);
             } else if (args.length == 2) {
-                validate(args[0] > 0 && args[0] != 1, ErrorCode.LOG_BASE_INVALID.formatMessage());
-                validate(args[1] > 0, ErrorCode.LOG_PARAM_INVALID.formatMessage());
+                validate(args[0] > 0 && args[0] != 1, ErrorCode.LOG_BASE_INVALID);
+                validate(args[1] > 0, ErrorCode.LOG_PARAM_INVALID);
                 return Math.log(args[1]) / Math.log(args[0]);
             } else {
                 throw new ExpressionException(ErrorCode.LOG_INVALID_ARGS, args.length);
@@ -378,6 +330,16 @@ public final class FunctionRegistry {
         });
         registerMatrixAlias("t", "transpose");
 
+        // 取行、列（下标从 0 开始，返回共享原存储的一维视图）：row([[1,2],[3,4]], 1) => [3, 4]
+        registerMatrix("row", args -> {
+            validateArgCount("row", args.size(), 2);
+            return sliceMatrix(args.get(0), args.get(1), 0, "row");
+        });
+        registerMatrix("col", args -> {
+            validateArgCount("col", args.size(), 2);
+            return sliceMatrix(args.get(0), args.get(1), 1, "col");
+        });
+
         // 行列式：det([[1,2],[3,4]])
         registerMatrix("det", args -> {
             validateArgCount("det", args.size(), 1);
@@ -391,6 +353,12 @@ public final class FunctionRegistry {
             return matMul(args.get(0), args.get(1));
         });
 
+        // 矩阵幂 matpow(A, n)，等价于 A^n：平方求幂，负指数先求逆
+        registerMatrix("matpow", args -> {
+            validateArgCount("matpow", args.size(), 2);
+            return MatrixOperators.power(args.get(0), args.get(1));
+        });
+
         // 矩阵迹
         registerMatrix("trace", args -> {
             validateArgCount("trace", args.size(), 1);
@@ -406,15 +374,15 @@ public final class FunctionRegistry {
         // mean(A, axis)
         // axis = 0 : 按列求均值，返回 1×n 行向量
         // axis = 1 : 按行求均值，返回 m×1 列向量
-        registerMatrix("mean", args -> {
-            validateArgCount("mean", args.size(), 2);
-            Value axisVal = args.get(1);
-            if (!axisVal.isScalar()) {
-                throw new ExpressionException(ErrorCode.SCALAR_REQUIRED, "mean");
+        registerMatrix("mean", args -> AxisStatistics.reduce(args, AxisStatistics.Op.MEAN));
+
+        // 按轴统计：sumaxis、prodaxis、minaxis、maxaxis、varaxis、stdaxis、varpaxis、stdpaxis、medianaxis(A, axis)
+        // 轴的含义与 mean 相同；同名的标量统计函数（sum、var 等）仍将所有参数展开为一组数据
+        for (AxisStatistics.Op op : AxisStatistics.Op.values()) {
+            if (op != AxisStatistics.Op.MEAN) {
+                registerMatrix(op.funcName(), args -> AxisStatistics.reduce(args, op));
             }
-            int axis = (int) axisVal.asScalar();
-            return meanMatrix(args.get(0), axis);
-        });
+        }
 
         // ========== 矩阵求逆 ==========
         registerMatrix("inv", args -> {
@@ -422,43 +390,201 @@ public final class FunctionRegistry {
             return inverseMatrix(args.get(0));
         });
 
-        // ========== 解线性方程组 solve(A, b) ==========
+        // ========== 解线性方程组 solve(A, B) ==========
+        // A 可以是方阵或 lu/chol 分解结果，B 可以有多列
         registerMatrix("solve", args -> {
             validateArgCount("solve", args.size(), 2);
             return solveLinear(args.get(0), args.get(1));
         });
 
+        // ========== 矩阵分解 ==========
+        // lu(A)：部分主元 LU 分解；chol(A)：对称正定矩阵的 Cholesky 分解
+        // 返回的分解结果可代替原矩阵传给 solve、det、inv
+        registerMatrix("lu", args -> {
+            validateArgCount("lu", args.size(), 1);
+            return luFactor(args.get(0));
+        });
+        registerMatrix("chol", args -> {
+            validateArgCount("chol", args.size(), 1);
+            return cholFactor(args.get(0));
+        });
+        registerMatrixAlias("cholesky", "chol");
+
+        // ========== 迭代法解线性方程组 ==========
+        // cg(A, b[, tol[, maxIter[, jacobi]]])：共轭梯度法（对称正定矩阵）
+        // gmres(A, b[, tol[, maxIter[, jacobi[, restart]]]])：重启 GMRES（一般方阵）
+        // solverinfo(x)：返回 [迭代次数, 相对残差]
+        registerMatrix("cg", IterativeSolvers::cg);
+        registerMatrix("gmres", IterativeSolvers::gmres);
+        registerMatrix("solverinfo", args -> {
+            validateArgCount("solverinfo", args.size(), 1);
+            return IterativeSolvers.solverInfo(args.get(0));
+        });
+
+        // ========== 结构化矩阵 ==========
+        // diag(v)：对角矩阵，diag(A)：取主对角线；tril(A)/triu(A)：下/上三角部分；tridiag(sub, main, super)：三对角矩阵
+        // 以紧凑形式存储，det、inv、solve、matmul 使用专用算法；稠密方阵在这些运算中也会自动检测结构
+        registerMatrix("diag", StructuredMathUtils::diag);
+        registerMatrix("tril", args -> {
+            validateArgCount("tril", args.size(), 1);
+            return StructuredMathUtils.triangular(args.get(0), StructuredMatrix.Kind.LOWER, "tril");
+        });
+        registerMatrix("triu", args -> {
+            validateArgCount("triu", args.size(), 1);
+            return StructuredMathUtils.triangular(args.get(0), StructuredMatrix.Kind.UPPER, "triu");
+        });
+        registerMatrix("tridiag", StructuredMathUtils::tridiag);
+
+        // ========== 批量小矩阵运算 ==========
+        // 参数为 k×n×n 的三维数组（k 个同阶方阵），一次调用处理整批矩阵，结果为连续存储的数组
+        // bdet(S)：k 个行列式；binv(S)：k 个逆矩阵；bsolve(A, B)：B 为 k×n 或 k×n×r
+        // bmatmul(A, B)：逐对相乘，任一侧为单个矩阵时与另一侧的每个矩阵相乘
+        registerMatrix("bdet", BatchedMatrixUtils::bdet);
+        registerMatrix("binv", BatchedMatrixUtils::binv);
+        registerMatrix("bmatmul", BatchedMatrixUtils::bmatmul);
+        registerMatrix("bsolve", BatchedMatrixUtils::bsolve);
+
+        // ========== 张量收缩 ==========
+        // einsum("ij,jk->ik", A, B, ...)：爱因斯坦求和约定，如 "ij->ji" 转置、"ii->" 迹、"i,j->ij" 外积、"i,ij,j->" 双线性型
+        // 矩阵乘法模式使用 GEMM 内核，其余在原始存储上执行单个融合循环，不产生中间数组
+        registerMatrix("einsum", EinsumUtils::einsum);
+
+        // ========== 协方差矩阵 ==========
+        // covmatrix(X)、covmatrixp(X)：m×n 数据各列之间的样本、总体协方差矩阵；corrmatrix(X)：相关系数矩阵
+        // 一遍中心化后由 SYRK 内核一次算出所有列对，结果为 n×n 对称矩阵
+        registerMatrix("covmatrix", CovarianceMatrices::covmatrix);
+        registerMatrix("covmatrixp", CovarianceMatrices::covmatrixp);
+        registerMatrix("corrmatrix", CovarianceMatrices::corrmatrix);
+
+        // ========== 线性回归 ==========
+        // linreg(X, y)：最小二乘系数；linregstats(X, y)：[R², 调整 R², 残差标准误, 残差平方和, 观测数]
+        // lsq(X, y)：一批观测的累加器；lsqmerge(S1, S2, ...)：合并；linreg、linregstats 也接受累加器
+        registerMatrix("linreg", RegressionUtils::linreg);
+        registerMatrix("linregstats", RegressionUtils::linregstats);
+        registerMatrix("lsq", RegressionUtils::lsq);
+        registerMatrix("lsqmerge", RegressionUtils::lsqmerge);
+
+        // ========== 多个百分位数 ==========
+        // percentiles(data, [50, 90, 99])：一次划分求出所有百分位数，插值方式与 percentile 相同
+        // data 为数组变量时缓存其数据副本，对同一变量的重复查询不再重新划分
+        registerMatrix("percentiles", OrderStatistics::percentiles);
+
+        // ========== 排序与去重 ==========
+        // sort(x[, "desc"])：排序；argsort(x[, "desc"])：稳定排序的下标（从 0 开始）
+        // topk(x, k)：最大的 k 个值（降序）；unique(x)：升序排列的不同值；结果均为一维向量
+        registerMatrix("sort", SortUtils::sort);
+        registerMatrix("argsort", SortUtils::argsort);
+        registerMatrix("topk", SortUtils::topk);
+        registerMatrix("unique", SortUtils::unique);
+
+        // ========== 滑动窗口与累积函数 ==========
+        // movsum、movavg、movstd、movmin、movmax(x, w)：长度 w 的尾随窗口，结果长度 n - w + 1
+        // cumsum(x)、cumprod(x)：前缀和、前缀积；ema(x, alpha)：指数移动平均
+        // 向量保持原方向，矩阵对每一列分别计算
+        registerMatrix("movsum", WindowFunctions::movsum);
+        registerMatrix("movavg", WindowFunctions::movavg);
+        registerMatrix("movstd", WindowFunctions::movstd);
+        registerMatrix("movmin", WindowFunctions::movmin);
+        registerMatrix("movmax", WindowFunctions::movmax);
+        registerMatrix("cumsum", WindowFunctions::cumsum);
+        registerMatrix("cumprod", WindowFunctions::cumprod);
+        registerMatrix("ema", WindowFunctions::ema);
+
+        // ========== 近似统计草图 ==========
+        // qsketch(X[, k])：KLL 分位数草图（默认 k = 200，秩误差约 1%）；qpercentile(S, p)：估计百分位数，p 可以是数组
+        // hll(X[, p])：HyperLogLog 草图（默认 p = 14，相对误差约 0.8%）；hllcount(H)：估计不同值的个数
+        // qmerge、hllmerge 合并多个草图；sketchdata(S) 将草图转为数值向量，sketchload(v) 还原
+        registerMatrix("qsketch", SketchUtils::qsketch);
+        registerMatrix("qmerge", SketchUtils::qmerge);
+        registerMatrix("qpercentile", SketchUtils::qpercentile);
+        registerMatrix("hll", SketchUtils::hll);
+        registerMatrix("hllmerge", SketchUtils::hllmerge);
+        registerMatrix("hllcount", SketchUtils::hllcount);
+        registerMatrix("sketchdata", SketchUtils::sketchdata);
+        registerMatrix("sketchload", SketchUtils::sketchload);
+
+        // ========== 成对距离 ==========
+        // cdist(X, Y[, metric])：m×n 距离矩阵；pdist(X[, metric])：X 各行两两距离的压缩向量（长度 n(n-1)/2）
+        // metric："euclidean"（默认）、"sqeuclidean"、"cityblock"（"manhattan"）、"cosine"、"correlation"
+        registerMatrix("cdist", DistanceUtils::cdist);
+        registerMatrix("pdist", DistanceUtils::pdist);
+
+        // ========== 信号处理 ==========
+        // fft(x)、ifft(X)：复数序列为 n×2 矩阵 [实部, 虚部]，任意长度 O(n log n)
+        // conv(x, h)：线性卷积，按规模选择直接法或 FFT 法；xcorr(x[, y])：互相关；psd(x)：单边周期图
+        registerMatrix("fft", SignalUtils::fft);
+        registerMatrix("ifft", SignalUtils::ifft);
+        registerMatrix("conv", SignalUtils::conv);
+        registerMatrix("xcorr", SignalUtils::xcorr);
+        registerMatrix("psd", SignalUtils::psd);
+
+        // ========== 稀疏矩阵 ==========
+        // sparse(rows, cols, values[, n, m])：由三元组（下标从 0 开始）构造 CSR 稀疏矩阵
+        // sparse(A)：将稠密矩阵转换为稀疏存储；full(S)：转换回稠密矩阵（也适用于结构化矩阵）；nnz(A)：非零元素个数
+        registerMatrix("sparse", SparseMathUtils::sparse);
+        registerMatrix("full", args -> {
+            validateArgCount("full", args.size(), 1);
+            Value a = args.get(0);
+            if (a.isSparse()) {
+                return new Value(a.getSparse().toDense());
+            }
+            return a.isStructured() ? new Value(a.getStructured().toDense()) : a;
+        });
+        registerMatrix("nnz", args -> {
+            validateArgCount("nnz", args.size(), 1);
+            Value a = args.get(0);
+            if (a.isSparse()) {
+                return new Value(a.getSparse().nnz());
+            }
+            int count = 0;
+            for (double v : a.scalarData()) {
+                if (v != 0) count++;
+            }
+            return new Value(count);
+        });
+
         // ========== 排列组合 ==========
-        // 组合数 C(n,k)
+        // 组合数 C(n,k)：结果在 long 范围内时精确计算，否则查阶乘表或用对数伽马函数，均不随 k 线性增长
         registerN("c", args -> {
             validateArgCount("C", args.length, 2);
-            int n = (int) args[0];
-            int k = (int) args[1];
-            validate(n >= 0 && k >= 0, ErrorCode.COMB_NON_NEGATIVE.formatMessage());
-            if (k > n) return 0;
-            if (k > n - k) k = n - k;
-            double result = 1;
-            for (int i = 1; i <= k; i++) {
-                result = result * (n - k + i) / i;
-            }
-            return result;
+            long n = (long) args[0];
+            long k = (long) args[1];
+            validate(n >= 0 && k >= 0, ErrorCode.COMB_NON_NEGATIVE);
+            return Combinatorics.combination(n, k);
         });
         registerAlias("comb", "c");
 
         // 排列数 P(n,k)
         registerN("p", args -> {
             validateArgCount("P", args.length, 2);
-            int n = (int) args[0];
-            int k = (int) args[1];
-            validate(n >= 0 && k >= 0, ErrorCode.PERM_NON_NEGATIVE.formatMessage());
-            if (k > n) return 0;
-            double result = 1;
-            for (int i = 0; i < k; i++) {
-                result *= (n - i);
-            }
-            return result;
+            long n = (long) args[0];
+            long k = (long) args[1];
+            validate(n >= 0 && k >= 0, ErrorCode.PERM_NON_NEGATIVE);
+            return Combinatorics.permutation(n, k);
         });
         registerAlias("perm", "p");
+
+        // 对数形式：lnfact(n) = ln n!、lncomb(n,k) = ln C(n,k)、lnperm(n,k) = ln P(n,k)，n 很大时也不会溢出
+        // 如二项分布概率 exp(lncomb(n,k) + k*ln(p) + (n-k)*ln(1-p))
+        registerN("lnfact", args -> {
+            validateArgCount("lnfact", args.length, 1);
+            validate(args[0] >= 0 && args[0] == Math.floor(args[0]), ErrorCode.FACTORIAL_NEGATIVE, args[0]);
+            return Combinatorics.lnFactorial((long) args[0]);
+        });
+        registerN("lncomb", args -> {
+            validateArgCount("lncomb", args.length, 2);
+            long n = (long) args[0];
+            long k = (long) args[1];
+            validate(n >= 0 && k >= 0, ErrorCode.COMB_NON_NEGATIVE);
+            return Combinatorics.lnCombination(n, k);
+        });
+        registerN("lnperm", args -> {
+            validateArgCount("lnperm", args.length, 2);
+            long n = (long) args[0];
+            long k = (long) args[1];
+            validate(n >= 0 && k >= 0, ErrorCode.PERM_NON_NEGATIVE);
+            return Combinatorics.lnPermutation(n, k);
+        });
     }
 
 
@@ -556,13 +682,41 @@ public final class FunctionRegistry {
     }
 
     /**
-     * 条件验证
+     * 取出字符串字面量参数
+     * @param value 参数值
+     * @param funcName 函数名
+     * @param position 参数位置（从 1 开始）
+     * @return 字符串内容
+     * @throws ExpressionException 如果参数不是字符串字面量
+     */
+    static String requireString(Value value, String funcName, int position) {
+        if (!value.isHandle() || !(value.getHandle() instanceof StringLiteral)) {
+            throw new ExpressionException(ErrorCode.STRING_REQUIRED, funcName, position);
+        }
+        return ((StringLiteral) value.getHandle()).getText();
+    }
+
+    /**
+     * 条件验证<br/>
+     * 错误消息仅在验证失败时才格式化，避免成功路径上的字符串拼接
+     * @param condition 验证条件
+     * @param errorCode 验证失败时的错误代码
+     */
+    static void validate(boolean condition, ErrorCode errorCode) {
+        if (!condition) {
+            throw new ExpressionException(errorCode);
+        }
+    }
+
+    /**
+     * 条件验证（带消息参数）
      * @param condition 验证条件
-     * @param formattedMessage 格式化后的错误消息
+     * @param errorCode 验证失败时的错误代码
+     * @param params 用于消息格式化的参数
      */
-    static void validate(boolean condition, String formattedMessage) {
+    static void validate(boolean condition, ErrorCode errorCode, Object... params) {
         if (!condition) {
-            throw new ExpressionException(ErrorCode.VALIDATION_ERROR, formattedMessage);
+            throw new ExpressionException(errorCode, params);
         }
     }
 }
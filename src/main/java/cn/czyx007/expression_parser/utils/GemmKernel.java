@@ -0,0 +1,291 @@
+package cn.czyx007.expression_parser.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 矩阵乘法内核<br/>
+ * 在行主序的一维 double 数组上计算 C = A·B：先将 B 按 KC×NC 分块打包为连续面板，
+ * 再以 i-t-j 顺序对 C 的一段行做 axpy 累加，使 B 面板驻留在缓存中、最内层循环为连续访存<br/>
+ * 计算量超过阈值时按行块拆分到 ForkJoin 公共池并行；每个元素的累加顺序与朴素三重循环相同，结果与线程数无关<br/>
+ * 另有转置操作数的专用内核（Aᵀ·B、A·Bᵀ）以及利用对称性只计算上三角的 XᵀX、X·Xᵀ（SYRK）内核
+ */
+final class GemmKernel {
+    /** 面板在公共维（t）上的块大小 */
+    private static final int KC = 128;
+    /** 面板在列（j）上的块大小，KC×NC 个 double 约 256KB */
+    private static final int NC = 256;
+    /** 并行阈值：乘加次数 m·n·k 达到该值才拆分任务 */
+    private static final long PARALLEL_THRESHOLD = 1L << 21;
+    /** 并行时每个任务处理的最少行数 */
+    private static final int ROW_BLOCK = 32;
+
+    private GemmKernel() {
+    }
+
+    /**
+     * 矩阵乘法 C = A(m×n)·B(n×k)
+     * @param a 行主序 m×n 矩阵
+     * @param b 行主序 n×k 矩阵
+     * @param m A 的行数
+     * @param n A 的列数（B 的行数）
+     * @param k B 的列数
+     * @return 行主序 m×k 结果
+     */
+    static double[] multiply(double[] a, double[] b, int m, int n, int k) {
+        if (k == 1) {
+            return multiplyVector(a, b, m, n);
+        }
+        double[] c = new double[m * k];
+        if (m == 1) {
+            // 行向量 × 矩阵：单行 axpy 已是连续访存，无需打包
+            for (int t = 0; t < n; t++) {
+                double at = a[t];
+                int bOff = t * k;
+                for (int j = 0; j < k; j++) {
+                    c[j] += at * b[bOff + j];
+                }
+            }
+            return c;
+        }
+        double[] packed = pack(b, n, k);
+        forRows(m, (long) m * n * k, (i0, i1) -> multiplyRows(a, packed, c, i0, i1, n, k));
+        return c;
+    }
+
+    /**
+     * 转置左操作数的矩阵乘法 C = Aᵀ·B，A 以原始（未转置）形式给出<br/>
+     * 按公共维 t 外层循环，A、B 的第 t 行均连续访问
+     * @param a 行主序 n×m 矩阵（即 Aᵀ 的存储）
+     * @param b 行主序 n×k 矩阵
+     * @param m 结果行数
+     * @param n 公共维
+     * @param k 结果列数
+     * @return 行主序 m×k 结果
+     */
+    static double[] multiplyTransA(double[] a, double[] b, int m, int n, int k) {
+        double[] c = new double[m * k];
+        forRows(m, (long) m * n * k, (i0, i1) -> {
+            for (int t = 0; t < n; t++) {
+                int aOff = t * m, bOff = t * k;
+                for (int i = i0; i < i1; i++) {
+                    double at = a[aOff + i];
+                    int cOff = i * k;
+                    for (int j = 0; j < k; j++) {
+                        c[cOff + j] += at * b[bOff + j];
+                    }
+                }
+            }
+        });
+        return c;
+    }
+
+    /**
+     * 转置右操作数的矩阵乘法 C = A·Bᵀ，B 以原始（未转置）形式给出，每个元素为两行的点积
+     * @param a 行主序 m×n 矩阵
+     * @param b 行主序 k×n 矩阵（即 Bᵀ 的存储）
+     * @param m 结果行数
+     * @param n 公共维
+     * @param k 结果列数
+     * @return 行主序 m×k 结果
+     */
+    static double[] multiplyTransB(double[] a, double[] b, int m, int n, int k) {
+        double[] c = new double[m * k];
+        forRows(m, (long) m * n * k, (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int j = 0; j < k; j++) {
+                    c[i * k + j] = dot(a, i * n, b, j * n, n);
+                }
+            }
+        });
+        return c;
+    }
+
+    /**
+     * 对称秩 k 更新 C = Xᵀ·X（SYRK），只计算上三角再镜像到下三角
+     * @param x 行主序 m×n 矩阵
+     * @param m 行数
+     * @param n 列数（结果阶数）
+     * @return 行主序 n×n 对称结果
+     */
+    static double[] syrkTransA(double[] x, int m, int n) {
+        double[] c = new double[n * n];
+        forRows(n, (long) m * n * n / 2, (i0, i1) -> {
+            for (int t = 0; t < m; t++) {
+                int off = t * n;
+                for (int i = i0; i < i1; i++) {
+                    double xi = x[off + i];
+                    int cOff = i * n;
+                    for (int j = i; j < n; j++) {
+                        c[cOff + j] += xi * x[off + j];
+                    }
+                }
+            }
+        });
+        mirrorUpper(c, n);
+        return c;
+    }
+
+    /**
+     * 对称秩 k 更新 C = X·Xᵀ（SYRK），只计算上三角再镜像到下三角
+     * @param x 行主序 m×n 矩阵
+     * @param m 行数（结果阶数）
+     * @param n 列数
+     * @return 行主序 m×m 对称结果
+     */
+    static double[] syrkTransB(double[] x, int m, int n) {
+        double[] c = new double[m * m];
+        forRows(m, (long) m * m * n / 2, (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                for (int j = i; j < m; j++) {
+                    c[i * m + j] = dot(x, i * n, x, j * n, n);
+                }
+            }
+        });
+        mirrorUpper(c, m);
+        return c;
+    }
+
+    private static void mirrorUpper(double[] c, int n) {
+        for (int i = 1; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                c[i * n + j] = c[j * n + i];
+            }
+        }
+    }
+
+    /**
+     * 计算结果的一段行 [i0, i1)
+     */
+    interface RowRange {
+        void run(int i0, int i1);
+    }
+
+    /**
+     * 按结果行执行内核：计算量达到阈值时按行块拆分到 ForkJoin 公共池，否则在当前线程执行<br/>
+     * 各行块写入互不重叠的结果区域，其他按行独立的内核（如距离矩阵）也复用该调度
+     * @param rows 结果行数
+     * @param work 乘加次数
+     * @param body 计算一段行的内核
+     */
+    static void forRows(int rows, long work, RowRange body) {
+        if (work < PARALLEL_THRESHOLD || rows < 2 * ROW_BLOCK) {
+            body.run(0, rows);
+        } else {
+            ForkJoinPool.commonPool().invoke(new RowBlockTask(body, 0, rows));
+        }
+    }
+
+    /**
+     * 矩阵 × 列向量 y = A(m×n)·x，逐行点积
+     * @param a 行主序 m×n 矩阵
+     * @param x 长度为 n 的向量
+     * @param m 行数
+     * @param n 列数
+     * @return 长度为 m 的结果
+     */
+    static double[] multiplyVector(double[] a, double[] x, int m, int n) {
+        double[] y = new double[m];
+        for (int i = 0; i < m; i++) {
+            y[i] = dot(a, i * n, x, 0, n);
+        }
+        return y;
+    }
+
+    /**
+     * 点积
+     * @param a 第一个数组
+     * @param aOff a 的起始位置
+     * @param b 第二个数组
+     * @param bOff b 的起始位置
+     * @param n 长度
+     * @return 点积
+     */
+    static double dot(double[] a, int aOff, double[] b, int bOff, int n) {
+        double sum = 0;
+        for (int t = 0; t < n; t++) {
+            sum += a[aOff + t] * b[bOff + t];
+        }
+        return sum;
+    }
+
+    /**
+     * 将 B 打包为按 (列块, 公共维块) 顺序排列的连续面板，面板内为行主序
+     * @param b 行主序 n×k 矩阵
+     * @param n 行数
+     * @param k 列数
+     * @return 打包后的数组（长度仍为 n·k）
+     */
+    private static double[] pack(double[] b, int n, int k) {
+        double[] packed = new double[n * k];
+        int pos = 0;
+        for (int jj = 0; jj < k; jj += NC) {
+            int jn = Math.min(NC, k - jj);
+            for (int t = 0; t < n; t++) {
+                System.arraycopy(b, t * k + jj, packed, pos, jn);
+                pos += jn;
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * 计算 C 的第 [i0, i1) 行
+     * @param a 行主序 m×n 矩阵
+     * @param packed 打包后的 B
+     * @param c 行主序 m×k 结果（累加）
+     * @param i0 起始行
+     * @param i1 结束行（不含）
+     * @param n 公共维
+     * @param k 列数
+     */
+    private static void multiplyRows(double[] a, double[] packed, double[] c, int i0, int i1, int n, int k) {
+        for (int jj = 0; jj < k; jj += NC) {
+            int jn = Math.min(NC, k - jj);
+            // 该列块在打包数组中的起点：前面各列块共 n·jj 个元素
+            int blockBase = n * jj;
+            for (int tt = 0; tt < n; tt += KC) {
+                int tn = Math.min(KC, n - tt);
+                int panel = blockBase + tt * jn;
+                for (int i = i0; i < i1; i++) {
+                    int aOff = i * n + tt;
+                    int cOff = i * k + jj;
+                    for (int t = 0; t < tn; t++) {
+                        double at = a[aOff + t];
+                        int pOff = panel + t * jn;
+                        for (int j = 0; j < jn; j++) {
+                            c[cOff + j] += at * packed[pOff + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 按行块二分拆分的并行任务
+     */
+    private static final class RowBlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RowRange body;
+        private final int i0;
+        private final int i1;
+
+        RowBlockTask(RowRange body, int i0, int i1) {
+            this.body = body;
+            this.i0 = i0;
+            this.i1 = i1;
+        }
+
+        @Override
+        protected void compute() {
+            if (i1 - i0 <= ROW_BLOCK) {
+                body.run(i0, i1);
+                return;
+            }
+            int mid = (i0 + i1) >>> 1;
+            invokeAll(new RowBlockTask(body, i0, mid), new RowBlockTask(body, mid, i1));
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.SparseMatrix;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.List;
+
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validateMinArgs;
+
+/**
+ * 迭代法解线性方程组<br/>
+ * 共轭梯度法 cg（对称正定矩阵）和重启 GMRES（一般方阵），只需矩阵-向量乘法，稠密和稀疏矩阵均可使用<br/>
+ * 可选 Jacobi（对角）预处理；迭代次数和最终相对残差 ‖b - Ax‖ / ‖b‖ 缓存在结果上，由 solverinfo(x) 读取
+ */
+final class IterativeSolvers {
+    /** 默认收敛阈值（相对残差） */
+    private static final double DEFAULT_TOL = 1e-10;
+    /** GMRES 默认重启长度 */
+    private static final int DEFAULT_RESTART = 30;
+    /** 结果上缓存迭代信息的键 */
+    private static final String CACHE_INFO = "solver.info";
+
+    /**
+     * 线性算子 y = A·x
+     */
+    private interface LinearOperator {
+        int size();
+
+        void apply(double[] x, double[] y);
+
+        double diagonal(int i);
+    }
+
+    /**
+     * 共轭梯度法：cg(A, b[, tol[, maxIter[, jacobi]]])
+     * @param args 参数列表：A 为对称正定矩阵，b 为列向量或一维向量，tol（相对残差，非负有限数）默认 1e-10，maxIter 默认 10n，jacobi 非 0 时使用对角预处理
+     * @return 解向量 x（n×1）
+     * @throws ExpressionException 如果参数无效或矩阵不是正定矩阵
+     */
+    static Value cg(List<Value> args) {
+        validateArgRange("cg", args.size(), 5);
+        LinearOperator a = toOperator(args.get(0), "cg");
+        int n = a.size();
+        double[] b = toRhs(args.get(1), n, "cg");
+        double tol = args.size() > 2 ? tolerance(args.get(2), "cg") : DEFAULT_TOL;
+        int maxIter = args.size() > 3 ? positiveInt(args.get(3), "cg", "maxIter") : 10 * n;
+        double[] invDiag = args.size() > 4 && args.get(4).asScalar() != 0 ? jacobi(a, "cg") : null;
+
+        double[] x = new double[n];
+        double[] r = b.clone();
+        double bNorm = norm(b);
+        int iter = 0;
+        if (bNorm > 0) {
+            double[] z = precondition(invDiag, r);
+            double[] p = z.clone();
+            double[] ap = new double[n];
+            double rz = dot(r, z);
+            while (iter < maxIter) {
+                iter++;
+                a.apply(p, ap);
+                double pAp = dot(p, ap);
+                if (!(pAp > 0)) {
+                    throw new ExpressionException(ErrorCode.MATRIX_NOT_SPD, "cg");
+                }
+                double alpha = rz / pAp;
+                for (int i = 0; i < n; i++) {
+                    x[i] += alpha * p[i];
+                    r[i] -= alpha * ap[i];
+                }
+                if (norm(r) <= tol * bNorm) break;
+                z = precondition(invDiag, r);
+                double rzNew = dot(r, z);
+                double beta = rzNew / rz;
+                for (int i = 0; i < n; i++) {
+                    p[i] = z[i] + beta * p[i];
+                }
+                rz = rzNew;
+            }
+        }
+        return result(a, x, b, bNorm, iter);
+    }
+
+    /**
+     * 重启 GMRES（右预处理）：gmres(A, b[, tol[, maxIter[, jacobi[, restart]]]])
+     * @param args 参数列表：A 为方阵，b 为列向量或一维向量，tol（相对残差，非负有限数）默认 1e-10，maxIter（总迭代次数）默认 10n，
+     *             jacobi 非 0 时使用对角预处理，restart 默认 min(n, 30)
+     * @return 解向量 x（n×1）
+     * @throws ExpressionException 如果参数无效
+     */
+    static Value gmres(List<Value> args) {
+        validateArgRange("gmres", args.size(), 6);
+        LinearOperator a = toOperator(args.get(0), "gmres");
+        int n = a.size();
+        double[] b = toRhs(args.get(1), n, "gmres");
+        double tol = args.size() > 2 ? tolerance(args.get(2), "gmres") : DEFAULT_TOL;
+        int maxIter = args.size() > 3 ? positiveInt(args.get(3), "gmres", "maxIter") : 10 * n;
+        double[] invDiag = args.size() > 4 && args.get(4).asScalar() != 0 ? jacobi(a, "gmres") : null;
+        // Krylov 子空间的维数不超过 n，更长的重启长度没有意义
+        int restart = args.size() > 5 ? Math.min(n, positiveInt(args.get(5), "gmres", "restart"))
+            : Math.min(n, DEFAULT_RESTART);
+
+        double[] x = new double[n];
+        double bNorm = norm(b);
+        int iter = 0;
+        double[] r = b.clone();
+        double beta = bNorm;
+        double[] w = new double[n];
+        boolean breakdown = false;
+        while (beta > tol * bNorm && iter < maxIter && !breakdown) {
+            // Arnoldi 过程构造 Krylov 子空间的正交基 V，Givens 旋转把 Hessenberg 矩阵 H 化为上三角
+            double[][] v = new double[restart + 1][];
+            double[][] h = new double[restart + 1][restart];
+            double[] cs = new double[restart];
+            double[] sn = new double[restart];
+            double[] g = new double[restart + 1];
+            g[0] = beta;
+            v[0] = scale(r, 1 / beta);
+
+            int k = 0;
+            while (k < restart && iter < maxIter) {
+                iter++;
+                a.apply(precondition(invDiag, v[k]), w);
+                // 修正 Gram-Schmidt 正交化
+                for (int i = 0; i <= k; i++) {
+                    h[i][k] = dot(w, v[i]);
+                    for (int t = 0; t < n; t++) {
+                        w[t] -= h[i][k] * v[i][t];
+                    }
+                }
+                h[k + 1][k] = norm(w);
+                if (h[k + 1][k] != 0) {
+                    v[k + 1] = scale(w, 1 / h[k + 1][k]);
+                }
+                // 对新列应用此前的旋转，再计算消去 h[k+1][k] 的新旋转
+                for (int i = 0; i < k; i++) {
+                    double tmp = cs[i] * h[i][k] + sn[i] * h[i + 1][k];
+                    h[i + 1][k] = -sn[i] * h[i][k] + cs[i] * h[i + 1][k];
+                    h[i][k] = tmp;
+                }
+                double d = Math.hypot(h[k][k], h[k + 1][k]);
+                if (d == 0) {
+                    // 新列旋转后全为 0：Krylov 子空间不再扩张，保留前 k 列的解并停止迭代
+                    breakdown = true;
+                    break;
+                }
+                cs[k] = h[k][k] / d;
+                sn[k] = h[k + 1][k] / d;
+                h[k][k] = d;
+                h[k + 1][k] = 0;
+                g[k + 1] = -sn[k] * g[k];
+                g[k] = cs[k] * g[k];
+                k++;
+                if (Math.abs(g[k]) <= tol * bNorm || v[k] == null) break;
+            }
+
+            // 回代求解 H·y = g，并更新 x += M⁻¹·V·y
+            double[] y = new double[k];
+            for (int i = k - 1; i >= 0; i--) {
+                double s = g[i];
+                for (int j = i + 1; j < k; j++) {
+                    s -= h[i][j] * y[j];
+                }
+                y[i] = s / h[i][i];
+            }
+            double[] update = new double[n];
+            for (int j = 0; j < k; j++) {
+                for (int t = 0; t < n; t++) {
+                    update[t] += y[j] * v[j][t];
+                }
+            }
+            update = precondition(invDiag, update);
+            for (int t = 0; t < n; t++) {
+                x[t] += update[t];
+            }
+
+            // 重新计算真实残差
+            a.apply(x, w);
+            for (int t = 0; t < n; t++) {
+                r[t] = b[t] - w[t];
+            }
+            beta = norm(r);
+        }
+        return result(a, x, b, bNorm, iter);
+    }
+
+    /**
+     * 读取迭代求解信息：solverinfo(x)
+     * @param x cg 或 gmres 的结果
+     * @return [迭代次数, 相对残差]
+     * @throws ExpressionException 如果 x 不是迭代求解的结果
+     */
+    static Value solverInfo(Value x) {
+        double[] info = (double[]) x.getCached(CACHE_INFO);
+        if (info == null) {
+            throw new ExpressionException(ErrorCode.SOLVER_INFO_REQUIRED);
+        }
+        return new Value(new DenseArray(info.clone(), info.length));
+    }
+
+    /**
+     * 构造结果并缓存迭代信息
+     */
+    private static Value result(LinearOperator a, double[] x, double[] b, double bNorm, int iter) {
+        int n = x.length;
+        double[] ax = new double[n];
+        a.apply(x, ax);
+        for (int i = 0; i < n; i++) {
+            ax[i] = b[i] - ax[i];
+        }
+        double residual = bNorm > 0 ? norm(ax) / bNorm : 0.0;
+        Value value = new Value(new DenseArray(x, n, 1));
+        value.putCached(CACHE_INFO, new double[]{iter, residual});
+        return value;
+    }
+
+    /**
+     * 读取正整数参数（迭代次数、重启长度）
+     * @throws ExpressionException 如果不是正整数
+     */
+    private static int positiveInt(Value value, String funcName, String name) {
+        double v = value.asScalar();
+        if (v != Math.rint(v) || v < 1 || v > Integer.MAX_VALUE) {
+            throw new ExpressionException(ErrorCode.SOLVER_PARAMETER_INVALID, funcName, name, v);
+        }
+        return (int) v;
+    }
+
+    private static double tolerance(Value value, String funcName) {
+        double v = value.asScalar();
+        if (!(v >= 0) || Double.isInfinite(v)) {
+            throw new ExpressionException(ErrorCode.SOLVER_TOLERANCE_INVALID, funcName, v);
+        }
+        return v;
+    }
+
+    private static void validateArgRange(String funcName, int actual, int max) {
+        validateMinArgs(funcName, actual, 2);
+        if (actual > max) {
+            throw new ExpressionException(ErrorCode.INVALID_ARG_COUNT, funcName, max, actual);
+        }
+    }
+
+    /**
+     * 将稠密或稀疏方阵包装为线性算子
+     * @param value 方阵
+     * @param funcName 函数名称（用于错误信息）
+     * @return 线性算子
+     * @throws ExpressionException 如果不是方阵
+     */
+    private static LinearOperator toOperator(Value value, String funcName) {
+        if (value.isSparse()) {
+            SparseMatrix s = value.getSparse();
+            if (s.getRows() != s.getCols()) {
+                throw new ExpressionException(ErrorCode.MATRIX_SQUARE_REQUIRED, funcName);
+            }
+            return new LinearOperator() {
+                @Override
+                public int size() {
+                    return s.getRows();
+                }
+
+                @Override
+                public void apply(double[] x, double[] y) {
+                    SparseMathUtils.multiplyVector(s, x, y);
+                }
+
+                @Override
+                public double diagonal(int i) {
+                    return s.get(i, i);
+                }
+            };
+        }
+        DenseArray d = MatrixMathUtils.toDenseMatrix(value, funcName);
+        int n = d.getDim(0);
+        if (n != d.getDim(1)) {
+            throw new ExpressionException(ErrorCode.MATRIX_SQUARE_REQUIRED, funcName);
+        }
+        double[] data = d.getData();
+        return new LinearOperator() {
+            @Override
+            public int size() {
+                return n;
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                for (int i = 0; i < n; i++) {
+                    y[i] = GemmKernel.dot(data, i * n, x, 0, n);
+                }
+            }
+
+            @Override
+            public double diagonal(int i) {
+                return data[i * n + i];
+            }
+        };
+    }
+
+    /**
+     * 校验右侧向量（n×1 列向量或长度为 n 的一维向量）
+     * @param value 右侧向量 b
+     * @param n 矩阵阶数
+     * @param funcName 函数名称（用于错误信息）
+     * @return b 的数据
+     * @throws ExpressionException 如果形状不符
+     */
+    private static double[] toRhs(Value value, int n, String funcName) {
+        double[] b = null;
+        if (value.isArray() && !value.isSparse()) {
+            DenseArray d = value.getDense();
+            boolean vector = d != null ? d.getRank() == 1
+                : !value.asArray().isEmpty() && value.asArray().get(0).isScalar();
+            if (vector) {
+                b = value.flattenToDoubleArray();
+            } else {
+                d = MatrixMathUtils.toDenseMatrix(value, funcName);
+                b = d.getDim(1) == 1 ? d.getData() : null;
+            }
+        }
+        if (b == null || b.length != n) {
+            throw new ExpressionException(ErrorCode.ITERATIVE_RHS_FORMAT, funcName, n);
+        }
+        return b;
+    }
+
+    /**
+     * Jacobi 预处理：对角线元素的倒数
+     */
+    private static double[] jacobi(LinearOperator a, String funcName) {
+        double[] inv = new double[a.size()];
+        for (int i = 0; i < inv.length; i++) {
+            double d = a.diagonal(i);
+            if (d == 0) {
+                throw new ExpressionException(ErrorCode.JACOBI_ZERO_DIAGONAL, funcName);
+            }
+            inv[i] = 1 / d;
+        }
+        return inv;
+    }
+
+    /**
+     * 应用预处理 z = M⁻¹·r（无预处理时返回副本）
+     */
+    private static double[] precondition(double[] invDiag, double[] r) {
+        double[] z = r.clone();
+        if (invDiag != null) {
+            for (int i = 0; i < z.length; i++) {
+                z[i] *= invDiag[i];
+            }
+        }
+        return z;
+    }
+
+    private static double[] scale(double[] a, double s) {
+        double[] r = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            r[i] = a[i] * s;
+        }
+        return r;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        return GemmKernel.dot(a, 0, b, 0, a.length);
+    }
+
+    private static double norm(double[] a) {
+        return Math.sqrt(dot(a, a));
+    }
+}
@@ -0,0 +1,280 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.Handle;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.Arrays;
+
+/**
+ * KLL 分位数草图<br/>
+ * 由若干层压缩器组成，第 h 层的每个元素代表 2^h 个原始数据；某层超出容量时将其排序并隔一取一地提升到上一层。
+ * 第 h 层容量为 max(8, ⌈k·(2/3)^(H−1−h)⌉)，总内存 O(k)，秩误差约为 O(1/k)（k = 200 时约 1%）<br/>
+ * 提升时取奇数位还是偶数位按层交替，结果可重现；两个草图逐层拼接后再压缩即为合并<br/>
+ * 作为函数结果时不可变
+ */
+final class KllSketch implements Handle {
+    /** 默认精度参数 */
+    static final int DEFAULT_K = 200;
+    static final int MIN_K = 8;
+    static final int MAX_K = 65535;
+    /** 每层的最小容量 */
+    private static final int MIN_WIDTH = 8;
+
+    private final int k;
+    private long n;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+    private boolean[] oddOffset = new boolean[1];
+    private int numLevels = 1;
+    private int retained;
+    /** 各层容量之和，层数变化时重新计算 */
+    private int totalCapacity;
+
+    /**
+     * 构造空草图
+     * @param k 精度参数（MIN_K 到 MAX_K）
+     */
+    KllSketch(int k) {
+        this.k = k;
+        levels[0] = new double[capacity(0)];
+        totalCapacity = capacity(0);
+    }
+
+    /**
+     * 流式加入 a[from, to)，NaN 被忽略
+     */
+    void update(double[] a, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double x = a[i];
+            if (Double.isNaN(x)) {
+                continue;
+            }
+            if (x < min) min = x;
+            if (x > max) max = x;
+            if (sizes[0] == levels[0].length) {
+                levels[0] = Arrays.copyOf(levels[0], Math.max(MIN_WIDTH, levels[0].length * 2));
+            }
+            levels[0][sizes[0]++] = x;
+            n++;
+            if (++retained >= totalCapacity) {
+                compress();
+            }
+        }
+    }
+
+    /**
+     * 合并另一个草图（不修改 other）
+     */
+    void merge(KllSketch other) {
+        if (other.n == 0) {
+            return;
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        n += other.n;
+        for (int h = 0; h < other.numLevels; h++) {
+            if (h >= numLevels) {
+                addLevel();
+            }
+            append(h, other.levels[h], other.sizes[h]);
+        }
+        while (retained >= totalCapacity) {
+            compress();
+        }
+    }
+
+    /**
+     * 近似分位数
+     * @param q 分位点（0 到 1）
+     * @return 累积权重首次超过 q·n 的元素；q 为 0、1 时返回精确的最小值、最大值
+     * @throws ExpressionException 草图为空时
+     */
+    double quantile(double q) {
+        if (n == 0) {
+            throw new ExpressionException(ErrorCode.SKETCH_EMPTY, "qpercentile");
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        double[][] sorted = sortedItems();
+        double[] items = sorted[0], cumulative = sorted[1];
+        double target = q * n;
+        int lo = 0, hi = items.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] > target) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return items[lo];
+    }
+
+    long count() {
+        return n;
+    }
+
+    int getK() {
+        return k;
+    }
+
+    /**
+     * 序列化为数值数组：[k, n, min, max, 层数, 各层元素个数..., 各层元素...]
+     */
+    double[] toArray() {
+        double[] r = new double[5 + numLevels + retained];
+        r[0] = k;
+        r[1] = n;
+        r[2] = min;
+        r[3] = max;
+        r[4] = numLevels;
+        int pos = 5 + numLevels;
+        for (int h = 0; h < numLevels; h++) {
+            r[5 + h] = sizes[h];
+            System.arraycopy(levels[h], 0, r, pos, sizes[h]);
+            pos += sizes[h];
+        }
+        return r;
+    }
+
+    /**
+     * 由 toArray 的结果还原
+     * @param a 数值数组
+     * @param from 数据起始位置
+     * @return 草图；数据格式不正确或不含数据（n 为 0）时返回 null
+     */
+    static KllSketch fromArray(double[] a, int from) {
+        if (a.length - from < 5) {
+            return null;
+        }
+        double kv = a[from], nv = a[from + 1], levelsV = a[from + 4];
+        if (!isCount(kv) || kv < MIN_K || kv > MAX_K || !isCount(nv) || nv < 1 || !isCount(levelsV) || levelsV < 1
+            || levelsV > 60 || a.length - from < 5 + levelsV) {
+            return null;
+        }
+        KllSketch s = new KllSketch((int) kv);
+        int numLevels = (int) levelsV;
+        int pos = from + 5 + numLevels;
+        long weight = 0;
+        for (int h = 0; h < numLevels; h++) {
+            double size = a[from + 5 + h];
+            if (!isCount(size) || size > a.length - pos) {
+                return null;
+            }
+            if (h >= s.numLevels) {
+                s.addLevel();
+            }
+            s.append(h, Arrays.copyOfRange(a, pos, pos + (int) size), (int) size);
+            pos += (int) size;
+            weight += (long) size << h;
+        }
+        if (pos != a.length || weight != (long) nv || !(a[from + 2] <= a[from + 3])) {
+            return null;
+        }
+        s.n = (long) nv;
+        s.min = a[from + 2];
+        s.max = a[from + 3];
+        return s;
+    }
+
+    private static boolean isCount(double v) {
+        return v >= 0 && v == Math.rint(v) && v <= Long.MAX_VALUE;
+    }
+
+    private int capacity(int h) {
+        return Math.max(MIN_WIDTH, (int) Math.ceil(k * Math.pow(2.0 / 3.0, numLevels - 1 - h)));
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, numLevels + 1);
+        sizes = Arrays.copyOf(sizes, numLevels + 1);
+        oddOffset = Arrays.copyOf(oddOffset, numLevels + 1);
+        levels[numLevels] = new double[MIN_WIDTH];
+        numLevels++;
+        totalCapacity = 0;
+        for (int h = 0; h < numLevels; h++) {
+            totalCapacity += capacity(h);
+        }
+    }
+
+    private void append(int h, double[] items, int count) {
+        if (sizes[h] + count > levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], Math.max(sizes[h] + count, levels[h].length * 2));
+        }
+        System.arraycopy(items, 0, levels[h], sizes[h], count);
+        sizes[h] += count;
+        retained += count;
+    }
+
+    /**
+     * 压缩最低的一个超出容量的层：排序后隔一取一提升到上一层，元素个数为奇数时保留一个在原层
+     */
+    private void compress() {
+        int h = 0;
+        while (h < numLevels - 1 && sizes[h] < capacity(h)) {
+            h++;
+        }
+        if (h == numLevels - 1) {
+            addLevel();
+        }
+        double[] level = levels[h];
+        int size = sizes[h];
+        int keep = size % 2;
+        Arrays.sort(level, keep, size);
+        int promoted = (size - keep) / 2;
+        double[] up = new double[promoted];
+        int offset = keep + (oddOffset[h] ? 1 : 0);
+        oddOffset[h] = !oddOffset[h];
+        for (int i = 0; i < promoted; i++) {
+            up[i] = level[offset + 2 * i];
+        }
+        sizes[h] = keep;
+        retained -= size - keep;
+        append(h + 1, up, promoted);
+    }
+
+    /**
+     * 所有元素按值排序，及其累积权重
+     */
+    private double[][] sortedItems() {
+        double[] items = new double[retained];
+        long[] weights = new long[retained];
+        int pos = 0;
+        for (int h = 0; h < numLevels; h++) {
+            for (int i = 0; i < sizes[h]; i++, pos++) {
+                items[pos] = levels[h][i];
+                weights[pos] = 1L << h;
+            }
+        }
+        Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(items[x], items[y]));
+        double[] sortedItems = new double[retained], cumulative = new double[retained];
+        double sum = 0;
+        for (int i = 0; i < retained; i++) {
+            sortedItems[i] = items[order[i]];
+            sum += weights[order[i]];
+            cumulative[i] = sum;
+        }
+        return new double[][]{sortedItems, cumulative};
+    }
+
+    @Override
+    public String getTypeName() {
+        return "kll";
+    }
+
+    @Override
+    public String toString() {
+        return "<kll k=" + k + ", n=" + n + ">";
+    }
+}
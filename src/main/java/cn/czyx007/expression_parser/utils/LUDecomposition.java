@@ -0,0 +1,236 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+/**
+ * 部分主元 LU 分解<br/>
+ * 在行主序的一维 double 数组上原地完成 PA = LU，det、inv、rank、solve 共用同一个消元内核<br/>
+ * 分解后 U 位于对角线及其上方，L 的乘子（单位下三角，不存储对角线）位于对角线下方<br/>
+ * 作为 lu(A) 的结果时不可变，可被多次求解共享<br/>
+ * 消元不设阈值，行列式只在主元严格为 0 时为 0，不随矩阵缩放改变；奇异阈值只用于 solve、inv 判定不可逆
+ */
+final class LUDecomposition implements MatrixFactorization {
+    /** 判定奇异矩阵（不可逆）的主元阈值 */
+    static final double SINGULAR_EPS = 1e-10;
+
+    private final double[] lu;
+    private final int n;
+    private final int[] perm;
+    private final int pivotSign;
+    private final int rank;
+    private final boolean singular;
+
+    private LUDecomposition(double[] lu, int n, int[] perm, int pivotSign, int rank) {
+        this.lu = lu;
+        this.n = n;
+        this.perm = perm;
+        this.pivotSign = pivotSign;
+        this.rank = rank;
+        this.singular = hasSmallPivot(lu, n, rank);
+    }
+
+    /**
+     * 对 n×n 方阵做 LU 分解（原地修改传入数组）
+     * @param a 行主序方阵数据，分解后存放 L 和 U
+     * @param n 方阵阶数
+     * @return 分解结果
+     */
+    static LUDecomposition factor(double[] a, int n) {
+        int[] perm = new int[n];
+        int[] sign = new int[1];
+        int rank = eliminate(a, n, n, perm, sign, 0.0);
+        return new LUDecomposition(a, n, perm, sign[0], rank);
+    }
+
+    private static boolean hasSmallPivot(double[] lu, int n, int rank) {
+        if (rank < n) {
+            return true;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!(Math.abs(lu[i * n + i]) > SINGULAR_EPS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 计算 m×n 矩阵的秩（原地修改传入数组）
+     * @param a 行主序矩阵数据
+     * @param m 行数
+     * @param n 列数
+     * @return 矩阵的秩
+     */
+    static int rank(double[] a, int m, int n) {
+        return eliminate(a, m, n, new int[m], new int[1], SINGULAR_EPS);
+    }
+
+    /**
+     * 消元内核：部分主元高斯消元，O(m·n·min(m,n))<br/>
+     * 每列选取当前行以下绝对值最大的元素作为主元并整行交换；
+     * 若该列主元绝对值不大于阈值则跳过该列（结果为行阶梯形），对满秩方阵即为标准 LU 分解
+     * @param a 行主序矩阵数据（原地修改）
+     * @param m 行数
+     * @param n 列数
+     * @param perm 输出：行置换，perm[i] 为分解后第 i 行对应的原始行号
+     * @param sign 输出：sign[0] 为置换的符号（±1）
+     * @param tol 主元阈值
+     * @return 找到的主元个数（即秩）
+     */
+    private static int eliminate(double[] a, int m, int n, int[] perm, int[] sign, double tol) {
+        for (int i = 0; i < m; i++) {
+            perm[i] = i;
+        }
+        sign[0] = 1;
+
+        int row = 0;
+        for (int col = 0; col < n && row < m; col++) {
+            // 在当前列中寻找绝对值最大的主元（提高数值稳定性）
+            int pivot = row;
+            double max = Math.abs(a[row * n + col]);
+            for (int i = row + 1; i < m; i++) {
+                double v = Math.abs(a[i * n + col]);
+                if (v > max) {
+                    max = v;
+                    pivot = i;
+                }
+            }
+            // 若该列全为 0，则跳过该列
+            if (!(max > tol)) continue;
+
+            // 将主元行交换到当前行
+            if (pivot != row) {
+                int pOff = pivot * n, rOff = row * n;
+                for (int j = 0; j < n; j++) {
+                    double tmp = a[pOff + j];
+                    a[pOff + j] = a[rOff + j];
+                    a[rOff + j] = tmp;
+                }
+                int tp = perm[pivot];
+                perm[pivot] = perm[row];
+                perm[row] = tp;
+                sign[0] = -sign[0];
+            }
+
+            // 消去主元下方的元素，乘子存放在被消去的位置
+            int rOff = row * n;
+            double p = a[rOff + col];
+            for (int i = row + 1; i < m; i++) {
+                int iOff = i * n;
+                double factor = a[iOff + col] / p;
+                a[iOff + col] = factor;
+                if (factor != 0) {
+                    for (int j = col + 1; j < n; j++) {
+                        a[iOff + j] -= factor * a[rOff + j];
+                    }
+                }
+            }
+            row++;
+        }
+        return row;
+    }
+
+    @Override
+    public String getTypeName() {
+        return "lu";
+    }
+
+    @Override
+    public int order() {
+        return n;
+    }
+
+    /**
+     * 判断矩阵是否奇异（不可逆）
+     * @return 存在绝对值不大于 SINGULAR_EPS 的主元时返回 true
+     */
+    boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * 行列式：置换符号乘以 U 的对角线元素之积
+     * @return 行列式的值
+     */
+    @Override
+    public double determinant() {
+        if (rank < n) {
+            return 0.0;
+        }
+        double det = pivotSign;
+        for (int i = 0; i < n; i++) {
+            det *= lu[i * n + i];
+        }
+        return det;
+    }
+
+    /**
+     * 解 AX = B（前向代入 + 回代，不计算逆矩阵）
+     * @param b 行主序 n×k 右侧矩阵（不修改）
+     * @param k 右侧列数
+     * @return 行主序 n×k 解矩阵
+     * @throws ExpressionException 如果矩阵奇异
+     */
+    @Override
+    public double[] solve(double[] b, int k) {
+        if (isSingular()) {
+            throw new ExpressionException(ErrorCode.MATRIX_SINGULAR);
+        }
+        // 按行置换右侧矩阵：x = P·b
+        double[] x = new double[n * k];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(b, perm[i] * k, x, i * k, k);
+        }
+        // 前向代入：L·y = P·b（L 为单位下三角）
+        for (int i = 0; i < n; i++) {
+            int iOff = i * k;
+            for (int t = 0; t < i; t++) {
+                double l = lu[i * n + t];
+                if (l != 0) {
+                    int tOff = t * k;
+                    for (int j = 0; j < k; j++) {
+                        x[iOff + j] -= l * x[tOff + j];
+                    }
+                }
+            }
+        }
+        // 回代：U·x = y
+        for (int i = n - 1; i >= 0; i--) {
+            int iOff = i * k;
+            for (int t = i + 1; t < n; t++) {
+                double u = lu[i * n + t];
+                if (u != 0) {
+                    int tOff = t * k;
+                    for (int j = 0; j < k; j++) {
+                        x[iOff + j] -= u * x[tOff + j];
+                    }
+                }
+            }
+            double d = lu[i * n + i];
+            for (int j = 0; j < k; j++) {
+                x[iOff + j] /= d;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * 逆矩阵：以单位矩阵为右侧求解
+     * @return 行主序逆矩阵
+     * @throws ExpressionException 如果矩阵奇异
+     */
+    @Override
+    public double[] inverse() {
+        double[] identity = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            identity[i * n + i] = 1.0;
+        }
+        return solve(identity, n);
+    }
+
+    @Override
+    public String toString() {
+        return "<lu " + n + "x" + n + ">";
+    }
+}
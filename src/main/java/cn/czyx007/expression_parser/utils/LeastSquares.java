@@ -0,0 +1,151 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.Handle;
+
+/**
+ * 线性最小二乘累加器<br/>
+ * 保存增广矩阵 [X y] 的 QR 分解中的上三角因子 R（(p+1)×(p+1)），每加入一行观测用 p + 1 次 Givens 旋转更新 R，
+ * 内存 O(p²)，与观测数无关；R 的左上 p×p 块与最后一列给出系数，右下角元素的平方即残差平方和<br/>
+ * 与正规方程 XᵀX·b = Xᵀy 相比不会使条件数平方；两个累加器合并时将一方 R 的各行作为观测加入另一方<br/>
+ * y 的均值与离差平方和由 Moments 单独累加，用于计算 R²<br/>
+ * 作为函数结果时不可变
+ */
+final class LeastSquares implements Handle {
+    /** 判定列线性相关的相对阈值 */
+    private static final double RANK_TOLERANCE = 1e-10;
+
+    private final int p;
+    /** 行主序 (p+1)×(p+1) 上三角因子 */
+    private final double[] r;
+    private final Moments y = new Moments();
+
+    /**
+     * 构造空累加器
+     * @param p 自变量个数
+     */
+    LeastSquares(int p) {
+        this.p = p;
+        this.r = new double[(p + 1) * (p + 1)];
+    }
+
+    /**
+     * 加入观测行 [from, to)
+     * @param x 行主序 m×p 自变量
+     * @param yData 长度为 m 的因变量
+     * @param from 起始行
+     * @param to 结束行（不含）
+     */
+    void update(double[] x, double[] yData, int from, int to) {
+        int w = p + 1;
+        double[] row = new double[w];
+        for (int t = from; t < to; t++) {
+            System.arraycopy(x, t * p, row, 0, p);
+            row[p] = yData[t];
+            rotate(row, 0);
+        }
+        y.addAll(yData, from, to);
+    }
+
+    /**
+     * 合并另一个自变量个数相同的累加器（不修改 other）
+     */
+    void merge(LeastSquares other) {
+        int w = p + 1;
+        double[] row = new double[w];
+        for (int k = 0; k < w; k++) {
+            System.arraycopy(other.r, k * w, row, 0, w);
+            rotate(row, k);
+        }
+        y.merge(other.y);
+    }
+
+    /**
+     * 用 Givens 旋转将 row 消去到 R 中；row[0, start) 已为 0
+     */
+    private void rotate(double[] row, int start) {
+        int w = p + 1;
+        for (int k = start; k < w; k++) {
+            double xk = row[k];
+            if (xk == 0) {
+                continue;
+            }
+            int off = k * w;
+            double rkk = r[off + k];
+            // hypot 避免数据很大或很小时平方和上溢或下溢
+            double h = Math.hypot(rkk, xk);
+            double c = rkk / h, s = xk / h;
+            r[off + k] = h;
+            for (int j = k + 1; j < w; j++) {
+                double t = r[off + j];
+                r[off + j] = c * t + s * row[j];
+                row[j] = c * row[j] - s * t;
+            }
+        }
+    }
+
+    /**
+     * 各列是否线性无关：R 的第 k 列的范数等于 X 第 k 列的范数，对角元相对该范数过小即视为相关
+     */
+    boolean hasFullRank() {
+        int w = p + 1;
+        for (int k = 0; k < p; k++) {
+            double norm = 0;
+            for (int i = 0; i <= k; i++) {
+                norm = Math.hypot(norm, r[i * w + k]);
+            }
+            if (!(r[k * w + k] > RANK_TOLERANCE * norm)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 回代求系数 R₁₁·b = z
+     */
+    double[] coefficients() {
+        int w = p + 1;
+        double[] b = new double[p];
+        for (int i = p - 1; i >= 0; i--) {
+            double s = r[i * w + p];
+            for (int j = i + 1; j < p; j++) {
+                s -= r[i * w + j] * b[j];
+            }
+            b[i] = s / r[i * w + i];
+        }
+        return b;
+    }
+
+    /**
+     * 残差平方和
+     */
+    double residualSumOfSquares() {
+        double e = r[r.length - 1];
+        return e * e;
+    }
+
+    /**
+     * y 的离差平方和 Σ(y − ȳ)²
+     */
+    double totalSumOfSquares() {
+        return y.m2();
+    }
+
+    long count() {
+        return y.count();
+    }
+
+    int getPredictors() {
+        return p;
+    }
+
+    @Override
+    public String getTypeName() {
+        return "lsq";
+    }
+
+    @Override
+    public String toString() {
+        return "<lsq p=" + p + ", n=" + count() + ">";
+    }
+}
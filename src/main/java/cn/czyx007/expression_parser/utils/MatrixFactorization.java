@@ -0,0 +1,35 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.Handle;
+
+/**
+ * 方阵分解结果<br/>
+ * 由 lu(A)、chol(A) 返回，可代替原矩阵传给 solve、det、inv，分解只需进行一次
+ */
+interface MatrixFactorization extends Handle {
+    /**
+     * 获取方阵阶数
+     * @return 阶数
+     */
+    int order();
+
+    /**
+     * 行列式
+     * @return 行列式的值
+     */
+    double determinant();
+
+    /**
+     * 解 AX = B
+     * @param b 行主序 n×k 右侧矩阵（不修改）
+     * @param k 右侧列数
+     * @return 行主序 n×k 解矩阵
+     */
+    double[] solve(double[] b, int k);
+
+    /**
+     * 逆矩阵
+     * @return 行主序逆矩阵
+     */
+    double[] inverse();
+}
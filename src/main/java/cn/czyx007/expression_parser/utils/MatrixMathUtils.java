@@ -1,16 +1,26 @@
 package cn.czyx007.expression_parser.utils;
 
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.SparseMatrix;
+import cn.czyx007.expression_parser.ast.StructuredMatrix;
 import cn.czyx007.expression_parser.ast.Value;
 import cn.czyx007.expression_parser.exception.ErrorCode;
 import cn.czyx007.expression_parser.exception.ExpressionException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * 矩阵相关运算工具类
  */
 final class MatrixMathUtils {
+    // Value 派生数据缓存键
+    private static final String CACHE_DENSE = "matrix.dense";
+    private static final String CACHE_LU = "matrix.lu";
+    private static final String CACHE_CHOL = "matrix.chol";
+    // 矩阵幂指数绝对值上限（保证可以精确转换为 long）
+    private static final double MAX_EXPONENT = 0x1p62;
 
     // ========== 公共校验方法 ==========
 
@@ -97,12 +107,190 @@ final class MatrixMathUtils {
     }
 
     /**
-     * 矩阵转置（支持向量和矩阵）
+     * 将矩阵转换为行主序的一维 double 数组，同时进行元素校验
+     * @param rows 数组的行列表
+     * @param numRows 行数
+     * @param numCols 列数
+     * @param funcName 函数名称（用于错误信息）
+     * @return 行主序 double 数组
+     * @throws ExpressionException 如果元素不是标量
+     */
+    private static double[] toFlatMatrix(List<Value> rows, int numRows, int numCols, String funcName) {
+        double[] mat = new double[numRows * numCols];
+        for (int i = 0; i < numRows; i++) {
+            List<Value> row = rows.get(i).asArray();
+            int off = i * numCols;
+            for (int j = 0; j < numCols; j++) {
+                Value elem = row.get(j);
+                if (!elem.isScalar()) {
+                    throw new ExpressionException(ErrorCode.MATRIX_ELEMENT_NOT_SCALAR, funcName);
+                }
+                mat[off + j] = elem.asScalar();
+            }
+        }
+        return mat;
+    }
+
+    /**
+     * 将行主序的一维 double 数组包装为矩阵 Value（不逐元素创建 Value）
+     * @param data 行主序数据
+     * @param numRows 行数
+     * @param numCols 列数
+     * @return 矩阵
+     */
+    private static Value fromFlatMatrix(double[] data, int numRows, int numCols) {
+        return new Value(new DenseArray(data, numRows, numCols));
+    }
+
+    /**
+     * 校验并获取矩阵的行主序存储<br/>
+     * 稠密存储的矩阵直接共享其数据（不得修改），否则（含稀疏、结构化矩阵）转换为稠密数组并缓存在该 Value 上
+     * @param value 待校验的值
+     * @param funcName 函数名称（用于错误信息）
+     * @return 二维稠密数组
+     * @throws ExpressionException 如果不是有效的矩阵
+     */
+    static DenseArray toDenseMatrix(Value value, String funcName) {
+        DenseArray dense = value.getDense();
+        if (dense == null) {
+            dense = (DenseArray) value.getCached(CACHE_DENSE);
+            if (dense != null) {
+                return dense;
+            }
+            if (value.isSparse() || value.isStructured()) {
+                dense = value.isSparse() ? value.getSparse().toDense() : value.getStructured().toDense();
+                value.putCached(CACHE_DENSE, dense);
+                return dense;
+            }
+            List<Value> rows = validateArray(value, funcName);
+            int[] dims = validateMatrix(rows, funcName);
+            dense = new DenseArray(toFlatMatrix(rows, dims[0], dims[1], funcName), dims[0], dims[1]);
+            value.putCached(CACHE_DENSE, dense);
+            return dense;
+        }
+        if (dense.getDim(0) == 0) {
+            throw new ExpressionException(ErrorCode.MATRIX_EMPTY, funcName);
+        }
+        if (dense.getRank() == 1) {
+            throw new ExpressionException(ErrorCode.MATRIX_NOT_VECTOR, funcName);
+        }
+        if (dense.getRank() > 2) {
+            throw new ExpressionException(ErrorCode.MATRIX_ELEMENT_NOT_SCALAR, funcName);
+        }
+        return dense;
+    }
+
+    /**
+     * 获取任意维数组的行主序稠密存储（矩阵的转换结果与 matmul 共用缓存）
+     * @param value 数组
+     * @param op 运算符或函数名称（用于错误信息）
+     * @return 稠密数组
+     * @throws ExpressionException 如果数组不规则或元素不是数值
+     */
+    static DenseArray toDenseArray(Value value, String op) {
+        if (value.getDense() != null) {
+            return value.getDense();
+        }
+        if (value.isSparse() || value.isStructured()) {
+            return toDenseMatrix(value, op);
+        }
+        List<Integer> dims = new ArrayList<>();
+        for (Value v = value; !v.isScalar(); ) {
+            List<Value> list = v.asArray();
+            if (list.isEmpty()) {
+                throw new ExpressionException(ErrorCode.MATRIX_EMPTY, op);
+            }
+            dims.add(list.size());
+            v = list.get(0);
+        }
+        int[] shape = new int[dims.size()];
+        int size = 1;
+        for (int a = 0; a < shape.length; a++) {
+            shape[a] = dims.get(a);
+            size *= shape[a];
+        }
+        if (shape.length == 2) {
+            return toDenseMatrix(value, op);
+        }
+        double[] data = new double[size];
+        flatten(value, shape, 0, data, 0, op);
+        return new DenseArray(data, shape);
+    }
+
+    /**
+     * 按行主序展开嵌套数组并校验其形状
+     * @param value 当前子数组
+     * @param shape 期望形状
+     * @param axis 当前维
+     * @param data 输出
+     * @param pos 输出位置
+     * @param op 运算符或函数名称（用于错误信息）
+     * @return 下一个输出位置
+     */
+    private static int flatten(Value value, int[] shape, int axis, double[] data, int pos, String op) {
+        if (value.isScalar() || value.getDense() != null || value.isSparse() || value.isStructured()) {
+            // 子数组已是稠密、稀疏或结构化存储时按其形状整体拷贝
+            if (value.isScalar() != (axis == shape.length)) {
+                throw new ExpressionException(ErrorCode.OPERAND_NOT_NUMERIC_ARRAY, op);
+            }
+            if (value.isScalar()) {
+                data[pos] = value.asScalar();
+                return pos + 1;
+            }
+            DenseArray d = toDenseArray(value, op);
+            if (!Arrays.equals(d.getShape(), Arrays.copyOfRange(shape, axis, shape.length))) {
+                throw new ExpressionException(ErrorCode.OPERAND_NOT_NUMERIC_ARRAY, op);
+            }
+            System.arraycopy(d.getData(), 0, data, pos, d.size());
+            return pos + d.size();
+        }
+        List<Value> list = value.asArray();
+        if (axis == shape.length || list.size() != shape[axis]) {
+            throw new ExpressionException(ErrorCode.OPERAND_NOT_NUMERIC_ARRAY, op);
+        }
+        for (Value v : list) {
+            pos = flatten(v, shape, axis + 1, data, pos, op);
+        }
+        return pos;
+    }
+
+    /**
+     * 形状的字符串表示，如 2x3
+     * @param shape 形状
+     * @return 字符串
+     */
+    static String shapeString(int[] shape) {
+        StringBuilder sb = new StringBuilder();
+        for (int a = 0; a < shape.length; a++) {
+            if (a > 0) sb.append('x');
+            sb.append(shape[a]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 矩阵转置（支持向量和矩阵；稀疏、结构化矩阵转置后仍为稀疏、结构化矩阵）<br/>
+     * 数值矩阵返回共享原存储的转置视图，不复制数据，matmul 可直接识别转置操作数
      * @param matrix 待转置的矩阵或向量
      * @return 转置后的矩阵或向量
      * @throws ExpressionException 如果输入不是有效的矩阵或向量
      */
     static Value transposeMatrix(Value matrix) {
+        if (matrix.isSparse()) {
+            return new Value(SparseMathUtils.transpose(matrix.getSparse()));
+        }
+        if (matrix.isStructured()) {
+            return new Value(StructuredMathUtils.transpose(matrix.getStructured()));
+        }
+        DenseArray dense = matrix.getDense();
+        if (dense != null && dense.getRank() <= 2 && dense.getDim(0) > 0) {
+            if (dense.getRank() == 1) {
+                // 行向量 [1,2,3] -> 列向量 [[1],[2],[3]]
+                return new Value(new DenseArray(dense.getData(), dense.getDim(0), 1));
+            }
+            // 列向量（n×1 矩阵）-> 行向量；其余为转置视图
+            return new Value(dense.getDim(1) == 1 ? dense.select(1, 0) : dense.transpose());
+        }
         List<Value> rows = validateArray(matrix, "transpose");
 
         // 判断是向量还是矩阵
@@ -133,6 +321,11 @@ final class MatrixMathUtils {
                 return new Value(result);
             }
 
+            // 数值矩阵：转换为稠密存储（缓存在原值上）后返回转置视图
+            if (allScalars(rows)) {
+                return new Value(toDenseMatrix(matrix, "transpose").transpose());
+            }
+
             // 普通矩阵转置
             List<Value> transposed = new ArrayList<>();
             for (int col = 0; col < numCols; col++) {
@@ -148,46 +341,143 @@ final class MatrixMathUtils {
     }
 
     /**
-     * 计算矩阵乘法
+     * 判断矩阵的所有元素是否均为标量
+     * @param rows 矩阵的行列表（已通过 validateMatrix 校验）
+     * @return 全部为标量返回 true
+     */
+    private static boolean allScalars(List<Value> rows) {
+        for (Value row : rows) {
+            for (Value elem : row.asArray()) {
+                if (!elem.isScalar()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 取矩阵的一行或一列：row(A, i)、col(A, j)，下标从 0 开始<br/>
+     * 返回共享原存储的一维视图，不复制数据
+     * @param matrix 矩阵
+     * @param index 行号或列号
+     * @param axis 0 表示取行，1 表示取列
+     * @param funcName 函数名称（用于错误信息）
+     * @return 一维向量
+     * @throws ExpressionException 如果下标无效
+     */
+    static Value sliceMatrix(Value matrix, Value index, int axis, String funcName) {
+        DenseArray dense = toDenseMatrix(matrix, funcName);
+        if (!index.isScalar()) {
+            throw new ExpressionException(ErrorCode.INTEGER_REQUIRED, funcName);
+        }
+        double d = index.asScalar();
+        if (d != Math.floor(d)) {
+            throw new ExpressionException(ErrorCode.INTEGER_REQUIRED, funcName);
+        }
+        int len = dense.getDim(axis);
+        if (d < 0 || d >= len) {
+            throw new ExpressionException(ErrorCode.INDEX_OUT_OF_RANGE, funcName, (long) d, len);
+        }
+        return new Value(dense.select(axis, (int) d));
+    }
+
+    /**
+     * 计算矩阵乘法（分块打包的 GEMM 内核，大矩阵按行块并行；结果以稠密形式存储）<br/>
+     * 任一操作数为稀疏矩阵时使用稀疏内核：稀疏×稀疏结果仍为稀疏矩阵，其余为稠密矩阵；
+     * 对角、三角、三对角操作数使用结构化内核
      * @param a 左矩阵
      * @param b 右矩阵
      * @return 矩阵乘法结果
      * @throws ExpressionException 如果矩阵维度不匹配
      */
     static Value matMul(Value a, Value b) {
-        List<Value> A = validateArray(a, "matmul");
-        List<Value> B = validateArray(b, "matmul");
+        if (a.isSparse() || b.isSparse()) {
+            return sparseMatMul(a, b);
+        }
+        Value structured = StructuredMathUtils.multiply(a, b);
+        if (structured != null) {
+            return structured;
+        }
+        DenseArray A = toDenseMatrix(a, "matmul");
+        DenseArray B = toDenseMatrix(b, "matmul");
+        checkMatMulDims(A.getDim(1), B.getDim(0));
+        return fromFlatMatrix(multiplyDense(A, B), A.getDim(0), B.getDim(1));
+    }
 
-        int[] dimsA = validateMatrix(A, "matmul");
-        int[] dimsB = validateMatrix(B, "matmul");
+    /**
+     * 稠密矩阵乘法内核的选择（维度已校验）<br/>
+     * 识别转置视图：直接在原始存储上选择访存最优的内核，不复制数据
+     * @param A 左矩阵（可以是视图）
+     * @param B 右矩阵（可以是视图）
+     * @return 行主序乘积数据
+     */
+    static double[] multiplyDense(DenseArray A, DenseArray B) {
+        int m = A.getDim(0);  // A 的行数
+        int n = A.getDim(1);  // A 的列数
+        int p = B.getDim(0);  // B 的行数
+        int k = B.getDim(1);  // B 的列数
+
+        boolean transA = isTransposedView(A), transB = isTransposedView(B);
+        if (transA && B.isContiguous()) {
+            return A.getStorage() == B.getStorage()
+                ? GemmKernel.syrkTransA(B.getStorage(), p, k)                    // XᵀX
+                : GemmKernel.multiplyTransA(A.getStorage(), B.getStorage(), m, n, k);
+        }
+        if (transB && A.isContiguous()) {
+            return A.getStorage() == B.getStorage()
+                ? GemmKernel.syrkTransB(A.getStorage(), m, n)                    // X·Xᵀ
+                : GemmKernel.multiplyTransB(A.getStorage(), B.getStorage(), m, n, k);
+        }
+        return GemmKernel.multiply(A.getData(), B.getData(), m, n, k);
+    }
 
-        int m = dimsA[0];  // A 的行数
-        int n = dimsA[1];  // A 的列数
-        int p = dimsB[0];  // B 的行数
-        int k = dimsB[1];  // B 的列数
+    /**
+     * 判断矩阵是否为某个连续行主序矩阵的转置视图
+     * @param d 二维稠密数组
+     * @return 是转置视图返回 true
+     */
+    private static boolean isTransposedView(DenseArray d) {
+        return !d.isContiguous() && d.getOffset() == 0 && d.getStride(0) == 1
+            && d.getStride(1) == d.getDim(0) && d.getStorage().length == d.size();
+    }
 
-        // 维度检查：A(m×n) * B(p×k)，要求 n == p
-        if (n != p) {
-            throw new ExpressionException(ErrorCode.MATRIX_DIMENSION_MISMATCH, n, p);
+    /**
+     * 含稀疏操作数的矩阵乘法
+     * @param a 左矩阵
+     * @param b 右矩阵
+     * @return 矩阵乘法结果
+     * @throws ExpressionException 如果矩阵维度不匹配
+     */
+    private static Value sparseMatMul(Value a, Value b) {
+        if (a.isSparse() && b.isSparse()) {
+            SparseMatrix A = a.getSparse(), B = b.getSparse();
+            checkMatMulDims(A.getCols(), B.getRows());
+            return new Value(SparseMathUtils.multiply(A, B));
         }
+        if (a.isSparse()) {
+            SparseMatrix A = a.getSparse();
+            DenseArray B = toDenseMatrix(b, "matmul");
+            checkMatMulDims(A.getCols(), B.getDim(0));
+            int k = B.getDim(1);
+            return fromFlatMatrix(SparseMathUtils.multiplyDense(A, B.getData(), k), A.getRows(), k);
+        }
+        DenseArray A = toDenseMatrix(a, "matmul");
+        SparseMatrix B = b.getSparse();
+        checkMatMulDims(A.getDim(1), B.getRows());
+        return fromFlatMatrix(SparseMathUtils.denseMultiply(A.getData(), A.getDim(0), B), A.getDim(0), B.getCols());
+    }
 
-        // 转换为 double[][] 进行计算
-        double[][] matA = toDoubleMatrix(A, m, n, "matmul");
-        double[][] matB = toDoubleMatrix(B, p, k, "matmul");
-
-        List<Value> result = new ArrayList<>();
-        for (int i = 0; i < m; i++) {
-            List<Value> row = new ArrayList<>();
-            for (int j = 0; j < k; j++) {
-                double sum = 0;
-                for (int t = 0; t < n; t++) {
-                    sum += matA[i][t] * matB[t][j];
-                }
-                row.add(new Value(sum));
-            }
-            result.add(new Value(row));
+    /**
+     * 维度检查：A(m×n) * B(p×k)，要求 n == p
+     * @param n A 的列数
+     * @param p B 的行数
+     * @throws ExpressionException 如果维度不匹配
+     */
+    static void checkMatMulDims(int n, int p) {
+        if (n != p) {
+            throw new ExpressionException(ErrorCode.MATRIX_DIMENSION_MISMATCH, n, p);
         }
-        return new Value(result);
     }
 
     /**
@@ -197,6 +487,11 @@ final class MatrixMathUtils {
      * @throws ExpressionException 如果不是方阵
      */
     static double trace(Value matrix) {
+        if (matrix.isSparse()) {
+            SparseMatrix s = matrix.getSparse();
+            validateSquareMatrix(s.getRows(), s.getCols(), "trace");
+            return SparseMathUtils.trace(s);
+        }
         List<Value> rows = validateArray(matrix, "trace");
         int[] dims = validateMatrix(rows, "trace");
         validateSquareMatrix(dims[0], dims[1], "trace");
@@ -211,254 +506,217 @@ final class MatrixMathUtils {
     }
 
     /**
-     * 计算矩阵秩（使用高斯消元法）
+     * 计算矩阵秩（使用 LU 分解的消元内核）
      * @param matrix 矩阵
      * @return 矩阵的秩
      * @throws ExpressionException 如果输入不是有效的矩阵
      */
     static int matrixRank(Value matrix) {
-        List<Value> rows = validateArray(matrix, "rank");
-        int[] dims = validateMatrix(rows, "rank");
-        int m = dims[0];
-        int n = dims[1];
-
-        // 将矩阵转换为二维数组
-        double[][] a = toDoubleMatrix(rows, m, n, "rank");
-
-        int rank = 0;
-        for (int col = 0, row = 0; col < n && row < m; col++) {
-            int pivot = row;
-            // 在当前列中寻找绝对值最大的主元（提高数值稳定性）
-            for (int i = row; i < m; i++) {
-                if (Math.abs(a[i][col]) > Math.abs(a[pivot][col])) {
-                    pivot = i;
-                }
-            }
-            // 若该列全为 0，则跳过该列
-            if (Math.abs(a[pivot][col]) < 1e-10) continue;
-
-            // 将主元行交换到当前行
-            double[] tmp = a[row];
-            a[row] = a[pivot];
-            a[pivot] = tmp;
-
-            // 消去主元下方的元素
-            for (int i = row + 1; i < m; i++) {
-                double factor = a[i][col] / a[row][col];
-                for (int j = col; j < n; j++) {
-                    a[i][j] -= factor * a[row][j];
-                }
-            }
-            row++; // 成功找到一个主元，占用一行
-            rank++;// 秩加 1
-        }
-        return rank;
+        DenseArray mat = toDenseMatrix(matrix, "rank");
+        return LUDecomposition.rank(mat.getData().clone(), mat.getDim(0), mat.getDim(1));
     }
 
     /**
-     * 计算矩阵行/列均值
-     * @param matrix 矩阵
-     * @param axis 轴向：0 表示列均值（返回 1×n 行向量），1 表示行均值（返回 m×1 列向量）
-     * @return 行或列的均值矩阵
-     * @throws ExpressionException 如果输入不是有效的矩阵或轴向无效
-     */
-    static Value meanMatrix(Value matrix, int axis) {
-        List<Value> rows = validateArray(matrix, "mean");
-        int[] dims = validateMatrix(rows, "mean");
-        int m = dims[0];
-        int n = dims[1];
-
-        double[][] mat = toDoubleMatrix(rows, m, n, "mean");
-
-        if (axis == 0) { // 列均值 -> 1×n 行向量
-            List<Value> row = new ArrayList<>();
-            for (int j = 0; j < n; j++) {
-                double sum = 0;
-                for (int i = 0; i < m; i++) {
-                    sum += mat[i][j];
-                }
-                row.add(new Value(sum / m));
-            }
-            List<Value> result = new ArrayList<>();
-            result.add(new Value(row));
-            return new Value(result);
-        }
-
-        if (axis == 1) { // 行均值 -> m×1 列向量
-            List<Value> result = new ArrayList<>();
-            for (int i = 0; i < m; i++) {
-                double sum = 0;
-                for (int j = 0; j < n; j++) {
-                    sum += mat[i][j];
-                }
-                List<Value> col = new ArrayList<>();
-                col.add(new Value(sum / n)); // 每行一个单元素数组
-                result.add(new Value(col));
-            }
-            return new Value(result);
-        }
-
-        throw new ExpressionException(ErrorCode.MATRIX_INVALID_AXIS);
-    }
-
-    /**
-     * 计算行列式
-     * @param matrix 方阵
+     * 计算行列式<br/>
+     * 3 阶及以下使用展开公式，更高阶使用 LU 分解，复杂度 O(n^3)；传入分解结果时直接由分解计算；
+     * 对角、三角、三对角矩阵为 O(n)
+     * @param matrix 方阵或 lu/chol 分解结果
      * @return 行列式的值
      * @throws ExpressionException 如果不是方阵
      */
     static double determinant(Value matrix) {
-        List<Value> rows = validateArray(matrix, "det");
-        int[] dims = validateMatrix(rows, "det");
-        validateSquareMatrix(dims[0], dims[1], "det");
-
-        // 转换为 double[][]
-        double[][] mat = toDoubleMatrix(rows, dims[0], dims[1], "det");
-
-        return calculateDeterminant(mat, dims[0]);
+        if (matrix.isHandle()) {
+            return toFactorization(matrix, "det").determinant();
+        }
+        StructuredMatrix s = StructuredMathUtils.structureOf(matrix, "det");
+        if (s != null) {
+            return StructuredMathUtils.determinant(s);
+        }
+        DenseArray mat = toDenseMatrix(matrix, "det");
+        validateSquareMatrix(mat.getDim(0), mat.getDim(1), "det");
+        return calculateDeterminant(mat.getData().clone(), mat.getDim(0));
     }
 
     /**
-     * 递归计算行列式（使用拉普拉斯展开）
-     * @param mat 方阵的二维数组表示
+     * 计算行列式
+     * @param mat 行主序方阵数据（可能被原地修改）
      * @param n 方阵的维度
      * @return 行列式的值
      */
-    static double calculateDeterminant(double[][] mat, int n) {
+    static double calculateDeterminant(double[] mat, int n) {
         if (n == 1) {
-            return mat[0][0];
+            return mat[0];
         }
         if (n == 2) {
-            return mat[0][0] * mat[1][1] - mat[0][1] * mat[1][0];
+            return mat[0] * mat[3] - mat[1] * mat[2];
         }
         if (n == 3) {
-            return mat[0][0] * (mat[1][1] * mat[2][2] - mat[1][2] * mat[2][1])
-                 - mat[0][1] * (mat[1][0] * mat[2][2] - mat[1][2] * mat[2][0])
-                 + mat[0][2] * (mat[1][0] * mat[2][1] - mat[1][1] * mat[2][0]);
-        }
-
-        double det = 0;
-
-        // 使用第一行进行拉普拉斯展开
-        for (int col = 0; col < n; col++) {
-            // 计算余子式
-            double[][] subMat = new double[n - 1][n - 1];
-            for (int i = 1; i < n; i++) {
-                int subCol = 0;
-                for (int j = 0; j < n; j++) {
-                    if (j != col) {
-                        subMat[i - 1][subCol] = mat[i][j];
-                        subCol++;
-                    }
-                }
-            }
-
-            // 计算代数余子式
-            double cofactor = Math.pow(-1, col) * mat[0][col] * calculateDeterminant(subMat, n - 1);
-            det += cofactor;
+            return mat[0] * (mat[4] * mat[8] - mat[5] * mat[7])
+                 - mat[1] * (mat[3] * mat[8] - mat[5] * mat[6])
+                 + mat[2] * (mat[3] * mat[7] - mat[4] * mat[6]);
         }
-
-        return det;
+        // 行列式只在主元严格为 0 时为 0，不使用奇异阈值
+        return LUDecomposition.factor(mat, n).determinant();
     }
 
     /**
-     * 矩阵求逆（使用高斯-约当消元法）
-     * @param matrix 可逆方阵
+     * 矩阵求逆（使用 LU 分解，分解结果缓存在矩阵上）<br/>
+     * 对角、三角矩阵使用专用算法且结果仍为同类矩阵
+     * @param matrix 可逆方阵或 lu/chol 分解结果
      * @return 逆矩阵
      * @throws ExpressionException 如果矩阵不可逆（奇异矩阵）
      */
     static Value inverseMatrix(Value matrix) {
-        List<Value> rows = validateArray(matrix, "inv");
-        int[] dims = validateMatrix(rows, "inv");
-        validateSquareMatrix(dims[0], dims[1], "inv");
-        int n = dims[0];
-
-        // 转换为 double[][] 并构建增广矩阵 [A|I]
-        double[][] a = new double[n][2 * n];
-        for (int i = 0; i < n; i++) {
-            List<Value> row = rows.get(i).asArray();
-            for (int j = 0; j < n; j++) {
-                a[i][j] = row.get(j).asScalar();
-                a[i][j + n] = (i == j) ? 1.0 : 0.0;  // 右侧单位矩阵
-            }
+        StructuredMatrix s = StructuredMathUtils.structureOf(matrix, "inv");
+        if (s != null) {
+            return StructuredMathUtils.inverse(s);
         }
+        MatrixFactorization f = toFactorization(matrix, "inv");
+        int n = f.order();
+        return fromFlatMatrix(f.inverse(), n, n);
+    }
 
-        // 高斯-约当消元
-        for (int i = 0; i < n; i++) {
-            // 找主元（绝对值最大）
-            int maxRow = i;
-            for (int k = i + 1; k < n; k++) {
-                if (Math.abs(a[k][i]) > Math.abs(a[maxRow][i])) {
-                    maxRow = k;
-                }
-            }
-
-            // 交换当前行与主元行
-            double[] temp = a[i];
-            a[i] = a[maxRow];
-            a[maxRow] = temp;
-
-            double pivot = a[i][i];
-            if (Math.abs(pivot) < 1e-10) {
-                throw new ExpressionException(ErrorCode.MATRIX_SINGULAR);
-            }
+    /**
+     * 方阵的整数次幂 A^e（平方求幂，只需 O(log|e|) 次矩阵乘法）<br/>
+     * e = 0 返回单位矩阵；e &lt; 0 时先用（缓存的）LU 分解求逆，再求 |e| 次幂
+     * @param matrix 方阵
+     * @param exponent 整数指数
+     * @return 矩阵幂
+     * @throws ExpressionException 如果不是方阵、指数不是整数或负指数时矩阵不可逆
+     */
+    static Value matrixPower(Value matrix, double exponent) {
+        if (exponent != Math.rint(exponent) || Math.abs(exponent) > MAX_EXPONENT) {
+            throw new ExpressionException(ErrorCode.INTEGER_REQUIRED, "^");
+        }
+        long e = (long) exponent;
+        StructuredMatrix s = StructuredMathUtils.structureOf(matrix, "^");
+        if (s != null && s.getKind() != StructuredMatrix.Kind.TRIDIAGONAL) {
+            // 对角、三角矩阵的幂仍为同类矩阵
+            return new Value(StructuredMathUtils.power(s, e));
+        }
+        int n;
+        double[] base;
+        if (e < 0) {
+            LUDecomposition lu = luOf(matrix, "^");
+            n = lu.order();
+            base = lu.inverse();
+            e = -e;
+        } else {
+            DenseArray a = toDenseMatrix(matrix, "^");
+            validateSquareMatrix(a.getDim(0), a.getDim(1), "^");
+            n = a.getDim(0);
+            base = a.getData();
+        }
 
-            // 归一化当前行
-            for (int j = 0; j < 2 * n; j++) {
-                a[i][j] /= pivot;
+        double[] result = null;
+        while (e > 0) {
+            if ((e & 1) != 0) {
+                result = result == null ? base : GemmKernel.multiply(result, base, n, n, n);
             }
-
-            // 消去其他行的当前列
-            for (int k = 0; k < n; k++) {
-                if (k != i) {
-                    double factor = a[k][i];
-                    for (int j = 0; j < 2 * n; j++) {
-                        a[k][j] -= factor * a[i][j];
-                    }
-                }
+            e >>= 1;
+            if (e > 0) {
+                base = GemmKernel.multiply(base, base, n, n, n);
             }
         }
-
-        // 提取逆矩阵（右侧 n 列）
-        List<Value> result = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            List<Value> row = new ArrayList<>();
-            for (int j = n; j < 2 * n; j++) {
-                row.add(new Value(a[i][j]));
+        if (result == null) {
+            result = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                result[i * n + i] = 1.0;
             }
-            result.add(new Value(row));
         }
-        return new Value(result);
+        return fromFlatMatrix(result, n, n);
     }
 
     /**
-     * 解线性方程组 Ax = b
-     * @param matrix 系数矩阵 A（方阵）
-     * @param vector 右侧向量 b（列向量）
-     * @return 解向量 x
+     * 解线性方程组 AX = B（LU 分解后前向代入、回代，不计算逆矩阵）<br/>
+     * B 可以有多列，一次分解同时求解；A 的分解缓存在该 Value 上，同一矩阵变量重复求解时只分解一次<br/>
+     * 对角、三角矩阵直接代入，三对角矩阵使用 O(n) 的选主元追赶法
+     * @param matrix 系数矩阵 A（方阵）或 lu/chol 分解结果
+     * @param rhs 右侧矩阵 B（n×k，k=1 时即列向量 b）
+     * @return 解矩阵 X（n×k）
      * @throws ExpressionException 如果矩阵不可逆或维度不匹配
      */
-    static Value solveLinear(Value matrix, Value vector) {
-        // 校验系数矩阵 A
-        List<Value> matrixRows = validateArray(matrix, "solve");
-        int[] matrixDims = validateMatrix(matrixRows, "solve");
-        validateSquareMatrix(matrixDims[0], matrixDims[1], "solve");
-        int n = matrixDims[0];
+    static Value solveLinear(Value matrix, Value rhs) {
+        StructuredMatrix s = StructuredMathUtils.structureOf(matrix, "solve");
+        MatrixFactorization f = s == null ? toFactorization(matrix, "solve") : null;
+        int n = s != null ? s.getOrder() : f.order();
+
+        // 校验右侧矩阵 B
+        DenseArray b = toDenseMatrix(rhs, "solve");
+        if (b.getDim(0) != n) {
+            // 传入了行向量 [[b1, b2, ...]]
+            if (b.getDim(0) == 1 && b.getDim(1) == n) {
+                throw new ExpressionException(ErrorCode.SOLVE_VECTOR_FORMAT);
+            }
+            throw new ExpressionException(ErrorCode.SOLVE_DIMENSION_MISMATCH, b.getDim(0), n);
+        }
 
-        // 校验右侧向量 b
-        List<Value> vectorRows = validateArray(vector, "solve");
-        int[] vectorDims = validateMatrix(vectorRows, "solve");
+        int k = b.getDim(1);
+        if (s != null) {
+            return fromFlatMatrix(StructuredMathUtils.solve(s, b.getData(), k), n, k);
+        }
+        return fromFlatMatrix(f.solve(b.getData(), k), n, k);
+    }
+
+    /**
+     * LU 分解：lu(A)，返回可传给 solve、det、inv 的分解结果
+     * @param matrix 方阵
+     * @return 分解结果句柄
+     * @throws ExpressionException 如果不是方阵
+     */
+    static Value luFactor(Value matrix) {
+        return new Value(luOf(matrix, "lu"));
+    }
 
-        // 检查 b 是否是列向量（n×1）
-        if (vectorDims[1] != 1) {
-            throw new ExpressionException(ErrorCode.SOLVE_VECTOR_FORMAT);
+    /**
+     * Cholesky 分解：chol(A)，返回可传给 solve、det、inv 的分解结果
+     * @param matrix 对称正定矩阵
+     * @return 分解结果句柄
+     * @throws ExpressionException 如果不是方阵或不是对称正定矩阵
+     */
+    static Value cholFactor(Value matrix) {
+        CholeskyDecomposition chol = (CholeskyDecomposition) matrix.getCached(CACHE_CHOL);
+        if (chol == null) {
+            DenseArray a = toDenseMatrix(matrix, "chol");
+            validateSquareMatrix(a.getDim(0), a.getDim(1), "chol");
+            chol = CholeskyDecomposition.factor(a.getData().clone(), a.getDim(0));
+            matrix.putCached(CACHE_CHOL, chol);
         }
-        if (vectorDims[0] != n) {
-            throw new ExpressionException(ErrorCode.SOLVE_DIMENSION_MISMATCH, vectorDims[0], n);
+        return new Value(chol);
+    }
+
+    /**
+     * 获取矩阵的分解：分解结果句柄直接使用，方阵则取其缓存的（或新计算的）LU 分解
+     * @param value 方阵或分解结果
+     * @param funcName 函数名称（用于错误信息）
+     * @return 分解结果
+     * @throws ExpressionException 如果不是方阵或分解结果
+     */
+    private static MatrixFactorization toFactorization(Value value, String funcName) {
+        if (value.isHandle()) {
+            if (value.getHandle() instanceof MatrixFactorization) {
+                return (MatrixFactorization) value.getHandle();
+            }
+            throw new ExpressionException(ErrorCode.MATRIX_REQUIRED, funcName);
         }
+        return luOf(value, funcName);
+    }
 
-        // 解 Ax = b，通过 x = A^(-1) * b 实现
-        Value invMatrix = inverseMatrix(matrix);
-        return matMul(invMatrix, vector);
+    /**
+     * 获取方阵的 LU 分解（结果缓存在该 Value 上）
+     * @param matrix 方阵
+     * @param funcName 函数名称（用于错误信息）
+     * @return LU 分解
+     * @throws ExpressionException 如果不是方阵
+     */
+    private static LUDecomposition luOf(Value matrix, String funcName) {
+        LUDecomposition lu = (LUDecomposition) matrix.getCached(CACHE_LU);
+        if (lu == null) {
+            DenseArray a = toDenseMatrix(matrix, funcName);
+            validateSquareMatrix(a.getDim(0), a.getDim(1), funcName);
+            lu = LUDecomposition.factor(a.getData().clone(), a.getDim(0));
+            matrix.putCached(CACHE_LU, lu);
+        }
+        return lu;
     }
 }
@@ -0,0 +1,293 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.SparseMatrix;
+import cn.czyx007.expression_parser.ast.StructuredMatrix;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 数组操作数的运算符实现（供 BinaryOpNode、UnaryOpNode 调用）<br/>
+ * 逐元素运算直接在 double 数组上进行，每种运算符各有一个循环，不逐元素创建 Value；
+ * 同类结构化矩阵的加减、结构化矩阵与标量的乘除直接作用于紧凑存储；矩阵乘法使用 matmul 的内核
+ */
+public final class MatrixOperators {
+
+    private MatrixOperators() {
+    }
+
+    /**
+     * 方阵的整数次幂 A^n
+     * @param base 方阵
+     * @param exponent 指数
+     * @return 矩阵幂
+     * @throws ExpressionException 如果指数不是整数标量或矩阵不是方阵
+     */
+    public static Value power(Value base, Value exponent) {
+        if (!exponent.isScalar()) {
+            throw new ExpressionException(ErrorCode.ARRAY_NOT_SUPPORTED_RIGHT, "^");
+        }
+        return MatrixMathUtils.matrixPower(base, exponent.asScalar());
+    }
+
+    /**
+     * 加法：形状相同的数组逐元素相加，数组与标量逐元素相加
+     * @param a 左操作数
+     * @param b 右操作数
+     * @return 运算结果
+     */
+    public static Value add(Value a, Value b) {
+        return elementwise(a, b, '+');
+    }
+
+    /**
+     * 减法：形状相同的数组逐元素相减，数组与标量逐元素相减
+     * @param a 左操作数
+     * @param b 右操作数
+     * @return 运算结果
+     */
+    public static Value subtract(Value a, Value b) {
+        return elementwise(a, b, '-');
+    }
+
+    /**
+     * 乘法：两个数组为矩阵乘法，数组与标量为逐元素相乘<br/>
+     * 一维数组在左侧视为行向量、在右侧视为列向量，结果仍为一维数组；两个一维数组为点积
+     * @param a 左操作数
+     * @param b 右操作数
+     * @return 运算结果
+     * @throws ExpressionException 如果维度不匹配
+     */
+    public static Value multiply(Value a, Value b) {
+        if (a.isScalar() || b.isScalar()) {
+            return elementwise(a, b, '*');
+        }
+        boolean vecA = rankOf(a) == 1, vecB = rankOf(b) == 1;
+        if (!vecA && !vecB) {
+            return MatrixMathUtils.matMul(a, b);
+        }
+        if (vecA && vecB) {
+            double[] x = MatrixMathUtils.toDenseArray(a, "*").getData(), y = MatrixMathUtils.toDenseArray(b, "*").getData();
+            checkInner(x.length, y.length);
+            return new Value(GemmKernel.dot(x, 0, y, 0, x.length));
+        }
+        if (vecB) {
+            // A·x
+            double[] x = MatrixMathUtils.toDenseArray(b, "*").getData();
+            if (a.isSparse()) {
+                SparseMatrix s = a.getSparse();
+                checkInner(s.getCols(), x.length);
+                double[] y = new double[s.getRows()];
+                SparseMathUtils.multiplyVector(s, x, y);
+                return new Value(new DenseArray(y, y.length));
+            }
+            if (a.isStructured()) {
+                Value y = StructuredMathUtils.multiply(a, new Value(new DenseArray(x, x.length, 1)));
+                if (y != null) {
+                    return new Value(new DenseArray(y.getDense().getData(), y.getDense().getDim(0)));
+                }
+            }
+            DenseArray m = MatrixMathUtils.toDenseMatrix(a, "*");
+            checkInner(m.getDim(1), x.length);
+            return new Value(new DenseArray(GemmKernel.multiplyVector(m.getData(), x, m.getDim(0), m.getDim(1)), m.getDim(0)));
+        }
+        // xᵀ·B
+        double[] x = MatrixMathUtils.toDenseArray(a, "*").getData();
+        if (b.isSparse()) {
+            SparseMatrix s = b.getSparse();
+            checkInner(x.length, s.getRows());
+            return new Value(new DenseArray(SparseMathUtils.denseMultiply(x, 1, s), s.getCols()));
+        }
+        DenseArray m = MatrixMathUtils.toDenseMatrix(b, "*");
+        checkInner(x.length, m.getDim(0));
+        return new Value(new DenseArray(GemmKernel.multiply(x, m.getData(), 1, x.length, m.getDim(1)), m.getDim(1)));
+    }
+
+    /**
+     * 除法：只支持数组除以标量
+     * @param a 左操作数
+     * @param b 右操作数（标量）
+     * @return 运算结果
+     * @throws ExpressionException 如果除数是数组或为 0
+     */
+    public static Value divide(Value a, Value b) {
+        if (!b.isScalar()) {
+            throw new ExpressionException(ErrorCode.ARRAY_NOT_SUPPORTED_RIGHT, "/");
+        }
+        if (b.asScalar() == 0) {
+            throw new ExpressionException(ErrorCode.DIVISION_BY_ZERO);
+        }
+        return elementwise(a, b, '/');
+    }
+
+    /**
+     * 一元负号：逐元素取负（稀疏、结构化矩阵保持原有存储）
+     * @param a 数组
+     * @return 运算结果
+     */
+    public static Value negate(Value a) {
+        if (a.isSparse()) {
+            return scaleSparse(a.getSparse(), -1.0, '*');
+        }
+        if (a.isStructured()) {
+            return scaleStructured(a.getStructured(), -1.0, '*', false);
+        }
+        DenseArray d = MatrixMathUtils.toDenseArray(a, "-");
+        double[] x = d.getData();
+        double[] r = new double[x.length];
+        for (int i = 0; i < x.length; i++) r[i] = -x[i];
+        return new Value(new DenseArray(r, d.getShape()));
+    }
+
+    /**
+     * 逐元素运算（数组与数组形状必须相同，数组与标量则对每个元素运算）
+     * @param a 左操作数
+     * @param b 右操作数
+     * @param op 运算符
+     * @return 运算结果
+     * @throws ExpressionException 如果形状不同
+     */
+    private static Value elementwise(Value a, Value b, char op) {
+        if (b.isScalar()) {
+            double s = b.asScalar();
+            if (a.isSparse() && (op == '*' || op == '/') && s != 0 && !Double.isInfinite(s) && !Double.isNaN(s)) {
+                // 非零有限标量的缩放不改变零元素，结果仍为稀疏矩阵
+                return scaleSparse(a.getSparse(), s, op);
+            }
+            if (a.isStructured() && (op == '*' || op == '/') && !Double.isInfinite(s) && !Double.isNaN(s)) {
+                return scaleStructured(a.getStructured(), s, op, false);
+            }
+            DenseArray d = MatrixMathUtils.toDenseArray(a, String.valueOf(op));
+            return new Value(new DenseArray(applyScalar(d.getData(), s, op, false), d.getShape()));
+        }
+        if (a.isScalar()) {
+            double s = a.asScalar();
+            if (b.isSparse() && op == '*' && s != 0 && !Double.isInfinite(s) && !Double.isNaN(s)) {
+                return scaleSparse(b.getSparse(), s, op);
+            }
+            if (b.isStructured() && op == '*' && !Double.isInfinite(s) && !Double.isNaN(s)) {
+                return scaleStructured(b.getStructured(), s, op, true);
+            }
+            DenseArray d = MatrixMathUtils.toDenseArray(b, String.valueOf(op));
+            return new Value(new DenseArray(applyScalar(d.getData(), s, op, true), d.getShape()));
+        }
+        StructuredMatrix sa = a.getStructured(), sb = b.getStructured();
+        if (sa != null && sb != null && sa.getKind() == sb.getKind() && sa.getOrder() == sb.getOrder()) {
+            // 同类结构化矩阵的和、差仍为同类矩阵
+            return new Value(new StructuredMatrix(sa.getKind(), sa.getOrder(), apply(sa.getData(), sb.getData(), op)));
+        }
+        DenseArray x = MatrixMathUtils.toDenseArray(a, String.valueOf(op));
+        DenseArray y = MatrixMathUtils.toDenseArray(b, String.valueOf(op));
+        if (!Arrays.equals(x.getShape(), y.getShape())) {
+            throw new ExpressionException(ErrorCode.OPERAND_SHAPE_MISMATCH, op,
+                MatrixMathUtils.shapeString(x.getShape()), MatrixMathUtils.shapeString(y.getShape()));
+        }
+        return new Value(new DenseArray(apply(x.getData(), y.getData(), op), x.getShape()));
+    }
+
+    /**
+     * 两个等长数组逐元素运算
+     * @param x 左操作数数据
+     * @param y 右操作数数据
+     * @param op 运算符
+     * @return 结果数据
+     */
+    private static double[] apply(double[] x, double[] y, char op) {
+        double[] r = new double[x.length];
+        switch (op) {
+            case '+': for (int i = 0; i < r.length; i++) r[i] = x[i] + y[i]; break;
+            case '-': for (int i = 0; i < r.length; i++) r[i] = x[i] - y[i]; break;
+            default: throw new ExpressionException(ErrorCode.UNKNOWN_OPERATOR, op);
+        }
+        return r;
+    }
+
+    /**
+     * 数组与标量逐元素运算
+     * @param x 数组数据
+     * @param s 标量
+     * @param op 运算符
+     * @param scalarLeft 标量是否为左操作数
+     * @return 结果数据
+     */
+    private static double[] applyScalar(double[] x, double s, char op, boolean scalarLeft) {
+        double[] r = new double[x.length];
+        switch (op) {
+            case '+': for (int i = 0; i < r.length; i++) r[i] = x[i] + s; break;
+            case '-':
+                if (scalarLeft) {
+                    for (int i = 0; i < r.length; i++) r[i] = s - x[i];
+                } else {
+                    for (int i = 0; i < r.length; i++) r[i] = x[i] - s;
+                }
+                break;
+            case '*': for (int i = 0; i < r.length; i++) r[i] = x[i] * s; break;
+            case '/': for (int i = 0; i < r.length; i++) r[i] = x[i] / s; break;
+            default: throw new ExpressionException(ErrorCode.UNKNOWN_OPERATOR, op);
+        }
+        return r;
+    }
+
+    /**
+     * 稀疏矩阵乘以或除以非零标量，结构不变
+     * @param a 稀疏矩阵
+     * @param s 标量
+     * @param op '*' 或 '/'
+     * @return 稀疏结果
+     */
+    private static Value scaleSparse(SparseMatrix a, double s, char op) {
+        double[] v = a.getValues();
+        double[] r = new double[v.length];
+        if (op == '/') {
+            for (int p = 0; p < v.length; p++) r[p] = v[p] / s;
+        } else {
+            for (int p = 0; p < v.length; p++) r[p] = v[p] * s;
+        }
+        return new Value(new SparseMatrix(a.getRows(), a.getCols(), a.getRowPtr(), a.getColIdx(), r));
+    }
+
+    /**
+     * 结构化矩阵乘以或除以有限标量，结构外的元素仍为 0
+     * @param a 结构化矩阵
+     * @param s 标量
+     * @param op '*' 或 '/'
+     * @param scalarLeft 标量是否为左操作数
+     * @return 结构化结果
+     */
+    private static Value scaleStructured(StructuredMatrix a, double s, char op, boolean scalarLeft) {
+        return new Value(new StructuredMatrix(a.getKind(), a.getOrder(), applyScalar(a.getData(), s, op, scalarLeft)));
+    }
+
+    /**
+     * 获取数组的维数（由嵌套深度决定）
+     * @param value 数组
+     * @return 维数
+     */
+    private static int rankOf(Value value) {
+        if (value.isSparse() || value.isStructured()) {
+            return 2;
+        }
+        if (value.getDense() != null) {
+            return value.getDense().getRank();
+        }
+        List<Value> list = value.asArray();
+        return list.isEmpty() || !list.get(0).isArray() ? 1 : 1 + rankOf(list.get(0));
+    }
+
+    /**
+     * 矩阵乘法维度检查：左操作数列数必须等于右操作数行数
+     * @param n 左操作数列数
+     * @param p 右操作数行数
+     * @throws ExpressionException 如果维度不匹配
+     */
+    private static void checkInner(int n, int p) {
+        if (n != p) {
+            throw new ExpressionException(ErrorCode.MATRIX_DIMENSION_MISMATCH, n, p);
+        }
+    }
+}
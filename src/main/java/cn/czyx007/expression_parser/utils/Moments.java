@@ -0,0 +1,92 @@
+package cn.czyx007.expression_parser.utils;
+
+/**
+ * 单变量矩累加器：个数、均值与离差平方和 M2<br/>
+ * 数据按块（约 16K 个元素）处理：块内两遍计算均值与 M2（第二遍读取时块仍在缓存中），
+ * 块之间用 Chan 等人的合并公式组合，额外内存为常数，且不会出现 Σx² − n·mean² 式的大数相减<br/>
+ * 两个累加器可以合并，分段（如并行的各段、流式的各批）累加后合并与整体累加在数值上等价
+ */
+final class Moments {
+    /** 每块的元素个数 */
+    static final int BLOCK = 1 << 14;
+
+    private long n;
+    private double mean;
+    private double m2;
+
+    /**
+     * 累加 a[from, to)
+     * @param a 数据
+     * @param from 起始位置
+     * @param to 结束位置（不含）
+     * @return this
+     */
+    Moments addAll(double[] a, int from, int to) {
+        for (int b = from; b < to; b += BLOCK) {
+            int e = Math.min(to, b + BLOCK);
+            double s = 0;
+            for (int i = b; i < e; i++) {
+                s += a[i];
+            }
+            double blockMean = s / (e - b);
+            double blockM2 = 0;
+            for (int i = b; i < e; i++) {
+                double d = a[i] - blockMean;
+                blockM2 += d * d;
+            }
+            merge(e - b, blockMean, blockM2);
+        }
+        return this;
+    }
+
+    /**
+     * 合并另一个累加器
+     * @param other 另一个累加器
+     * @return this
+     */
+    Moments merge(Moments other) {
+        merge(other.n, other.mean, other.m2);
+        return this;
+    }
+
+    private void merge(long nb, double meanB, double m2b) {
+        if (nb == 0) {
+            return;
+        }
+        if (n == 0) {
+            n = nb;
+            mean = meanB;
+            m2 = m2b;
+            return;
+        }
+        long total = n + nb;
+        double delta = meanB - mean;
+        mean += delta * nb / total;
+        m2 += m2b + delta * delta * ((double) n * nb / total);
+        n = total;
+    }
+
+    long count() {
+        return n;
+    }
+
+    double mean() {
+        return mean;
+    }
+
+    /**
+     * 离差平方和 Σ(x − mean)²
+     */
+    double m2() {
+        return m2;
+    }
+
+    /**
+     * 方差
+     * @param sample true 表示样本方差（除以 n−1），false 表示总体方差（除以 n）
+     * @return 方差值
+     */
+    double variance(boolean sample) {
+        return m2 / (sample ? n - 1 : n);
+    }
+}
@@ -0,0 +1,256 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 顺序统计量：中位数、百分位数<br/>
+ * 使用选择算法（introselect）代替完整排序：三路划分的快速选择，期望 O(n)，
+ * 递归深度超过 2·log₂n 时退化为对剩余区间排序，保证最坏 O(n log n)<br/>
+ * 多个百分位数一次完成：按秩从中间开始划分，左右两侧分别只处理落在其中的秩<br/>
+ * percentiles 的数据为数组变量时，首次查询在私有副本上选择并在该 Value 上记录已查询；第二次查询时缓存一份排好序的副本，
+ * 之后的查询直接按下标读取。缓存的数组创建后只读，多个线程可以同时查询同一数据
+ */
+final class OrderStatistics {
+    private static final String CACHE_ORDER = "stats.order";
+    /** 区间长度不超过该值时直接插入排序 */
+    private static final int INSERTION_THRESHOLD = 16;
+
+    /**
+     * 缓存在 Value 上的查询记录
+     */
+    private static final class Order {
+        /** 只查询过一次，尚未缓存排序副本 */
+        static final Order SEEN = new Order(null);
+
+        /** 升序排列的只读副本 */
+        final double[] sorted;
+
+        Order(double[] sorted) {
+            this.sorted = sorted;
+        }
+    }
+
+    private OrderStatistics() {
+    }
+
+    /**
+     * 中位数（会重排数组）
+     * @param a 数据
+     * @return 中位数
+     */
+    static double median(double[] a) {
+        return median(a, 0, a.length);
+    }
+
+    /**
+     * 区间 [from, to) 的中位数（会重排该区间）
+     * @param a 数据
+     * @param from 起始位置
+     * @param to 结束位置（不含）
+     * @return 中位数
+     */
+    static double median(double[] a, int from, int to) {
+        int n = to - from, mid = from + n / 2;
+        if (hasNaN(a, from, to)) {
+            Arrays.sort(a, from, to);
+        } else {
+            select(a, from, to, mid);
+        }
+        if (n % 2 != 0) {
+            return a[mid];
+        }
+        // 选择后 [from, mid) 均不大于 a[mid]，其最大值即为较小的中间元素
+        double lower = a[from];
+        for (int i = from + 1; i < mid; i++) {
+            lower = Math.max(lower, a[i]);
+        }
+        return (lower + a[mid]) / 2.0;
+    }
+
+    /**
+     * 线性插值百分位数（会重排数组）
+     * @param a 数据
+     * @param p 百分位数（0-100）
+     * @return 百分位数
+     */
+    static double percentile(double[] a, double p) {
+        return quantiles(a, false, new double[]{p})[0];
+    }
+
+    /**
+     * percentiles(data, ps)：一次划分求多个百分位数
+     * @param args 参数列表（数据、百分位数或百分位数数组）
+     * @return ps 为标量时返回标量，否则返回与 ps 等长的向量
+     */
+    static Value percentiles(List<Value> args) {
+        FunctionRegistry.validateArgCount("percentiles", args.size(), 2);
+        Value data = args.get(0), ps = args.get(1);
+        double[] p = ps.scalarData();
+        for (double v : p) {
+            FunctionRegistry.validate(v >= 0 && v <= 100, ErrorCode.PERCENTILE_RANGE);
+        }
+        double[] r;
+        if (!data.isArray()) {
+            r = quantiles(new double[]{data.asScalar()}, true, p);
+        } else {
+            double[] sorted = sortedCopy(data);
+            r = sorted != null ? quantiles(sorted, true, p) : quantiles(copy(data), false, p);
+        }
+        return ps.isScalar() ? new Value(r[0]) : new Value(new DenseArray(r, r.length));
+    }
+
+    /**
+     * 取出数组变量缓存的排序副本：首次查询时只做记录并返回 null，第二次查询时排序并缓存
+     * @return 只读的升序副本，尚未缓存时为 null
+     */
+    private static double[] sortedCopy(Value value) {
+        Order order = (Order) value.getCached(CACHE_ORDER);
+        if (order == null) {
+            value.putCached(CACHE_ORDER, Order.SEEN);
+            return null;
+        }
+        if (order.sorted == null) {
+            // 排序在私有副本上完成后才发布，其他线程只会看到完整排好序的数组
+            double[] data = copy(value);
+            Arrays.sort(data);
+            order = new Order(data);
+            value.putCached(CACHE_ORDER, order);
+        }
+        return order.sorted;
+    }
+
+    /**
+     * 数组变量全部元素的私有副本
+     */
+    private static double[] copy(Value value) {
+        double[] data = new double[value.scalarCount()];
+        value.copyScalars(data, 0);
+        FunctionRegistry.validateMinArgs("percentiles", data.length, 1);
+        return data;
+    }
+
+    /**
+     * 多个线性插值百分位数
+     * @param a 数据（未排序时会被重排）
+     * @param sorted a 是否已升序排列
+     * @param ps 百分位数（0-100）
+     * @return 各百分位数
+     */
+    private static double[] quantiles(double[] a, boolean sorted, double[] ps) {
+        int n = a.length;
+        if (!sorted && hasNaN(a, 0, n)) {
+            // NaN 不参与大小比较，按 Arrays.sort 的约定排在最后
+            Arrays.sort(a);
+            sorted = true;
+        }
+        if (!sorted) {
+            int[] ranks = new int[2 * ps.length];
+            for (int i = 0; i < ps.length; i++) {
+                double index = (ps[i] / 100.0) * (n - 1);
+                ranks[2 * i] = (int) Math.floor(index);
+                ranks[2 * i + 1] = (int) Math.ceil(index);
+            }
+            Arrays.sort(ranks);
+            int count = 0;
+            for (int i = 0; i < ranks.length; i++) {
+                if (i == 0 || ranks[i] != ranks[i - 1]) {
+                    ranks[count++] = ranks[i];
+                }
+            }
+            multiSelect(a, 0, n, ranks, 0, count);
+        }
+        double[] r = new double[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            if (n == 1) {
+                r[i] = a[0];
+                continue;
+            }
+            double index = (ps[i] / 100.0) * (n - 1);
+            int lower = (int) Math.floor(index);
+            int upper = (int) Math.ceil(index);
+            double weight = index - lower;
+            r[i] = lower == upper ? a[lower] : a[lower] * (1 - weight) + a[upper] * weight;
+        }
+        return r;
+    }
+
+    /**
+     * 使 ranks[r0, r1) 中每个秩 k 处都是第 k 小的元素
+     */
+    private static void multiSelect(double[] a, int from, int to, int[] ranks, int r0, int r1) {
+        while (r0 < r1) {
+            int mid = (r0 + r1) >>> 1;
+            int k = ranks[mid];
+            select(a, from, to, k);
+            multiSelect(a, from, k, ranks, r0, mid);
+            from = k + 1;
+            r0 = mid + 1;
+        }
+    }
+
+    /**
+     * 选择：重排 [from, to) 使 a[k] 为该区间第 k − from 小的元素，左侧均不大于它，右侧均不小于它
+     * @param a 数据（不含 NaN）
+     * @param from 起始位置
+     * @param to 结束位置（不含）
+     * @param k 目标位置
+     */
+    static void select(double[] a, int from, int to, int k) {
+        int depth = 2 * (32 - Integer.numberOfLeadingZeros(to - from));
+        while (to - from > INSERTION_THRESHOLD) {
+            if (--depth < 0) {
+                Arrays.sort(a, from, to);
+                return;
+            }
+            double pivot = medianOfThree(a[from], a[(from + to) >>> 1], a[to - 1]);
+            // 三路划分：[from, lt) < pivot，[lt, gt] == pivot，(gt, to) > pivot；大量重复值时也能收敛
+            int lt = from, gt = to - 1, i = from;
+            while (i <= gt) {
+                double v = a[i];
+                if (v < pivot) {
+                    a[i++] = a[lt];
+                    a[lt++] = v;
+                } else if (v > pivot) {
+                    a[i] = a[gt];
+                    a[gt--] = v;
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                to = lt;
+            } else if (k > gt) {
+                from = gt + 1;
+            } else {
+                return;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            double v = a[i];
+            int j = i - 1;
+            while (j >= from && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+
+    private static double medianOfThree(double x, double y, double z) {
+        return Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+    }
+
+    private static boolean hasNaN(double[] a, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Double.isNaN(a[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
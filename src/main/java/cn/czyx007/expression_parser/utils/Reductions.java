@@ -0,0 +1,144 @@
+package cn.czyx007.expression_parser.utils;
+
+/**
+ * 可重现的归约：sum、sumabs、平方和、prod 以及方差/协方差的矩累加<br/>
+ * 数据按固定大小（4096 个元素）分块，块内用 TwoSum 补偿求和，各块的部分结果按块下标以固定的二叉树两两合并；
+ * 数据量大时各块在 ForkJoin 公共池中并行计算（复用 GEMM 的行块调度），
+ * 合并树只由数据长度决定，因此无论线程数多少，结果都逐位相同
+ */
+final class Reductions {
+    /** 每块的元素个数 */
+    static final int BLOCK = 1 << 12;
+
+    /**
+     * 求和的被加项
+     */
+    enum Term {
+        /** x */
+        VALUE,
+        /** |x| */
+        ABS,
+        /** x² */
+        SQUARE
+    }
+
+    private Reductions() {
+    }
+
+    /**
+     * 补偿求和
+     * @param a 数据
+     * @param term 被加项
+     * @return Σ term(x)
+     */
+    static double sum(double[] a, Term term) {
+        int blocks = blockCount(a.length);
+        double[] s = new double[blocks], c = new double[blocks];
+        GemmKernel.forRows(blocks, a.length, (b0, b1) -> {
+            for (int b = b0; b < b1; b++) {
+                int to = Math.min(a.length, (b + 1) * BLOCK);
+                double sum = 0, comp = 0;
+                for (int i = b * BLOCK; i < to; i++) {
+                    double x = a[i];
+                    double v = term == Term.VALUE ? x : term == Term.ABS ? Math.abs(x) : x * x;
+                    double t = sum + v;
+                    double bp = t - sum;
+                    comp += (sum - (t - bp)) + (v - bp);
+                    sum = t;
+                }
+                s[b] = sum;
+                c[b] = comp;
+            }
+        });
+        // 固定的两两合并树：第 w 轮合并下标相差 w 的两块
+        for (int w = 1; w < blocks; w *= 2) {
+            for (int i = 0; i + w < blocks; i += 2 * w) {
+                double t = s[i] + s[i + w];
+                double bp = t - s[i];
+                c[i] += c[i + w] + (s[i] - (t - bp)) + (s[i + w] - bp);
+                s[i] = t;
+            }
+        }
+        // 出现 ±∞ 或 NaN 时补偿项无意义，直接返回未补偿的和
+        return Double.isFinite(s[0]) ? s[0] + c[0] : s[0];
+    }
+
+    /**
+     * 乘积（块内顺序相乘，块之间按固定的二叉树合并）
+     * @param a 数据
+     * @return Π x
+     */
+    static double product(double[] a) {
+        int blocks = blockCount(a.length);
+        double[] p = new double[blocks];
+        GemmKernel.forRows(blocks, a.length, (b0, b1) -> {
+            for (int b = b0; b < b1; b++) {
+                int to = Math.min(a.length, (b + 1) * BLOCK);
+                double prod = 1;
+                for (int i = b * BLOCK; i < to; i++) {
+                    prod *= a[i];
+                }
+                p[b] = prod;
+            }
+        });
+        for (int w = 1; w < blocks; w *= 2) {
+            for (int i = 0; i + w < blocks; i += 2 * w) {
+                p[i] *= p[i + w];
+            }
+        }
+        return p[0];
+    }
+
+    /**
+     * 单变量矩：各块分别累加后按固定的二叉树合并
+     * @param a 数据
+     * @return 矩累加器
+     */
+    static Moments moments(double[] a) {
+        int blocks = blockCount(a.length);
+        Moments[] m = new Moments[blocks];
+        GemmKernel.forRows(blocks, a.length, (b0, b1) -> {
+            for (int b = b0; b < b1; b++) {
+                m[b] = new Moments().addAll(a, b * BLOCK, Math.min(a.length, (b + 1) * BLOCK));
+            }
+        });
+        for (int w = 1; w < blocks; w *= 2) {
+            for (int i = 0; i + w < blocks; i += 2 * w) {
+                m[i].merge(m[i + w]);
+            }
+        }
+        return m[0];
+    }
+
+    /**
+     * 双变量矩：成对数据 (a[xFrom + i], a[yFrom + i])，i ∈ [0, n)
+     * @param a 数据
+     * @param xFrom X 的起始位置
+     * @param yFrom Y 的起始位置
+     * @param n 数据对个数
+     * @return 矩累加器
+     */
+    static CoMoments coMoments(double[] a, int xFrom, int yFrom, int n) {
+        int blocks = blockCount(n);
+        CoMoments[] m = new CoMoments[blocks];
+        GemmKernel.forRows(blocks, 2L * n, (b0, b1) -> {
+            for (int b = b0; b < b1; b++) {
+                int from = b * BLOCK, len = Math.min(n, from + BLOCK) - from;
+                m[b] = new CoMoments().addAll(a, xFrom + from, a, yFrom + from, len);
+            }
+        });
+        for (int w = 1; w < blocks; w *= 2) {
+            for (int i = 0; i + w < blocks; i += 2 * w) {
+                m[i].merge(m[i + w]);
+            }
+        }
+        return m[0];
+    }
+
+    /**
+     * 块数，空数据也至少有一块（部分结果为单位元）
+     */
+    private static int blockCount(int n) {
+        return Math.max(1, (n + BLOCK - 1) / BLOCK);
+    }
+}
@@ -0,0 +1,125 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.List;
+
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validateArgCount;
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validateMinArgs;
+
+/**
+ * 线性最小二乘回归<br/>
+ * lsq(X, y) 将一批观测累加为 LeastSquares 句柄（只保存 (p+1)×(p+1) 的三角因子），lsqmerge 合并多批，
+ * 因此可以分批处理任意多的观测而不必同时持有全部数据；linreg、linregstats 既接受 (X, y) 也接受累加器<br/>
+ * 一批观测按固定的行块（4096 行）分别累加，数据量大时各块在 ForkJoin 公共池中并行，
+ * 再按块下标以固定的二叉树合并，结果与线程数无关<br/>
+ * 模型不自动添加截距项，需要时在 X 中加入一列 1；R² 按 y 的离差平方和计算
+ */
+final class RegressionUtils {
+    /** 每块的行数 */
+    private static final int BLOCK = 1 << 12;
+
+    private RegressionUtils() {
+    }
+
+    /**
+     * lsq(X, y)：累加一批观测，X 为 m×p 矩阵（或长度为 m 的向量，即 p = 1），y 含 m 个值
+     */
+    static Value lsq(List<Value> args) {
+        validateArgCount("lsq", args.size(), 2);
+        return new Value(fit(args.get(0), args.get(1), "lsq"));
+    }
+
+    /**
+     * lsqmerge(S1, S2, ...)：合并自变量个数相同的累加器
+     */
+    static Value lsqmerge(List<Value> args) {
+        validateMinArgs("lsqmerge", args.size(), 1);
+        LeastSquares merged = new LeastSquares(accumulator(args.get(0), "lsqmerge", 1).getPredictors());
+        for (int i = 0; i < args.size(); i++) {
+            LeastSquares s = accumulator(args.get(i), "lsqmerge", i + 1);
+            if (s.getPredictors() != merged.getPredictors()) {
+                throw new ExpressionException(ErrorCode.REGRESSION_PREDICTOR_MISMATCH, merged.getPredictors(), s.getPredictors());
+            }
+            merged.merge(s);
+        }
+        return new Value(merged);
+    }
+
+    /**
+     * linreg(X, y) 或 linreg(S)：回归系数，长度为 p 的向量
+     */
+    static Value linreg(List<Value> args) {
+        LeastSquares s = solved(args, "linreg");
+        double[] b = s.coefficients();
+        return new Value(new DenseArray(b, b.length));
+    }
+
+    /**
+     * linregstats(X, y) 或 linregstats(S)：[R², 调整 R², 残差标准误, 残差平方和, 观测数]
+     */
+    static Value linregstats(List<Value> args) {
+        LeastSquares s = solved(args, "linregstats");
+        long n = s.count();
+        int p = s.getPredictors();
+        double rss = s.residualSumOfSquares(), tss = s.totalSumOfSquares();
+        double r2 = tss > 0 ? 1 - rss / tss : Double.NaN;
+        double adjusted = n > p && n > 1 ? 1 - (1 - r2) * (n - 1) / (n - p) : Double.NaN;
+        double sigma = n > p ? Math.sqrt(rss / (n - p)) : Double.NaN;
+        return new Value(new DenseArray(new double[]{r2, adjusted, sigma, rss, n}, 5));
+    }
+
+    /**
+     * 由 (X, y) 或累加器得到满秩的累加器
+     */
+    private static LeastSquares solved(List<Value> args, String funcName) {
+        validateMinArgs(funcName, args.size(), 1);
+        if (args.size() > 2) {
+            validateArgCount(funcName, args.size(), 2);
+        }
+        LeastSquares s = args.size() == 1 ? accumulator(args.get(0), funcName, 1) : fit(args.get(0), args.get(1), funcName);
+        if (!s.hasFullRank()) {
+            throw new ExpressionException(ErrorCode.REGRESSION_RANK_DEFICIENT, funcName, s.count(), s.getPredictors());
+        }
+        return s;
+    }
+
+    private static LeastSquares fit(Value xValue, Value yValue, String funcName) {
+        if (!xValue.isArray()) {
+            throw new ExpressionException(ErrorCode.MATRIX_REQUIRED, funcName);
+        }
+        DenseArray xd = MatrixMathUtils.toDenseArray(xValue, funcName);
+        if (xd.getRank() > 2) {
+            throw new ExpressionException(ErrorCode.MATRIX_ELEMENT_NOT_SCALAR, funcName);
+        }
+        int m = xd.getDim(0), p = xd.getRank() == 1 ? 1 : xd.getDim(1);
+        double[] x = xd.getData(), y = yValue.scalarData();
+        if (y.length != m) {
+            throw new ExpressionException(ErrorCode.REGRESSION_DIMENSION_MISMATCH, funcName, m, y.length);
+        }
+        int blocks = (m + BLOCK - 1) / BLOCK;
+        LeastSquares[] parts = new LeastSquares[blocks];
+        GemmKernel.forRows(blocks, (long) m * (p + 1) * (p + 1), (b0, b1) -> {
+            for (int b = b0; b < b1; b++) {
+                parts[b] = new LeastSquares(p);
+                parts[b].update(x, y, b * BLOCK, Math.min(m, (b + 1) * BLOCK));
+            }
+        });
+        for (int w = 1; w < blocks; w *= 2) {
+            for (int i = 0; i + w < blocks; i += 2 * w) {
+                parts[i].merge(parts[i + w]);
+            }
+        }
+        return parts[0];
+    }
+
+    private static LeastSquares accumulator(Value value, String funcName, int position) {
+        if (!value.isHandle() || !(value.getHandle() instanceof LeastSquares)) {
+            throw new ExpressionException(ErrorCode.REGRESSION_ACCUMULATOR_REQUIRED, funcName, position);
+        }
+        return (LeastSquares) value.getHandle();
+    }
+}
@@ -51,7 +51,8 @@ final class ScalarMathUtils {
 
 
     /**
-     * 计算方差（总体或样本）
+     * 计算方差（总体或样本）<br/>
+     * 单遍分块累加（见 {@link Moments}），各块的结果按固定顺序合并（见 {@link Reductions}），不复制数据
      * @param args 数据数组
      * @param sample true 表示样本方差，false 表示总体方差
      * @return 方差值
@@ -64,77 +65,42 @@ final class ScalarMathUtils {
         if (!sample && n < 1) {
             throw new ExpressionException(ErrorCode.VARIANCE_POP_MIN_ARGS);
         }
-
-        // 计算均值
-        double mean = 0;
-        for (double x : args) mean += x;
-        mean /= n;
-
-        // 计算平方差之和
-        double sumSq = 0;
-        for (double x : args) {
-            double d = x - mean;
-            sumSq += d * d;
-        }
-
-        //样本方差除以 n-1，总体方差除以 n
-        return sumSq / (sample ? (n - 1) : n);
+        return Reductions.moments(args).variance(sample);
     }
 
     /**
-     * 计算协方差（总体或样本）
-     * @param x X 数据数组
-     * @param y Y 数据数组
+     * 计算协方差（总体或样本）<br/>
+     * 数据按参数约定排列：前半部分为 X，后半部分为 Y，直接在原数组上成对累加
+     * @param args 数据数组（x1, ..., xn, y1, ..., yn）
      * @param sample true 表示样本协方差，false 表示总体协方差
      * @return 协方差值
      */
-    static double covariance(double[] x, double[] y, boolean sample) {
-        int n = x.length;
+    static double covariance(double[] args, boolean sample) {
+        int n = args.length / 2;
         if (sample && n < 2) {
             throw new ExpressionException(ErrorCode.COVARIANCE_MIN_ARGS);
         }
         if (!sample && n < 1) {
             throw new ExpressionException(ErrorCode.COVARIANCE_POP_MIN_ARGS);
         }
-
-        // 计算均值
-        double meanX = 0, meanY = 0;
-        for (int i = 0; i < n; i++) {
-            meanX += x[i];
-            meanY += y[i];
-        }
-        meanX /= n;
-        meanY /= n;
-
-        // 计算协方差
-        double cov = 0;
-        for (int i = 0; i < n; i++) {
-            cov += (x[i] - meanX) * (y[i] - meanY);
-        }
-
-        return cov / (sample ? (n - 1) : n);
+        return Reductions.coMoments(args, 0, n, n).covariance(sample);
     }
 
     /**
-     * 计算相关系数（Pearson 相关系数）
-     * @param x X 数据数组
-     * @param y Y 数据数组
+     * 计算相关系数（Pearson 相关系数）<br/>
+     * 协方差与两组方差在同一遍扫描中得到
+     * @param args 数据数组（x1, ..., xn, y1, ..., yn）
      * @return 相关系数
      */
-    static double correlation(double[] x, double[] y) {
-        int n = x.length;
+    static double correlation(double[] args) {
+        int n = args.length / 2;
         if (n < 2) {
             throw new ExpressionException(ErrorCode.CORRELATION_MIN_ARGS);
         }
-
-        double cov = covariance(x, y, true);
-        double stdX = Math.sqrt(variance(x, true));
-        double stdY = Math.sqrt(variance(y, true));
-
-        if (stdX == 0 || stdY == 0) {
+        CoMoments moments = Reductions.coMoments(args, 0, n, n);
+        if (moments.hasZeroVariance()) {
             throw new ExpressionException(ErrorCode.STD_DEV_ZERO);
         }
-
-        return cov / (stdX * stdY);
+        return moments.correlation();
     }
 }
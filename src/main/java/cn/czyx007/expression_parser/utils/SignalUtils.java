@@ -0,0 +1,183 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.List;
+
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validateArgCount;
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validateMinArgs;
+
+/**
+ * 信号处理函数：fft、ifft、conv、xcorr、psd<br/>
+ * 复数序列表示为 n×2 矩阵，第一列为实部、第二列为虚部；fft、ifft 的参数为 n×2 矩阵时按复数处理，
+ * 否则其所有标量值（按行主序）视为实数序列<br/>
+ * conv 按计算量在直接法（O(nm)）与 FFT 法之间自动选择；FFT 法把两个实序列分别作为实部、虚部装入同一个复序列，
+ * 一次正变换即得到两者的频谱
+ */
+final class SignalUtils {
+    /** 直接法的乘加次数不超过 FFT 法估计代价的该倍数时使用直接法 */
+    private static final int DIRECT_COST_FACTOR = 4;
+
+    private SignalUtils() {
+    }
+
+    /**
+     * fft(x)：离散傅里叶变换，结果为 n×2 矩阵 [实部, 虚部]
+     */
+    static Value fft(List<Value> args) {
+        validateArgCount("fft", args.size(), 1);
+        double[][] z = complex(args.get(0), "fft");
+        FftKernel.transform(z[0], z[1], false);
+        return toComplexValue(z[0], z[1]);
+    }
+
+    /**
+     * ifft(X)：逆离散傅里叶变换（除以 n），结果为 n×2 矩阵 [实部, 虚部]
+     */
+    static Value ifft(List<Value> args) {
+        validateArgCount("ifft", args.size(), 1);
+        double[][] z = complex(args.get(0), "ifft");
+        FftKernel.transform(z[0], z[1], true);
+        int n = z[0].length;
+        for (int k = 0; k < n; k++) {
+            z[0][k] /= n;
+            z[1][k] /= n;
+        }
+        return toComplexValue(z[0], z[1]);
+    }
+
+    /**
+     * conv(x, h)：线性卷积，结果长度为 n + m − 1
+     */
+    static Value conv(List<Value> args) {
+        validateArgCount("conv", args.size(), 2);
+        double[] r = convolve(samples(args.get(0), "conv"), samples(args.get(1), "conv"), false);
+        return new Value(new DenseArray(r, r.length));
+    }
+
+    /**
+     * xcorr(x[, y])：互相关 r_k = Σ x_(j+k)·y_j，滞后 k 从 −(m − 1) 到 n − 1，结果长度为 n + m − 1；
+     * 省略 y 时为自相关
+     */
+    static Value xcorr(List<Value> args) {
+        validateMinArgs("xcorr", args.size(), 1);
+        if (args.size() > 2) {
+            validateArgCount("xcorr", args.size(), 2);
+        }
+        double[] x = samples(args.get(0), "xcorr");
+        double[] y = args.size() > 1 ? samples(args.get(1), "xcorr") : x;
+        double[] r = convolve(x, y, true);
+        return new Value(new DenseArray(r, r.length));
+    }
+
+    /**
+     * psd(x)：单边周期图 |X_k|²/n，k = 0..⌊n/2⌋，除直流与奈奎斯特频点外乘以 2，各频点之和等于 Σx²
+     */
+    static Value psd(List<Value> args) {
+        validateArgCount("psd", args.size(), 1);
+        double[] x = samples(args.get(0), "psd");
+        int n = x.length;
+        double[] re = x.clone(), im = new double[n];
+        FftKernel.transform(re, im, false);
+        double[] p = new double[n / 2 + 1];
+        for (int k = 0; k < p.length; k++) {
+            double power = (re[k] * re[k] + im[k] * im[k]) / n;
+            p[k] = k == 0 || 2 * k == n ? power : 2 * power;
+        }
+        return new Value(new DenseArray(p, p.length));
+    }
+
+    /**
+     * 线性卷积 Σ x_j·h_(k−j)
+     * @param x 第一个序列（不修改）
+     * @param h 第二个序列（不修改）
+     * @param reverse 是否先将 h 反转（即互相关）
+     * @return 长度为 n + m − 1 的结果
+     */
+    private static double[] convolve(double[] x, double[] h, boolean reverse) {
+        int n = x.length, m = h.length, len = n + m - 1;
+        int size = FftKernel.nextPowerOfTwo(len);
+        long fftCost = (long) size * (31 - Integer.numberOfLeadingZeros(size) + 1);
+        if ((long) n * m <= DIRECT_COST_FACTOR * fftCost) {
+            double[] r = new double[len];
+            for (int i = 0; i < n; i++) {
+                double xi = x[i];
+                for (int j = 0; j < m; j++) {
+                    r[i + j] += xi * h[reverse ? m - 1 - j : j];
+                }
+            }
+            return r;
+        }
+        double[] re = new double[size], im = new double[size];
+        System.arraycopy(x, 0, re, 0, n);
+        for (int j = 0; j < m; j++) {
+            im[j] = h[reverse ? m - 1 - j : j];
+        }
+        FftKernel.transform(re, im, false);
+        // Z = X + iH，由共轭对称性分离：X_k = (Z_k + conj(Z_(−k)))/2，H_k = (Z_k − conj(Z_(−k)))/(2i)
+        double[] yr = new double[size], yi = new double[size];
+        for (int k = 0; k < size; k++) {
+            int j = (size - k) & (size - 1);
+            double xr = (re[k] + re[j]) / 2, xi = (im[k] - im[j]) / 2;
+            double hr = (im[k] + im[j]) / 2, hi = (re[j] - re[k]) / 2;
+            yr[k] = xr * hr - xi * hi;
+            yi[k] = xr * hi + xi * hr;
+        }
+        FftKernel.transform(yr, yi, true);
+        double[] r = new double[len];
+        for (int k = 0; k < len; k++) {
+            r[k] = yr[k] / size;
+        }
+        return r;
+    }
+
+    /**
+     * 读取复数序列：n×2 稠密矩阵按 [实部, 虚部] 解释，否则为实数序列
+     * @return {实部, 虚部}（副本）
+     */
+    private static double[][] complex(Value value, String funcName) {
+        if (value.isArray()) {
+            DenseArray d = MatrixMathUtils.toDenseArray(value, funcName);
+            if (d.getRank() == 2 && d.getDim(1) == 2) {
+                int n = d.getDim(0);
+                double[] data = d.getData(), re = new double[n], im = new double[n];
+                for (int k = 0; k < n; k++) {
+                    re[k] = data[2 * k];
+                    im[k] = data[2 * k + 1];
+                }
+                return new double[][]{re, im};
+            }
+        }
+        double[] re = new double[value.scalarCount()];
+        value.copyScalars(re, 0);
+        return new double[][]{nonEmpty(re, funcName), new double[re.length]};
+    }
+
+    /**
+     * 读取实数序列（所有标量值按行主序，可能与 value 共享存储，不得修改）
+     * @throws ExpressionException 如果序列为空
+     */
+    private static double[] samples(Value value, String funcName) {
+        return nonEmpty(value.scalarData(), funcName);
+    }
+
+    private static double[] nonEmpty(double[] x, String funcName) {
+        if (x.length == 0) {
+            throw new ExpressionException(ErrorCode.MATRIX_EMPTY, funcName);
+        }
+        return x;
+    }
+
+    private static Value toComplexValue(double[] re, double[] im) {
+        int n = re.length;
+        double[] r = new double[2 * n];
+        for (int k = 0; k < n; k++) {
+            r[2 * k] = re[k];
+            r[2 * k + 1] = im[k];
+        }
+        return new Value(new DenseArray(r, n, 2));
+    }
+}
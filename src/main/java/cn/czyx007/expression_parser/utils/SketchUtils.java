@@ -0,0 +1,183 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Handle;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.List;
+
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validate;
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validateArgCount;
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validateMinArgs;
+
+/**
+ * 近似统计草图<br/>
+ * qsketch 构造 KLL 分位数草图，hll 构造 HyperLogLog 不同值计数草图；两者都单遍处理数据、内存有界，
+ * 结果为句柄，可赋值给变量、用 qmerge/hllmerge 合并，并可通过 sketchdata/sketchload 与数值数组互相转换以便保存
+ */
+final class SketchUtils {
+    /** 序列化数组首元素：草图类型 */
+    private static final int TAG_KLL = 1;
+    private static final int TAG_HLL = 2;
+
+    private SketchUtils() {
+    }
+
+    /**
+     * qsketch(X[, k])：KLL 分位数草图，k 越大越精确（默认 200）
+     */
+    static Value qsketch(List<Value> args) {
+        validateMinArgs("qsketch", args.size(), 1);
+        if (args.size() > 2) {
+            validateArgCount("qsketch", args.size(), 2);
+        }
+        int k = args.size() > 1 ? parameter(args.get(1), "qsketch", "k", KllSketch.MIN_K, KllSketch.MAX_K) : KllSketch.DEFAULT_K;
+        KllSketch sketch = new KllSketch(k);
+        double[] data = args.get(0).scalarData();
+        sketch.update(data, 0, data.length);
+        if (sketch.count() == 0) {
+            // 没有（非 NaN 的）数据时分位数无定义
+            throw new ExpressionException(ErrorCode.SKETCH_EMPTY, "qsketch");
+        }
+        return new Value(sketch);
+    }
+
+    /**
+     * qmerge(S1, S2, ...)：合并 KLL 草图，结果的精度参数取各草图中最小的 k
+     */
+    static Value qmerge(List<Value> args) {
+        validateMinArgs("qmerge", args.size(), 1);
+        int k = KllSketch.MAX_K;
+        for (int i = 0; i < args.size(); i++) {
+            k = Math.min(k, kll(args.get(i), "qmerge", i + 1).getK());
+        }
+        KllSketch merged = new KllSketch(k);
+        for (Value arg : args) {
+            merged.merge((KllSketch) arg.getHandle());
+        }
+        return new Value(merged);
+    }
+
+    /**
+     * qpercentile(S, p)：由 KLL 草图估计百分位数，p 可以是数组
+     */
+    static Value qpercentile(List<Value> args) {
+        validateArgCount("qpercentile", args.size(), 2);
+        KllSketch sketch = kll(args.get(0), "qpercentile", 1);
+        Value ps = args.get(1);
+        double[] p = ps.scalarData().clone();
+        for (int i = 0; i < p.length; i++) {
+            validate(p[i] >= 0 && p[i] <= 100, ErrorCode.PERCENTILE_RANGE);
+            p[i] = sketch.quantile(p[i] / 100.0);
+        }
+        return ps.isScalar() ? new Value(p[0]) : new Value(new DenseArray(p, p.length));
+    }
+
+    /**
+     * hll(X[, p])：HyperLogLog 草图，寄存器个数 2^p（默认 p = 14）
+     */
+    static Value hll(List<Value> args) {
+        validateMinArgs("hll", args.size(), 1);
+        if (args.size() > 2) {
+            validateArgCount("hll", args.size(), 2);
+        }
+        int p = args.size() > 1
+            ? parameter(args.get(1), "hll", "precision", HyperLogLog.MIN_PRECISION, HyperLogLog.MAX_PRECISION)
+            : HyperLogLog.DEFAULT_PRECISION;
+        HyperLogLog sketch = new HyperLogLog(p);
+        double[] data = args.get(0).scalarData();
+        sketch.update(data, 0, data.length);
+        return new Value(sketch);
+    }
+
+    /**
+     * hllmerge(H1, H2, ...)：合并精度相同的 HyperLogLog 草图
+     */
+    static Value hllmerge(List<Value> args) {
+        validateMinArgs("hllmerge", args.size(), 1);
+        HyperLogLog first = hyperLogLog(args.get(0), "hllmerge", 1);
+        HyperLogLog merged = new HyperLogLog(first.getPrecision());
+        for (int i = 0; i < args.size(); i++) {
+            HyperLogLog h = hyperLogLog(args.get(i), "hllmerge", i + 1);
+            if (h.getPrecision() != merged.getPrecision()) {
+                throw new ExpressionException(ErrorCode.SKETCH_PRECISION_MISMATCH, "hllmerge",
+                    merged.getPrecision(), h.getPrecision());
+            }
+            merged.merge(h);
+        }
+        return new Value(merged);
+    }
+
+    /**
+     * hllcount(H)：估计不同值的个数
+     */
+    static Value hllcount(List<Value> args) {
+        validateArgCount("hllcount", args.size(), 1);
+        return new Value(Math.rint(hyperLogLog(args.get(0), "hllcount", 1).estimate()));
+    }
+
+    /**
+     * sketchdata(S)：将草图序列化为数值向量
+     */
+    static Value sketchdata(List<Value> args) {
+        validateArgCount("sketchdata", args.size(), 1);
+        Value value = args.get(0);
+        double[] body;
+        int tag;
+        if (value.isHandle() && value.getHandle() instanceof KllSketch) {
+            body = ((KllSketch) value.getHandle()).toArray();
+            tag = TAG_KLL;
+        } else if (value.isHandle() && value.getHandle() instanceof HyperLogLog) {
+            body = ((HyperLogLog) value.getHandle()).toArray();
+            tag = TAG_HLL;
+        } else {
+            throw new ExpressionException(ErrorCode.SKETCH_REQUIRED, "sketchdata", 1, "kll or hll");
+        }
+        double[] r = new double[1 + body.length];
+        r[0] = tag;
+        System.arraycopy(body, 0, r, 1, body.length);
+        return new Value(new DenseArray(r, r.length));
+    }
+
+    /**
+     * sketchload(v)：由 sketchdata 的结果还原草图
+     */
+    static Value sketchload(List<Value> args) {
+        validateArgCount("sketchload", args.size(), 1);
+        double[] a = args.get(0).scalarData();
+        Handle sketch = null;
+        if (a.length > 0 && a[0] == TAG_KLL) {
+            sketch = KllSketch.fromArray(a, 1);
+        } else if (a.length > 0 && a[0] == TAG_HLL) {
+            sketch = HyperLogLog.fromArray(a, 1);
+        }
+        if (sketch == null) {
+            throw new ExpressionException(ErrorCode.SKETCH_DATA_INVALID);
+        }
+        return new Value(sketch);
+    }
+
+    private static KllSketch kll(Value value, String funcName, int position) {
+        if (!value.isHandle() || !(value.getHandle() instanceof KllSketch)) {
+            throw new ExpressionException(ErrorCode.SKETCH_REQUIRED, funcName, position, "kll");
+        }
+        return (KllSketch) value.getHandle();
+    }
+
+    private static HyperLogLog hyperLogLog(Value value, String funcName, int position) {
+        if (!value.isHandle() || !(value.getHandle() instanceof HyperLogLog)) {
+            throw new ExpressionException(ErrorCode.SKETCH_REQUIRED, funcName, position, "hll");
+        }
+        return (HyperLogLog) value.getHandle();
+    }
+
+    private static int parameter(Value value, String funcName, String name, int min, int max) {
+        double v = value.asScalar();
+        if (v != Math.rint(v) || v < min || v > max) {
+            throw new ExpressionException(ErrorCode.SKETCH_PARAMETER_RANGE, funcName, name, min, max);
+        }
+        return (int) v;
+    }
+}
@@ -0,0 +1,285 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.requireString;
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validateArgCount;
+import static cn.czyx007.expression_parser.utils.FunctionRegistry.validateMinArgs;
+
+/**
+ * 排序相关函数：sort、argsort、topk、unique<br/>
+ * 参数的所有标量值（数组、矩阵按行主序展开）直接复制到 double[] 上处理，不产生装箱对象，结果均为一维向量<br/>
+ * 大小顺序与 Arrays.sort 相同：−0.0 排在 0.0 之前，NaN 排在最后（降序时排在最前）<br/>
+ * sort、unique 的数据量达到阈值时使用 Arrays.parallelSort；argsort 为稳定的归并排序，各块的排序在 ForkJoin 公共池中并行；
+ * topk 在 k 远小于 n 时使用大小为 k 的最小堆（O(n log k)，不复制数据），否则复制后用选择算法划分出最大的 k 个
+ */
+final class SortUtils {
+    /** 元素个数达到该值时并行排序 */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    /** argsort 中独立排序的块大小，之后逐轮两两归并 */
+    private static final int BLOCK = 1 << 12;
+    /** 区间长度不超过该值时直接插入排序 */
+    private static final int INSERTION_THRESHOLD = 32;
+    /** n ≥ k·HEAP_RATIO 时 topk 使用堆 */
+    private static final int HEAP_RATIO = 16;
+
+    private SortUtils() {
+    }
+
+    /**
+     * sort(x[, order])：排序，order 为 "asc"（默认）或 "desc"
+     */
+    static Value sort(List<Value> args) {
+        boolean desc = order(args, "sort");
+        double[] a = copy(args.get(0));
+        sort(a);
+        if (desc) {
+            reverse(a);
+        }
+        return new Value(new DenseArray(a, a.length));
+    }
+
+    /**
+     * argsort(x[, order])：使 x 有序的下标（从 0 开始），相等元素保持原来的先后顺序
+     */
+    static Value argsort(List<Value> args) {
+        boolean desc = order(args, "argsort");
+        double[] key = copy(args.get(0));
+        int[] idx = argsort(key, desc);
+        double[] r = new double[idx.length];
+        for (int i = 0; i < r.length; i++) {
+            r[i] = idx[i];
+        }
+        return new Value(new DenseArray(r, r.length));
+    }
+
+    /**
+     * topk(x, k)：最大的 k 个值，降序排列；NaN 被忽略
+     */
+    static Value topk(List<Value> args) {
+        validateArgCount("topk", args.size(), 2);
+        Value x = args.get(0);
+        double[] data = x.scalarData();
+        int n = 0;
+        for (double v : data) {
+            if (!Double.isNaN(v)) {
+                n++;
+            }
+        }
+        double kv = args.get(1).asScalar();
+        if (kv != Math.rint(kv) || kv < 1 || kv > n) {
+            throw new ExpressionException(ErrorCode.TOPK_RANGE, n, kv);
+        }
+        int k = (int) kv;
+        double[] r = (long) k * HEAP_RATIO <= n ? topkHeap(data, k) : topkSelect(data, n, k);
+        Arrays.sort(r);
+        reverse(r);
+        return new Value(new DenseArray(r, k));
+    }
+
+    /**
+     * unique(x)：升序排列的不同值；0.0 与 −0.0 视为同一个值，所有 NaN 合并为一个
+     */
+    static Value unique(List<Value> args) {
+        validateArgCount("unique", args.size(), 1);
+        double[] a = copy(args.get(0));
+        sort(a);
+        int m = 0;
+        for (int i = 0; i < a.length; i++) {
+            double v = a[i];
+            if (m > 0 && (v == a[m - 1] || (Double.isNaN(v) && Double.isNaN(a[m - 1])))) {
+                continue;
+            }
+            a[m++] = v == 0 ? 0.0 : v;
+        }
+        return new Value(new DenseArray(Arrays.copyOf(a, m), m));
+    }
+
+    /**
+     * 稳定排序的下标
+     * @param key 排序键（不修改）
+     * @param desc 是否降序
+     * @return 下标排列
+     */
+    private static int[] argsort(double[] key, boolean desc) {
+        int n = key.length;
+        int[] idx = new int[n], tmp = new int[n];
+        for (int i = 0; i < n; i++) {
+            idx[i] = i;
+        }
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        // 各块互不重叠地使用 idx 与 tmp 的对应区间
+        GemmKernel.forRows(blocks, (long) n * 12, (b0, b1) -> {
+            for (int b = b0; b < b1; b++) {
+                mergeSort(idx, tmp, b * BLOCK, Math.min(n, (b + 1) * BLOCK), key, desc);
+            }
+        });
+        int[] src = idx, dst = tmp;
+        for (int width = BLOCK; width < n; width *= 2) {
+            int w = width;
+            int[] from = src, to = dst;
+            GemmKernel.forRows((int) ((n + 2L * w - 1) / (2L * w)), n, (m0, m1) -> {
+                for (int m = m0; m < m1; m++) {
+                    int lo = (int) Math.min(n, 2L * w * m), mid = (int) Math.min(n, lo + (long) w);
+                    int hi = (int) Math.min(n, mid + (long) w);
+                    merge(from, lo, mid, hi, to, key, desc);
+                }
+            });
+            src = dst;
+            dst = from;
+        }
+        return src;
+    }
+
+    private static boolean order(List<Value> args, String funcName) {
+        validateMinArgs(funcName, args.size(), 1);
+        if (args.size() > 2) {
+            validateArgCount(funcName, args.size(), 2);
+        }
+        if (args.size() == 1) {
+            return false;
+        }
+        String order = requireString(args.get(1), funcName, 2);
+        switch (order.trim().toLowerCase(Locale.ROOT)) {
+            case "asc":
+                return false;
+            case "desc":
+                return true;
+            default:
+                throw new ExpressionException(ErrorCode.SORT_ORDER_UNKNOWN, funcName, order);
+        }
+    }
+
+    /**
+     * 所有标量值的副本
+     */
+    private static double[] copy(Value value) {
+        double[] a = new double[value.scalarCount()];
+        value.copyScalars(a, 0);
+        return a;
+    }
+
+    private static void sort(double[] a) {
+        if (a.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(a);
+        } else {
+            Arrays.sort(a);
+        }
+    }
+
+    private static void reverse(double[] a) {
+        for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+            double t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    /**
+     * 最大的 k 个非 NaN 值（无序）：最小堆的堆顶为当前第 k 大的值，更大的值替换堆顶后下沉
+     */
+    private static double[] topkHeap(double[] data, int k) {
+        double[] heap = new double[k];
+        int size = 0;
+        for (double v : data) {
+            if (Double.isNaN(v)) {
+                continue;
+            }
+            if (size < k) {
+                // 上浮
+                int i = size++;
+                while (i > 0 && Double.compare(heap[(i - 1) >>> 1], v) > 0) {
+                    heap[i] = heap[(i - 1) >>> 1];
+                    i = (i - 1) >>> 1;
+                }
+                heap[i] = v;
+            } else if (Double.compare(v, heap[0]) > 0) {
+                int i = 0;
+                while (true) {
+                    int c = 2 * i + 1;
+                    if (c >= k) {
+                        break;
+                    }
+                    if (c + 1 < k && Double.compare(heap[c + 1], heap[c]) < 0) {
+                        c++;
+                    }
+                    if (Double.compare(heap[c], v) >= 0) {
+                        break;
+                    }
+                    heap[i] = heap[c];
+                    i = c;
+                }
+                heap[i] = v;
+            }
+        }
+        return heap;
+    }
+
+    /**
+     * 最大的 k 个非 NaN 值（无序）：复制后选出第 n − k 小的元素，其右侧即为所求
+     */
+    private static double[] topkSelect(double[] data, int n, int k) {
+        double[] a = new double[n];
+        int m = 0;
+        for (double v : data) {
+            if (!Double.isNaN(v)) {
+                a[m++] = v;
+            }
+        }
+        OrderStatistics.select(a, 0, n, n - k);
+        return Arrays.copyOfRange(a, n - k, n);
+    }
+
+    /**
+     * 对 idx[from, to) 稳定排序，tmp 的同一区间作为缓冲
+     */
+    private static void mergeSort(int[] idx, int[] tmp, int from, int to, double[] key, boolean desc) {
+        if (to - from <= INSERTION_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int v = idx[i];
+                int j = i - 1;
+                while (j >= from && before(key, v, idx[j], desc)) {
+                    idx[j + 1] = idx[j];
+                    j--;
+                }
+                idx[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(idx, tmp, from, mid, key, desc);
+        mergeSort(idx, tmp, mid, to, key, desc);
+        if (!before(key, idx[mid], idx[mid - 1], desc)) {
+            // 两半已经有序
+            return;
+        }
+        System.arraycopy(idx, from, tmp, from, to - from);
+        merge(tmp, from, mid, to, idx, key, desc);
+    }
+
+    /**
+     * 将 src 中有序的 [lo, mid) 与 [mid, hi) 归并到 dst 的同一区间；相等时先取左侧，保证稳定
+     */
+    private static void merge(int[] src, int lo, int mid, int hi, int[] dst, double[] key, boolean desc) {
+        int i = lo, j = mid, p = lo;
+        while (i < mid && j < hi) {
+            dst[p++] = before(key, src[j], src[i], desc) ? src[j++] : src[i++];
+        }
+        System.arraycopy(src, i, dst, p, mid - i);
+        System.arraycopy(src, j, dst, p + mid - i, hi - j);
+    }
+
+    /**
+     * 下标 a 的键是否严格排在下标 b 的键之前
+     */
+    private static boolean before(double[] key, int a, int b, boolean desc) {
+        return desc ? Double.compare(key[b], key[a]) < 0 : Double.compare(key[a], key[b]) < 0;
+    }
+}
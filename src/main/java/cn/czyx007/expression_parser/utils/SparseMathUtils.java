@@ -0,0 +1,273 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.SparseMatrix;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 稀疏矩阵（CSR）运算工具类<br/>
+ * 所有运算直接在 CSR 数组上进行，时间和内存与非零元素个数成正比
+ */
+final class SparseMathUtils {
+
+    /**
+     * 由三元组构造稀疏矩阵：sparse(rows, cols, values[, n, m])<br/>
+     * 行号、列号从 0 开始；省略 n、m 时取最大行号、列号加 1；重复位置的值相加
+     * @param args 参数列表
+     * @return 稀疏矩阵
+     * @throws ExpressionException 如果参数长度不一致、下标不是整数或越界
+     */
+    static Value sparse(List<Value> args) {
+        if (args.size() == 1) {
+            // sparse(A)：将稠密矩阵转换为稀疏存储
+            Value a = args.get(0);
+            if (a.isSparse()) {
+                return a;
+            }
+            DenseArray d = MatrixMathUtils.toDenseMatrix(a, "sparse");
+            return new Value(SparseMatrix.fromDense(d.getData(), d.getDim(0), d.getDim(1)));
+        }
+        if (args.size() != 3 && args.size() != 5) {
+            throw new ExpressionException(ErrorCode.SPARSE_INVALID_ARGS, args.size());
+        }
+        int[] r = toIndices(args.get(0));
+        int[] c = toIndices(args.get(1));
+        double[] v = args.get(2).flattenToDoubleArray();
+        if (r.length != c.length || r.length != v.length) {
+            throw new ExpressionException(ErrorCode.SPARSE_LENGTH_MISMATCH);
+        }
+
+        int n, m;
+        if (args.size() == 5) {
+            n = toDimension(args.get(3));
+            m = toDimension(args.get(4));
+        } else {
+            n = 0;
+            m = 0;
+            for (int t = 0; t < r.length; t++) {
+                n = Math.max(n, r[t] + 1);
+                m = Math.max(m, c[t] + 1);
+            }
+            if (n == 0) {
+                throw new ExpressionException(ErrorCode.PARAM_MUST_BE_POSITIVE, "sparse");
+            }
+        }
+        for (int t = 0; t < r.length; t++) {
+            if (r[t] >= n || c[t] >= m) {
+                throw new ExpressionException(ErrorCode.SPARSE_INDEX_OUT_OF_RANGE, r[t], c[t], n, m);
+            }
+        }
+        return new Value(SparseMatrix.fromTriplets(n, m, r, c, v));
+    }
+
+    /**
+     * 将下标数组转换为 int 数组
+     * @param value 下标（标量或一维数组）
+     * @return 下标数组
+     * @throws ExpressionException 如果下标不是非负整数
+     */
+    private static int[] toIndices(Value value) {
+        double[] d = value.flattenToDoubleArray();
+        int[] idx = new int[d.length];
+        for (int t = 0; t < d.length; t++) {
+            if (d[t] != Math.floor(d[t]) || d[t] > Integer.MAX_VALUE) {
+                throw new ExpressionException(ErrorCode.INTEGER_REQUIRED, "sparse");
+            }
+            if (d[t] < 0) {
+                throw new ExpressionException(ErrorCode.PARAM_MUST_BE_NON_NEGATIVE, "sparse");
+            }
+            idx[t] = (int) d[t];
+        }
+        return idx;
+    }
+
+    /**
+     * 将行数、列数参数转换为正整数
+     * @param value 维度参数
+     * @return 维度
+     * @throws ExpressionException 如果不是正整数
+     */
+    private static int toDimension(Value value) {
+        double d = value.asScalar();
+        if (d != Math.floor(d) || d > Integer.MAX_VALUE) {
+            throw new ExpressionException(ErrorCode.INTEGER_REQUIRED, "sparse");
+        }
+        if (d < 1) {
+            throw new ExpressionException(ErrorCode.PARAM_MUST_BE_POSITIVE, "sparse");
+        }
+        return (int) d;
+    }
+
+    /**
+     * 转置，O(nnz + cols)
+     * @param a 稀疏矩阵
+     * @return 转置后的稀疏矩阵
+     */
+    static SparseMatrix transpose(SparseMatrix a) {
+        int rows = a.getRows(), cols = a.getCols();
+        int[] rowPtr = a.getRowPtr(), colIdx = a.getColIdx();
+        double[] values = a.getValues();
+
+        int[] tPtr = new int[cols + 1];
+        for (int p = 0; p < values.length; p++) tPtr[colIdx[p] + 1]++;
+        for (int j = 0; j < cols; j++) tPtr[j + 1] += tPtr[j];
+
+        int[] next = Arrays.copyOf(tPtr, cols);
+        int[] tIdx = new int[values.length];
+        double[] tVal = new double[values.length];
+        // 按行顺序填充，每个新行内的列号（原行号）自然递增
+        for (int i = 0; i < rows; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                int q = next[colIdx[p]]++;
+                tIdx[q] = i;
+                tVal[q] = values[p];
+            }
+        }
+        return new SparseMatrix(cols, rows, tPtr, tIdx, tVal);
+    }
+
+    /**
+     * 迹
+     * @param a 稀疏方阵
+     * @return 主对角线元素之和
+     */
+    static double trace(SparseMatrix a) {
+        double sum = 0;
+        for (int i = 0; i < a.getRows(); i++) {
+            sum += a.get(i, i);
+        }
+        return sum;
+    }
+
+    /**
+     * 稀疏矩阵 × 向量 y = A·x
+     * @param a 稀疏矩阵（rows×cols）
+     * @param x 长度为 cols 的向量
+     * @param y 长度为 rows 的输出
+     */
+    static void multiplyVector(SparseMatrix a, double[] x, double[] y) {
+        int[] rowPtr = a.getRowPtr(), colIdx = a.getColIdx();
+        double[] values = a.getValues();
+        for (int i = 0; i < a.getRows(); i++) {
+            double sum = 0;
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                sum += values[p] * x[colIdx[p]];
+            }
+            y[i] = sum;
+        }
+    }
+
+    /**
+     * 稀疏矩阵 × 稠密矩阵
+     * @param a 稀疏矩阵（m×n）
+     * @param b 行主序稠密矩阵（n×k）
+     * @param k b 的列数
+     * @return 行主序 m×k 结果
+     */
+    static double[] multiplyDense(SparseMatrix a, double[] b, int k) {
+        int m = a.getRows();
+        double[] c = new double[m * k];
+        if (k == 1) {
+            multiplyVector(a, b, c);
+            return c;
+        }
+        int[] rowPtr = a.getRowPtr(), colIdx = a.getColIdx();
+        double[] values = a.getValues();
+        for (int i = 0; i < m; i++) {
+            int cOff = i * k;
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                double v = values[p];
+                int bOff = colIdx[p] * k;
+                for (int j = 0; j < k; j++) {
+                    c[cOff + j] += v * b[bOff + j];
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * 稠密矩阵 × 稀疏矩阵
+     * @param a 行主序稠密矩阵（m×n）
+     * @param m a 的行数
+     * @param b 稀疏矩阵（n×k）
+     * @return 行主序 m×k 结果
+     */
+    static double[] denseMultiply(double[] a, int m, SparseMatrix b) {
+        int n = b.getRows(), k = b.getCols();
+        int[] rowPtr = b.getRowPtr(), colIdx = b.getColIdx();
+        double[] values = b.getValues();
+        double[] c = new double[m * k];
+        for (int i = 0; i < m; i++) {
+            int aOff = i * n, cOff = i * k;
+            for (int t = 0; t < n; t++) {
+                double at = a[aOff + t];
+                if (at == 0) continue;
+                for (int p = rowPtr[t]; p < rowPtr[t + 1]; p++) {
+                    c[cOff + colIdx[p]] += at * values[p];
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * 稀疏矩阵 × 稀疏矩阵（Gustavson 算法，按行累加到稠密工作行）
+     * @param a 稀疏矩阵（m×n）
+     * @param b 稀疏矩阵（n×k）
+     * @return 稀疏结果（m×k）
+     */
+    static SparseMatrix multiply(SparseMatrix a, SparseMatrix b) {
+        int m = a.getRows(), k = b.getCols();
+        int[] aPtr = a.getRowPtr(), aIdx = a.getColIdx();
+        double[] aVal = a.getValues();
+        int[] bPtr = b.getRowPtr(), bIdx = b.getColIdx();
+        double[] bVal = b.getValues();
+
+        double[] work = new double[k];
+        int[] marker = new int[k];
+        Arrays.fill(marker, -1);
+        int[] rowCols = new int[k];
+
+        int[] cPtr = new int[m + 1];
+        int[] cIdx = new int[Math.max(16, aVal.length + bVal.length)];
+        double[] cVal = new double[cIdx.length];
+        int nnz = 0;
+        for (int i = 0; i < m; i++) {
+            int count = 0;
+            for (int p = aPtr[i]; p < aPtr[i + 1]; p++) {
+                double av = aVal[p];
+                int t = aIdx[p];
+                for (int q = bPtr[t]; q < bPtr[t + 1]; q++) {
+                    int j = bIdx[q];
+                    if (marker[j] != i) {
+                        marker[j] = i;
+                        work[j] = 0;
+                        rowCols[count++] = j;
+                    }
+                    work[j] += av * bVal[q];
+                }
+            }
+            Arrays.sort(rowCols, 0, count);
+            if (nnz + count > cIdx.length) {
+                int cap = Math.max(cIdx.length * 2, nnz + count);
+                cIdx = Arrays.copyOf(cIdx, cap);
+                cVal = Arrays.copyOf(cVal, cap);
+            }
+            for (int t = 0; t < count; t++) {
+                int j = rowCols[t];
+                if (work[j] != 0) {
+                    cIdx[nnz] = j;
+                    cVal[nnz++] = work[j];
+                }
+            }
+            cPtr[i + 1] = nnz;
+        }
+        return new SparseMatrix(m, k, cPtr, Arrays.copyOf(cIdx, nnz), Arrays.copyOf(cVal, nnz));
+    }
+}
@@ -0,0 +1,597 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.StructuredMatrix;
+import cn.czyx007.expression_parser.ast.StructuredMatrix.Kind;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.List;
+
+/**
+ * 结构化矩阵（对角、三角、三对角）运算工具类<br/>
+ * 稠密方阵在 det、inv、solve、matmul、^ 中先检测结构（结果缓存在 Value 上），
+ * 命中时使用专用算法：对角 O(n) 求逆与求解、三角 O(n²) 代入、三对角 O(n) 选主元追赶法；运算结果结构不变时仍以紧凑形式存储
+ */
+final class StructuredMathUtils {
+    // Value 派生数据缓存键：检测到的结构，一般矩阵缓存 GENERAL 标记
+    private static final String CACHE_STRUCTURE = "matrix.structure";
+    private static final Object GENERAL = new Object();
+
+    // ========== 结构检测 ==========
+
+    /**
+     * 获取矩阵的结构：结构化存储直接返回，稠密方阵扫描一次并缓存检测结果
+     * @param value 矩阵
+     * @param funcName 函数名称（用于错误信息）
+     * @return 结构化矩阵，一般矩阵（或非方阵、稀疏矩阵）返回 null
+     * @throws ExpressionException 如果不是有效的矩阵
+     */
+    static StructuredMatrix structureOf(Value value, String funcName) {
+        if (value.isStructured()) {
+            return value.getStructured();
+        }
+        if (value.isSparse() || value.isHandle()) {
+            return null;
+        }
+        Object cached = value.getCached(CACHE_STRUCTURE);
+        if (cached == null) {
+            StructuredMatrix detected = detect(MatrixMathUtils.toDenseMatrix(value, funcName));
+            cached = detected == null ? GENERAL : detected;
+            value.putCached(CACHE_STRUCTURE, cached);
+        }
+        return cached == GENERAL ? null : (StructuredMatrix) cached;
+    }
+
+    /**
+     * 扫描稠密方阵的零元素分布（一般矩阵通常在第二行就能确定）<br/>
+     * 同时满足多种结构时选择最专用的：对角优先，其次三角（求逆、相乘结果仍为三角矩阵），再次三对角
+     * @param d 二维稠密数组（可以是视图）
+     * @return 结构化矩阵，一般矩阵返回 null
+     */
+    private static StructuredMatrix detect(DenseArray d) {
+        int n = d.getDim(0);
+        if (n < 2 || n != d.getDim(1)) {
+            return null;
+        }
+        boolean lower = true, upper = true, tri = true;
+        for (int i = 0; i < n && (lower || upper || tri); i++) {
+            for (int j = 0; j < n; j++) {
+                if (j == i || d.get(i, j) == 0) continue;
+                if (j > i) lower = false; else upper = false;
+                if (j > i + 1 || j < i - 1) tri = false;
+            }
+        }
+        Kind kind;
+        if (lower && upper) {
+            kind = Kind.DIAGONAL;
+        } else if (lower) {
+            kind = Kind.LOWER;
+        } else if (upper) {
+            kind = Kind.UPPER;
+        } else if (tri) {
+            kind = Kind.TRIDIAGONAL;
+        } else {
+            return null;
+        }
+        return StructuredMatrix.fromDense(kind, d.getData(), n);
+    }
+
+    // ========== 构造函数 ==========
+
+    /**
+     * diag(v) / diag(d1, d2, ...)：以向量为对角线构造对角矩阵；diag(A)：取矩阵的主对角线
+     * @param args 参数列表
+     * @return 对角矩阵或对角线向量
+     * @throws ExpressionException 如果参数不是向量、矩阵或标量
+     */
+    static Value diag(List<Value> args) {
+        FunctionRegistry.validateMinArgs("diag", args.size(), 1);
+        double[] d;
+        if (args.size() == 1 && args.get(0).isArray()) {
+            Value a = args.get(0);
+            if (isVector(a)) {
+                d = a.flattenToDoubleArray();
+            } else {
+                StructuredMatrix s = a.getStructured();
+                DenseArray m = s == null ? MatrixMathUtils.toDenseMatrix(a, "diag") : null;
+                int len = s != null ? s.getOrder() : Math.min(m.getDim(0), m.getDim(1));
+                double[] result = new double[len];
+                for (int i = 0; i < len; i++) {
+                    result[i] = s != null ? s.get(i, i) : m.get(i, i);
+                }
+                return new Value(new DenseArray(result, len));
+            }
+        } else {
+            d = new double[args.size()];
+            for (int i = 0; i < d.length; i++) {
+                d[i] = args.get(i).asScalar();
+            }
+        }
+        if (d.length == 0) {
+            throw new ExpressionException(ErrorCode.MATRIX_EMPTY, "diag");
+        }
+        return new Value(new StructuredMatrix(Kind.DIAGONAL, d.length, d));
+    }
+
+    /**
+     * tril(A) / triu(A)：取方阵的下三角或上三角部分（含主对角线）
+     * @param matrix 方阵
+     * @param kind LOWER 或 UPPER
+     * @param funcName 函数名称（用于错误信息）
+     * @return 三角矩阵
+     * @throws ExpressionException 如果不是方阵
+     */
+    static Value triangular(Value matrix, Kind kind, String funcName) {
+        DenseArray a = MatrixMathUtils.toDenseMatrix(matrix, funcName);
+        int n = a.getDim(0);
+        if (n != a.getDim(1)) {
+            throw new ExpressionException(ErrorCode.MATRIX_SQUARE_REQUIRED, funcName);
+        }
+        return new Value(StructuredMatrix.fromDense(kind, a.getData(), n));
+    }
+
+    /**
+     * tridiag(sub, main, super)：由三条对角线构造三对角矩阵；tridiag(A)：取方阵的三对角部分
+     * @param args 参数列表
+     * @return 三对角矩阵
+     * @throws ExpressionException 如果对角线长度不匹配或不是方阵
+     */
+    static Value tridiag(List<Value> args) {
+        if (args.size() == 1) {
+            return triangular(args.get(0), Kind.TRIDIAGONAL, "tridiag");
+        }
+        FunctionRegistry.validateArgCount("tridiag", args.size(), 3);
+        double[] sub = args.get(0).flattenToDoubleArray();
+        double[] main = args.get(1).flattenToDoubleArray();
+        double[] sup = args.get(2).flattenToDoubleArray();
+        int n = main.length;
+        if (sub.length != n - 1 || sup.length != n - 1) {
+            throw new ExpressionException(ErrorCode.TRIDIAG_LENGTH_MISMATCH, n - 1, n);
+        }
+        double[] data = new double[3 * n - 2];
+        System.arraycopy(sub, 0, data, 0, n - 1);
+        System.arraycopy(main, 0, data, n - 1, n);
+        System.arraycopy(sup, 0, data, 2 * n - 1, n - 1);
+        return new Value(new StructuredMatrix(Kind.TRIDIAGONAL, n, data));
+    }
+
+    private static boolean isVector(Value value) {
+        if (value.getDense() != null) {
+            return value.getDense().getRank() == 1;
+        }
+        if (value.isSparse() || value.isStructured()) {
+            return false;
+        }
+        List<Value> list = value.asArray();
+        return !list.isEmpty() && list.get(0).isScalar();
+    }
+
+    // ========== 行列式、求逆、求解 ==========
+
+    /**
+     * 行列式：对角、三角矩阵为对角线之积，三对角矩阵用连分式递推 O(n)
+     * @param a 结构化矩阵
+     * @return 行列式的值
+     */
+    static double determinant(StructuredMatrix a) {
+        int n = a.getOrder();
+        if (a.getKind() == Kind.TRIDIAGONAL) {
+            double[] t = a.getData();
+            // f(i) = b(i)·f(i-1) - a(i-1)·c(i-1)·f(i-2)
+            double prev = 1.0, cur = t[n - 1];
+            for (int i = 1; i < n; i++) {
+                double next = t[n - 1 + i] * cur - t[i - 1] * t[2 * n - 2 + i] * prev;
+                prev = cur;
+                cur = next;
+            }
+            return cur;
+        }
+        double det = 1.0;
+        for (int i = 0; i < n; i++) {
+            det *= a.get(i, i);
+        }
+        return det;
+    }
+
+    /**
+     * 求逆：对角矩阵 O(n)，三角矩阵逐列代入且结果仍为同类三角矩阵，三对角矩阵对单位矩阵求解 O(n²)
+     * @param a 结构化矩阵
+     * @return 逆矩阵
+     * @throws ExpressionException 如果矩阵不可逆
+     */
+    static Value inverse(StructuredMatrix a) {
+        int n = a.getOrder();
+        if (a.getKind() == Kind.TRIDIAGONAL) {
+            double[] identity = new double[n * n];
+            for (int i = 0; i < n; i++) identity[i * n + i] = 1.0;
+            return new Value(new DenseArray(solveTridiagonal(a.getData(), n, identity, n), n, n));
+        }
+        checkDiagonal(a);
+        double[] t = a.getData();
+        double[] r = new double[t.length];
+        switch (a.getKind()) {
+            case DIAGONAL:
+                for (int i = 0; i < n; i++) r[i] = 1.0 / t[i];
+                break;
+            case LOWER:
+                // X(i,j) = -Σ_{j≤s<i} L(i,s)·X(s,j) / L(i,i)
+                for (int i = 0; i < n; i++) {
+                    int li = i * (i + 1) / 2;
+                    double inv = 1.0 / t[li + i];
+                    r[li + i] = inv;
+                    for (int j = 0; j < i; j++) {
+                        double sum = 0;
+                        for (int s = j; s < i; s++) {
+                            sum += t[li + s] * r[s * (s + 1) / 2 + j];
+                        }
+                        r[li + j] = -sum * inv;
+                    }
+                }
+                break;
+            default:
+                // X(i,j) = -Σ_{i<s≤j} U(i,s)·X(s,j) / U(i,i)，自下而上
+                for (int i = n - 1; i >= 0; i--) {
+                    int ui = a.upperRowStart(i);
+                    double inv = 1.0 / t[ui];
+                    r[ui] = inv;
+                    for (int j = i + 1; j < n; j++) {
+                        double sum = 0;
+                        for (int s = i + 1; s <= j; s++) {
+                            sum += t[ui + s - i] * r[a.upperRowStart(s) + j - s];
+                        }
+                        r[ui + j - i] = -sum * inv;
+                    }
+                }
+        }
+        return new Value(new StructuredMatrix(a.getKind(), n, r));
+    }
+
+    /**
+     * 解 AX = B：对角 O(nk)，三角前向/回代 O(n²k)，三对角 O(nk)
+     * @param a 结构化矩阵
+     * @param b 行主序 n×k 右侧矩阵
+     * @param k 右侧列数
+     * @return 行主序 n×k 解
+     * @throws ExpressionException 如果矩阵不可逆
+     */
+    static double[] solve(StructuredMatrix a, double[] b, int k) {
+        int n = a.getOrder();
+        if (a.getKind() == Kind.TRIDIAGONAL) {
+            return solveTridiagonal(a.getData(), n, b, k);
+        }
+        checkDiagonal(a);
+        double[] t = a.getData();
+        double[] x = b.clone();
+        switch (a.getKind()) {
+            case DIAGONAL:
+                for (int i = 0; i < n; i++) {
+                    double inv = 1.0 / t[i];
+                    for (int j = i * k; j < (i + 1) * k; j++) x[j] *= inv;
+                }
+                break;
+            case LOWER:
+                for (int i = 0; i < n; i++) {
+                    int li = i * (i + 1) / 2, xi = i * k;
+                    for (int s = 0; s < i; s++) {
+                        axpy(-t[li + s], x, s * k, x, xi, k);
+                    }
+                    double inv = 1.0 / t[li + i];
+                    for (int j = xi; j < xi + k; j++) x[j] *= inv;
+                }
+                break;
+            default:
+                for (int i = n - 1; i >= 0; i--) {
+                    int ui = a.upperRowStart(i), xi = i * k;
+                    for (int s = i + 1; s < n; s++) {
+                        axpy(-t[ui + s - i], x, s * k, x, xi, k);
+                    }
+                    double inv = 1.0 / t[ui];
+                    for (int j = xi; j < xi + k; j++) x[j] *= inv;
+                }
+        }
+        return x;
+    }
+
+    /**
+     * 三对角方程组的部分主元消元（追赶法加相邻行交换，同 LAPACK gtsv），k 个右侧列同时处理<br/>
+     * 行交换会在第二条上次对角线产生填充，仍为 O(nk)；不选主元的 Thomas 算法对非对角占优矩阵不稳定
+     * @param t 三对角紧凑数据
+     * @param n 阶数
+     * @param b 行主序 n×k 右侧矩阵
+     * @param k 右侧列数
+     * @return 行主序 n×k 解
+     * @throws ExpressionException 如果矩阵不可逆
+     */
+    private static double[] solveTridiagonal(double[] t, int n, double[] b, int k) {
+        double[] dl = new double[Math.max(n - 1, 0)];
+        double[] d = new double[n];
+        double[] du = new double[Math.max(n - 1, 0)];
+        double[] du2 = new double[Math.max(n - 2, 0)];
+        System.arraycopy(t, 0, dl, 0, n - 1);
+        System.arraycopy(t, n - 1, d, 0, n);
+        System.arraycopy(t, 2 * n - 1, du, 0, n - 1);
+        double[] x = b.clone();
+
+        for (int i = 0; i < n - 1; i++) {
+            int xi = i * k, xn = xi + k;
+            if (Math.abs(d[i]) >= Math.abs(dl[i])) {
+                // 无需交换：消去第 i+1 行的下次对角元素
+                checkPivot(d[i]);
+                double f = dl[i] / d[i];
+                d[i + 1] -= f * du[i];
+                axpy(-f, x, xi, x, xn, k);
+            } else {
+                // 交换第 i、i+1 行后消元，第 i 行产生第二条上次对角线元素
+                double f = d[i] / dl[i];
+                d[i] = dl[i];
+                double tmp = d[i + 1];
+                d[i + 1] = du[i] - f * tmp;
+                if (i < n - 2) {
+                    du2[i] = du[i + 1];
+                    du[i + 1] = -f * du2[i];
+                }
+                du[i] = tmp;
+                for (int j = 0; j < k; j++) {
+                    double bi = x[xi + j];
+                    x[xi + j] = x[xn + j];
+                    x[xn + j] = bi - f * x[xn + j];
+                }
+            }
+        }
+        checkPivot(d[n - 1]);
+
+        // 回代：U 含主对角线、上次对角线和第二条上次对角线
+        for (int i = n - 1; i >= 0; i--) {
+            int xi = i * k;
+            if (i < n - 1) axpy(-du[i], x, xi + k, x, xi, k);
+            if (i < n - 2) axpy(-du2[i], x, xi + 2 * k, x, xi, k);
+            double inv = 1.0 / d[i];
+            for (int j = xi; j < xi + k; j++) x[j] *= inv;
+        }
+        return x;
+    }
+
+    private static void checkPivot(double pivot) {
+        if (Math.abs(pivot) < LUDecomposition.SINGULAR_EPS) {
+            throw new ExpressionException(ErrorCode.MATRIX_SINGULAR);
+        }
+    }
+
+    /**
+     * 对角、三角矩阵的对角线元素不能为 0
+     * @param a 结构化矩阵
+     * @throws ExpressionException 如果矩阵奇异
+     */
+    private static void checkDiagonal(StructuredMatrix a) {
+        for (int i = 0; i < a.getOrder(); i++) {
+            if (Math.abs(a.get(i, i)) < LUDecomposition.SINGULAR_EPS) {
+                throw new ExpressionException(ErrorCode.MATRIX_SINGULAR);
+            }
+        }
+    }
+
+    /**
+     * y[yOff..yOff+k) += alpha·x[xOff..xOff+k)
+     */
+    private static void axpy(double alpha, double[] x, int xOff, double[] y, int yOff, int k) {
+        for (int j = 0; j < k; j++) {
+            y[yOff + j] += alpha * x[xOff + j];
+        }
+    }
+
+    // ========== 乘法、转置、幂 ==========
+
+    /**
+     * 矩阵乘法的结构化内核：对角矩阵按行/列缩放，同类三角矩阵相乘仍为三角矩阵，三对角 × 稠密 O(nk)
+     * @param a 左矩阵
+     * @param b 右矩阵
+     * @return 乘积；两侧均无可用的结构化内核时返回 null
+     * @throws ExpressionException 如果维度不匹配
+     */
+    static Value multiply(Value a, Value b) {
+        StructuredMatrix sa = structureOf(a, "matmul"), sb = structureOf(b, "matmul");
+        if (sa == null && sb == null) {
+            return null;
+        }
+        if (sa != null && sb != null) {
+            MatrixMathUtils.checkMatMulDims(sa.getOrder(), sb.getOrder());
+            if (sa.getKind() == Kind.DIAGONAL) {
+                return new Value(scale(sb, sa.getData(), true));
+            }
+            if (sb.getKind() == Kind.DIAGONAL) {
+                return new Value(scale(sa, sb.getData(), false));
+            }
+            if (sa.getKind() == sb.getKind() && sa.getKind() != Kind.TRIDIAGONAL) {
+                return new Value(multiplyTriangular(sa, sb));
+            }
+        }
+        if (sa != null && sb == null) {
+            DenseArray d = MatrixMathUtils.toDenseMatrix(b, "matmul");
+            int n = sa.getOrder(), k = d.getDim(1);
+            MatrixMathUtils.checkMatMulDims(n, d.getDim(0));
+            if (sa.getKind() == Kind.DIAGONAL) {
+                double[] c = d.getData().clone();
+                for (int i = 0; i < n; i++) {
+                    double s = sa.getData()[i];
+                    for (int j = i * k; j < (i + 1) * k; j++) c[j] *= s;
+                }
+                return new Value(new DenseArray(c, n, k));
+            }
+            if (sa.getKind() == Kind.TRIDIAGONAL) {
+                return new Value(new DenseArray(multiplyTridiagonal(sa.getData(), n, d.getData(), k), n, k));
+            }
+        }
+        if (sb != null && sa == null && sb.getKind() == Kind.DIAGONAL) {
+            DenseArray d = MatrixMathUtils.toDenseMatrix(a, "matmul");
+            int m = d.getDim(0), n = sb.getOrder();
+            MatrixMathUtils.checkMatMulDims(d.getDim(1), n);
+            double[] c = d.getData().clone();
+            double[] s = sb.getData();
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) c[i * n + j] *= s[j];
+            }
+            return new Value(new DenseArray(c, m, n));
+        }
+        return null;
+    }
+
+    /**
+     * 结构化矩阵左乘（按行）或右乘（按列）对角矩阵，结构不变
+     * @param a 结构化矩阵
+     * @param d 对角线元素
+     * @param rows true 为 diag(d)·A（缩放行），false 为 A·diag(d)（缩放列）
+     * @return 缩放后的矩阵
+     */
+    private static StructuredMatrix scale(StructuredMatrix a, double[] d, boolean rows) {
+        int n = a.getOrder();
+        double[] t = a.getData();
+        double[] r = new double[t.length];
+        switch (a.getKind()) {
+            case DIAGONAL:
+                for (int i = 0; i < n; i++) r[i] = t[i] * d[i];
+                break;
+            case LOWER:
+                for (int i = 0, p = 0; i < n; i++) {
+                    for (int j = 0; j <= i; j++, p++) r[p] = t[p] * (rows ? d[i] : d[j]);
+                }
+                break;
+            case UPPER:
+                for (int i = 0, p = 0; i < n; i++) {
+                    for (int j = i; j < n; j++, p++) r[p] = t[p] * (rows ? d[i] : d[j]);
+                }
+                break;
+            default:
+                for (int i = 0; i < n - 1; i++) {
+                    r[i] = t[i] * (rows ? d[i + 1] : d[i]);                           // a(i+1,i)
+                    r[2 * n - 1 + i] = t[2 * n - 1 + i] * (rows ? d[i] : d[i + 1]);   // a(i,i+1)
+                }
+                for (int i = 0; i < n; i++) r[n - 1 + i] = t[n - 1 + i] * d[i];
+        }
+        return new StructuredMatrix(a.getKind(), n, r);
+    }
+
+    /**
+     * 同类三角矩阵相乘，在打包存储上按行累加，约 n³/6 次乘加
+     * @param a 左三角矩阵
+     * @param b 右三角矩阵（与 a 同类）
+     * @return 三角矩阵乘积
+     */
+    private static StructuredMatrix multiplyTriangular(StructuredMatrix a, StructuredMatrix b) {
+        int n = a.getOrder();
+        double[] x = a.getData(), y = b.getData();
+        double[] c = new double[x.length];
+        if (a.getKind() == Kind.LOWER) {
+            // C(i,0..s) += A(i,s)·B(s,0..s)
+            for (int i = 0; i < n; i++) {
+                int ci = i * (i + 1) / 2;
+                for (int s = 0; s <= i; s++) {
+                    axpy(x[ci + s], y, s * (s + 1) / 2, c, ci, s + 1);
+                }
+            }
+        } else {
+            // C(i,s..n-1) += A(i,s)·B(s,s..n-1)
+            for (int i = 0; i < n; i++) {
+                int ci = a.upperRowStart(i);
+                for (int s = i; s < n; s++) {
+                    axpy(x[ci + s - i], y, b.upperRowStart(s), c, ci + s - i, n - s);
+                }
+            }
+        }
+        return new StructuredMatrix(a.getKind(), n, c);
+    }
+
+    /**
+     * 三对角矩阵 × 稠密矩阵
+     * @param t 三对角紧凑数据
+     * @param n 阶数
+     * @param b 行主序 n×k 矩阵
+     * @param k b 的列数
+     * @return 行主序 n×k 乘积
+     */
+    private static double[] multiplyTridiagonal(double[] t, int n, double[] b, int k) {
+        double[] c = new double[n * k];
+        for (int i = 0; i < n; i++) {
+            int ci = i * k;
+            if (i > 0) axpy(t[i - 1], b, ci - k, c, ci, k);
+            axpy(t[n - 1 + i], b, ci, c, ci, k);
+            if (i < n - 1) axpy(t[2 * n - 1 + i], b, ci + k, c, ci, k);
+        }
+        return c;
+    }
+
+    /**
+     * 转置：对角矩阵不变，上下三角互换，三对角矩阵交换上下次对角线
+     * @param a 结构化矩阵
+     * @return 转置后的矩阵
+     */
+    static StructuredMatrix transpose(StructuredMatrix a) {
+        int n = a.getOrder();
+        double[] t = a.getData();
+        switch (a.getKind()) {
+            case DIAGONAL:
+                return a;
+            case TRIDIAGONAL: {
+                double[] r = t.clone();
+                System.arraycopy(t, 2 * n - 1, r, 0, n - 1);
+                System.arraycopy(t, 0, r, 2 * n - 1, n - 1);
+                return new StructuredMatrix(Kind.TRIDIAGONAL, n, r);
+            }
+            case LOWER: {
+                // Lᵀ(i,j) = L(j,i)，j ≥ i
+                double[] r = new double[t.length];
+                for (int i = 0, p = 0; i < n; i++) {
+                    for (int j = i; j < n; j++) r[p++] = t[j * (j + 1) / 2 + i];
+                }
+                return new StructuredMatrix(Kind.UPPER, n, r);
+            }
+            default: {
+                double[] r = new double[t.length];
+                for (int i = 0, p = 0; i < n; i++) {
+                    for (int j = 0; j <= i; j++) r[p++] = t[a.upperRowStart(j) + i - j];
+                }
+                return new StructuredMatrix(Kind.LOWER, n, r);
+            }
+        }
+    }
+
+    /**
+     * 对角、三角矩阵的整数次幂（平方求幂，结果结构不变；负指数先求逆）
+     * @param a 对角或三角矩阵
+     * @param e 指数
+     * @return 矩阵幂
+     * @throws ExpressionException 如果负指数时矩阵不可逆
+     */
+    static StructuredMatrix power(StructuredMatrix a, long e) {
+        StructuredMatrix base = a;
+        if (e < 0) {
+            base = inverse(a).getStructured();
+            e = -e;
+        }
+        StructuredMatrix result = null;
+        while (e > 0) {
+            if ((e & 1) != 0) {
+                result = result == null ? base : multiplySame(result, base);
+            }
+            e >>= 1;
+            if (e > 0) {
+                base = multiplySame(base, base);
+            }
+        }
+        if (result == null) {
+            int n = a.getOrder();
+            double[] identity = new double[StructuredMatrix.storageSize(a.getKind(), n)];
+            for (int i = 0; i < n; i++) {
+                identity[a.getKind() == Kind.DIAGONAL ? i
+                    : a.getKind() == Kind.LOWER ? i * (i + 1) / 2 + i : a.upperRowStart(i)] = 1.0;
+            }
+            result = new StructuredMatrix(a.getKind(), n, identity);
+        }
+        return result;
+    }
+
+    private static StructuredMatrix multiplySame(StructuredMatrix a, StructuredMatrix b) {
+        return a.getKind() == Kind.DIAGONAL ? scale(b, a.getData(), true) : multiplyTriangular(a, b);
+    }
+}
@@ -0,0 +1,355 @@
+package cn.czyx007.expression_parser.utils;
+
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
+import cn.czyx007.expression_parser.exception.ExpressionException;
+
+import java.util.List;
+
+/**
+ * 滑动窗口与累积函数：movsum、movavg、movstd、movmin、movmax、cumsum、cumprod、ema<br/>
+ * 向量（一维数组、行向量或列向量）按其方向计算，结果保持原来的形状；m×n 矩阵（m、n 均大于 1）对每一列分别计算<br/>
+ * 滑动窗口为长度 w 的尾随窗口，只输出完整窗口，结果长度为 n − w + 1；每个结果由上一个结果 O(1) 更新，整体单遍 O(n)：
+ * 和与均值使用补偿的滑动和，标准差使用 Welford 的增删更新，最小/最大值使用单调双端队列<br/>
+ * cumsum 在长数据上按块并行做前缀和（块内扫描、块总和扫描、块偏移回填三步）
+ */
+final class WindowFunctions {
+
+    /**
+     * 对一条数据（一个向量或矩阵的一列）计算结果
+     */
+    private interface LaneKernel {
+        /**
+         * @param in 输入（不修改）
+         * @param len 输入长度
+         * @param out 输出
+         */
+        void apply(double[] in, int len, double[] out);
+    }
+
+    /**
+     * 由窗口大小构造内核
+     */
+    private interface WindowKernel {
+        LaneKernel of(int w);
+    }
+
+    private WindowFunctions() {
+    }
+
+    /**
+     * movsum(x, w)
+     */
+    static Value movsum(List<Value> args) {
+        return window(args, "movsum", w -> (in, len, out) -> slidingSum(in, len, w, out, 1.0));
+    }
+
+    /**
+     * movavg(x, w)
+     */
+    static Value movavg(List<Value> args) {
+        return window(args, "movavg", w -> (in, len, out) -> slidingSum(in, len, w, out, 1.0 / w));
+    }
+
+    /**
+     * movstd(x, w)：样本标准差，w 至少为 2
+     */
+    static Value movstd(List<Value> args) {
+        return window(args, "movstd", w -> {
+            if (w < 2) {
+                throw new ExpressionException(ErrorCode.VARIANCE_MIN_ARGS);
+            }
+            return (in, len, out) -> slidingStd(in, len, w, out);
+        });
+    }
+
+    /**
+     * movmin(x, w)
+     */
+    static Value movmin(List<Value> args) {
+        return window(args, "movmin", w -> (in, len, out) -> slidingExtreme(in, len, w, out, false));
+    }
+
+    /**
+     * movmax(x, w)
+     */
+    static Value movmax(List<Value> args) {
+        return window(args, "movmax", w -> (in, len, out) -> slidingExtreme(in, len, w, out, true));
+    }
+
+    /**
+     * cumsum(x)：前缀和
+     */
+    static Value cumsum(List<Value> args) {
+        FunctionRegistry.validateArgCount("cumsum", args.size(), 1);
+        return map(args.get(0), "cumsum", 1, WindowFunctions::prefixSum);
+    }
+
+    /**
+     * cumprod(x)：前缀积
+     */
+    static Value cumprod(List<Value> args) {
+        FunctionRegistry.validateArgCount("cumprod", args.size(), 1);
+        return map(args.get(0), "cumprod", 1, (in, len, out) -> {
+            double p = 1;
+            for (int i = 0; i < len; i++) {
+                p *= in[i];
+                out[i] = p;
+            }
+        });
+    }
+
+    /**
+     * ema(x, alpha)：指数移动平均，y₀ = x₀，yᵢ = α·xᵢ + (1 − α)·yᵢ₋₁
+     */
+    static Value ema(List<Value> args) {
+        FunctionRegistry.validateArgCount("ema", args.size(), 2);
+        double alpha = args.get(1).asScalar();
+        if (!(alpha > 0 && alpha <= 1)) {
+            throw new ExpressionException(ErrorCode.EMA_ALPHA_RANGE, alpha);
+        }
+        return map(args.get(0), "ema", 1, (in, len, out) -> {
+            double y = in[0];
+            out[0] = y;
+            for (int i = 1; i < len; i++) {
+                y += alpha * (in[i] - y);
+                out[i] = y;
+            }
+        });
+    }
+
+    private static Value window(List<Value> args, String funcName, WindowKernel kernel) {
+        FunctionRegistry.validateArgCount(funcName, args.size(), 2);
+        double w = args.get(1).asScalar();
+        if (w != Math.rint(w) || w < 1 || w > Integer.MAX_VALUE) {
+            throw new ExpressionException(ErrorCode.WINDOW_SIZE_INVALID, funcName, w);
+        }
+        return map(args.get(0), funcName, (int) w, kernel.of((int) w));
+    }
+
+    /**
+     * 按向量方向或矩阵的列应用内核
+     * @param x 输入数组
+     * @param funcName 函数名
+     * @param w 窗口大小（累积函数为 1），结果长度为 len − w + 1
+     * @param kernel 内核
+     * @return 与输入方向相同的结果
+     */
+    private static Value map(Value x, String funcName, int w, LaneKernel kernel) {
+        if (!x.isArray()) {
+            throw new ExpressionException(ErrorCode.MATRIX_REQUIRED, funcName);
+        }
+        DenseArray d = MatrixMathUtils.toDenseArray(x, funcName);
+        if (d.getRank() > 2) {
+            throw new ExpressionException(ErrorCode.MATRIX_ELEMENT_NOT_SCALAR, funcName);
+        }
+        boolean alongRow = d.getRank() == 1 || d.getDim(0) == 1;
+        int len = alongRow ? d.size() : d.getDim(0);
+        int lanes = alongRow ? 1 : d.getDim(1);
+        if (w > len) {
+            throw new ExpressionException(ErrorCode.WINDOW_SIZE_INVALID, funcName, w);
+        }
+        int outLen = len - w + 1;
+        double[] data = d.getData();
+        double[] r = new double[lanes * outLen];
+        if (lanes == 1) {
+            kernel.apply(data, len, r);
+        } else {
+            double[] in = new double[len], out = new double[outLen];
+            for (int j = 0; j < lanes; j++) {
+                for (int i = 0; i < len; i++) {
+                    in[i] = data[i * lanes + j];
+                }
+                kernel.apply(in, len, out);
+                for (int i = 0; i < outLen; i++) {
+                    r[i * lanes + j] = out[i];
+                }
+            }
+        }
+        if (d.getRank() == 1) {
+            return new Value(new DenseArray(r, outLen));
+        }
+        return new Value(alongRow ? new DenseArray(r, 1, outLen) : new DenseArray(r, outLen, lanes));
+    }
+
+    /**
+     * 滑动和（乘以 scale）：TwoSum 补偿的加入/移出，避免长序列上的误差累积<br/>
+     * NaN 与 ±Infinity 不进入累加器，只按种类计数：窗口内有非有限值时输出 IEEE 求和的结果，
+     * 计数回到 0 时由当前窗口重新累加，避免 Inf − Inf 使之后的窗口都变成 NaN
+     */
+    private static void slidingSum(double[] in, int len, int w, double[] out, double scale) {
+        double[] acc = new double[2];
+        int[] special = new int[3];
+        for (int i = 0; i < len; i++) {
+            double v = in[i];
+            if (Double.isFinite(v)) {
+                if (nonFinite(special) == 0) {
+                    twoSum(acc, v);
+                }
+            } else {
+                special[kind(v)]++;
+            }
+            if (i >= w) {
+                v = in[i - w];
+                if (Double.isFinite(v)) {
+                    if (nonFinite(special) == 0) {
+                        twoSum(acc, -v);
+                    }
+                } else if (--special[kind(v)] == 0 && nonFinite(special) == 0) {
+                    acc[0] = acc[1] = 0;
+                    for (int j = i - w + 1; j <= i; j++) {
+                        twoSum(acc, in[j]);
+                    }
+                }
+            }
+            if (i >= w - 1) {
+                out[i - w + 1] = (nonFinite(special) > 0 ? ieeeSum(special) : acc[0] + acc[1]) * scale;
+            }
+        }
+    }
+
+    /**
+     * TwoSum 补偿累加：acc[0] 为和，acc[1] 为累计的舍入误差
+     */
+    private static void twoSum(double[] acc, double v) {
+        double s = acc[0];
+        double t = s + v;
+        double bp = t - s;
+        acc[1] += (s - (t - bp)) + (v - bp);
+        acc[0] = t;
+    }
+
+    /**
+     * 非有限值的种类：0 为 NaN，1 为 +Infinity，2 为 −Infinity
+     */
+    private static int kind(double v) {
+        return Double.isNaN(v) ? 0 : v > 0 ? 1 : 2;
+    }
+
+    private static int nonFinite(int[] special) {
+        return special[0] + special[1] + special[2];
+    }
+
+    /**
+     * 含非有限值的窗口按 IEEE 求和的结果：有 NaN 或正负无穷同时出现为 NaN，否则为对应符号的无穷
+     */
+    private static double ieeeSum(int[] special) {
+        if (special[0] > 0 || (special[1] > 0 && special[2] > 0)) {
+            return Double.NaN;
+        }
+        return special[1] > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * 滑动样本标准差：窗口满之前逐个加入（Welford），之后每步以新元素替换最旧的元素<br/>
+     * 窗口内有 NaN 或 ±Infinity 时输出 NaN 且不更新累加器，非有限值全部移出后由当前窗口重新计算
+     */
+    private static void slidingStd(double[] in, int len, int w, double[] out) {
+        double[] acc = new double[2];
+        int bad = 0;
+        for (int i = 0; i < w; i++) {
+            if (!Double.isFinite(in[i])) {
+                bad++;
+            }
+        }
+        if (bad == 0) {
+            welford(in, 0, w, acc);
+        }
+        out[0] = bad > 0 ? Double.NaN : Math.sqrt(Math.max(0.0, acc[1]) / (w - 1));
+        for (int i = w; i < len; i++) {
+            double x = in[i], y = in[i - w];
+            if (!Double.isFinite(x)) {
+                bad++;
+            }
+            if (!Double.isFinite(y)) {
+                if (--bad == 0) {
+                    welford(in, i - w + 1, i + 1, acc);
+                    out[i - w + 1] = Math.sqrt(Math.max(0.0, acc[1]) / (w - 1));
+                    continue;
+                }
+            }
+            if (bad > 0) {
+                out[i - w + 1] = Double.NaN;
+                continue;
+            }
+            double mean = acc[0];
+            double newMean = mean + (x - y) / w;
+            acc[1] += (x - y) * (x - newMean + y - mean);
+            acc[0] = newMean;
+            out[i - w + 1] = Math.sqrt(Math.max(0.0, acc[1]) / (w - 1));
+        }
+    }
+
+    /**
+     * 由 in[from, to) 重新计算均值与二阶中心矩，写入 acc[0]、acc[1]
+     */
+    private static void welford(double[] in, int from, int to, double[] acc) {
+        double mean = 0, m2 = 0;
+        for (int i = from; i < to; i++) {
+            double delta = in[i] - mean;
+            mean += delta / (i - from + 1);
+            m2 += delta * (in[i] - mean);
+        }
+        acc[0] = mean;
+        acc[1] = m2;
+    }
+
+    /**
+     * 滑动最小/最大值：单调双端队列保存窗口内可能成为极值的下标（环形缓冲区），每个下标至多入队、出队一次
+     */
+    private static void slidingExtreme(double[] in, int len, int w, double[] out, boolean max) {
+        int[] deque = new int[w];
+        int head = 0, size = 0;
+        for (int i = 0; i < len; i++) {
+            if (size > 0 && deque[head] <= i - w) {
+                head = (head + 1) % w;
+                size--;
+            }
+            double v = in[i];
+            while (size > 0) {
+                double tail = in[deque[(head + size - 1) % w]];
+                if (max ? tail > v : tail < v) {
+                    break;
+                }
+                size--;
+            }
+            deque[(head + size) % w] = i;
+            size++;
+            if (i >= w - 1) {
+                out[i - w + 1] = in[deque[head]];
+            }
+        }
+    }
+
+    /**
+     * 前缀和：按 Reductions 的块大小分块，块内扫描与块偏移回填在块之间并行
+     */
+    private static void prefixSum(double[] in, int len, double[] out) {
+        int block = Reductions.BLOCK;
+        int blocks = (len + block - 1) / block;
+        GemmKernel.forRows(blocks, len, (b0, b1) -> {
+            for (int b = b0; b < b1; b++) {
+                int to = Math.min(len, (b + 1) * block);
+                double s = 0;
+                for (int i = b * block; i < to; i++) {
+                    s += in[i];
+                    out[i] = s;
+                }
+            }
+        });
+        double[] offset = new double[blocks];
+        for (int b = 1; b < blocks; b++) {
+            offset[b] = offset[b - 1] + out[b * block - 1];
+        }
+        GemmKernel.forRows(blocks, len, (b0, b1) -> {
+            for (int b = Math.max(1, b0); b < b1; b++) {
+                int to = Math.min(len, (b + 1) * block);
+                double o = offset[b];
+                for (int i = b * block; i < to; i++) {
+                    out[i] += o;
+                }
+            }
+        });
+    }
+}
@@ -1,12 +1,28 @@
+import cn.czyx007.expression_parser.api.EvalResult;
 import cn.czyx007.expression_parser.api.ExpressionEvaluator;
+import cn.czyx007.expression_parser.ast.DenseArray;
+import cn.czyx007.expression_parser.ast.OperatorMode;
+import cn.czyx007.expression_parser.ast.SparseMatrix;
+import cn.czyx007.expression_parser.ast.StructuredMatrix;
 import cn.czyx007.expression_parser.ast.Value;
+import cn.czyx007.expression_parser.exception.ErrorCode;
 import cn.czyx007.expression_parser.exception.ExpressionException;
+import cn.czyx007.expression_parser.lexer.Lexer;
+import cn.czyx007.expression_parser.parser.IncrementalParser;
+import cn.czyx007.expression_parser.parser.ParseSnapshot;
+import cn.czyx007.expression_parser.parser.Parser;
+import cn.czyx007.expression_parser.parser.ValidationResult;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -894,5 +910,2013 @@ class ExpressionParserTest {
             assertEquals(0, eval("P(5,6)"), DELTA);    // k > n 时返回 0
             assertEquals(20, eval("perm(5,2)"), DELTA); // 别名测试
         }
+
+        @Test
+        @DisplayName("精确路径与溢出后的回退")
+        void testExactAndFallback() {
+            assertEquals(3628800, eval("10!"), 0);
+            assertEquals(7.257415615307994E306, eval("170!"), 1e294);
+            // C(66,33) 在 long 范围内，C(68,34) 需要阶乘表，更大的参数使用对数伽马函数（标量结果保留 12 位有效数字）
+            assertEquals(7219428434016265740.0, eval("C(66, 33)"), 1e8);
+            assertEquals(28453041475240576740.0, eval("C(68, 34)"), 1e9);
+            assertEquals(1.4229671736221535e144, eval("C(1100, 100)"), 1e133);
+            assertEquals(1.6080714483063373e268, eval("P(1000, 90)"), 1e257);
+            assertEquals(Double.POSITIVE_INFINITY, eval("C(2000, 1000)"), 0);
+            assertEquals(6.0e15, eval("C(6000000000000000, 1)"), 0);
+            assertEquals(2432902008176640000.0, eval("P(20, 20)"), 0);
+            assertEquals(73096577329197271449600000.0, eval("P(30, 20)"), 1e14);
+            assertEquals(0, eval("P(3, 4)"), 0);
+        }
+
+        @Test
+        @DisplayName("对数形式")
+        void testLogarithms() {
+            assertEquals(0, eval("lnfact(0)"), 0);
+            assertEquals(Math.log(3628800), eval("lnfact(10)"), 1e-12);
+            assertEquals(5912.128178488163, eval("lnfact(1000)"), 1e-9);
+            assertEquals(1382.26799353748, eval("lncomb(2000, 1000)"), 1e-9);
+            assertEquals(Math.log(252), eval("lncomb(10, 5)"), 1e-12);
+            assertEquals(eval("lnfact(1000000) - lnfact(10) - lnfact(999990)"), eval("lncomb(1000000, 10)"), 1e-6);
+            assertEquals(eval("lnfact(500) - lnfact(200)"), eval("lnperm(500, 300)"), 1e-9);
+            assertEquals(Double.NEGATIVE_INFINITY, eval("lncomb(3, 4)"), 0);
+            // 二项分布概率之和为 1
+            double total = 0;
+            Map<String, Object> context = new HashMap<>();
+            for (int k = 0; k <= 3000; k++) {
+                context.put("k", (double) k);
+                total += eval("exp(lncomb(3000, k) + k*ln(0.3) + (3000-k)*ln(0.7))", context);
+            }
+            assertEquals(1, total, 1e-9);
+        }
+
+        @Test
+        @DisplayName("对数组合数错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> eval("lnfact(-1)"));
+            assertEquals(ErrorCode.FACTORIAL_NEGATIVE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("lnfact(2.5)"));
+            assertEquals(ErrorCode.FACTORIAL_NEGATIVE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("lncomb(-1, 2)"));
+            assertEquals(ErrorCode.COMB_NON_NEGATIVE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("lnperm(5, -2)"));
+            assertEquals(ErrorCode.PERM_NON_NEGATIVE, e.getErrorCode());
+        }
+    }
+
+    // ==================== 17. 增量解析 ====================
+    @Nested
+    @DisplayName("增量解析测试")
+    class IncrementalParsing {
+        @Test
+        @DisplayName("编辑后只重新解析受影响的语句")
+        void testReuseUntouchedStatements() {
+            ParseSnapshot doc = IncrementalParser.parse("x = 10; y = 2x; x + y");
+            assertTrue(doc.isValid());
+            assertEquals(3, doc.getStatementCount());
+
+            // 将第二条语句中的 2x 改为 3x
+            ParseSnapshot edited = IncrementalParser.reparse(doc, 12, 1, "3");
+            assertEquals("x = 10; y = 3x; x + y", edited.getText());
+            assertSame(doc.getStatement(0), edited.getStatement(0));
+            assertNotSame(doc.getStatement(1), edited.getStatement(1));
+            assertSame(doc.getStatement(2), edited.getStatement(2));
+            assertEquals(40.0, edited.getAst().evalValue(new HashMap<>()).asScalar(), DELTA);
+        }
+
+        @Test
+        @DisplayName("插入和删除分号")
+        void testSplitAndMergeStatements() {
+            ParseSnapshot doc = IncrementalParser.parse("a = 1; b = 2");
+            ParseSnapshot split = IncrementalParser.reparse(doc, 12, 0, "; a + b");
+            assertEquals(3, split.getStatementCount());
+            assertSame(doc.getStatement(0), split.getStatement(0));
+            assertEquals(3.0, split.getAst().evalValue(new HashMap<>()).asScalar(), DELTA);
+
+            // 删除分号后两条语句合并为 "b = 2 a + b"（隐式乘法）
+            ParseSnapshot merged = IncrementalParser.reparse(split, 12, 1, "");
+            assertEquals(2, merged.getStatementCount());
+            assertSame(doc.getStatement(0), merged.getStatement(0));
+
+            // 插入非法字符后报错
+            ParseSnapshot broken = IncrementalParser.reparse(merged, 4, 1, "$");
+            assertFalse(broken.isValid());
+        }
+
+        @Test
+        @DisplayName("增量解析结果与整体解析一致")
+        void testConsistentWithFullParse() {
+            String[] texts = {"1 + 2; (3", "x = ; 1", "1; ; 2", "1;", "  ", "1 2; 3"};
+            for (String text : texts) {
+                ParseSnapshot doc = IncrementalParser.parse(text);
+                String expected = null;
+                try {
+                    new Parser(new Lexer(text)).parse();
+                } catch (ExpressionException e) {
+                    expected = e.getMessage();
+                }
+                assertEquals(expected, doc.isValid() ? null : doc.getError().getMessage(), text);
+            }
+        }
+
+        @Test
+        @DisplayName("前方编辑后错误位置随之平移")
+        void testErrorPositionShift() {
+            ParseSnapshot doc = IncrementalParser.parse("1; 2 +");
+            ParseSnapshot edited = IncrementalParser.reparse(doc, 0, 1, "100");
+            String expected = assertThrows(ExpressionException.class,
+                    () -> new Parser(new Lexer("100; 2 +")).parse()).getMessage();
+            assertEquals(expected, edited.getError().getMessage());
+        }
+    }
+
+    // ==================== 18. 语法校验 ====================
+    @Nested
+    @DisplayName("语法校验测试")
+    class SyntaxValidation {
+        @Test
+        @DisplayName("收集引用的变量和函数")
+        void testReferencedNames() {
+            ValidationResult result = ExpressionEvaluator.validate("y = 2x + SIN(PI * z); avg([a, b]) + y");
+            assertTrue(result.isValid());
+            assertNull(result.getErrorCode());
+            assertEquals(-1, result.getPosition());
+            assertEquals(new LinkedHashSet<>(Arrays.asList("x", "z", "a", "b", "y")), result.getVariables());
+            assertEquals(new LinkedHashSet<>(Arrays.asList("y")), result.getAssignedVariables());
+            assertEquals(new LinkedHashSet<>(Arrays.asList("sin", "avg")), result.getFunctions());
+        }
+
+        @Test
+        @DisplayName("校验结果与解析器一致")
+        void testConsistentWithParser() {
+            String[] expressions = {"", "1 +", "(1 + 2", "1 2", "[1, 2", "f(1,", "1; ; 2", "2 $ 3",
+                    "1e+", "x = ", "2^-3", "5!!", "sin(x)(y)", "a = b = 3; a", "--5"};
+            for (String expression : expressions) {
+                ValidationResult result = ExpressionEvaluator.validate(expression);
+                String expected = null;
+                try {
+                    new Parser(new Lexer(expression)).parse();
+                } catch (ExpressionException e) {
+                    expected = e.getMessage();
+                    assertEquals(e.getErrorCode(), result.getErrorCode(), expression);
+                }
+                assertEquals(expected, result.getMessage(), expression);
+            }
+        }
+
+        @Test
+        @DisplayName("错误位置")
+        void testErrorPosition() {
+            assertEquals(6, ExpressionEvaluator.validate("(1 + 2").getPosition());
+            assertEquals(2, ExpressionEvaluator.validate("2 $ 3").getPosition());
+            assertEquals(0, ExpressionEvaluator.validate("").getPosition());
+        }
+    }
+
+    // ==================== 19. 无异常求值 ====================
+    @Nested
+    @DisplayName("无异常求值测试")
+    class ExceptionFreeEvaluation {
+        @Test
+        @DisplayName("成功与失败结果")
+        void testTryEval() {
+            EvalResult ok = ExpressionEvaluator.tryEval("sqrt(16) + 1");
+            assertTrue(ok.isSuccess());
+            assertEquals(5.0, ok.getValue().asScalar(), DELTA);
+            assertNull(ok.getErrorCode());
+
+            EvalResult divByZero = ExpressionEvaluator.tryEval("1 / 0");
+            assertFalse(divByZero.isSuccess());
+            assertEquals(ErrorCode.DIVISION_BY_ZERO, divByZero.getErrorCode());
+            assertTrue(divByZero.getMessage().contains("Division by zero"));
+            assertThrows(ExpressionException.class, divByZero::getValue);
+
+            EvalResult ln = ExpressionEvaluator.tryEval("ln(-1)");
+            assertEquals(ErrorCode.PARAM_MUST_BE_POSITIVE, ln.getErrorCode());
+            assertArrayEquals(new Object[]{"ln"}, ln.getParams());
+            assertEquals("[A006] ln parameter must be greater than 0", ln.getMessage());
+
+            assertEquals(ErrorCode.SQRT_NEGATIVE, ExpressionEvaluator.tryEval("sqrt(-4)").getErrorCode());
+            assertEquals(ErrorCode.UNDEFINED_VARIABLE, ExpressionEvaluator.tryEval("x + 1").getErrorCode());
+            assertEquals(ErrorCode.UNEXPECTED_TOKEN, ExpressionEvaluator.tryEval("1 +").getErrorCode());
+        }
+
+        @Test
+        @DisplayName("关闭堆栈采集")
+        void testStackTraceControl() {
+            assertTrue(new ExpressionException(ErrorCode.DIVISION_BY_ZERO).getStackTrace().length > 0);
+            ExpressionException.setStackTraceEnabled(false);
+            try {
+                ExpressionException e = new ExpressionException(ErrorCode.DIVISION_BY_ZERO);
+                assertEquals(0, e.getStackTrace().length);
+                assertEquals("[A001] Division by zero", e.getMessage());
+            } finally {
+                ExpressionException.setStackTraceEnabled(true);
+            }
+            // tryEval 结束后恢复线程设置
+            ExpressionEvaluator.tryEval("1 / 0");
+            assertTrue(ExpressionException.isStackTraceEnabled());
+        }
+    }
+
+    // ==================== 20. LU 分解 ====================
+    @Nested
+    @DisplayName("LU 分解测试")
+    class LUDecompositionTests {
+        /**
+         * 构造 n 阶三对角矩阵 tridiag(-1, 2, -1) 的字面量，其行列式为 n + 1
+         */
+        private String tridiagonal(int n) {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < n; i++) {
+                if (i > 0) sb.append(',');
+                sb.append('[');
+                for (int j = 0; j < n; j++) {
+                    if (j > 0) sb.append(',');
+                    sb.append(i == j ? "2" : Math.abs(i - j) == 1 ? "-1" : "0");
+                }
+                sb.append(']');
+            }
+            return sb.append(']').toString();
+        }
+
+        @Test
+        @DisplayName("高阶行列式")
+        void testLargeDeterminant() {
+            assertEquals(13.0, eval("det(" + tridiagonal(12) + ")"), 1e-8);
+            assertEquals(41.0, eval("det(" + tridiagonal(40) + ")"), 1e-8);
+            // 需要行交换的 4 阶矩阵
+            assertEquals(24.0, eval("det([[0,0,0,1],[0,0,2,0],[0,3,0,0],[4,0,0,0]])"), DELTA);
+            assertEquals(-6.0, eval("det([[0,1,0,0],[1,0,0,0],[0,0,2,0],[0,0,0,3]])"), DELTA);
+            assertEquals(0.0, eval("det([[1,2,3,4],[2,4,6,8],[1,0,1,0],[0,1,0,1]])"), DELTA);
+        }
+
+        @Test
+        @DisplayName("高阶求逆与解方程组")
+        void testLargeInverseAndSolve() {
+            String a = "[[4,1,0,0],[1,4,1,0],[0,1,4,1],[0,0,1,4]]";
+            assertEquals("[[1, 0, 0, 0], [0, 1, 0, 0], [0, 0, 1, 0], [0, 0, 0, 1]]",
+                    evalValue("matmul(" + a + ", inv(" + a + "))").toString());
+            assertEquals("[[1], [2], [3], [4]]",
+                    evalValue("solve(" + a + ", [[6],[12],[18],[19]])").toString());
+            assertThrows(ExpressionException.class,
+                    () -> eval("solve([[1,2,3,4],[2,4,6,8],[1,0,1,0],[0,1,0,1]], [[1],[2],[3],[4]])"));
+        }
+
+        @Test
+        @DisplayName("矩形矩阵的秩")
+        void testRectangularRank() {
+            assertEquals(2.0, eval("rank([[1,2,3],[2,4,6],[1,0,1]])"), DELTA);
+            assertEquals(2.0, eval("rank([[1,2],[3,4],[5,6]])"), DELTA);
+            assertEquals(1.0, eval("rank([[0,0,1],[0,0,2]])"), DELTA);
+            assertEquals(0.0, eval("rank([[0,0],[0,0]])"), DELTA);
+        }
+    }
+
+    // ==================== 21. 矩阵乘法内核 ====================
+    @Nested
+    @DisplayName("矩阵乘法内核测试")
+    class MatMulKernelTests {
+        /**
+         * 构造 m×n 矩阵字面量，元素为 (i * 7 + j * 3) % 11 - 5
+         */
+        private String matrix(int m, int n) {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < m; i++) {
+                if (i > 0) sb.append(',');
+                sb.append('[');
+                for (int j = 0; j < n; j++) {
+                    if (j > 0) sb.append(',');
+                    sb.append(element(i, j));
+                }
+                sb.append(']');
+            }
+            return sb.append(']').toString();
+        }
+
+        private int element(int i, int j) {
+            return (i * 7 + j * 3) % 11 - 5;
+        }
+
+        /**
+         * 与朴素三重循环的结果逐元素比较
+         */
+        private void assertProduct(int m, int n, int k) {
+            Value c = evalValue("matmul(" + matrix(m, n) + ", " + matrix(n, k) + ")");
+            assertEquals(m, c.asArray().size());
+            for (int i = 0; i < m; i++) {
+                assertEquals(k, c.asArray().get(i).asArray().size());
+                for (int j = 0; j < k; j++) {
+                    double expected = 0;
+                    for (int t = 0; t < n; t++) {
+                        expected += element(i, t) * element(t, j);
+                    }
+                    assertEquals(expected, c.asArray().get(i).asArray().get(j).asScalar(), DELTA);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("跨分块边界的矩阵乘法")
+        void testBlockedProduct() {
+            assertProduct(3, 130, 260);
+            assertProduct(40, 129, 7);
+        }
+
+        @Test
+        @DisplayName("超过阈值时并行计算")
+        void testParallelProduct() {
+            assertProduct(200, 150, 120);
+        }
+
+        @Test
+        @DisplayName("矩阵-向量与向量-向量乘法")
+        void testVectorProducts() {
+            assertEquals("[[17], [39]]", evalValue("matmul([[1,2],[3,4]], [[5],[6]])").toString());
+            assertEquals("[[23, 34]]", evalValue("matmul([[5,6]], [[1,2],[3,4]])").toString());
+            assertEquals("[[32]]", evalValue("matmul([[1,2,3]], [[4],[5],[6]])").toString());
+            assertEquals("[[4, 5, 6], [8, 10, 12]]", evalValue("matmul([[1],[2]], [[4,5,6]])").toString());
+        }
+
+        @Test
+        @DisplayName("乘积结果可继续参与运算")
+        void testProductComposition() {
+            String a = "[[1,2],[3,4]]";
+            assertEquals("[[7, 15], [10, 22]]", evalValue("transpose(matmul(" + a + ", " + a + "))").toString());
+            assertEquals(54.0, eval("sum(matmul(" + a + ", " + a + "))"), DELTA);
+            assertEquals(4.0, eval("det(matmul(" + a + ", " + a + "))"), DELTA);
+            assertEquals(29.0, eval("trace(matmul(" + a + ", " + a + "))"), DELTA);
+            assertEquals("[[37, 54], [81, 118]]",
+                    evalValue("matmul(matmul(" + a + ", " + a + "), " + a + ")").toString());
+            assertEquals("[[2, 4], [6, 8]]", evalValue("A = matmul(" + a + ", [[2,0],[0,2]])").toString());
+        }
+
+        @Test
+        @DisplayName("乘法错误信息不变")
+        void testProductErrors() {
+            assertThrows(ExpressionException.class, () -> eval("matmul([1,2], [[1],[2]])"));
+            assertThrows(ExpressionException.class, () -> eval("matmul([[1,2]], [[1,2]])"));
+            assertThrows(ExpressionException.class, () -> eval("matmul(matmul([[1,2]], [[1],[2]]), [[1,2]], [[1]])"));
+        }
+    }
+
+    // ==================== 22. 矩阵分解句柄 ====================
+    @Nested
+    @DisplayName("矩阵分解句柄测试")
+    class FactorizationHandleTests {
+        @Test
+        @DisplayName("多列右侧矩阵")
+        void testMultiColumnSolve() {
+            assertEquals("[[1, 2], [3, 4]]", evalValue("solve([[2,1],[1,3]], [[5,8],[10,14]])").toString());
+            assertEquals("[[1, 0], [0, 1]]", evalValue("solve([[2,1],[1,3]], [[2,1],[1,3]])").toString());
+            assertEquals("[[0.5, 1]]", evalValue("solve([[2]], [[1,2]])").toString());
+        }
+
+        @Test
+        @DisplayName("lu 分解供 solve、det、inv 复用")
+        void testLuHandle() {
+            assertEquals("<lu 2x2>", evalValue("lu([[4,3],[6,3]])").toString());
+            assertEquals("[[1], [2]]", evalValue("F = lu([[4,3],[6,3]]); solve(F, [[10],[12]])").toString());
+            assertEquals(-6.0, eval("det(lu([[4,3],[6,3]]))"), DELTA);
+            assertEquals(24.0, eval("det(lu([[0,0,0,1],[0,0,2,0],[0,3,0,0],[4,0,0,0]]))"), DELTA);
+            assertEquals("[[-0.5, 0.5], [1, -0.666666666666667]]", evalValue("inv(lu([[4,3],[6,3]]))").toString());
+            // 行列式不随矩阵缩放改变：小尺度矩阵经分解与直接计算结果一致
+            assertEquals(1e-22, eval("det(lu(diag(1e-11, 1e-11)))"), 1e-36);
+            assertEquals(eval("det(full(diag(1e-11, 1e-11, 1e-11, 1e-11)))"),
+                eval("det(lu(full(diag(1e-11, 1e-11, 1e-11, 1e-11))))"), 1e-56);
+            ExpressionException singular = assertThrows(ExpressionException.class, () -> eval("inv(lu(diag(1e-11, 1e-11)))"));
+            assertEquals(ErrorCode.MATRIX_SINGULAR, singular.getErrorCode());
+        }
+
+        @Test
+        @DisplayName("chol 分解")
+        void testCholHandle() {
+            String a = "[[4,2,2],[2,5,3],[2,3,6]]";
+            assertEquals("<chol 3x3>", evalValue("cholesky(" + a + ")").toString());
+            assertEquals(eval("det(" + a + ")"), eval("det(chol(" + a + "))"), 1e-9);
+            assertEquals(evalValue("solve(" + a + ", [[1,0],[2,1],[3,0]])").toString(),
+                    evalValue("solve(chol(" + a + "), [[1,0],[2,1],[3,0]])").toString());
+            assertEquals("[[1, 0, 0], [0, 1, 0], [0, 0, 1]]",
+                    evalValue("matmul(" + a + ", inv(chol(" + a + ")))").toString());
+        }
+
+        @Test
+        @DisplayName("同一矩阵变量只分解一次")
+        void testFactorizationCachedOnValue() {
+            Map<String, Object> context = new HashMap<>();
+            context.put("A", evalValue("[[4,3],[6,3]]"));
+            Value first = evalValue("lu(A)", context);
+            assertEquals("[[1], [2]]", evalValue("solve(A, [[10],[12]])", context).toString());
+            assertEquals("[[2], [1]]", evalValue("solve(A, [[11],[15]])", context).toString());
+            assertSame(first.getHandle(), evalValue("lu(A)", context).getHandle());
+        }
+
+        @Test
+        @DisplayName("分解错误处理")
+        void testFactorizationErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> eval("chol([[1,2],[2,1]])"));
+            assertEquals(ErrorCode.MATRIX_NOT_SPD, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("chol([[1,2],[3,4]])"));
+            assertEquals(ErrorCode.MATRIX_NOT_SPD, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("lu([[1,2,3],[4,5,6]])"));
+            assertEquals(ErrorCode.MATRIX_SQUARE_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("solve(lu([[1,2],[2,4]]), [[1],[2]])"));
+            assertEquals(ErrorCode.MATRIX_SINGULAR, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("sum(lu([[1,2],[3,4]]))"));
+            assertEquals(ErrorCode.HANDLE_NOT_SUPPORTED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("solve([[1,2],[3,4]], [[1,2]])"));
+            assertEquals(ErrorCode.SOLVE_VECTOR_FORMAT, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("transpose(lu([[1,2],[3,4]]))"));
+            assertEquals(ErrorCode.MATRIX_REQUIRED, e.getErrorCode());
+        }
+    }
+
+    // ==================== 23. 稀疏矩阵 ====================
+    @Nested
+    @DisplayName("稀疏矩阵测试")
+    class SparseMatrixTests {
+        private static final String S = "sparse([0,0,1,2,2], [0,2,1,0,2], [1,2,3,4,5], 3, 3)";
+
+        @Test
+        @DisplayName("构造与转换")
+        void testConstruction() {
+            assertEquals("<sparse 3x3, nnz=5>", evalValue(S).toString());
+            assertEquals("[[1, 0, 2], [0, 3, 0], [4, 0, 5]]", evalValue("full(" + S + ")").toString());
+            // 省略维度、重复位置相加、和为 0 的位置不存储
+            assertEquals("[[0, 0], [0, 7]]", evalValue("full(sparse([1,1,0,0], [1,1,0,0], [3,4,2,-2]))").toString());
+            assertEquals(1.0, eval("nnz(sparse([1,1,0,0], [1,1,0,0], [3,4,2,-2]))"), DELTA);
+            assertEquals(5.0, eval("nnz(sparse([[1,0,2],[0,3,0],[4,0,5]]))"), DELTA);
+            assertEquals(2.0, eval("nnz([[1,0],[0,3]])"), DELTA);
+        }
+
+        @Test
+        @DisplayName("稀疏运算")
+        void testSparseKernels() {
+            String d = "[[1,0,2],[0,3,0],[4,0,5]]";
+            assertEquals("[[7], [6], [19]]", evalValue("matmul(" + S + ", [[1],[2],[3]])").toString());
+            assertEquals(evalValue("matmul(" + d + ", " + d + ")").toString(),
+                    evalValue("full(matmul(" + S + ", " + S + "))").toString());
+            assertEquals(evalValue("matmul(" + d + ", [[1,2],[3,4],[5,6]])").toString(),
+                    evalValue("matmul(" + S + ", [[1,2],[3,4],[5,6]])").toString());
+            assertEquals(evalValue("matmul([[1,2,3]], " + d + ")").toString(),
+                    evalValue("matmul([[1,2,3]], " + S + ")").toString());
+            assertEquals("[[1, 0, 4], [0, 3, 0], [2, 0, 5]]", evalValue("full(transpose(" + S + "))").toString());
+            assertEquals("<sparse 3x2, nnz=2>", evalValue("t(sparse([0,1], [2,0], [1,1]))").toString());
+            assertEquals(9.0, eval("trace(" + S + ")"), DELTA);
+            // 未实现稀疏内核的函数按稠密矩阵计算
+            assertEquals(eval("det(" + d + ")"), eval("det(" + S + ")"), DELTA);
+            assertEquals(15.0, eval("sum(" + S + ")"), DELTA);
+            assertEquals(15.0 / 9, eval("avg(" + S + ")"), DELTA);
+        }
+
+        @Test
+        @DisplayName("大规模稀疏矩阵")
+        void testLargeSparse() {
+            int n = 100000;
+            int[] r = new int[2 * n - 1];
+            int[] c = new int[2 * n - 1];
+            double[] v = new double[2 * n - 1];
+            for (int i = 0; i < n; i++) {
+                r[i] = i; c[i] = i; v[i] = 2;
+            }
+            for (int i = 0; i < n - 1; i++) {
+                r[n + i] = i; c[n + i] = i + 1; v[n + i] = -1;
+            }
+            double[] ones = new double[n];
+            Arrays.fill(ones, 1.0);
+            Map<String, Object> context = new HashMap<>();
+            context.put("A", new Value(SparseMatrix.fromTriplets(n, n, r, c, v)));
+            context.put("x", new Value(new DenseArray(ones, n, 1)));
+
+            assertEquals(2.0 * n, eval("trace(A)", context), DELTA);
+            assertEquals(2.0 * n - (n - 1), eval("sum(matmul(A, x))", context), DELTA);
+            assertEquals(3.0 * n - 2, eval("nnz(matmul(A, t(A)))", context), DELTA);
+        }
+
+        @Test
+        @DisplayName("稀疏矩阵错误处理")
+        void testSparseErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> eval("sparse([0,1], [0], [1,2])"));
+            assertEquals(ErrorCode.SPARSE_LENGTH_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("sparse([0,3], [0,1], [1,2], 3, 3)"));
+            assertEquals(ErrorCode.SPARSE_INDEX_OUT_OF_RANGE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("sparse([0.5], [0], [1])"));
+            assertEquals(ErrorCode.INTEGER_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("matmul(" + S + ", [[1],[2]])"));
+            assertEquals(ErrorCode.MATRIX_DIMENSION_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("trace(sparse([0], [2], [1]))"));
+            assertEquals(ErrorCode.MATRIX_SQUARE_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("sparse([0], [0])"));
+            assertEquals(ErrorCode.SPARSE_INVALID_ARGS, e.getErrorCode());
+            // 稠密化的元素个数超过数组上限时报错，而不是 int 溢出
+            String big = "sparse([0], [0], [1], 100000, 100000)";
+            assertEquals(1.0, eval("nnz(" + big + ")"), DELTA);
+            e = assertThrows(ExpressionException.class, () -> evalValue("full(" + big + ")"));
+            assertEquals(ErrorCode.SPARSE_TOO_LARGE_TO_DENSIFY, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("median(" + big + ")"));
+            assertEquals(ErrorCode.SPARSE_TOO_LARGE_TO_DENSIFY, e.getErrorCode());
+        }
+    }
+
+    // ==================== 24. 迭代法解方程组 ====================
+    @Nested
+    @DisplayName("迭代法解方程组测试")
+    class IterativeSolverTests {
+        private static final String A = "[[4,1,0],[1,3,1],[0,1,2]]";
+        private static final String B = "[[5],[10],[8]]";
+
+        private void assertSolution(String expression, double... expected) {
+            Value x = evalValue(expression);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], x.asArray().get(i).asArray().get(0).asScalar(), 1e-8);
+            }
+        }
+
+        @Test
+        @DisplayName("共轭梯度法")
+        void testConjugateGradient() {
+            // A·[1,1,3]ᵀ = [5,7,7]；A·[1,2,3]ᵀ = [6,10,8]
+            assertSolution("cg(" + A + ", [[5],[7],[7]])", 1, 1, 3);
+            assertSolution("cg(" + A + ", [[6],[10],[8]], 1e-12, 100, 1)", 1, 2, 3);
+            assertSolution("cg(sparse(" + A + "), [[6],[10],[8]])", 1, 2, 3);
+            assertSolution("cg(" + A + ", [6,10,8])", 1, 2, 3);
+            Value info = evalValue("solverinfo(cg(" + A + ", [[6],[10],[8]]))");
+            assertTrue(info.asArray().get(0).asScalar() <= 3);
+            assertTrue(info.asArray().get(1).asScalar() < 1e-10);
+        }
+
+        @Test
+        @DisplayName("GMRES")
+        void testGmres() {
+            String n = "[[2,1,0],[-1,3,1],[0,2,4]]";
+            // n·[1,2,3]ᵀ = [4,8,16]
+            assertSolution("gmres(" + n + ", [[4],[8],[16]])", 1, 2, 3);
+            assertSolution("gmres(" + n + ", [[4],[8],[16]], 1e-12, 100, 1)", 1, 2, 3);
+            // 重启长度为 1 时需要多轮重启
+            assertSolution("gmres(sparse(" + n + "), [[4],[8],[16]], 1e-12, 500, 0, 1)", 1, 2, 3);
+            assertEquals("[[0], [0], [0]]", evalValue("gmres(" + n + ", [[0],[0],[0]])").toString());
+            // Givens 旋转的新列为 0 时提前停止，返回已得到的解而不是 NaN
+            assertEquals("[[0], [0]]", evalValue("gmres([[0,1],[0,0]], [[0],[1]])").toString());
+            assertEquals("[[0], [0]]", evalValue("gmres([[0,0],[0,0]], [[1],[1]])").toString());
+            assertEquals(1.0, evalValue("solverinfo(gmres([[0,1],[0,0]], [[0],[1]]))").asArray().get(1).asScalar(), DELTA);
+        }
+
+        @Test
+        @DisplayName("大规模稀疏对称正定方程组")
+        void testLargeSparseSystem() {
+            // 一维 Poisson 方程 tridiag(-1, 2, -1)，解为全 1 向量时右侧为 [1, 0, ..., 0, 1]
+            int n = 500;
+            int[] r = new int[3 * n - 2];
+            int[] c = new int[3 * n - 2];
+            double[] v = new double[3 * n - 2];
+            int p = 0;
+            for (int i = 0; i < n; i++) {
+                r[p] = i; c[p] = i; v[p++] = 2;
+                if (i > 0) {
+                    r[p] = i; c[p] = i - 1; v[p++] = -1;
+                    r[p] = i - 1; c[p] = i; v[p++] = -1;
+                }
+            }
+            double[] b = new double[n];
+            b[0] = 1;
+            b[n - 1] = 1;
+            Map<String, Object> context = new HashMap<>();
+            context.put("A", new Value(SparseMatrix.fromTriplets(n, n, r, c, v)));
+            context.put("b", new Value(new DenseArray(b, n, 1)));
+
+            assertEquals(n, eval("sum(cg(A, b))", context), 1e-6);
+            assertEquals(1.0, eval("min(gmres(A, b, 1e-10, 1000, 0, 500))", context), 1e-6);
+            // 精确算术下 CG 至多 n 步收敛
+            Value info = evalValue("solverinfo(cg(A, b))", context);
+            assertTrue(info.asArray().get(0).asScalar() <= n);
+            assertTrue(info.asArray().get(1).asScalar() < 1e-10);
+        }
+
+        @Test
+        @DisplayName("迭代法错误处理")
+        void testIterativeErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> eval("cg(" + A + ", [[1],[2]])"));
+            assertEquals(ErrorCode.ITERATIVE_RHS_FORMAT, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("cg([[1,0],[0,-1]], [[1],[1]])"));
+            assertEquals(ErrorCode.MATRIX_NOT_SPD, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("gmres([[0,1],[1,0]], [[1],[1]], 1e-10, 10, 1)"));
+            assertEquals(ErrorCode.JACOBI_ZERO_DIAGONAL, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("gmres(" + A + ", [[1,2],[3,4],[5,6]])"));
+            assertEquals(ErrorCode.ITERATIVE_RHS_FORMAT, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("solverinfo(" + B + ")"));
+            assertEquals(ErrorCode.SOLVER_INFO_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("cg([[1,2,3],[4,5,6]], " + B + ")"));
+            assertEquals(ErrorCode.MATRIX_SQUARE_REQUIRED, e.getErrorCode());
+            for (String expr : new String[]{"cg([[2,0],[0,2]], [[1],[1]], 1e-10, 0)", "cg([[2,0],[0,2]], [[1],[1]], 1e-10, -5)",
+                "gmres([[2,0],[0,2]], [[1],[1]], 1e-10, 2.5)", "gmres([[2,0],[0,2]], [[1],[1]], 1e-10, 10, 0, 0)",
+                "gmres([[2,0],[0,2]], [[1],[1]], 1e-10, 10, 0, 1.5)"}) {
+                e = assertThrows(ExpressionException.class, () -> eval("sum(" + expr + ")"), expr);
+                assertEquals(ErrorCode.SOLVER_PARAMETER_INVALID, e.getErrorCode(), expr);
+            }
+            for (String expr : new String[]{"cg([[4,1],[1,3]], [1,2], -1)", "gmres([[4,1],[1,3]], [1,2], -1)",
+                "cg([[4,1],[1,3]], [1,2], 1e999)", "gmres([[4,1],[1,3]], [1,2], 1e999)"}) {
+                e = assertThrows(ExpressionException.class, () -> eval("sum(" + expr + ")"), expr);
+                assertEquals(ErrorCode.SOLVER_TOLERANCE_INVALID, e.getErrorCode(), expr);
+            }
+        }
+    }
+
+    // ==================== 25. 矩阵视图 ====================
+    @Nested
+    @DisplayName("矩阵视图测试")
+    class MatrixViewTests {
+        private static final String X = "[[1,2],[3,4],[5,6]]";
+
+        @Test
+        @DisplayName("转置视图保持原有语义")
+        void testTransposeView() {
+            assertEquals("[[1, 3, 5], [2, 4, 6]]", evalValue("transpose(" + X + ")").toString());
+            assertEquals(X.replace(",", ", "), evalValue("t(t(" + X + "))").toString());
+            assertEquals("[[1], [2]]", evalValue("t(row(" + X + ", 0))").toString());
+            assertEquals("[1, 3, 5]", evalValue("t(t(col(" + X + ", 0)))").toString());
+            assertEquals("[2, 4, 6]", evalValue("t(matmul(" + X + ", [[0],[1]]))").toString());
+            assertEquals(21.0, eval("sum(t(" + X + "))"), DELTA);
+        }
+
+        @Test
+        @DisplayName("转置操作数与 XᵀX")
+        void testTransposedProducts() {
+            assertEquals("[[35, 44], [44, 56]]", evalValue("matmul(t(" + X + "), " + X + ")").toString());
+            assertEquals("[[5, 11, 17], [11, 25, 39], [17, 39, 61]]", evalValue("matmul(" + X + ", t(" + X + "))").toString());
+            assertEquals("[[35, 44], [44, 56]]", evalValue("A = " + X + "; matmul(t(A), A)").toString());
+            assertEquals("[[9, 12], [9, 12]]", evalValue("matmul(t([[1,1],[1,1],[1,1]]), " + X + ")").toString());
+            assertEquals("[[3, 7, 11], [3, 7, 11]]", evalValue("matmul([[1,1],[1,1]], t(" + X + "))").toString());
+            assertEquals("[[22, 49], [28, 64]]", evalValue("matmul(t(" + X + "), t([[1,2,3],[4,5,6]]))").toString());
+        }
+
+        @Test
+        @DisplayName("大矩阵 XᵀX 与朴素计算一致")
+        void testLargeGram() {
+            int m = 400, n = 90;
+            double[] x = new double[m * n];
+            for (int i = 0; i < x.length; i++) {
+                x[i] = (i * 37 % 101) / 10.0 - 5;
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("X", new Value(new DenseArray(x, m, n)));
+            Value gram = evalValue("matmul(t(X), X)", context);
+            Value outer = evalValue("matmul(X, t(X))", context);
+            for (int i = 0; i < n; i += 7) {
+                for (int j = 0; j < n; j += 5) {
+                    double expected = 0;
+                    for (int t = 0; t < m; t++) {
+                        expected += x[t * n + i] * x[t * n + j];
+                    }
+                    assertEquals(expected, gram.asArray().get(i).asArray().get(j).asScalar(), 1e-9);
+                }
+            }
+            for (int i = 0; i < m; i += 37) {
+                for (int j = 0; j < m; j += 41) {
+                    double expected = 0;
+                    for (int t = 0; t < n; t++) {
+                        expected += x[i * n + t] * x[j * n + t];
+                    }
+                    assertEquals(expected, outer.asArray().get(i).asArray().get(j).asScalar(), 1e-9);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("行列切片")
+        void testSlices() {
+            assertEquals("[3, 4]", evalValue("row(" + X + ", 1)").toString());
+            assertEquals("[2, 4, 6]", evalValue("col(" + X + ", 1)").toString());
+            assertEquals("[2, 4, 6]", evalValue("row(t(" + X + "), 1)").toString());
+            assertEquals(44.0, eval("dot(col(" + X + ", 0), col(" + X + ", 1))"), DELTA);
+            assertEquals(4.0, eval("max(row(" + X + ", 1))"), DELTA);
+            assertEquals("[0, 3]", evalValue("row(sparse([0,1], [0,1], [1,3]), 1)").toString());
+
+            ExpressionException e = assertThrows(ExpressionException.class, () -> eval("row(" + X + ", 3)"));
+            assertEquals(ErrorCode.INDEX_OUT_OF_RANGE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> eval("col(" + X + ", 0.5)"));
+            assertEquals(ErrorCode.INTEGER_REQUIRED, e.getErrorCode());
+        }
+    }
+
+    // ==================== 26. 矩阵运算符 ====================
+    @Nested
+    @DisplayName("矩阵运算符测试")
+    class MatrixOperatorTests {
+
+        private Value evalMatrixMode(String expression) {
+            OperatorMode previous = OperatorMode.setThreadMode(OperatorMode.MATRIX);
+            try {
+                return evalValue(expression);
+            } finally {
+                OperatorMode.setThreadMode(previous);
+            }
+        }
+
+        @Test
+        @DisplayName("方阵整数次幂（平方求幂）")
+        void testMatrixPower() {
+            assertEquals("[[89, 55], [55, 34]]", evalValue("[[1,1],[1,0]]^10").toString());
+            assertEquals("[[89, 55], [55, 34]]", evalValue("matpow([[1,1],[1,0]], 10)").toString());
+            assertEquals("[[1, 0], [0, 1]]", evalValue("[[2,3],[4,5]]^0").toString());
+            assertEquals("[[2, 3], [4, 5]]", evalValue("[[2,3],[4,5]]^1").toString());
+            assertEquals(evalValue("inv([[2,1],[1,1]])").toString(), evalValue("[[2,1],[1,1]]^(-1)").toString());
+            assertEquals("[[2, -3], [-3, 5]]", evalValue("[[2,1],[1,1]]^(-2)").toString());
+            assertEquals("[[1, 0], [0, 1]]", evalValue("A = [[2,1],[1,1]]; matmul(A^(-3), A^3)").toString());
+            assertEquals("[[1024, 0], [0, 1]]", evalValue("sparse([0,1],[0,1],[2,1])^10").toString());
+        }
+
+        @Test
+        @DisplayName("矩阵幂与逐次相乘一致")
+        void testMatrixPowerMatchesRepeatedProduct() {
+            String a = "[[0.5,0.25,0.25],[0.1,0.8,0.1],[0.3,0.3,0.4]]";
+            Value p7 = evalValue(a + "^7");
+            Value naive = evalValue("A = " + a + "; matmul(A, matmul(A, matmul(A, matmul(A, matmul(A, matmul(A, A))))))");
+            double[] x = new double[9], y = new double[9];
+            int t = 0;
+            for (Value r : p7.asArray()) for (Value v : r.asArray()) x[t++] = v.asScalar();
+            t = 0;
+            for (Value r : naive.asArray()) for (Value v : r.asArray()) y[t++] = v.asScalar();
+            assertArrayEquals(y, x, 1e-12);
+        }
+
+        @Test
+        @DisplayName("矩阵幂错误")
+        void testMatrixPowerErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("[[1,2,3],[4,5,6]]^2"));
+            assertEquals(ErrorCode.MATRIX_SQUARE_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("[[1,2],[3,4]]^0.5"));
+            assertEquals(ErrorCode.INTEGER_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("[[1,2],[2,4]]^(-1)"));
+            assertEquals(ErrorCode.MATRIX_SINGULAR, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("2^[1,2]"));
+            assertEquals(ErrorCode.ARRAY_NOT_SUPPORTED_RIGHT, e.getErrorCode());
+        }
+
+        @Test
+        @DisplayName("默认模式下数组运算仍然报错")
+        void testScalarModeRejectsArrays() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("[[1,2],[3,4]] * [[1,0],[0,1]]"));
+            assertEquals(ErrorCode.ARRAY_NOT_SUPPORTED_LEFT, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("2 + [1,2]"));
+            assertEquals(ErrorCode.ARRAY_NOT_SUPPORTED_RIGHT, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("-[1,2]"));
+            assertEquals(ErrorCode.ARRAY_NOT_SUPPORTED_UNARY, e.getErrorCode());
+        }
+
+        @Test
+        @DisplayName("矩阵模式：乘法为矩阵乘法")
+        void testMatrixMultiply() {
+            assertEquals("[[19, 22], [43, 50]]", evalMatrixMode("[[1,2],[3,4]] * [[5,6],[7,8]]").toString());
+            assertEquals("[[35, 44], [44, 56]]", evalMatrixMode("X = [[1,2],[3,4],[5,6]]; t(X) * X").toString());
+            assertEquals("[17, 39]", evalMatrixMode("[[1,2],[3,4]] * [5,6]").toString());
+            assertEquals("[23, 34]", evalMatrixMode("[5,6] * [[1,2],[3,4]]").toString());
+            assertEquals(11.0, evalMatrixMode("[1,2] * [3,4]").asScalar(), DELTA);
+            assertEquals("[21, 4]", evalMatrixMode("sparse([0,1],[1,0],[3,2]) * [2,7]").toString());
+            assertEquals("[[2, 4], [6, 8]]", evalMatrixMode("2 * [[1,2],[3,4]]").toString());
+            assertEquals("[[0.5, 1], [1.5, 2]]", evalMatrixMode("[[1,2],[3,4]] / 2").toString());
+            assertEquals("<sparse 2x2, nnz=2>", evalMatrixMode("sparse([0,1],[1,0],[3,2]) * 2").toString());
+            assertEquals("[[0, 6], [4, 0]]", evalMatrixMode("full(sparse([0,1],[1,0],[3,2]) * 2)").toString());
+        }
+
+        @Test
+        @DisplayName("矩阵模式：马尔可夫链 P^n * v")
+        void testMarkovChain() {
+            Map<String, Object> context = new HashMap<>();
+            OperatorMode previous = OperatorMode.setThreadMode(OperatorMode.MATRIX);
+            try {
+                Value v = evalValue("P = [[0.9,0.5],[0.1,0.5]]; v = [[1],[0]]; P^1000 * v", context);
+                assertEquals(5.0 / 6, v.asArray().get(0).asArray().get(0).asScalar(), 1e-12);
+                assertEquals(1.0 / 6, v.asArray().get(1).asArray().get(0).asScalar(), 1e-12);
+            } finally {
+                OperatorMode.setThreadMode(previous);
+            }
+        }
+
+        @Test
+        @DisplayName("矩阵模式：逐元素加减")
+        void testElementwise() {
+            assertEquals("[[6, 8], [10, 12]]", evalMatrixMode("[[1,2],[3,4]] + [[5,6],[7,8]]").toString());
+            assertEquals("[[-4, -4], [-4, -4]]", evalMatrixMode("[[1,2],[3,4]] - [[5,6],[7,8]]").toString());
+            assertEquals("[4, 6]", evalMatrixMode("[1,2] + [3,4]").toString());
+            assertEquals("[[2, 3], [4, 5]]", evalMatrixMode("[[1,2],[3,4]] + 1").toString());
+            assertEquals("[[9, 8], [7, 6]]", evalMatrixMode("10 - [[1,2],[3,4]]").toString());
+            assertEquals("[[-1, -2], [-3, -4]]", evalMatrixMode("-[[1,2],[3,4]]").toString());
+            assertEquals("[[0, 2], [2, 0]]", evalMatrixMode("A = [[1,2],[3,4]]; A - t(A) + [[0,3],[1,0]]").toString());
+            assertEquals("[[[2, 4]], [[6, 8]]]", evalMatrixMode("[[[1,2]],[[3,4]]] + [[[1,2]],[[3,4]]]").toString());
+            assertEquals("[[1, 0], [0, 1]]", evalMatrixMode("sparse([0,1],[0,1],[2,2]) - [[1,0],[0,1]]").toString());
+            assertEquals(14.0, evalMatrixMode("1 + 2 * 3 + 7").asScalar(), DELTA);
+        }
+
+        @Test
+        @DisplayName("矩阵模式：错误")
+        void testMatrixModeErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalMatrixMode("[[1,2],[3,4]] + [1,2]"));
+            assertEquals(ErrorCode.OPERAND_SHAPE_MISMATCH, e.getErrorCode());
+            assertTrue(e.getMessage().contains("2x2") && e.getMessage().contains("2"));
+            e = assertThrows(ExpressionException.class, () -> evalMatrixMode("[[1,2,3]] * [[1,2]]"));
+            assertEquals(ErrorCode.MATRIX_DIMENSION_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalMatrixMode("[1,2] * [1,2,3]"));
+            assertEquals(ErrorCode.MATRIX_DIMENSION_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalMatrixMode("[[1,2],[3]] + 1"));
+            assertEquals(ErrorCode.MATRIX_INCONSISTENT_COLS, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalMatrixMode("[[1,2],[3,4]] / 0"));
+            assertEquals(ErrorCode.DIVISION_BY_ZERO, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalMatrixMode("1 / [1,2]"));
+            assertEquals(ErrorCode.ARRAY_NOT_SUPPORTED_RIGHT, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalMatrixMode("[1,2] % 2"));
+            assertEquals(ErrorCode.ARRAY_NOT_SUPPORTED_LEFT, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalMatrixMode("lu([[1,2],[3,4]]) + 1"));
+            assertEquals(ErrorCode.HANDLE_NOT_SUPPORTED, e.getErrorCode());
+            assertEquals(OperatorMode.SCALAR, OperatorMode.current());
+        }
+    }
+
+    // ==================== 27. 结构化矩阵 ====================
+    @Nested
+    @DisplayName("结构化矩阵测试")
+    class StructuredMatrixTests {
+
+        private StructuredMatrix.Kind kindOf(String expression) {
+            Value v = evalValue(expression);
+            return v.isStructured() ? v.getStructured().getKind() : null;
+        }
+
+        @Test
+        @DisplayName("构造函数与紧凑存储")
+        void testConstructors() {
+            assertEquals("[[1, 0, 0], [0, 2, 0], [0, 0, 3]]", evalValue("diag([1,2,3])").toString());
+            assertEquals("[[4, 0], [0, 5]]", evalValue("diag(4, 5)").toString());
+            assertEquals("[1, 4]", evalValue("diag([[1,2],[3,4]])").toString());
+            assertEquals("[1, 2, 3]", evalValue("diag(diag([1,2,3]))").toString());
+            assertEquals("[[1, 0], [3, 4]]", evalValue("tril([[1,2],[3,4]])").toString());
+            assertEquals("[[1, 2], [0, 4]]", evalValue("triu([[1,2],[3,4]])").toString());
+            assertEquals("[[2, 3, 0], [1, 2, 3], [0, 1, 2]]", evalValue("tridiag([1,1], [2,2,2], [3,3])").toString());
+            assertEquals("[[1, 2, 0], [4, 5, 6], [0, 8, 9]]", evalValue("tridiag([[1,2,3],[4,5,6],[7,8,9]])").toString());
+            assertEquals(StructuredMatrix.Kind.DIAGONAL, kindOf("diag([1,2,3])"));
+            assertEquals(3, evalValue("diag([1,2,3])").getStructured().getData().length);
+            assertEquals(6, evalValue("tril([[1,2,3],[4,5,6],[7,8,9]])").getStructured().getData().length);
+            assertEquals(6.0, eval("sum(diag([1,2,3]))"), DELTA);
+            assertEquals(2.0, eval("nnz(tril([[1,2],[0,4]]))"), DELTA);
+            assertEquals("[[1, 0], [0, 2]]", evalValue("full(diag([1,2]))").toString());
+            assertFalse(evalValue("full(diag([1,2]))").isStructured());
+        }
+
+        @Test
+        @DisplayName("det、inv、solve 使用专用算法")
+        void testSpecialisedAlgorithms() {
+            assertEquals(24.0, eval("det(diag([2,3,4]))"), DELTA);
+            assertEquals(36.0, eval("det([[2,0,0],[1,3,0],[4,5,6]])"), DELTA);
+            assertEquals(eval("det(lu([[2,1,0],[1,2,1],[0,1,2]]))"), eval("det(tridiag([1,1],[2,2,2],[1,1]))"), DELTA);
+            assertEquals("[[0.5, 0], [0, 0.25]]", evalValue("inv(diag([2,4]))").toString());
+            assertEquals("[[0.5, 0], [-0.125, 0.25]]", evalValue("inv([[2,0],[1,4]])").toString());
+            assertEquals("[[1, -2, 1], [0, 1, -2], [0, 0, 1]]", evalValue("inv(triu([[1,2,3],[0,1,2],[0,0,1]]))").toString());
+            assertEquals("[[1], [2], [3]]", evalValue("solve(diag([2,4,6]), [[2],[8],[18]])").toString());
+            assertEquals("[[1, 2], [1, 0]]", evalValue("solve([[1,0],[2,3]], [[1,2],[5,4]])").toString());
+            assertEquals("[[1], [1], [1]]", evalValue("solve(tridiag([1,1],[2,2,2],[1,1]), [[3],[4],[3]])").toString());
+            // 三对角消元选主元，零主元时交换行
+            assertEquals("[[3], [2]]", evalValue("solve([[0,1],[1,0]], [[2],[3]])").toString());
+            assertEquals("[[0, 1], [1, 0]]", evalValue("inv([[0,1],[1,0]])").toString());
+        }
+
+        @Test
+        @DisplayName("结果在封闭运算下保持结构")
+        void testClosedResults() {
+            assertEquals(StructuredMatrix.Kind.DIAGONAL, kindOf("inv(diag([2,4]))"));
+            assertEquals(StructuredMatrix.Kind.LOWER, kindOf("inv([[2,0],[1,4]])"));
+            assertEquals(StructuredMatrix.Kind.UPPER, kindOf("t(tril([[1,0],[2,3]]))"));
+            assertEquals(StructuredMatrix.Kind.TRIDIAGONAL, kindOf("t(tridiag([1],[2,2],[3]))"));
+            assertEquals("[[2, 1], [3, 2]]", evalValue("t(tridiag([1],[2,2],[3]))").toString());
+            assertEquals(StructuredMatrix.Kind.UPPER, kindOf("matmul(triu([[1,2],[0,3]]), triu([[4,5],[0,6]]))"));
+            assertEquals("[[4, 17], [0, 18]]", evalValue("matmul(triu([[1,2],[0,3]]), triu([[4,5],[0,6]]))").toString());
+            assertEquals("[[4, 0], [23, 18]]", evalValue("matmul(tril([[1,0],[2,3]]), tril([[4,0],[5,6]]))").toString());
+            assertEquals(StructuredMatrix.Kind.LOWER, kindOf("matmul(diag([2,3]), tril([[1,0],[2,3]]))"));
+            assertEquals("[[2, 0], [6, 9]]", evalValue("matmul(diag([2,3]), tril([[1,0],[2,3]]))").toString());
+            assertEquals("[[2, 0], [4, 9]]", evalValue("matmul(tril([[1,0],[2,3]]), diag([2,3]))").toString());
+            assertEquals("[[2, 4], [9, 12]]", evalValue("matmul(diag([2,3]), [[1,2],[3,4]])").toString());
+            assertEquals("[[2, 6], [6, 12]]", evalValue("matmul([[1,2],[3,4]], diag([2,3]))").toString());
+            assertEquals("[[5, 8], [7, 10]]", evalValue("matmul(tridiag([1],[2,2],[1]), [[1,2],[3,4]])").toString());
+            assertEquals(StructuredMatrix.Kind.DIAGONAL, kindOf("diag([2,3])^3"));
+            assertEquals("[[8, 0], [0, 27]]", evalValue("diag([2,3])^3").toString());
+            assertEquals("[[1, 5], [0, 1]]", evalValue("triu([[1,1],[0,1]])^5").toString());
+            assertEquals("[[1, -1], [0, 1]]", evalValue("triu([[1,1],[0,1]])^(-1)").toString());
+            assertEquals("[[1, 0], [0, 1]]", evalValue("tril([[1,0],[1,1]])^0").toString());
+        }
+
+        @Test
+        @DisplayName("矩阵模式运算符保持结构")
+        void testOperators() {
+            OperatorMode previous = OperatorMode.setThreadMode(OperatorMode.MATRIX);
+            try {
+                assertEquals(StructuredMatrix.Kind.DIAGONAL, kindOf("diag([1,2]) + diag([3,4])"));
+                assertEquals("[[4, 0], [0, 6]]", evalValue("diag([1,2]) + diag([3,4])").toString());
+                assertEquals(StructuredMatrix.Kind.LOWER, kindOf("2 * tril([[1,0],[2,3]])"));
+                assertEquals(StructuredMatrix.Kind.LOWER, kindOf("-tril([[1,0],[2,3]])"));
+                assertEquals("[[2, 2], [3, 5]]", evalValue("diag([1,2]) + [[1,2],[3,3]]").toString());
+                assertEquals("[3, 8]", evalValue("diag([1,2]) * [3,4]").toString());
+                assertEquals("[5, 4]", evalValue("tridiag([1],[2,2],[1]) * [2,1]").toString());
+            } finally {
+                OperatorMode.setThreadMode(previous);
+            }
+        }
+
+        @Test
+        @DisplayName("大型三对角方程组与 LU 分解结果一致")
+        void testLargeTridiagonal() {
+            int n = 400;
+            double[] sub = new double[n - 1], main = new double[n], sup = new double[n - 1], b = new double[n];
+            for (int i = 0; i < n; i++) {
+                // 主对角线有大有小，消元过程中需要行交换
+                main[i] = i % 5 == 0 ? 0.01 : 4 + i % 3;
+                b[i] = Math.sin(i);
+                if (i < n - 1) {
+                    sub[i] = -1 - (i % 2);
+                    sup[i] = 1.5;
+                }
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("a", new Value(new DenseArray(sub, n - 1)));
+            context.put("d", new Value(new DenseArray(main, n)));
+            context.put("c", new Value(new DenseArray(sup, n - 1)));
+            context.put("b", new Value(new DenseArray(b, n, 1)));
+            double[] x = evalValue("T = tridiag(a, d, c); solve(T, b)", context).getDense().getData();
+            double[] y = evalValue("solve(lu(full(T)), b)", context).getDense().getData();
+            assertArrayEquals(y, x, 1e-12);
+            context.put("T4", new Value(new StructuredMatrix(StructuredMatrix.Kind.TRIDIAGONAL, 40,
+                Arrays.copyOfRange(evalValue("T", context).getStructured().getData(), 0, 3 * 40 - 2))));
+            assertEquals(eval("det(lu(full(T4)))", context) / eval("det(T4)", context), 1.0, 1e-10);
+        }
+
+        @Test
+        @DisplayName("结构化矩阵错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("inv(diag([1,0]))"));
+            assertEquals(ErrorCode.MATRIX_SINGULAR, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("solve(tril([[0,0],[1,1]]), [[1],[1]])"));
+            assertEquals(ErrorCode.MATRIX_SINGULAR, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("tridiag([1,2], [1,2], [1])"));
+            assertEquals(ErrorCode.TRIDIAG_LENGTH_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("tril([[1,2,3],[4,5,6]])"));
+            assertEquals(ErrorCode.MATRIX_SQUARE_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("matmul(diag([1,2]), [[1,2,3]])"));
+            assertEquals(ErrorCode.MATRIX_DIMENSION_MISMATCH, e.getErrorCode());
+        }
+    }
+
+    // ==================== 28. 批量小矩阵运算 ====================
+    @Nested
+    @DisplayName("批量小矩阵运算测试")
+    class BatchedMatrixTests {
+
+        private double[] flat(Value v) {
+            List<Double> values = new ArrayList<>();
+            v.collectScalars(values);
+            return values.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+
+        @Test
+        @DisplayName("批量行列式、求逆、乘法与求解")
+        void testBasic() {
+            assertEquals("[-2, 6]", evalValue("bdet([[[1,2],[3,4]], [[2,0],[0,3]]])").toString());
+            assertEquals("[[[0.5, 0], [0, 0.25]]]", evalValue("binv([[[2,0],[0,4]]])").toString());
+            assertEquals("[[[1, 4], [3, 8]], [[0, 2], [1, 0]]]",
+                evalValue("bmatmul([[[1,2],[3,4]], [[0,1],[1,0]]], [[1,0],[0,2]])").toString());
+            assertEquals("[[[6]]]", evalValue("bmatmul([[[1,2,3]]], [[1],[1],[1]])").toString());
+            assertEquals("[[1, 1], [2, 1]]", evalValue("bsolve([[[2,0],[0,4]], [[1,1],[0,1]]], [[2,4],[3,1]])").toString());
+            assertEquals("[[[1, 2], [1, 2]]]", evalValue("bsolve([[[2,0],[0,4]]], [[[2,4],[4,8]]])").toString());
+        }
+
+        @Test
+        @DisplayName("与逐个矩阵计算的结果一致")
+        void testAgainstSingleMatrix() {
+            int k = 7;
+            for (int n = 1; n <= 6; n++) {
+                double[] a = new double[k * n * n], b = new double[k * n];
+                // 偶数号矩阵对角占优，奇数号矩阵反对角占优，后者在每一列都要换行选主元
+                for (int i = 0; i < a.length; i++) {
+                    int e = i % (n * n), row = e / n, col = e % n;
+                    boolean dominant = i / (n * n) % 2 == 0 ? row == col : row + col == n - 1;
+                    a[i] = Math.sin(1.7 * i + n) + (dominant ? n : 0);
+                }
+                for (int i = 0; i < b.length; i++) b[i] = Math.cos(0.3 * i);
+                Map<String, Object> context = new HashMap<>();
+                context.put("S", new Value(new DenseArray(a, k, n, n)));
+                context.put("B", new Value(new DenseArray(b, k, n)));
+                double[] det = evalValue("bdet(S)", context).getDense().getData();
+                double[] inv = evalValue("binv(S)", context).getDense().getData();
+                double[] sq = evalValue("bmatmul(S, S)", context).getDense().getData();
+                double[] x = evalValue("bsolve(S, B)", context).getDense().getData();
+                for (int t = 0; t < k; t++) {
+                    context.put("M", new Value(new DenseArray(Arrays.copyOfRange(a, t * n * n, (t + 1) * n * n), n, n)));
+                    context.put("v", new Value(new DenseArray(Arrays.copyOfRange(b, t * n, (t + 1) * n), n, 1)));
+                    assertEquals(eval("det(M)", context), det[t], 1e-10);
+                    assertArrayEquals(flat(evalValue("inv(M)", context)),
+                        Arrays.copyOfRange(inv, t * n * n, (t + 1) * n * n), 1e-10);
+                    assertArrayEquals(flat(evalValue("matmul(M, M)", context)),
+                        Arrays.copyOfRange(sq, t * n * n, (t + 1) * n * n), 1e-12);
+                    assertArrayEquals(flat(evalValue("solve(M, v)", context)),
+                        Arrays.copyOfRange(x, t * n, (t + 1) * n), 1e-10);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("批量运算错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("binv([[[1,0],[0,1]], [[1,2],[2,4]]])"));
+            assertEquals(ErrorCode.BATCH_SINGULAR, e.getErrorCode());
+            assertTrue(e.getMessage().contains("matrix 1"));
+            e = assertThrows(ExpressionException.class, () -> evalValue("bsolve([[[1,2],[2,4]]], [[1,1]])"));
+            assertEquals(ErrorCode.BATCH_SINGULAR, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("bdet([[1,2],[3,4]])"));
+            assertEquals(ErrorCode.BATCH_SHAPE_INVALID, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("bdet([[[1,2,3],[4,5,6]]])"));
+            assertEquals(ErrorCode.MATRIX_SQUARE_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("bmatmul([[[1,2]],[[3,4]]], [[[1],[1]]])"));
+            assertEquals(ErrorCode.BATCH_SHAPE_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("bmatmul([[1,2],[3,4]], [[1,2],[3,4]])"));
+            assertEquals(ErrorCode.BATCH_SHAPE_INVALID, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("bsolve([[[1,0],[0,1]]], [[1,2,3]])"));
+            assertEquals(ErrorCode.BATCH_SHAPE_MISMATCH, e.getErrorCode());
+            // 近似奇异矩阵与 inv、solve 使用相同的判定，1 至 4 阶都报错而不是返回巨大的结果
+            String[] nearSingular = {"[[1e-12]]", "[[1,2],[1,2+1e-12]]", "[[1,2,3],[4,5,6],[7,8,9+1e-12]]",
+                "[[1,0,0,0],[0,1,0,0],[0,0,1,1],[0,0,1,1+1e-12]]"};
+            for (String m : nearSingular) {
+                e = assertThrows(ExpressionException.class, () -> evalValue("inv(" + m + ")"), m);
+                assertEquals(ErrorCode.MATRIX_SINGULAR, e.getErrorCode(), m);
+                e = assertThrows(ExpressionException.class, () -> evalValue("binv([" + m + "])"), m);
+                assertEquals(ErrorCode.BATCH_SINGULAR, e.getErrorCode(), m);
+                e = assertThrows(ExpressionException.class, () -> evalValue("bsolve([" + m + "], [" + m + "])"), m);
+                assertEquals(ErrorCode.BATCH_SINGULAR, e.getErrorCode(), m);
+            }
+        }
+    }
+
+    // ==================== 29. 按轴统计 ====================
+    @Nested
+    @DisplayName("按轴统计测试")
+    class AxisStatisticsTests {
+
+        @Test
+        @DisplayName("按列、按行统计")
+        void testBasic() {
+            String a = "[[1,2,3],[4,6,8]]";
+            assertEquals("[[5, 8, 11]]", evalValue("sumaxis(" + a + ", 0)").toString());
+            assertEquals("[[6], [18]]", evalValue("sumaxis(" + a + ", 1)").toString());
+            assertEquals("[[4, 12, 24]]", evalValue("prodaxis(" + a + ", 0)").toString());
+            assertEquals("[[1], [4]]", evalValue("minaxis(" + a + ", 1)").toString());
+            assertEquals("[[4, 6, 8]]", evalValue("maxaxis(" + a + ", 0)").toString());
+            assertEquals("[[4.5, 8, 12.5]]", evalValue("varaxis(" + a + ", 0)").toString());
+            assertEquals("[[1], [4]]", evalValue("varaxis(" + a + ", 1)").toString());
+            assertEquals("[[1], [2]]", evalValue("stdaxis(" + a + ", 1)").toString());
+            assertEquals("[[2.25, 4, 6.25]]", evalValue("varpaxis(" + a + ", 0)").toString());
+            assertEquals("[[1.5, 2, 2.5]]", evalValue("stdpaxis(" + a + ", 0)").toString());
+            assertEquals("[[2], [6]]", evalValue("medianaxis(" + a + ", 1)").toString());
+            assertEquals("[[2.5, 4, 5.5]]", evalValue("medianaxis(" + a + ", 0)").toString());
+            assertEquals("[[2.5, 4, 5.5]]", evalValue("mean(" + a + ", 0)").toString());
+        }
+
+        @Test
+        @DisplayName("转置视图、稀疏与结构化矩阵")
+        void testStorageKinds() {
+            Map<String, Object> context = new HashMap<>();
+            evalValue("A = [[1,2,3],[4,6,8]]; T = t(A)", context);
+            assertEquals("[[6, 18]]", evalValue("sumaxis(T, 0)", context).toString());
+            assertEquals("[[5], [8], [11]]", evalValue("sumaxis(T, 1)", context).toString());
+            assertEquals("[[2, 6]]", evalValue("medianaxis(T, 0)", context).toString());
+            assertEquals("[[1, 4]]", evalValue("varaxis(T, 0)", context).toString());
+            assertEquals("[[0, 2]]", evalValue("minaxis(sparse([0,1],[1,1],[5,2]), 0)").toString());
+            assertEquals("[[1], [5]]", evalValue("sumaxis(tril([[1,9],[2,3]]), 1)").toString());
+        }
+
+        @Test
+        @DisplayName("与逐列展开计算的结果一致")
+        void testAgainstScalarFunctions() {
+            int m = 257, n = 5;
+            double[] a = new double[m * n];
+            for (int i = 0; i < a.length; i++) a[i] = 1e6 + Math.sin(0.37 * i) * 100;
+            Map<String, Object> context = new HashMap<>();
+            context.put("A", new Value(new DenseArray(a, m, n)));
+            String[][] pairs = {{"sumaxis", "sum"}, {"minaxis", "min"}, {"maxaxis", "max"}, {"varaxis", "var"},
+                {"stdpaxis", "stdp"}, {"medianaxis", "median"}, {"mean", "avg"}};
+            for (String[] pair : pairs) {
+                DenseArray cols = evalValue(pair[0] + "(A, 0)", context).getDense();
+                DenseArray rows = evalValue(pair[0] + "(t(A), 1)", context).getDense();
+                for (int j = 0; j < n; j++) {
+                    double expected = eval(pair[1] + "(col(A, " + j + "))", context);
+                    assertEquals(expected, cols.get(0, j), Math.abs(expected) * 1e-12, pair[0]);
+                    assertEquals(expected, rows.get(j, 0), Math.abs(expected) * 1e-12, pair[0]);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("按轴统计错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("sumaxis([[1,2]], 2)"));
+            assertEquals(ErrorCode.MATRIX_INVALID_AXIS, e.getErrorCode());
+            assertTrue(e.getMessage().contains("sumaxis"));
+            e = assertThrows(ExpressionException.class, () -> evalValue("varaxis([[1,2]], 0)"));
+            assertEquals(ErrorCode.VARIANCE_MIN_ARGS, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("maxaxis([1,2], 0)"));
+            assertEquals(ErrorCode.MATRIX_NOT_VECTOR, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("minaxis([[1,2]], [0])"));
+            assertEquals(ErrorCode.SCALAR_REQUIRED, e.getErrorCode());
+        }
+    }
+
+    // ==================== 30. einsum ====================
+    @Nested
+    @DisplayName("einsum 测试")
+    class EinsumTests {
+
+        @Test
+        @DisplayName("常见收缩模式")
+        void testPatterns() {
+            String a = "[[1,2],[3,4]]", b = "[[5,6],[7,8]]";
+            assertEquals("[[19, 22], [43, 50]]", evalValue("einsum(\"ij,jk->ik\", " + a + ", " + b + ")").toString());
+            assertEquals("[[19, 43], [22, 50]]", evalValue("einsum(\"ij,jk->ki\", " + a + ", " + b + ")").toString());
+            assertEquals("[[26, 30], [38, 44]]", evalValue("einsum(\"ji,jk->ik\", " + a + ", " + b + ")").toString());
+            assertEquals("[[17, 23], [39, 53]]", evalValue("einsum(\"ij,kj->ik\", " + a + ", " + b + ")").toString());
+            assertEquals(5, eval("einsum(\"ii\", " + a + ")"), DELTA);
+            assertEquals(10, eval("einsum(\"ij->\", " + a + ")"), DELTA);
+            assertEquals("[1, 4]", evalValue("einsum(\"ii->i\", " + a + ")").toString());
+            assertEquals("[[1, 4], [2, 5], [3, 6]]", evalValue("einsum(\"ij->ji\", [[1,2,3],[4,5,6]])").toString());
+            assertEquals("[[3, 4, 5], [6, 8, 10]]", evalValue("einsum(\"i,j->ij\", [1,2], [3,4,5])").toString());
+            assertEquals(32, eval("einsum(\"i,i\", [1,2,3], [4,5,6])"), DELTA);
+            assertEquals("[3, 7]", evalValue("einsum(\"ij,j->i\", " + a + ", [1,1])").toString());
+            assertEquals(17, eval("einsum(\"i,ij,j->\", [1,2], " + a + ", [1,1])"), DELTA);
+            // 省略 "->" 时输出为只出现一次的字母按字母顺序排列
+            assertEquals("[[19, 43], [22, 50]]", evalValue("einsum(\"kj,ji\", " + a + ", " + b + ")").toString());
+            assertEquals("[[[1, 2], [3, 4]], [[5, 6], [7, 8]]]",
+                evalValue("einsum(\"bij,bjk->bik\", [[[1,2],[3,4]],[[1,0],[0,1]]], [[[1,0],[0,1]],[[5,6],[7,8]]])").toString());
+            assertEquals("[[[1, 5], [3, 7]], [[2, 6], [4, 8]]]",
+                evalValue("einsum(\"ijk->kji\", [[[1,2],[3,4]],[[5,6],[7,8]]])").toString());
+        }
+
+        @Test
+        @DisplayName("与 matmul、trace 组合的结果一致")
+        void testAgainstMatrixFunctions() {
+            int n = 37;
+            double[] a = new double[n * n], b = new double[n * n], c = new double[n * n];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = Math.sin(0.7 * i);
+                b[i] = Math.cos(1.3 * i);
+                c[i] = Math.sin(0.11 * i + 1);
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("A", new Value(new DenseArray(a, n, n)));
+            context.put("B", new Value(new DenseArray(b, n, n)));
+            context.put("C", new Value(new DenseArray(c, n, n)));
+            assertArrayEquals(evalValue("matmul(matmul(A, B), C)", context).getDense().getData(),
+                evalValue("einsum(\"ij,jk,kl->il\", A, B, C)", context).getDense().getData(), 1e-10);
+            assertArrayEquals(evalValue("matmul(t(A), B)", context).getDense().getData(),
+                evalValue("einsum(\"ji,jk\", A, B)", context).getDense().getData(), 1e-12);
+            assertArrayEquals(evalValue("matmul(A, t(B))", context).getDense().getData(),
+                evalValue("einsum(\"ij,kj->ik\", A, B)", context).getDense().getData(), 1e-12);
+            assertEquals(eval("trace(matmul(A, B))", context), eval("einsum(\"ij,ji->\", A, B)", context), 1e-10);
+            assertEquals(eval("trace(matmul(matmul(A, B), C))", context), eval("einsum(\"ij,jk,ki\", A, B, C)", context), 1e-10);
+            // 转置视图作为操作数
+            assertArrayEquals(evalValue("matmul(A, B)", context).getDense().getData(),
+                evalValue("einsum(\"ji,jk->ik\", t(A), B)", context).getDense().getData(), 1e-12);
+        }
+
+        @Test
+        @DisplayName("字符串字面量")
+        void testStringLiteral() {
+            assertEquals("\"ij\"", evalValue("s = \"ij\"").toString());
+            assertTrue(ExpressionEvaluator.validate("einsum(\"ij->ji\", A)").isValid());
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("einsum(\"ij, A)"));
+            assertEquals(ErrorCode.UNTERMINATED_STRING, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("\"a;b\""));
+            assertEquals(ErrorCode.UNTERMINATED_STRING, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("sin(\"ij\")"));
+            assertEquals(ErrorCode.HANDLE_NOT_SUPPORTED, e.getErrorCode());
+        }
+
+        @Test
+        @DisplayName("einsum 错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("einsum(\"ij,jk\", [[1,2]])"));
+            assertEquals(ErrorCode.EINSUM_INVALID_SUBSCRIPTS, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("einsum(\"ijk\", [[1,2]])"));
+            assertEquals(ErrorCode.EINSUM_INVALID_SUBSCRIPTS, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("einsum(\"ij->k\", [[1,2]])"));
+            assertEquals(ErrorCode.EINSUM_INVALID_SUBSCRIPTS, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("einsum(\"i1\", [1,2])"));
+            assertEquals(ErrorCode.EINSUM_INVALID_SUBSCRIPTS, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("einsum(\"ij,jk\", [[1,2]], [[1,2]])"));
+            assertEquals(ErrorCode.EINSUM_DIMENSION_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("einsum([1,2], [1,2])"));
+            assertEquals(ErrorCode.STRING_REQUIRED, e.getErrorCode());
+        }
+    }
+
+    // ==================== 31. 成对距离 ====================
+    @Nested
+    @DisplayName("成对距离测试")
+    class DistanceTests {
+
+        private double[] randomPoints(int n, int d, double shift) {
+            double[] a = new double[n * d];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = Math.sin(0.37 * i + 0.5) * 3 + shift;
+            }
+            return a;
+        }
+
+        @Test
+        @DisplayName("各度量的小规模结果")
+        void testMetrics() {
+            String x = "[[0,0],[3,4]]", y = "[[0,0],[6,8],[1,0]]";
+            assertArrayEquals(new double[]{0, 10, 1, 5, 5, Math.sqrt(20)},
+                evalValue("cdist(" + x + ", " + y + ")").getDense().getData(), DELTA);
+            assertArrayEquals(new double[]{0, 100, 1, 25, 25, 20},
+                evalValue("cdist(" + x + ", " + y + ", \"sqeuclidean\")").getDense().getData(), DELTA);
+            assertArrayEquals(new double[]{0, 14, 1, 7, 7, 6},
+                evalValue("cdist(" + x + ", " + y + ", \"cityblock\")").getDense().getData(), DELTA);
+            assertArrayEquals(new double[]{0, 14, 1, 7, 7, 6},
+                evalValue("cdist(" + x + ", " + y + ", \"Manhattan\")").getDense().getData(), DELTA);
+            assertArrayEquals(new double[]{0, 1, 1 - 0.6},
+                evalValue("cdist([[3,4]], [[6,8],[-4,3],[1,0]], \"cosine\")").getDense().getData(), DELTA);
+            assertArrayEquals(new double[]{0, 2},
+                evalValue("cdist([[1,2,3]], [[2,4,6],[3,2,1]], \"correlation\")").getDense().getData(), DELTA);
+            assertEquals("[2, 3]", Arrays.toString(evalValue("cdist(" + x + ", " + y + ")").getDense().getShape()));
+            // 与两点函数 dist、manhattan 一致
+            assertEquals(eval("dist(1,2,3, 4,6,3)"), evalValue("cdist([[1,2,3]], [[4,6,3]])").getDense().get(0, 0), DELTA);
+            assertEquals(eval("manhattan(1,2,3, 4,6,3)"), evalValue("cdist([[1,2,3]], [[4,6,3]], \"manhattan\")").getDense().get(0, 0), DELTA);
+        }
+
+        @Test
+        @DisplayName("pdist 压缩向量")
+        void testPdist() {
+            assertArrayEquals(new double[]{5, 10, 5},
+                evalValue("pdist([[0,0],[3,4],[6,8]])").getDense().getData(), DELTA);
+            assertArrayEquals(new double[]{7, 14, 7},
+                evalValue("pdist([[0,0],[3,4],[6,8]], \"cityblock\")").getDense().getData(), DELTA);
+            assertEquals(0, evalValue("pdist([[1,2,3]])").getDense().size());
+        }
+
+        @Test
+        @DisplayName("大规模分块并行结果与逐点计算一致")
+        void testLargeAgainstNaive() {
+            int m = 300, n = 260, d = 31;
+            // 远离原点的点：展开式 ||x||² + ||y||² − 2x·y 在平移后仍保持精度
+            double[] a = randomPoints(m, d, 1e4), b = randomPoints(n, d, 1e4 + 0.5);
+            Map<String, Object> context = new HashMap<>();
+            context.put("X", new Value(new DenseArray(a, m, d)));
+            context.put("Y", new Value(new DenseArray(b, n, d)));
+            for (String metric : new String[]{"euclidean", "cityblock", "cosine", "correlation"}) {
+                double[] r = evalValue("cdist(X, Y, \"" + metric + "\")", context).getDense().getData();
+                double[] p = evalValue("pdist(X, \"" + metric + "\")", context).getDense().getData();
+                assertEquals(m * (m - 1) / 2, p.length);
+                for (int i = 0; i < m; i += 7) {
+                    for (int j = 0; j < n; j += 5) {
+                        assertEquals(naive(a, i, b, j, d, metric), r[i * n + j], 1e-8, metric);
+                    }
+                    for (int j = i + 1; j < m; j += 3) {
+                        int k = m * i - i * (i + 1) / 2 + j - i - 1;
+                        assertEquals(naive(a, i, a, j, d, metric), p[k], 1e-8, metric);
+                    }
+                }
+            }
+        }
+
+        private double naive(double[] a, int i, double[] b, int j, int d, String metric) {
+            double ma = 0, mb = 0;
+            if ("correlation".equals(metric)) {
+                for (int t = 0; t < d; t++) {
+                    ma += a[i * d + t] / d;
+                    mb += b[j * d + t] / d;
+                }
+            }
+            double sq = 0, abs = 0, dot = 0, na = 0, nb = 0;
+            for (int t = 0; t < d; t++) {
+                double u = a[i * d + t] - ma, v = b[j * d + t] - mb;
+                sq += (u - v) * (u - v);
+                abs += Math.abs(u - v);
+                dot += u * v;
+                na += u * u;
+                nb += v * v;
+            }
+            switch (metric) {
+                case "euclidean":
+                    return Math.sqrt(sq);
+                case "cityblock":
+                    return abs;
+                default:
+                    return 1 - dot / Math.sqrt(na * nb);
+            }
+        }
+
+        @Test
+        @DisplayName("成对距离错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("cdist([[1,2]], [[1,2,3]])"));
+            assertEquals(ErrorCode.DISTANCE_DIMENSION_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("cdist([[1,2]], [[1,2]], \"chebyshev\")"));
+            assertEquals(ErrorCode.DISTANCE_UNKNOWN_METRIC, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("cdist([[1,2]], [[0,0]], \"cosine\")"));
+            assertEquals(ErrorCode.DISTANCE_ZERO_NORM, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("pdist([[1,1],[1,2]], \"correlation\")"));
+            assertEquals(ErrorCode.DISTANCE_ZERO_NORM, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("pdist([[1,2]], 1)"));
+            assertEquals(ErrorCode.STRING_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("cdist([[1,2]], [[1,2]], \"cosine\", 1)"));
+            assertEquals(ErrorCode.INVALID_ARG_COUNT, e.getErrorCode());
+        }
+    }
+
+    // ==================== 32. 顺序统计量 ====================
+    @Nested
+    @DisplayName("顺序统计量测试")
+    class OrderStatisticsTests {
+
+        private double sortedPercentile(double[] data, double p) {
+            double[] sorted = data.clone();
+            Arrays.sort(sorted);
+            double index = p / 100.0 * (sorted.length - 1);
+            int lower = (int) Math.floor(index), upper = (int) Math.ceil(index);
+            double weight = index - lower;
+            return lower == upper ? sorted[lower] : sorted[lower] * (1 - weight) + sorted[upper] * weight;
+        }
+
+        @Test
+        @DisplayName("选择结果与排序一致")
+        void testAgainstSort() {
+            // 随机、升序、降序、大量重复值
+            int n = 1001;
+            double[][] inputs = new double[4][n];
+            for (int i = 0; i < n; i++) {
+                inputs[0][i] = Math.sin(i * 12.9898) * 43758.5453 % 1;
+                inputs[1][i] = i;
+                inputs[2][i] = n - i;
+                inputs[3][i] = i % 3;
+            }
+            for (double[] data : inputs) {
+                for (int len : new int[]{n, n - 1}) {
+                    double[] d = Arrays.copyOf(data, len);
+                    Map<String, Object> context = new HashMap<>();
+                    context.put("x", new Value(new DenseArray(d.clone(), len)));
+                    assertEquals(sortedPercentile(d, 50), eval("median(x)", context), 1e-9);
+                    for (double p : new double[]{0, 1, 37.5, 90, 99, 100}) {
+                        assertEquals(sortedPercentile(d, p), eval("percentile(" + p + ", x)", context), 1e-9);
+                    }
+                    double[] r = evalValue("percentiles(x, [99, 0, 50, 90, 50])", context).getDense().getData();
+                    assertArrayEquals(new double[]{sortedPercentile(d, 99), sortedPercentile(d, 0), sortedPercentile(d, 50),
+                        sortedPercentile(d, 90), sortedPercentile(d, 50)}, r, 1e-12);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("percentiles 的形式与缓存")
+        void testPercentiles() {
+            assertEquals("[1, 3, 5]", evalValue("percentiles([5, 3, 1, 4, 2], [0, 50, 100])").toString());
+            assertEquals(4.0, eval("percentiles([5, 3, 1, 4, 2], 75)"), DELTA);
+            assertEquals(7.0, eval("percentiles(7, 30)"), DELTA);
+            // 同一变量的多次查询（第二次起使用排序后的缓存）结果不变
+            Map<String, Object> context = new HashMap<>();
+            evalValue("x = [9, 2, 7, 4, 5, 6, 3, 8, 1]", context);
+            for (int round = 0; round < 3; round++) {
+                assertArrayEquals(new double[]{1.8, 5, 8.2, 9},
+                    evalValue("percentiles(x, [10, 50, 90, 100])", context).getDense().getData(), 1e-12);
+            }
+            assertEquals("[9, 2, 7, 4, 5, 6, 3, 8, 1]", evalValue("x", context).toString());
+        }
+
+        @Test
+        @DisplayName("多个线程同时查询同一数据")
+        void testConcurrentPercentiles() throws InterruptedException {
+            int n = 100_001;
+            double[] data = new double[n];
+            for (int i = 0; i < n; i++) {
+                data[i] = (i * 7919L) % n;
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(data, n)));
+            double[] expected = {n * 0.1 - 0.1, (n - 1) / 2.0, n * 0.9 - 0.9};
+            double[][] results = new double[8 * 4][];
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                int id = t;
+                threads[t] = new Thread(() -> {
+                    for (int round = 0; round < 4; round++) {
+                        results[id * 4 + round] = evalValue("percentiles(x, [10, 50, 90])", context).getDense().getData();
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (double[] r : results) {
+                assertArrayEquals(expected, r, 1e-9);
+            }
+        }
+
+        @Test
+        @DisplayName("百分位数错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("percentiles([1, 2], [50, 101])"));
+            assertEquals(ErrorCode.PERCENTILE_RANGE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("percentiles([1, 2])"));
+            assertEquals(ErrorCode.INVALID_ARG_COUNT, e.getErrorCode());
+        }
+    }
+
+    // ==================== 33. 单遍统计累加 ====================
+    @Nested
+    @DisplayName("单遍统计累加测试")
+    class StreamingStatisticsTests {
+
+        @Test
+        @DisplayName("跨多个块且均值很大时方差保持精度")
+        void testLargeOffsetAcrossBlocks() {
+            int n = 50000;
+            double[] x = new double[n], y = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = 1e9 + i % 10;
+                y[i] = -3e8 - 2 * (i % 10);
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(x, n)));
+            context.put("y", new Value(new DenseArray(y, n)));
+            assertEquals(8.25, eval("varp(x)", context), 1e-9);
+            assertEquals(8.25 * n / (n - 1), eval("var(x)", context), 1e-9);
+            assertEquals(Math.sqrt(8.25), eval("stdp(x)", context), 1e-9);
+            assertEquals(-16.5, eval("covp(x, y)", context), 1e-9);
+            assertEquals(-1, eval("corr(x, y)", context), 1e-12);
+            // 参数数组直接使用变量存储，求值后变量不变
+            assertEquals(1e9, x[0], 0);
+            assertEquals(1e9 + 9, x[n - 1], 0);
+        }
+
+        @Test
+        @DisplayName("混合参数按原顺序展开")
+        void testMixedArguments() {
+            Map<String, Object> context = new HashMap<>();
+            context.put("S", evalValue("sparse([0, 1], [1, 0], [5, 6], 2, 2)"));
+            context.put("D", evalValue("diag([1, 2])"));
+            // S = [[0, 5], [6, 0]]，D = [[1, 0], [0, 2]]
+            assertEquals(eval("sum(1, 0, 5, 6, 0, 1, 0, 0, 2, 3, 4)"), eval("sum(1, S, D, [3, [4]])", context), DELTA);
+            assertEquals(eval("var(1, 0, 5, 6, 0, 1, 0, 0, 2, 3, 4)"), eval("var(1, S, D, [3, [4]])", context), DELTA);
+            assertEquals(eval("corr(0, 5, 6, 0, 1, 0, 0, 2)"), eval("corr(S, D)", context), DELTA);
+            assertEquals(10.0 / 3, eval("cov([1, 2, 3, 4], [2, 4, 6, 8])"), DELTA);
+        }
+    }
+
+    // ==================== 34. 近似统计草图 ====================
+    @Nested
+    @DisplayName("近似统计草图测试")
+    class SketchTests {
+
+        private Map<String, Object> permutationContext(int n) {
+            // 0..n-1 的一个排列
+            double[] x = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = (i * 7919L) % n;
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(x, n)));
+            return context;
+        }
+
+        @Test
+        @DisplayName("KLL 分位数误差有界")
+        void testQuantileAccuracy() {
+            int n = 100000;
+            Map<String, Object> context = permutationContext(n);
+            evalValue("s = qsketch(x)", context);
+            assertEquals("<kll k=200, n=100000>", evalValue("s", context).toString());
+            double[] q = evalValue("qpercentile(s, [0, 10, 50, 90, 99, 100])", context).getDense().getData();
+            double[] exact = {0, 0.1 * n, 0.5 * n, 0.9 * n, 0.99 * n, n - 1};
+            for (int i = 0; i < q.length; i++) {
+                assertEquals(exact[i], q[i], 0.02 * n);
+            }
+            assertEquals(0, q[0], 0);
+            assertEquals(n - 1, q[5], 0);
+            // 更大的 k 更精确
+            assertEquals(0.5 * n, eval("qpercentile(qsketch(x, 2000), 50)", context), 0.002 * n);
+        }
+
+        @Test
+        @DisplayName("KLL 合并与序列化")
+        void testQuantileMerge() {
+            Map<String, Object> context = new HashMap<>();
+            double[] lo = new double[50000], hi = new double[50000];
+            for (int i = 0; i < lo.length; i++) {
+                lo[i] = (i * 7919L) % 50000;
+                hi[i] = lo[i] + 50000;
+            }
+            context.put("a", new Value(new DenseArray(lo, lo.length)));
+            context.put("b", new Value(new DenseArray(hi, hi.length)));
+            evalValue("m = qmerge(qsketch(a), qsketch(b))", context);
+            assertEquals(50000, eval("qpercentile(m, 50)", context), 2000);
+            assertEquals(90000, eval("qpercentile(m, 90)", context), 2000);
+            evalValue("r = sketchload(sketchdata(m))", context);
+            assertEquals(evalValue("m", context).toString(), evalValue("r", context).toString());
+            assertArrayEquals(evalValue("qpercentile(m, [5, 25, 75])", context).getDense().getData(),
+                evalValue("qpercentile(r, [5, 25, 75])", context).getDense().getData(), 0);
+        }
+
+        @Test
+        @DisplayName("HyperLogLog 不同值计数")
+        void testDistinctCount() {
+            int n = 100000;
+            double[] x = new double[2 * n];
+            for (int i = 0; i < x.length; i++) {
+                x[i] = (i % n) * 0.5;
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(x, x.length)));
+            assertEquals(n, eval("hllcount(hll(x))", context), 0.03 * n);
+            // 小基数使用线性计数，几乎精确
+            assertEquals(4, eval("hllcount(hll([1, 2, 3, 0, -0, 0]))"), 0);
+            // 合并等价于整体处理
+            evalValue("h1 = hll([1, 2, 3, 4]); h2 = hll([3, 4, 5, 6])", context);
+            assertEquals(eval("hllcount(hll([1, 2, 3, 4, 5, 6]))"), eval("hllcount(hllmerge(h1, h2))", context), 0);
+            assertEquals(eval("hllcount(hllmerge(h1, h2))", context),
+                eval("hllcount(sketchload(sketchdata(hllmerge(h1, h2))))", context), 0);
+        }
+
+        @Test
+        @DisplayName("草图错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("qpercentile(hll([1]), 50)"));
+            assertEquals(ErrorCode.SKETCH_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("hllmerge(hll([1], 10), hll([1], 12))"));
+            assertEquals(ErrorCode.SKETCH_PRECISION_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("hll([1], 30)"));
+            assertEquals(ErrorCode.SKETCH_PARAMETER_RANGE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("sketchload([2, 4, 1])"));
+            assertEquals(ErrorCode.SKETCH_DATA_INVALID, e.getErrorCode());
+            // 空草图：没有非 NaN 数据，或反序列化的数据中 n 为 0
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(new double[]{Double.NaN, Double.NaN}, 2)));
+            e = assertThrows(ExpressionException.class, () -> evalValue("qsketch(x)", context));
+            assertEquals(ErrorCode.SKETCH_EMPTY, e.getErrorCode());
+            for (String data : new String[]{"[1, 200, 0, 0, 0, 1, 0]", "[1, 200, 0, 7, 3, 1, 0]"}) {
+                e = assertThrows(ExpressionException.class, () -> evalValue("qpercentile(sketchload(" + data + "), 50)"), data);
+                assertEquals(ErrorCode.SKETCH_DATA_INVALID, e.getErrorCode(), data);
+            }
+            e = assertThrows(ExpressionException.class, () -> evalValue("sin(qsketch([1, 2]))"));
+            assertEquals(ErrorCode.HANDLE_NOT_SUPPORTED, e.getErrorCode());
+        }
+    }
+
+    // ==================== 35. 可重现归约 ====================
+    @Nested
+    @DisplayName("可重现归约测试")
+    class ReductionTests {
+
+        @Test
+        @DisplayName("补偿求和")
+        void testCompensatedSum() {
+            assertEquals(1, eval("sum(1e16, 1, -1e16)"), 0);
+            assertEquals(6, eval("sumabs(-1, 2, -3)"), 0);
+            assertEquals(0.25, eval("avg(1e16, 1, -1e16, 0)"), 0);
+            assertEquals(Double.POSITIVE_INFINITY, eval("sum(1e308, 1e308, 1)"), 0);
+        }
+
+        @Test
+        @DisplayName("大数据量并行结果精确且可重复")
+        void testLargeParallel() {
+            int n = 3_000_000;
+            double[] x = new double[n];
+            Arrays.fill(x, 0.1);
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                y[i] = (i % 2 == 0 ? 1 : -1) * (1 + (i % 7) * 1e-3);
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(x, n)));
+            context.put("y", new Value(new DenseArray(y, n)));
+            // 朴素累加在此处的误差约为 1e-5
+            assertEquals(300000, eval("sum(x)", context), 0);
+            assertEquals(0.1, eval("avg(x)", context), 0);
+            assertEquals(Math.sqrt(n * 0.01), eval("norm2(x)", context), 1e-9);
+            assertEquals(0.1, eval("rms(x)", context), 1e-15);
+            double first = eval("sum(y)", context);
+            for (int round = 0; round < 5; round++) {
+                assertEquals(first, eval("sum(y)", context), 0);
+                assertEquals(eval("sumabs(y)", context), eval("sumabs(y)", context), 0);
+            }
+            double[] z = new double[n];
+            for (int i = 0; i < n; i++) {
+                z[i] = i % 2 == 0 ? 4 : 0.25;
+            }
+            context.put("z", new Value(new DenseArray(z, n)));
+            assertEquals(1, eval("prod(z)", context), 0);
+            assertEquals(eval("var(y)", context), eval("var(y)", context), 0);
+        }
+    }
+
+    // ==================== 36. 滑动窗口与累积函数 ====================
+    @Nested
+    @DisplayName("滑动窗口与累积函数测试")
+    class WindowFunctionTests {
+
+        @Test
+        @DisplayName("小规模结果与形状")
+        void testSmall() {
+            assertEquals("[6, 9, 12]", evalValue("movsum([1, 2, 3, 4, 5], 3)").toString());
+            assertEquals("[2, 3, 4]", evalValue("movavg([1, 2, 3, 4, 5], 3)").toString());
+            assertEquals("[1, 1, 1]", evalValue("movstd([1, 2, 3, 4, 5], 3)").toString());
+            assertEquals("[1, 1, 0, 0]", evalValue("movmin([3, 1, 4, 1, 0, 9], 3)").toString());
+            assertEquals("[4, 4, 4, 9]", evalValue("movmax([3, 1, 4, 1, 0, 9], 3)").toString());
+            assertEquals("[1, 3, 6, 10]", evalValue("cumsum([1, 2, 3, 4])").toString());
+            assertEquals("[1, 2, 6, 24]", evalValue("cumprod([1, 2, 3, 4])").toString());
+            assertEquals("[4, 3, 2.5, 2.25]", evalValue("ema([4, 2, 2, 2], 0.5)").toString());
+            // 行向量、列向量保持方向，矩阵按列计算
+            assertEquals("[[1, 3, 6]]", evalValue("cumsum([[1, 2, 3]])").toString());
+            assertEquals("[[3], [5]]", evalValue("movsum([[1], [2], [3]], 2)").toString());
+            assertEquals("[[1, 10], [3, 30], [6, 60]]", evalValue("cumsum([[1, 10], [2, 20], [3, 30]])").toString());
+            assertEquals("[[3, 30]]", evalValue("movmax([[1, 10], [2, 20], [3, 30]], 3)").toString());
+            assertEquals("[5]", evalValue("movsum([5], 1)").toString());
+        }
+
+        @Test
+        @DisplayName("长序列与逐窗口计算一致")
+        void testAgainstNaive() {
+            int n = 200_000, w = 37;
+            double[] x = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = Math.sin(i * 0.37) * 100 + (i % 11);
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(x, n)));
+            double[] avg = evalValue("movavg(x, " + w + ")", context).getDense().getData();
+            double[] std = evalValue("movstd(x, " + w + ")", context).getDense().getData();
+            double[] min = evalValue("movmin(x, " + w + ")", context).getDense().getData();
+            double[] max = evalValue("movmax(x, " + w + ")", context).getDense().getData();
+            assertEquals(n - w + 1, avg.length);
+            for (int s = 0; s + w <= n; s += 997) {
+                double sum = 0, lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+                for (int i = s; i < s + w; i++) {
+                    sum += x[i];
+                    lo = Math.min(lo, x[i]);
+                    hi = Math.max(hi, x[i]);
+                }
+                double mean = sum / w, m2 = 0;
+                for (int i = s; i < s + w; i++) {
+                    m2 += (x[i] - mean) * (x[i] - mean);
+                }
+                assertEquals(mean, avg[s], 1e-9);
+                assertEquals(Math.sqrt(m2 / (w - 1)), std[s], 1e-8);
+                assertEquals(lo, min[s], 0);
+                assertEquals(hi, max[s], 0);
+            }
+            // 分块并行的前缀和
+            double[] cs = evalValue("cumsum(x)", context).getDense().getData();
+            double running = 0;
+            for (int i = 0; i < n; i++) {
+                running += x[i];
+                assertEquals(running, cs[i], 1e-6);
+            }
+        }
+
+        @Test
+        @DisplayName("NaN 与 Infinity 移出窗口后恢复")
+        void testNonFinite() {
+            assertEquals("[Infinity, Infinity, 2, 2]", evalValue("movsum([1, 1e308*10, 1, 1, 1], 2)").toString());
+            assertEquals("[Infinity, Infinity, 1, 1]", evalValue("movavg([1, 1e308*10, 1, 1, 1], 2)").toString());
+            assertEquals("[NaN, -Infinity, 2, 2]", evalValue("movsum([1e308*10, -1e308*10, 1, 1, 1], 2)").toString());
+            double[] std = evalValue("movstd([1, 2, 1e308*10, 1, 2, 3, 4], 2)").getDense().getData();
+            assertEquals(Math.sqrt(0.5), std[0], 1e-12);
+            assertTrue(Double.isNaN(std[1]));
+            assertTrue(Double.isNaN(std[2]));
+            for (int i = 3; i < std.length; i++) {
+                assertEquals(Math.sqrt(0.5), std[i], 1e-12);
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(new double[]{1, Double.NaN, 2, 3, 4}, 5)));
+            assertEquals("[NaN, NaN, 5, 7]", evalValue("movsum(x, 2)", context).toString());
+        }
+
+        @Test
+        @DisplayName("窗口函数错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("movavg([1, 2], 3)"));
+            assertEquals(ErrorCode.WINDOW_SIZE_INVALID, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("movsum([1, 2], 1.5)"));
+            assertEquals(ErrorCode.WINDOW_SIZE_INVALID, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("ema([1, 2], 0)"));
+            assertEquals(ErrorCode.EMA_ALPHA_RANGE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("movstd([1, 2], 1)"));
+            assertEquals(ErrorCode.VARIANCE_MIN_ARGS, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("cumsum(3)"));
+            assertEquals(ErrorCode.MATRIX_REQUIRED, e.getErrorCode());
+        }
+    }
+
+    // ==================== 37. 排序与去重 ====================
+    @Nested
+    @DisplayName("排序与去重测试")
+    class SortTests {
+
+        @Test
+        @DisplayName("小规模结果")
+        void testSmall() {
+            assertEquals("[1, 2, 3, 5]", evalValue("sort([3, 1, 5, 2])").toString());
+            assertEquals("[5, 3, 2, 1]", evalValue("sort([3, 1, 5, 2], \"desc\")").toString());
+            assertEquals("[1, 2, 3, 4]", evalValue("sort([[4, 3], [2, 1]])").toString());
+            assertEquals("[1, 3, 0, 2]", evalValue("argsort([3, 1, 5, 2])").toString());
+            // 稳定：相等元素保持原顺序
+            assertEquals("[1, 3, 0, 2]", evalValue("argsort([2, 1, 2, 1])").toString());
+            assertEquals("[0, 2, 1, 3]", evalValue("argsort([2, 1, 2, 1], \"desc\")").toString());
+            assertEquals("[9, 7]", evalValue("topk([3, 9, 1, 7, 5], 2)").toString());
+            assertEquals("[1, 2, 3]", evalValue("unique([3, 1, 2, 3, 1])").toString());
+            assertEquals("[0, 1]", evalValue("unique([0, -0, 1])").toString());
+        }
+
+        @Test
+        @DisplayName("大规模数据与朴素结果一致")
+        void testLarge() {
+            int n = 300_000;
+            double[] x = new double[n];
+            Random random = new Random(46);
+            for (int i = 0; i < n; i++) {
+                x[i] = random.nextInt(50_000);
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(x, n)));
+            double[] expected = x.clone();
+            Arrays.sort(expected);
+            assertArrayEquals(expected, evalValue("sort(x)", context).getDense().getData(), 0);
+
+            double[] idx = evalValue("argsort(x)", context).getDense().getData();
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected[i], x[(int) idx[i]], 0);
+                if (i > 0 && expected[i] == expected[i - 1]) {
+                    assertTrue(idx[i] > idx[i - 1]);
+                }
+            }
+
+            // 堆（k 远小于 n）与选择两种路径
+            for (int k : new int[]{10, 100_000}) {
+                double[] top = evalValue("topk(x, " + k + ")", context).getDense().getData();
+                assertEquals(k, top.length);
+                for (int i = 0; i < k; i++) {
+                    assertEquals(expected[n - 1 - i], top[i], 0);
+                }
+            }
+
+            double[] unique = evalValue("unique(x)", context).getDense().getData();
+            assertEquals(Arrays.stream(x).distinct().count(), unique.length);
+            for (int i = 1; i < unique.length; i++) {
+                assertTrue(unique[i] > unique[i - 1]);
+            }
+        }
+
+        @Test
+        @DisplayName("排序函数错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("topk([1, 2], 3)"));
+            assertEquals(ErrorCode.TOPK_RANGE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("topk([1, 2], 0)"));
+            assertEquals(ErrorCode.TOPK_RANGE, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("sort([1, 2], \"up\")"));
+            assertEquals(ErrorCode.SORT_ORDER_UNKNOWN, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("sort([1, 2], 1)"));
+            assertEquals(ErrorCode.STRING_REQUIRED, e.getErrorCode());
+        }
+    }
+
+    // ==================== 38. 协方差矩阵 ====================
+    @Nested
+    @DisplayName("协方差矩阵测试")
+    class CovarianceMatrixTests {
+
+        @Test
+        @DisplayName("小规模结果")
+        void testSmall() {
+            assertEquals("[[1, 2], [2, 4]]", evalValue("covmatrix([[1, 2], [2, 4], [3, 6]])").toString());
+            assertEquals("[[1, -1], [-1, 1]]", evalValue("corrmatrix([[1, 6], [2, 4], [3, 2]])").toString());
+            assertEquals(2.0 / 3, evalValue("covmatrixp([[1, 2], [2, 4], [3, 6]])").getDense().get(0, 0), 1e-15);
+        }
+
+        @Test
+        @DisplayName("与逐对 cov、corr 一致")
+        void testAgainstPairwise() {
+            int m = 500, n = 70;
+            double[] x = new double[m * n];
+            Random random = new Random(47);
+            for (int t = 0; t < m; t++) {
+                double common = random.nextGaussian();
+                for (int j = 0; j < n; j++) {
+                    // 较大的偏移检验中心化的数值稳定性
+                    x[t * n + j] = 1e6 + j + common * (j % 5) + random.nextGaussian();
+                }
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("X", new Value(new DenseArray(x, m, n)));
+            DenseArray cov = evalValue("covmatrix(X)", context).getDense();
+            DenseArray corr = evalValue("corrmatrix(X)", context).getDense();
+            for (int[] p : new int[][]{{0, 0}, {1, 6}, {3, 68}, {69, 2}}) {
+                double[] pair = new double[2 * m];
+                for (int t = 0; t < m; t++) {
+                    pair[t] = x[t * n + p[0]];
+                    pair[m + t] = x[t * n + p[1]];
+                }
+                context.put("p", new Value(new DenseArray(pair, 2 * m)));
+                assertEquals(eval("cov(p)", context), cov.get(p[0], p[1]), 1e-9);
+                assertEquals(cov.get(p[0], p[1]), cov.get(p[1], p[0]), 0);
+                assertEquals(eval("corr(p)", context), corr.get(p[0], p[1]), 1e-9);
+            }
+        }
+
+        @Test
+        @DisplayName("协方差矩阵错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("covmatrix([[1, 2]])"));
+            assertEquals(ErrorCode.COVARIANCE_MIN_ARGS, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("corrmatrix([[1, 2], [1, 3]])"));
+            assertEquals(ErrorCode.STD_DEV_ZERO, e.getErrorCode());
+        }
+    }
+
+    // ==================== 39. 线性回归 ====================
+    @Nested
+    @DisplayName("线性回归测试")
+    class RegressionTests {
+
+        @Test
+        @DisplayName("精确拟合与统计量")
+        void testExactFit() {
+            // y = 1 + 2x
+            assertEquals("[1, 2]", evalValue("linreg([[1, 0], [1, 1], [1, 2], [1, 3]], [1, 3, 5, 7])").toString());
+            assertEquals("[2]", evalValue("linreg([1, 2, 3], [2, 4, 6])").toString());
+            double[] stats = evalValue("linregstats([[1, 0], [1, 1], [1, 2], [1, 3]], [1, 3, 6, 7])").getDense().getData();
+            // 系数 [1.1, 2.1]，残差 [-0.1, -0.2, 0.7, -0.4]
+            assertEquals(0.7, stats[3], 1e-12);
+            assertEquals(1 - 0.7 / 22.75, stats[0], 1e-12);
+            assertEquals(1 - (0.7 / 22.75) * 3 / 2, stats[1], 1e-12);
+            assertEquals(Math.sqrt(0.35), stats[2], 1e-12);
+            assertEquals(4, stats[4], 0);
+        }
+
+        @Test
+        @DisplayName("分批累加与一次拟合一致")
+        void testStreaming() {
+            int m = 20_000;
+            double[] x = new double[m * 3], y = new double[m];
+            Random random = new Random(48);
+            for (int t = 0; t < m; t++) {
+                double a = random.nextGaussian(), b = 1000 + random.nextGaussian();
+                x[t * 3] = 1;
+                x[t * 3 + 1] = a;
+                x[t * 3 + 2] = b;
+                y[t] = 3 - 2 * a + 0.5 * b + 0.01 * random.nextGaussian();
+            }
+            Map<String, Object> context = new HashMap<>();
+            context.put("X", new Value(new DenseArray(x, m, 3)));
+            context.put("y", new Value(new DenseArray(y, m)));
+            context.put("yc", new Value(new DenseArray(y, m, 1)));
+            context.put("X1", new Value(new DenseArray(Arrays.copyOf(x, 3 * 7000), 7000, 3)));
+            context.put("y1", new Value(new DenseArray(Arrays.copyOf(y, 7000), 7000)));
+            context.put("X2", new Value(new DenseArray(Arrays.copyOfRange(x, 3 * 7000, 3 * m), m - 7000, 3)));
+            context.put("y2", new Value(new DenseArray(Arrays.copyOfRange(y, 7000, m), m - 7000)));
+            double[] whole = evalValue("linreg(X, y)", context).getDense().getData();
+            double[] merged = evalValue("linreg(lsqmerge(lsq(X1, y1), lsq(X2, y2)))", context).getDense().getData();
+            assertEquals(3, whole[0], 0.3);
+            assertEquals(-2, whole[1], 1e-3);
+            assertEquals(0.5, whole[2], 1e-3);
+            assertArrayEquals(whole, merged, 1e-9);
+            // 与正规方程的结果一致（1000 的偏移使 XᵀX 病态，正规方程本身只有约 6 位有效数字）
+            double[] chained = evalValue("matmul(inv(matmul(transpose(X), X)), matmul(transpose(X), yc))", context)
+                .getDense().getData();
+            assertArrayEquals(chained, whole, 1e-4);
+            double[] stats = evalValue("linregstats(lsq(X, y))", context).getDense().getData();
+            assertTrue(stats[0] > 0.999);
+            assertEquals(m, stats[4], 0);
+            assertEquals("<lsq p=3, n=20000>", evalValue("lsq(X, y)", context).toString());
+        }
+
+        @Test
+        @DisplayName("回归错误")
+        void testErrors() {
+            ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue("linreg([[1, 2], [2, 4], [3, 6]], [1, 2, 3])"));
+            assertEquals(ErrorCode.REGRESSION_RANK_DEFICIENT, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("linreg([[1, 2], [2, 5]], [1, 2, 3])"));
+            assertEquals(ErrorCode.REGRESSION_DIMENSION_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("lsqmerge(lsq([1, 2], [1, 2]), lsq([[1, 2]], [1]))"));
+            assertEquals(ErrorCode.REGRESSION_PREDICTOR_MISMATCH, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("linreg(qsketch([1, 2]))"));
+            assertEquals(ErrorCode.REGRESSION_ACCUMULATOR_REQUIRED, e.getErrorCode());
+            e = assertThrows(ExpressionException.class, () -> evalValue("lsqmerge(lsq([1, 2], [1, 2]), 3)"));
+            assertEquals(ErrorCode.REGRESSION_ACCUMULATOR_REQUIRED, e.getErrorCode());
+            assertTrue(e.getMessage().contains("argument 2"));
+        }
+
+        @Test
+        @DisplayName("很大或很小的数据不溢出")
+        void testExtremeScale() {
+            for (double scale : new double[]{1e200, 1e-200}) {
+                Map<String, Object> context = new HashMap<>();
+                context.put("X", new Value(new DenseArray(new double[]{scale, scale, scale, 2 * scale, scale, 3 * scale}, 3, 2)));
+                context.put("y", new Value(new DenseArray(new double[]{3 * scale, 5 * scale, 7 * scale}, 3)));
+                double[] b = evalValue("linreg(X, y)", context).getDense().getData();
+                assertEquals(1, b[0], 1e-9);
+                assertEquals(2, b[1], 1e-9);
+            }
+        }
+    }
+
+    // ==================== 40. 信号处理 ====================
+    @Nested
+    @DisplayName("信号处理测试")
+    class SignalTests {
+
+        /**
+         * 朴素 DFT
+         */
+        private double[][] dft(double[] x) {
+            int n = x.length;
+            double[] re = new double[n], im = new double[n];
+            for (int k = 0; k < n; k++) {
+                for (int j = 0; j < n; j++) {
+                    double angle = -2 * Math.PI * ((long) j * k % n) / n;
+                    re[k] += x[j] * Math.cos(angle);
+                    im[k] += x[j] * Math.sin(angle);
+                }
+            }
+            return new double[][]{re, im};
+        }
+
+        @Test
+        @DisplayName("FFT 与朴素 DFT 一致")
+        void testFft() {
+            Random random = new Random(49);
+            // 2 的幂与非 2 的幂（Bluestein）长度
+            for (int n : new int[]{1, 2, 8, 64, 3, 12, 97, 1000}) {
+                double[] x = new double[n];
+                for (int j = 0; j < n; j++) {
+                    x[j] = random.nextGaussian();
+                }
+                Map<String, Object> context = new HashMap<>();
+                context.put("x", new Value(new DenseArray(x, n)));
+                DenseArray f = evalValue("fft(x)", context).getDense();
+                double[][] expected = dft(x);
+                for (int k = 0; k < n; k++) {
+                    assertEquals(expected[0][k], f.get(k, 0), 1e-9);
+                    assertEquals(expected[1][k], f.get(k, 1), 1e-9);
+                }
+                DenseArray back = evalValue("ifft(fft(x))", context).getDense();
+                for (int k = 0; k < n; k++) {
+                    assertEquals(x[k], back.get(k, 0), 1e-12);
+                    assertEquals(0, back.get(k, 1), 1e-12);
+                }
+            }
+            DenseArray f = evalValue("fft([1, 1, 1, 1])").getDense();
+            assertEquals(4, f.get(0, 0), 1e-15);
+            assertEquals(0, f.get(2, 0), 1e-15);
+        }
+
+        @Test
+        @DisplayName("卷积、互相关与周期图")
+        void testConvolution() {
+            assertEquals("[1, 3, 6, 5, 3]", evalValue("conv([1, 2, 3], [1, 1, 1])").toString());
+            assertEquals("[3, 8, 14, 8, 3]", evalValue("xcorr([1, 2, 3])").toString());
+            // r_k = Σ x_(j+k)·y_j，k = -1, 0, 1, 2
+            assertEquals("[2, 5, 8, 3]", evalValue("xcorr([1, 2, 3], [1, 2])").toString());
+
+            // 大规模时走 FFT 路径，与直接法一致
+            int n = 5000, m = 3000;
+            double[] x = new double[n], h = new double[m];
+            Random random = new Random(490);
+            for (int i = 0; i < n; i++) x[i] = random.nextGaussian();
+            for (int i = 0; i < m; i++) h[i] = random.nextGaussian();
+            Map<String, Object> context = new HashMap<>();
+            context.put("x", new Value(new DenseArray(x, n)));
+            context.put("h", new Value(new DenseArray(h, m)));
+            double[] c = evalValue("conv(x, h)", context).getDense().getData();
+            double[] r = evalValue("xcorr(x, h)", context).getDense().getData();
+            assertEquals(n + m - 1, c.length);
+            for (int k = 0; k < c.length; k += 397) {
+                double direct = 0, corr = 0;
+                for (int j = Math.max(0, k - m + 1); j <= Math.min(n - 1, k); j++) {
+                    direct += x[j] * h[k - j];
+                    corr += x[j] * h[m - 1 - (k - j)];
+                }
+                assertEquals(direct, c[k], 1e-9);
+                assertEquals(corr, r[k], 1e-9);
+            }
+
+            double[] p = evalValue("psd(x)", context).getDense().getData();
+            assertEquals(n / 2 + 1, p.length);
+            double energy = 0, total = 0;
+            for (double v : x) energy += v * v;
+            for (double v : p) total += v;
+            assertEquals(energy, total, 1e-8);
+        }
+
+        @Test
+        @DisplayName("空序列错误")
+        void testErrors() {
+            for (String expr : new String[]{"psd([])", "xcorr([])", "xcorr([1, 2], [])", "conv([], [1, 2])",
+                "conv([1, 2], [])", "fft([])"}) {
+                ExpressionException e = assertThrows(ExpressionException.class, () -> evalValue(expr), expr);
+                assertEquals(ErrorCode.MATRIX_EMPTY, e.getErrorCode(), expr);
+            }
+        }
     }
 }